@@ -0,0 +1,348 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.omegat.core.segmentation.MapRule;
+import org.omegat.core.segmentation.Rule;
+import org.omegat.core.segmentation.SRX;
+import org.omegat.util.OStrings;
+
+import gen.core.filters.Filter;
+import gen.core.filters.Filters;
+
+/**
+ * Inputs of the target files created by the last compile, kept in the
+ * project's internal folder, for re-create only target files which could
+ * change.
+ * <p>
+ * For every source file the manifest keeps the digest of its content (with
+ * size and modification time, for don't read unchanged files), the digest of
+ * translations of its segments, and the size and modification time of the
+ * created target file. The file also keeps the digest of settings all target
+ * files depend on: project languages and segmentation, filters configuration
+ * and segmentation rules. A target file is up to date if none of them
+ * changed, and nobody changed or removed the target file.
+ * <p>
+ * This class is not thread safe.
+ */
+class CompileManifest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompileManifest.class);
+
+    /** Version of the file format and of the digests. */
+    static final int VERSION = 1;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final File file;
+    private final byte[] settings;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * @param settings
+     *            digest of settings, see
+     *            {@link #digestSettings(ProjectProperties, Filters, SRX)}
+     */
+    CompileManifest(File file, byte[] settings) {
+        this.file = file;
+        this.settings = settings;
+    }
+
+    /**
+     * Read the manifest of the last compile. Nothing is read if the file
+     * doesn't exist, or it was written for other settings.
+     */
+    void load() {
+        entries.clear();
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != VERSION || !Arrays.equals(readBytes(in), settings)) {
+                LOGGER.debug("Compile manifest is outdated");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String sourcePath = in.readUTF();
+                Entry en = new Entry();
+                en.sourceLength = in.readLong();
+                en.sourceModified = in.readLong();
+                en.sourceDigest = readBytes(in);
+                en.translationsDigest = readBytes(in);
+                en.targetPath = in.readUTF();
+                en.targetLength = in.readLong();
+                en.targetModified = in.readLong();
+                entries.put(sourcePath, en);
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Compile manifest can't be read", ex);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Write the manifest. Errors are only logged, since the next compile can
+     * just create all files.
+     */
+    void save() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(VERSION);
+                writeBytes(out, settings);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> en : entries.entrySet()) {
+                    Entry e = en.getValue();
+                    out.writeUTF(en.getKey());
+                    out.writeLong(e.sourceLength);
+                    out.writeLong(e.sourceModified);
+                    writeBytes(out, e.sourceDigest);
+                    writeBytes(out, e.translationsDigest);
+                    out.writeUTF(e.targetPath);
+                    out.writeLong(e.targetLength);
+                    out.writeLong(e.targetModified);
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.warn("Compile manifest can't be written", ex);
+        }
+    }
+
+    /**
+     * Returns true if the target file created from the source by the last
+     * compile still exists, and would be the same if created again.
+     *
+     * @param sourcePath
+     *            path of the source file, relative to the source root
+     * @param translations
+     *            digest of the file translations, see
+     *            {@link #digestTranslations(List, Function)}
+     */
+    boolean isUpToDate(String sourcePath, File sourceRoot, byte[] translations, File targetRoot)
+            throws IOException {
+        Entry en = entries.get(sourcePath);
+        if (en == null || !Arrays.equals(en.translationsDigest, translations)) {
+            return false;
+        }
+        File target = new File(targetRoot, en.targetPath);
+        if (!target.isFile() || target.length() != en.targetLength
+                || target.lastModified() != en.targetModified) {
+            return false;
+        }
+        File source = new File(sourceRoot, sourcePath);
+        if (!source.isFile() || source.length() != en.sourceLength) {
+            return false;
+        }
+        if (source.lastModified() != en.sourceModified) {
+            // touched, but the content could be the same, e.g. after checkout
+            if (!Arrays.equals(digestFile(source), en.sourceDigest)) {
+                return false;
+            }
+            en.sourceModified = source.lastModified();
+        }
+        return true;
+    }
+
+    /**
+     * Remember inputs of the just created target file. If the target file
+     * wasn't created, the source file will be compiled next time again.
+     *
+     * @param targetPath
+     *            path of the target file, relative to the target root
+     */
+    void update(String sourcePath, File sourceRoot, byte[] translations, File targetRoot, String targetPath)
+            throws IOException {
+        File source = new File(sourceRoot, sourcePath);
+        File target = new File(targetRoot, targetPath);
+        if (!source.isFile() || !target.isFile()) {
+            entries.remove(sourcePath);
+            return;
+        }
+        Entry en = new Entry();
+        en.sourceLength = source.length();
+        en.sourceModified = source.lastModified();
+        en.sourceDigest = digestFile(source);
+        en.translationsDigest = translations;
+        en.targetPath = targetPath;
+        en.targetLength = target.length();
+        en.targetModified = target.lastModified();
+        entries.put(sourcePath, en);
+    }
+
+    /**
+     * Returns the number of source files in the manifest.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns digest of settings which affect all target files.
+     */
+    static byte[] digestSettings(ProjectProperties config, Filters filters, SRX srx) {
+        MessageDigest md = newDigest();
+        update(md, OStrings.VERSION, Integer.toString(VERSION), config.getSourceLanguage().toString(),
+                config.getTargetLanguage().toString(), Boolean.toString(config.isSentenceSegmentingEnabled()),
+                Boolean.toString(config.isRemoveTags()),
+                Boolean.toString(config.isSupportDefaultTranslations()));
+        if (srx != null) {
+            md.update(digestSRX(srx));
+        }
+        if (filters != null) {
+            update(md, Boolean.toString(filters.isRemoveTags()), Boolean.toString(filters.isRemoveSpacesNonseg()),
+                    Boolean.toString(filters.isPreserveSpaces()), Boolean.toString(filters.isIgnoreFileContext()));
+            for (Filter f : filters.getFilters()) {
+                update(md, f.getClassName(), Boolean.toString(f.isEnabled()));
+                for (gen.core.filters.Files ff : f.getFiles()) {
+                    update(md, ff.getSourceFilenameMask(), ff.getTargetFilenamePattern(), ff.getSourceEncoding(),
+                            ff.getTargetEncoding());
+                }
+                for (Filter.Option option : f.getOption()) {
+                    update(md, option.getName(), option.getValue());
+                }
+            }
+        }
+        return md.digest();
+    }
+
+    /**
+     * Returns digest of segmentation rules: the flags which affect
+     * segmentation and every rule of every language in their order.
+     */
+    static byte[] digestSRX(SRX srx) {
+        MessageDigest md = newDigest();
+        update(md, srx.getVersion(), Boolean.toString(srx.isCascade()), Boolean.toString(srx.isSegmentSubflows()),
+                Boolean.toString(srx.isIncludeStartingTags()), Boolean.toString(srx.isIncludeEndingTags()),
+                Boolean.toString(srx.isIncludeIsolatedTags()), Integer.toString(srx.getMappingRules().size()));
+        for (MapRule mapRule : srx.getMappingRules()) {
+            update(md, mapRule.getLanguage(), mapRule.getPattern(), Integer.toString(mapRule.getRules().size()));
+            for (Rule rule : mapRule.getRules()) {
+                update(md, Boolean.toString(rule.isBreakRule()), rule.getBeforebreak(), rule.getAfterbreak());
+            }
+        }
+        return md.digest();
+    }
+
+    /**
+     * Returns digest of translations of the source file segments.
+     *
+     * @param translation
+     *            translation the compile would use for segment, or null
+     */
+    static byte[] digestTranslations(List<SourceTextEntry> entries,
+            Function<SourceTextEntry, String> translation) {
+        MessageDigest md = newDigest();
+        for (SourceTextEntry ste : entries) {
+            update(md, ste.getSrcText(), translation.apply(ste));
+        }
+        return md.digest();
+    }
+
+    static byte[] digestFile(File f) throws IOException {
+        MessageDigest md = newDigest();
+        byte[] buffer = new byte[65536];
+        try (InputStream in = Files.newInputStream(f.toPath())) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                md.update(buffer, 0, len);
+            }
+        }
+        return md.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform has to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void update(MessageDigest md, String... texts) {
+        for (String text : texts) {
+            if (text == null) {
+                md.update((byte) 0);
+            } else {
+                md.update((byte) 1);
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                // length as separator, so "ab"+"c" differs from "a"+"bc"
+                md.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+                md.update(bytes);
+            }
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] result = new byte[in.readUnsignedByte()];
+        in.readFully(result);
+        return result;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] data) throws IOException {
+        out.writeByte(data.length);
+        out.write(data);
+    }
+
+    /**
+     * Inputs and output of one source file.
+     */
+    private static class Entry {
+        long sourceLength;
+        long sourceModified;
+        byte[] sourceDigest;
+        byte[] translationsDigest;
+        String targetPath;
+        long targetLength;
+        long targetModified;
+    }
+}
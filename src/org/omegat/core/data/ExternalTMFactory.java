@@ -27,10 +27,16 @@
 package org.omegat.core.data;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Consumer;
 
 import org.omegat.core.Core;
 import org.omegat.core.data.ParseEntry.ParseEntryResult;
@@ -41,6 +47,7 @@ import org.omegat.filters2.IParseCallback;
 import org.omegat.filters2.master.FilterMaster;
 import org.omegat.util.Language;
 import org.omegat.util.OConsts;
+import org.omegat.util.ParallelTMXReader;
 import org.omegat.util.Preferences;
 import org.omegat.util.StringUtil;
 import org.omegat.util.TMXProp;
@@ -55,6 +62,9 @@ import org.omegat.util.TMXReader2;
  */
 public final class ExternalTMFactory {
 
+    /** Default minimal size in megabytes of TMX kept in memory-mapped file. */
+    private static final int DEFAULT_MAPPED_MIN_SIZE = 32;
+
     private ExternalTMFactory() {
     }
 
@@ -63,19 +73,42 @@ public final class ExternalTMFactory {
     }
 
     public static ExternalTMX load(File file) throws Exception {
+        return load(file, RealProject.getProjectLoadThreads());
+    }
+
+    /**
+     * @param threads
+     *            number of threads for reading of big TMX
+     */
+    public static ExternalTMX load(File file, int threads) throws Exception {
         return load(file, Core.getProject().getProjectProperties(), Core.getSegmenter(),
-                Core.getFilterMaster());
+                Core.getFilterMaster(), threads);
     }
 
     public static ExternalTMX load(File file, ProjectProperties props, Segmenter segmenter,
                                    FilterMaster filterMaster) throws Exception {
+        return load(file, props, segmenter, filterMaster, RealProject.getProjectLoadThreads());
+    }
+
+    /**
+     * @param threads
+     *            number of threads for reading of big TMX
+     */
+    public static ExternalTMX load(File file, ProjectProperties props, Segmenter segmenter,
+                                   FilterMaster filterMaster, int threads) throws Exception {
         if (TMXLoader.isSupported(file)) {
-            return new TMXLoader(file, segmenter)
+            TMXLoader loader = new TMXLoader(file, segmenter)
                     .setExtTmxLevel2(Preferences.isPreference(Preferences.EXT_TMX_SHOW_LEVEL2))
                     .setUseSlash(Preferences.isPreference(Preferences.EXT_TMX_USE_SLASH))
                     .setDoSegmenting(props.isSentenceSegmentingEnabled())
                     .setKeepForeignMatches(Preferences.isPreference(Preferences.EXT_TMX_KEEP_FOREIGN_MATCH))
-                    .load(props.getSourceLanguage(), props.getTargetLanguage());
+                    .setThreads(threads);
+            long mappedMinSize = Preferences.getPreferenceDefault(Preferences.EXT_TMX_MAPPED_MIN_SIZE,
+                    DEFAULT_MAPPED_MIN_SIZE) * 1024L * 1024L;
+            if (mappedMinSize > 0 && file.length() >= mappedMinSize) {
+                loader.setMappedDir(new File(props.getProjectInternal(), OConsts.MAPPED_TM_DIR));
+            }
+            return loader.load(props.getSourceLanguage(), props.getTargetLanguage());
         } else if (BifileLoader.isSupported(file, filterMaster)) {
             return new BifileLoader(file, segmenter, filterMaster).setRemoveTags(props.isRemoveTags())
                     .setRemoveSpaces(filterMaster.getConfig().isRemoveSpacesNonseg())
@@ -102,6 +135,8 @@ public final class ExternalTMFactory {
         private boolean useSlash;
         private boolean doSegmenting;
         private boolean keepForeignMatches;
+        private File mappedDir;
+        private int threads = 1;
         private final Segmenter segmenter;
 
         public TMXLoader(File file) {
@@ -133,16 +168,73 @@ public final class ExternalTMFactory {
             return this;
         }
 
-        public ExternalTMX load(Language sourceLang, Language targetLang) throws Exception {
-            return new ExternalTMX(file.getName(), loadImpl(sourceLang, targetLang));
+        /**
+         * Keep entries in a memory-mapped file in the folder instead of the
+         * heap. The file is created on the first load, and used while the TMX
+         * and load options are the same.
+         */
+        public TMXLoader setMappedDir(File mappedDir) {
+            this.mappedDir = mappedDir;
+            return this;
         }
 
-        private List<PrepareTMXEntry> loadImpl(Language sourceLang, Language targetLang) throws Exception {
+        /**
+         * Read big TMX by several threads. Units are converted into entries,
+         * with segmentation, by the same threads.
+         */
+        public TMXLoader setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public ExternalTMX load(Language sourceLang, Language targetLang) throws Exception {
+            if (mappedDir != null) {
+                return new ExternalTMX(file.getName(), loadMapped(sourceLang, targetLang));
+            }
             List<PrepareTMXEntry> entries = new ArrayList<>();
+            loadImpl(sourceLang, targetLang, entries::add);
+            return new ExternalTMX(file.getName(), entries);
+        }
 
-            TMXReader2.LoadCallback loader = new TMXReader2.LoadCallback() {
+        private List<ITMXEntry> loadMapped(Language sourceLang, Language targetLang) throws Exception {
+            String settings = String.join("\n", sourceLang.toString(), targetLang.toString(),
+                    Boolean.toString(extTmxLevel2), Boolean.toString(useSlash), Boolean.toString(doSegmenting),
+                    Boolean.toString(keepForeignMatches),
+                    doSegmenting ? Base64.getEncoder().encodeToString(CompileManifest.digestSRX(segmenter.getSRX()))
+                            : "");
+            File mapped = MappedTMXEntries.getFile(mappedDir, file, settings);
+            if (!mapped.isFile()) {
+                if (!mappedDir.isDirectory() && !mappedDir.mkdirs()) {
+                    throw new IOException("Can't create folder " + mappedDir);
+                }
+                File tmp = new File(mapped.getPath() + ".tmp");
+                try {
+                    try (MappedTMXEntries.Writer writer = new MappedTMXEntries.Writer(tmp)) {
+                        loadImpl(sourceLang, targetLang, te -> {
+                            try {
+                                writer.add(te);
+                            } catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                            }
+                        });
+                    } catch (UncheckedIOException ex) {
+                        throw ex.getCause();
+                    }
+                    Files.move(tmp.toPath(), mapped.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tmp.toPath());
+                }
+                MappedTMXEntries.removeOutdated(mappedDir, file, mapped);
+            }
+            return MappedTMXEntries.map(mapped);
+        }
+
+        private void loadImpl(Language sourceLang, Language targetLang, Consumer<PrepareTMXEntry> entries)
+                throws Exception {
+            // called by reader threads
+            ParallelTMXReader.UnitCallback<PrepareTMXEntry> loader = new ParallelTMXReader.UnitCallback<>() {
                 public boolean onEntry(TMXReader2.ParsedTu tu, TMXReader2.ParsedTuv tuvSource,
-                        TMXReader2.ParsedTuv tuvTarget, boolean isParagraphSegtype) {
+                        TMXReader2.ParsedTuv tuvTarget, boolean isParagraphSegtype, List<PrepareTMXEntry> results) {
 
                     if (tuvSource == null) {
                         return false;
@@ -164,14 +256,15 @@ public final class ExternalTMFactory {
                         if (isForeign && !keepForeignMatches) {
                             continue;
                         }
-                        addTuv(tu, tuvSource, tuvTarget2, isParagraphSegtype, isForeign);
+                        addTuv(tu, tuvSource, tuvTarget2, isParagraphSegtype, isForeign, results);
                     }
 
                     return true;
                 }
 
                 private void addTuv(TMXReader2.ParsedTu tu, TMXReader2.ParsedTuv tuvSource,
-                        TMXReader2.ParsedTuv tuvTarget, boolean isParagraphSegtype, boolean nonTarget) {
+                        TMXReader2.ParsedTuv tuvTarget, boolean isParagraphSegtype, boolean nonTarget,
+                        List<PrepareTMXEntry> results) {
                     String changer = StringUtil.nvl(tuvTarget.changeid, tuvTarget.creationid, tu.changeid,
                             tu.creationid);
                     String creator = StringUtil.nvl(tuvTarget.creationid, tu.creationid);
@@ -200,15 +293,13 @@ public final class ExternalTMFactory {
                             te.otherProperties.add(new TMXProp(PROP_FOREIGN_MATCH, "true"));
                         }
 
-                        entries.add(te);
+                        results.add(te);
                     }
                 }
             };
 
-            TMXReader2 reader = new TMXReader2();
-            reader.readTMX(file, sourceLang, targetLang, doSegmenting, false, extTmxLevel2, useSlash, loader);
-
-            return entries;
+            new ParallelTMXReader(threads).readTMX(file, sourceLang, targetLang, doSegmenting, extTmxLevel2,
+                    useSlash, loader, entries);
         }
     }
 
@@ -32,7 +32,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.omegat.core.statistics.ExactMatchIndex;
+import org.omegat.core.statistics.FuzzyMatchIndex;
+import org.omegat.core.statistics.SentenceMatchCache;
 import org.omegat.core.statistics.StatisticsInfo;
+import org.omegat.core.statistics.TokenizedCorpus;
 import org.omegat.tokenizer.ITokenizer;
 import org.omegat.util.Language;
 
@@ -229,6 +233,46 @@ public interface IProject {
      */
     Map<String, ExternalTMX> getTransMemories();
 
+    /**
+     * Get index of source texts used for find fuzzy match candidates. The index
+     * lives as long as the project is open.
+     *
+     * @return index, or null if project doesn't support it
+     */
+    default FuzzyMatchIndex getFuzzyMatchIndex() {
+        return null;
+    }
+
+    /**
+     * Get index of normalized source texts used for find exact matches. The
+     * index lives as long as the project is open.
+     *
+     * @return index, or null if project doesn't support it
+     */
+    default ExactMatchIndex getExactMatchIndex() {
+        return null;
+    }
+
+    /**
+     * Get store of tokenized texts shared by fuzzy match searches and
+     * statistics. The store lives as long as the project is open.
+     *
+     * @return store, or null if project doesn't support it
+     */
+    default TokenizedCorpus getTokenizedCorpus() {
+        return null;
+    }
+
+    /**
+     * Get cache of matches for separate sentences of paragraphs. The cache is
+     * cleared on every change of the project memory or TMs.
+     *
+     * @return cache, or null if project doesn't support it
+     */
+    default SentenceMatchCache getSentenceMatchCache() {
+        return null;
+    }
+
     /**
      * Get all translation memories from /other_lang/ folder.
      *
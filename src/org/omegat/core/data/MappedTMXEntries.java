@@ -0,0 +1,501 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.omegat.util.TMXProp;
+
+/**
+ * Entries of an external TM, kept in a memory-mapped file instead of the heap.
+ * <p>
+ * The file is written once by {@link Writer}, and then read by
+ * {@link #map(File)}. Entries are created on every {@link #get(int)} and read
+ * their texts from the file when asked, so a big TM takes on heap only the
+ * objects currently used by the caller. The operating system keeps in memory
+ * the pages of the file which are used often.
+ * <p>
+ * The file has a header, then UTF-8 texts of all entries, then the table of
+ * properties and the table of entries. Tables have fixed-size records with
+ * offset and length of every text. Short texts which repeat in many entries,
+ * like authors or property names, are written only once.
+ * <p>
+ * This class is thread safe.
+ */
+class MappedTMXEntries extends AbstractList<ITMXEntry> implements RandomAccess {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedTMXEntries.class);
+
+    /** "OTMX" */
+    static final int MAGIC = 0x4f544d58;
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 88;
+    private static final int PROP_SIZE = 24;
+
+    /**
+     * Files bigger than 2 GB are mapped by chunks. Numbers in the file are
+     * aligned, so they never cross chunks.
+     */
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    /** Texts longer than this are never shared between entries. */
+    private static final int MAX_SHARED_LENGTH = 64;
+    private static final int MAX_SHARED_COUNT = 100_000;
+
+    private final ByteBuffer[] chunks;
+    private final int size;
+    private final long propsOffset;
+    private final long entriesOffset;
+
+    private MappedTMXEntries(ByteBuffer[] chunks) throws IOException {
+        this.chunks = chunks;
+        if (getInt(0) != MAGIC || getInt(4) != VERSION) {
+            throw new IOException("Unsupported format of mapped TM");
+        }
+        size = getInt(8);
+        propsOffset = getLong(16);
+        entriesOffset = getLong(24);
+    }
+
+    /**
+     * Map the file written by {@link Writer}.
+     */
+    static MappedTMXEntries map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IOException("Mapped TM is truncated: " + file);
+            }
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(CHUNK_MASK + 1, length - start));
+            }
+            // mapping stays valid after the channel is closed
+            return new MappedTMXEntries(chunks);
+        }
+    }
+
+    /**
+     * Returns the mapped file for the TMX. Name of the file depends on the TMX
+     * path, size and modification time, and on load settings, so the file is
+     * created again when any of them changes.
+     */
+    static File getFile(File dir, File tmx, String settings) {
+        String name = digest(tmx.getAbsolutePath()) + "-" + digest(Integer.toString(VERSION),
+                Long.toString(tmx.length()), Long.toString(tmx.lastModified()), settings);
+        return new File(dir, name + ".bin");
+    }
+
+    /**
+     * Remove files created for other versions of the TMX. Files which are
+     * still mapped can't be removed on some systems, so errors are ignored.
+     */
+    static void removeOutdated(File dir, File tmx, File current) {
+        String prefix = digest(tmx.getAbsolutePath()) + "-";
+        File[] files = dir.listFiles((d, name) -> name.startsWith(prefix) && name.endsWith(".bin"));
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            if (!f.equals(current) && !f.delete()) {
+                LOGGER.debug("Outdated mapped TM can't be removed: {}", f);
+            }
+        }
+    }
+
+    /**
+     * Remove files created for TMX which don't exist anymore, or are not in
+     * the TM folder. Errors are ignored like in
+     * {@link #removeOutdated(File, File, File)}.
+     */
+    static void removeOrphaned(File dir, Collection<File> tmxFiles) {
+        Set<String> prefixes = new HashSet<>();
+        for (File tmx : tmxFiles) {
+            prefixes.add(digest(tmx.getAbsolutePath()) + "-");
+        }
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".bin"));
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            String name = f.getName();
+            int pos = name.indexOf('-');
+            if (pos >= 0 && prefixes.contains(name.substring(0, pos + 1))) {
+                continue;
+            }
+            if (!f.delete()) {
+                LOGGER.debug("Orphaned mapped TM can't be removed: {}", f);
+            }
+        }
+    }
+
+    private static String digest(String... texts) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform has to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+        for (String text : texts) {
+            md.update(text.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+        }
+        StringBuilder result = new StringBuilder();
+        byte[] bytes = md.digest();
+        for (int i = 0; i < 8; i++) {
+            result.append(String.format("%02x", bytes[i]));
+        }
+        return result.toString();
+    }
+
+    @Override
+    public ITMXEntry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new Entry(entriesOffset + (long) index * ENTRY_SIZE);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int getInt(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].getInt((int) (pos & CHUNK_MASK));
+    }
+
+    private long getLong(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].getLong((int) (pos & CHUNK_MASK));
+    }
+
+    /**
+     * Read text by offset and length stored at positions.
+     */
+    private String getText(long offsetPos, long lengthPos) {
+        int length = getInt(lengthPos);
+        if (length < 0) {
+            return null;
+        }
+        long offset = getLong(offsetPos);
+        byte[] bytes = new byte[length];
+        int done = 0;
+        while (done < length) {
+            long p = offset + done;
+            // duplicate, since position of shared buffer can't be changed
+            ByteBuffer chunk = chunks[(int) (p >>> CHUNK_BITS)].duplicate();
+            chunk.position((int) (p & CHUNK_MASK));
+            int n = Math.min(length - done, chunk.remaining());
+            chunk.get(bytes, done, n);
+            done += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Entry which reads texts from the file. Record of the entry has offsets
+     * (8) of source, translation, note, creator and changer, index of the
+     * first property(8), creation and change dates(8), then lengths(4) of the
+     * same texts and number of properties(4). Property record has offsets of
+     * type and value, then their lengths. Texts are decoded on first access.
+     */
+    private class Entry implements ITMXEntry {
+        private final long pos;
+        private final boolean hasSource;
+        private String source;
+        private String translation;
+        private String note;
+        private String creator;
+        private String changer;
+
+        Entry(long pos) {
+            this.pos = pos;
+            hasSource = getInt(pos + 64) >= 0;
+        }
+
+        @Override
+        public String getSourceText() {
+            if (source == null && hasSource) {
+                source = getText(pos, pos + 64);
+            }
+            return source;
+        }
+
+        @Override
+        public String getTranslationText() {
+            if (translation == null) {
+                translation = getText(pos + 8, pos + 68);
+            }
+            return translation;
+        }
+
+        @Override
+        public String getNote() {
+            if (note == null) {
+                note = getText(pos + 16, pos + 72);
+            }
+            return note;
+        }
+
+        @Override
+        public String getCreator() {
+            if (creator == null) {
+                creator = getText(pos + 24, pos + 76);
+            }
+            return creator;
+        }
+
+        @Override
+        public String getChanger() {
+            if (changer == null) {
+                changer = getText(pos + 32, pos + 80);
+            }
+            return changer;
+        }
+
+        @Override
+        public long getCreationDate() {
+            return getLong(pos + 48);
+        }
+
+        @Override
+        public long getChangeDate() {
+            return getLong(pos + 56);
+        }
+
+        private int getPropCount() {
+            return getInt(pos + 84);
+        }
+
+        private long getPropPos(int i) {
+            return propsOffset + (getLong(pos + 40) + i) * PROP_SIZE;
+        }
+
+        @Override
+        public boolean hasProperties() {
+            return getPropCount() > 0;
+        }
+
+        @Override
+        public String getPropValue(String propType) {
+            for (int i = 0; i < getPropCount(); i++) {
+                long p = getPropPos(i);
+                if (propType.equals(getText(p, p + 16))) {
+                    return getText(p + 8, p + 20);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasPropValue(String propType, String propValue) {
+            for (int i = 0; i < getPropCount(); i++) {
+                long p = getPropPos(i);
+                if (propType.equals(getText(p, p + 16))) {
+                    if (propValue == null || propValue.equals(getText(p + 8, p + 20))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<TMXProp> getProperties() {
+            int count = getPropCount();
+            List<TMXProp> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long p = getPropPos(i);
+                result.add(new TMXProp(getText(p, p + 16), getText(p + 8, p + 20)));
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
+
+    /**
+     * Writes entries into the file for {@link MappedTMXEntries#map(File)}.
+     * Entries are written when added, so the heap keeps only the shared
+     * texts. Tables are collected in temporary files and appended to the file
+     * by {@link #close()}.
+     */
+    static final class Writer implements Closeable {
+        private final File file;
+        private final File entriesFile;
+        private final File propsFile;
+        private final DataOutputStream texts;
+        private final DataOutputStream entries;
+        private final DataOutputStream props;
+        private final Map<String, Long> shared = new HashMap<>();
+        private final long[] offsets = new long[5];
+        private final int[] lengths = new int[5];
+        private long textsPos;
+        private int count;
+        private long propsCount;
+        private boolean closed;
+
+        Writer(File file) throws IOException {
+            this.file = file;
+            entriesFile = new File(file.getPath() + ".entries");
+            propsFile = new File(file.getPath() + ".props");
+            texts = open(file);
+            entries = open(entriesFile);
+            props = open(propsFile);
+            // header is written on close
+            texts.write(new byte[HEADER_SIZE]);
+            textsPos = HEADER_SIZE;
+        }
+
+        private static DataOutputStream open(File f) throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(f.toPath())));
+        }
+
+        void add(ITMXEntry entry) throws IOException {
+            writeText(0, entry.getSourceText(), false);
+            writeText(1, entry.getTranslationText(), false);
+            writeText(2, entry.getNote(), false);
+            writeText(3, entry.getCreator(), true);
+            writeText(4, entry.getChanger(), true);
+            for (int i = 0; i < 5; i++) {
+                entries.writeLong(offsets[i]);
+            }
+            List<TMXProp> properties = entry.hasProperties() ? entry.getProperties() : Collections.emptyList();
+            entries.writeLong(propsCount);
+            entries.writeLong(entry.getCreationDate());
+            entries.writeLong(entry.getChangeDate());
+            for (int i = 0; i < 5; i++) {
+                entries.writeInt(lengths[i]);
+            }
+            entries.writeInt(properties.size());
+
+            for (TMXProp prop : properties) {
+                writeText(0, prop.getType(), true);
+                writeText(1, prop.getValue(), true);
+                props.writeLong(offsets[0]);
+                props.writeLong(offsets[1]);
+                props.writeInt(lengths[0]);
+                props.writeInt(lengths[1]);
+            }
+            propsCount += properties.size();
+            count++;
+        }
+
+        /**
+         * Write text into texts, and keep its offset and length for the table
+         * record.
+         */
+        private void writeText(int field, String text, boolean share) throws IOException {
+            if (text == null) {
+                offsets[field] = 0;
+                lengths[field] = -1;
+                return;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            Long offset = share ? shared.get(text) : null;
+            if (offset == null) {
+                offset = textsPos;
+                texts.write(bytes);
+                textsPos += bytes.length;
+                if (share && bytes.length <= MAX_SHARED_LENGTH && shared.size() < MAX_SHARED_COUNT) {
+                    shared.put(text, offset);
+                }
+            }
+            offsets[field] = offset;
+            lengths[field] = bytes.length;
+        }
+
+        /**
+         * Finish the file. Tables are aligned by 8 bytes.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                entries.close();
+                props.close();
+                long propsOffset = align(textsPos);
+                texts.write(new byte[(int) (propsOffset - textsPos)]);
+                Files.copy(propsFile.toPath(), texts);
+                long entriesOffset = align(propsOffset + propsCount * PROP_SIZE);
+                texts.write(new byte[(int) (entriesOffset - propsOffset - propsCount * PROP_SIZE)]);
+                Files.copy(entriesFile.toPath(), texts);
+                texts.close();
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.writeInt(MAGIC);
+                    raf.writeInt(VERSION);
+                    raf.writeInt(count);
+                    raf.writeInt(0);
+                    raf.writeLong(propsOffset);
+                    raf.writeLong(entriesOffset);
+                }
+            } finally {
+                texts.close();
+                entries.close();
+                props.close();
+                Files.deleteIfExists(entriesFile.toPath());
+                Files.deleteIfExists(propsFile.toPath());
+            }
+        }
+
+        private static long align(long pos) {
+            return (pos + 7) & ~7L;
+        }
+    }
+}
@@ -84,6 +84,22 @@ public abstract class ParseEntry implements IParseCallback {
         parseQueue.clear();
     }
 
+    /**
+     * Returns segments of the current file collected from the filter, which
+     * will be added on {@link #fileFinished()}.
+     */
+    protected List<ParseEntryQueueItem> getParsedSegments() {
+        return parseQueue;
+    }
+
+    /**
+     * Add segments of the current file collected before, e.g. stored from
+     * previous parsing of the same file, instead of parsing it again.
+     */
+    protected void addParsedSegments(List<ParseEntryQueueItem> segments) {
+        parseQueue.addAll(segments);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,151 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Files loaded by worker threads in advance, for the project load.
+ * <p>
+ * Translation memories are loaded by directory monitor callbacks, which the
+ * monitor calls file by file. On project load all files of the directory are
+ * submitted here first, and the callback takes the loaded file by
+ * {@link #get(File)} instead of loading it itself. So files are still
+ * processed by the callback in the monitor order, but reading of the next
+ * files runs meanwhile. A file which was not submitted, or changed since, is
+ * loaded by the calling thread.
+ * <p>
+ * Only {@link #get(File)} and {@link #close()} should be called by the same
+ * thread.
+ *
+ * @param <T>
+ *            type of loaded file
+ */
+class PreloadedFiles<T> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreloadedFiles.class);
+
+    /**
+     * Loading of one file.
+     */
+    interface Loader<T> {
+        T load(File file) throws Exception;
+    }
+
+    private final Loader<T> loader;
+    private final ExecutorService executor;
+    private final Map<String, Preload<T>> preloads = new HashMap<>();
+
+    /**
+     * Start loading of files.
+     *
+     * @param name
+     *            name of worker threads
+     * @param threads
+     *            number of worker threads; files are not loaded in advance if
+     *            less than 2
+     */
+    PreloadedFiles(String name, Collection<File> files, int threads, Loader<T> loader) {
+        this.loader = loader;
+        threads = Math.min(threads, files.size());
+        if (threads < 2) {
+            executor = null;
+            return;
+        }
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+        for (File file : files) {
+            Preload<T> preload = new Preload<>();
+            preload.modified = file.lastModified();
+            preload.length = file.length();
+            preload.future = executor.submit(() -> load(file));
+            preloads.put(file.getPath(), preload);
+        }
+    }
+
+    /**
+     * Returns the loaded file, waiting for the worker thread if needed.
+     */
+    T get(File file) throws Exception {
+        Preload<T> preload = preloads.remove(file.getPath());
+        if (preload == null) {
+            return load(file);
+        }
+        if (preload.modified != file.lastModified() || preload.length != file.length()) {
+            // changed while loading
+            preload.future.cancel(true);
+            return load(file);
+        }
+        try {
+            return preload.future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Stop loading of files which were not taken.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        preloads.clear();
+    }
+
+    private T load(File file) throws Exception {
+        long st = System.currentTimeMillis();
+        T result = loader.load(file);
+        LOGGER.debug("Loaded {} ({} bytes) in {} ms", file, file.length(), System.currentTimeMillis() - st);
+        return result;
+    }
+
+    private static class Preload<T> {
+        long modified;
+        long length;
+        Future<T> future;
+    }
+}
@@ -30,21 +30,25 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.omegat.core.Core;
 import org.omegat.core.segmentation.Segmenter;
 import org.omegat.util.FileUtil;
+import org.omegat.util.FutureUtils;
 import org.omegat.util.Language;
 import org.omegat.util.Log;
 import org.omegat.util.OConsts;
 import org.omegat.util.Preferences;
+import org.omegat.util.SnapshotMap;
 import org.omegat.util.StringUtil;
 import org.omegat.util.TMXReader2;
 import org.omegat.util.TMXWriter2;
@@ -74,19 +78,29 @@ public class ProjectTMX {
     /**
      * Storage for default translations for current project.
      *
-     * It must be used with synchronization around ProjectTMX.
+     * Changes must be synchronized around ProjectTMX. Reads don't need
+     * synchronization, but use {@link #snapshot()} for read both maps
+     * consistently.
      */
-    protected Map<String, TMXEntry> defaults;
+    protected volatile SnapshotMap<String, TMXEntry> defaults;
 
     /**
      * Storage for alternative translations for current project.
      *
-     * It must be used with synchronization around ProjectTMX.
+     * Changes must be synchronized around ProjectTMX. Reads don't need
+     * synchronization, but use {@link #snapshot()} for read both maps
+     * consistently.
      */
-    protected Map<EntryKey, TMXEntry> alternatives;
+    protected volatile SnapshotMap<EntryKey, TMXEntry> alternatives;
 
     final CheckOrphanedCallback checkOrphanedCallback;
 
+    /**
+     * Journal of changes not saved into project_save.tmx yet, or null if
+     * changes are not journaled.
+     */
+    private TranslationJournal journal;
+
     public ProjectTMX(Language sourceLanguage, Language targetLanguage, boolean isSentenceSegmentingEnabled,
             File file, CheckOrphanedCallback callback) throws Exception {
         this(sourceLanguage, targetLanguage, isSentenceSegmentingEnabled, file, callback,
@@ -96,8 +110,8 @@ public class ProjectTMX {
     public ProjectTMX(Language sourceLanguage, Language targetLanguage, boolean isSentenceSegmentingEnabled,
                       File file, CheckOrphanedCallback callback, Segmenter segmenter) throws Exception {
         this.checkOrphanedCallback = callback;
-        alternatives = new HashMap<>();
-        defaults = new HashMap<>();
+        alternatives = new SnapshotMap<>();
+        defaults = new SnapshotMap<>();
 
         if (file == null || !file.exists()) {
             // file not exist - new project
@@ -119,11 +133,36 @@ public class ProjectTMX {
      * Constructor for TMX delta.
      */
     public ProjectTMX() {
-        alternatives = new HashMap<EntryKey, TMXEntry>();
-        defaults = new HashMap<String, TMXEntry>();
+        alternatives = new SnapshotMap<>();
+        defaults = new SnapshotMap<>();
         checkOrphanedCallback = null;
     }
 
+    /**
+     * Unchangeable state of all translations at some moment. Later changes of
+     * translations don't affect it, so it can be iterated without
+     * synchronization.
+     */
+    public static final class Snapshot {
+        public final Map<String, TMXEntry> defaults;
+        public final Map<EntryKey, TMXEntry> alternatives;
+
+        Snapshot(Map<String, TMXEntry> defaults, Map<EntryKey, TMXEntry> alternatives) {
+            this.defaults = defaults;
+            this.alternatives = alternatives;
+        }
+    }
+
+    /**
+     * Returns current state of all translations. Takes constant time, so
+     * doesn't delay changes of translations.
+     */
+    public Snapshot snapshot() {
+        synchronized (this) {
+            return new Snapshot(defaults.snapshot(), alternatives.snapshot());
+        }
+    }
+
     /**
      * Check TMX for empty.
      */
@@ -146,8 +185,17 @@ public class ProjectTMX {
 
         File newFile = new File(translationFile + OConsts.NEWFILE_EXTENSION);
 
+        Snapshot snapshot;
+        synchronized (this) {
+            if (journal != null) {
+                // all changes up to now will be written into the file
+                journal.clearPending();
+            }
+            snapshot = snapshot();
+        }
+
         // Save data into '*.new' file
-        exportTMX(props, newFile, false, false, true);
+        exportTMX(props, newFile, false, false, true, snapshot);
 
         File backup = new File(translationFile + OConsts.BACKUP_EXTENSION);
         File orig = new File(translationFile);
@@ -166,82 +214,238 @@ public class ProjectTMX {
 
         // Rename new file into TMX file
         FileUtil.rename(newFile, orig);
+
+        if (journal != null) {
+            journal.delete();
+        }
+    }
+
+    /**
+     * Attach journal, which will collect all translation changes since now.
+     * Changes from the journal file are applied to the current translations.
+     *
+     * @return number of applied changes
+     */
+    int attachJournal(TranslationJournal journal) {
+        int count = journal.replay(this);
+        this.journal = journal;
+        return count;
+    }
+
+    /**
+     * Saves translation changes into the journal instead of the full file.
+     *
+     * @return false if there is no journal, or it can't be used now, so
+     *         {@link #save} should be called
+     */
+    boolean saveJournal() {
+        return journal != null && journal.append();
+    }
+
+    /**
+     * Check if there are translation changes kept in the journal only, i.e.
+     * {@link #save} should write the file even if translations were not
+     * changed since the last save.
+     */
+    boolean hasJournaledChanges() {
+        return journal != null && journal.hasChanges();
     }
 
     public void exportTMX(ProjectProperties props, File outFile, final boolean forceValidTMX,
             final boolean levelTwo, final boolean useOrphaned) throws Exception {
-        TMXWriter2 wr = new TMXWriter2(outFile, props.getSourceLanguage(), props.getTargetLanguage(),
-                props.isSentenceSegmentingEnabled(), levelTwo, forceValidTMX);
-        try {
-            Map<String, TMXEntry> tempDefaults = new TreeMap<>();
-            Map<EntryKey, TMXEntry> tempAlternatives = new TreeMap<>();
+        exportTMX(props, outFile, forceValidTMX, levelTwo, useOrphaned, snapshot());
+    }
 
-            synchronized (this) {
-                if (useOrphaned) {
-                    // fast call - just copy
-                    tempDefaults.putAll(defaults);
-                    tempAlternatives.putAll(alternatives);
-                } else {
-                    // slow call - copy non-orphaned only
-                    for (Map.Entry<String, TMXEntry> en : defaults.entrySet()) {
-                        if (checkOrphanedCallback.existSourceInProject(en.getKey())) {
-                            tempDefaults.put(en.getKey(), en.getValue());
-                        }
-                    }
-                    for (Map.Entry<EntryKey, TMXEntry> en : alternatives.entrySet()) {
-                        if (checkOrphanedCallback.existEntryInProject(en.getKey())) {
-                            tempAlternatives.put(en.getKey(), en.getValue());
-                        }
-                    }
+    private void exportTMX(ProjectProperties props, File outFile, final boolean forceValidTMX,
+            final boolean levelTwo, final boolean useOrphaned, Snapshot snapshot) throws Exception {
+        exportTMX(props, Collections.singletonList(new ExportFile(outFile, forceValidTMX, levelTwo)), useOrphaned,
+                1, snapshot);
+    }
+
+    /**
+     * Export translations into several TMX files, e.g. OmegaT, level 1 and
+     * level 2 TMX on compile. Translations are taken from one snapshot, and
+     * filtered and sorted once for all files.
+     *
+     * @param threads
+     *            number of threads which write files; if less than 2, every
+     *            entry is written into all files by one pass over translations
+     */
+    public void exportTMX(ProjectProperties props, List<ExportFile> files, boolean useOrphaned, int threads)
+            throws Exception {
+        exportTMX(props, files, useOrphaned, threads, snapshot());
+    }
+
+    private void exportTMX(ProjectProperties props, List<ExportFile> files, boolean useOrphaned, int threads,
+            Snapshot snapshot) throws Exception {
+        List<Map.Entry<String, TMXEntry>> tempDefaults = new ArrayList<>(snapshot.defaults.size());
+        List<Map.Entry<EntryKey, TMXEntry>> tempAlternatives = new ArrayList<>(snapshot.alternatives.size());
+        if (useOrphaned) {
+            // fast call - just copy
+            tempDefaults.addAll(snapshot.defaults.entrySet());
+            tempAlternatives.addAll(snapshot.alternatives.entrySet());
+        } else {
+            // slow call - copy non-orphaned only
+            for (Map.Entry<String, TMXEntry> en : snapshot.defaults.entrySet()) {
+                if (checkOrphanedCallback.existSourceInProject(en.getKey())) {
+                    tempDefaults.add(en);
                 }
             }
+            for (Map.Entry<EntryKey, TMXEntry> en : snapshot.alternatives.entrySet()) {
+                if (checkOrphanedCallback.existEntryInProject(en.getKey())) {
+                    tempAlternatives.add(en);
+                }
+            }
+        }
+        tempDefaults.sort(Map.Entry.comparingByKey());
+        tempAlternatives.sort(Map.Entry.comparingByKey());
+
+        if (threads < 2 || files.size() < 2) {
+            List<TMXWriter2> writers = new ArrayList<>(files.size());
+            try {
+                for (ExportFile file : files) {
+                    writers.add(file.createWriter(props));
+                }
+                writeEntries(writers, tempDefaults, tempAlternatives);
+            } finally {
+                closeWriters(writers);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()), r -> {
+            Thread t = new Thread(r, "TMX writer");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>(files.size());
+            for (ExportFile file : files) {
+                futures.add(executor.submit(() -> {
+                    TMXWriter2 wr = file.createWriter(props);
+                    try {
+                        writeEntries(Collections.singletonList(wr), tempDefaults, tempAlternatives);
+                    } finally {
+                        wr.close();
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                FutureUtils.getResult(futures.get(i), files.get(i).file.getPath());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            List<String> p = new ArrayList<>();
+    /**
+     * Writes every entry into all writers.
+     */
+    private static void writeEntries(List<TMXWriter2> writers, List<Map.Entry<String, TMXEntry>> defaults,
+            List<Map.Entry<EntryKey, TMXEntry>> alternatives) throws Exception {
+        boolean saveAutoStatus = Preferences.isPreferenceDefault(Preferences.SAVE_AUTO_STATUS, false);
+        boolean saveOrigin = Preferences.isPreference(Preferences.SAVE_ORIGIN);
+
+        List<String> p = new ArrayList<>();
+        for (TMXWriter2 wr : writers) {
             wr.writeComment(" Default translations ");
-            for (Map.Entry<String, TMXEntry> en : new TreeMap<>(tempDefaults).entrySet()) {
-                p.clear();
-                if (Preferences.isPreferenceDefault(Preferences.SAVE_AUTO_STATUS, false)) {
-                    if (en.getValue().linked == TMXEntry.ExternalLinked.xAUTO) {
-                        p.add(PROP_XAUTO);
-                        p.add("auto");
-                    }
+        }
+        for (Map.Entry<String, TMXEntry> en : defaults) {
+            p.clear();
+            if (saveAutoStatus) {
+                if (en.getValue().linked == TMXEntry.ExternalLinked.xAUTO) {
+                    p.add(PROP_XAUTO);
+                    p.add("auto");
                 }
-                if (Preferences.isPreference(Preferences.SAVE_ORIGIN)) {
-                    if (en.getValue().getPropValue(PROP_ORIGIN) != null) {
-                        p.add(PROP_ORIGIN);
-                        p.add(en.getValue().getPropValue(PROP_ORIGIN));
-                    }
+            }
+            if (saveOrigin) {
+                if (en.getValue().getPropValue(PROP_ORIGIN) != null) {
+                    p.add(PROP_ORIGIN);
+                    p.add(en.getValue().getPropValue(PROP_ORIGIN));
                 }
+            }
+            for (TMXWriter2 wr : writers) {
                 wr.writeEntry(en.getKey(), en.getValue().translation, en.getValue(), p);
             }
+        }
 
+        for (TMXWriter2 wr : writers) {
             wr.writeComment(" Alternative translations ");
-            for (Map.Entry<EntryKey, TMXEntry> en : new TreeMap<>(tempAlternatives).entrySet()) {
-                EntryKey k = en.getKey();
-                p.clear();
-                p.add(PROP_FILE);
-                p.add(k.file);
-                p.add(PROP_ID);
-                p.add(k.id);
-                p.add(PROP_PREV);
-                p.add(k.prev);
-                p.add(PROP_NEXT);
-                p.add(k.next);
-                p.add(PROP_PATH);
-                p.add(k.path);
-                if (Preferences.isPreferenceDefault(Preferences.SAVE_AUTO_STATUS, false)) {
-                    if (en.getValue().linked == TMXEntry.ExternalLinked.xICE) {
-                        p.add(PROP_XICE);
-                        p.add(k.id);
-                    } else if (en.getValue().linked == TMXEntry.ExternalLinked.x100PC) {
-                        p.add(PROP_X100PC);
-                        p.add(k.id);
-                    }
+        }
+        for (Map.Entry<EntryKey, TMXEntry> en : alternatives) {
+            EntryKey k = en.getKey();
+            p.clear();
+            p.add(PROP_FILE);
+            p.add(k.file);
+            p.add(PROP_ID);
+            p.add(k.id);
+            p.add(PROP_PREV);
+            p.add(k.prev);
+            p.add(PROP_NEXT);
+            p.add(k.next);
+            p.add(PROP_PATH);
+            p.add(k.path);
+            if (saveAutoStatus) {
+                if (en.getValue().linked == TMXEntry.ExternalLinked.xICE) {
+                    p.add(PROP_XICE);
+                    p.add(k.id);
+                } else if (en.getValue().linked == TMXEntry.ExternalLinked.x100PC) {
+                    p.add(PROP_X100PC);
+                    p.add(k.id);
                 }
+            }
+            for (TMXWriter2 wr : writers) {
                 wr.writeEntry(en.getKey().sourceText, en.getValue().translation, en.getValue(), p);
             }
-        } finally {
-            wr.close();
+        }
+    }
+
+    /**
+     * Closes all writers, even if some of them fail.
+     */
+    private static void closeWriters(List<TMXWriter2> writers) throws Exception {
+        Exception error = null;
+        for (TMXWriter2 wr : writers) {
+            try {
+                wr.close();
+            } catch (Exception ex) {
+                if (error == null) {
+                    error = ex;
+                } else {
+                    error.addSuppressed(ex);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * TMX file for export, with its options.
+     */
+    public static final class ExportFile {
+        final File file;
+        final boolean forceValidTMX;
+        final boolean levelTwo;
+
+        /**
+         * @param forceValidTMX
+         *            level 1 TMX, i.e. without OmegaT tags
+         * @param levelTwo
+         *            level 2 TMX, i.e. with OmegaT tags wrapped in TMX inline
+         *            tags
+         */
+        public ExportFile(File file, boolean forceValidTMX, boolean levelTwo) {
+            this.file = file;
+            this.forceValidTMX = forceValidTMX;
+            this.levelTwo = levelTwo;
+        }
+
+        TMXWriter2 createWriter(ProjectProperties props) throws Exception {
+            return new TMXWriter2(file, props.getSourceLanguage(), props.getTargetLanguage(),
+                    props.isSentenceSegmentingEnabled(), levelTwo, forceValidTMX);
         }
     }
 
@@ -249,18 +453,14 @@ public class ProjectTMX {
      * Get default translation or null if not exist.
      */
     public TMXEntry getDefaultTranslation(String source) {
-        synchronized (this) {
-            return defaults.get(source);
-        }
+        return defaults.get(source);
     }
 
     /**
      * Get multiple translation or null if not exist.
      */
     public TMXEntry getMultipleTranslation(EntryKey ek) {
-        synchronized (this) {
-            return alternatives.get(ek);
-        }
+        return alternatives.get(ek);
     }
 
     /**
@@ -287,6 +487,30 @@ public class ProjectTMX {
                     alternatives.put(ste.getKey(), te);
                 }
             }
+            if (journal != null) {
+                journal.add(ste.getKey(), te, isDefault);
+            }
+        }
+    }
+
+    /**
+     * Set translation read from the journal.
+     */
+    void applyJournaled(EntryKey key, TMXEntry te, boolean isDefault) {
+        synchronized (this) {
+            if (isDefault) {
+                if (te == null) {
+                    defaults.remove(key.sourceText);
+                } else {
+                    defaults.put(key.sourceText, te);
+                }
+            } else {
+                if (te == null) {
+                    alternatives.remove(key);
+                } else {
+                    alternatives.put(key, te);
+                }
+            }
         }
     }
 
@@ -399,14 +623,14 @@ public class ProjectTMX {
      * Returns the collection of TMX entries that have a default translation
      */
     public Collection<TMXEntry> getDefaults() {
-        return defaults.values();
+        return defaults.snapshot().values();
     }
     /**
      * Returns the collection of TMX entries that have an alternative translation
      * @return
      */
     public Collection<TMXEntry> getAlternatives() {
-        return alternatives.values();
+        return alternatives.snapshot().values();
     }
 
     public interface CheckOrphanedCallback {
@@ -37,6 +37,7 @@
 package org.omegat.core.data;
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.io.Writer;
@@ -51,12 +52,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -77,10 +84,14 @@ import org.omegat.core.data.TMXEntry.ExternalLinked;
 import org.omegat.core.events.IProjectEventListener;
 import org.omegat.core.segmentation.SRX;
 import org.omegat.core.segmentation.Segmenter;
-import org.omegat.core.statistics.CalcStandardStatistics;
+import org.omegat.core.statistics.ExactMatchIndex;
+import org.omegat.core.statistics.FuzzyMatchIndex;
+import org.omegat.core.statistics.ProjectStatistics;
+import org.omegat.core.statistics.SentenceMatchCache;
 import org.omegat.core.statistics.Statistics;
 import org.omegat.core.statistics.StatisticsInfo;
 import org.omegat.core.statistics.StatsResult;
+import org.omegat.core.statistics.TokenizedCorpus;
 import org.omegat.core.team2.IRemoteRepository2;
 import org.omegat.core.team2.RebaseAndCommit;
 import org.omegat.core.team2.RemoteRepositoryProvider;
@@ -97,8 +108,10 @@ import org.omegat.tokenizer.DefaultTokenizer;
 import org.omegat.tokenizer.ITokenizer;
 import org.omegat.util.DirectoryMonitor;
 import org.omegat.util.FileUtil;
+import org.omegat.util.FutureUtils;
 import org.omegat.util.Language;
 import org.omegat.util.Log;
+import org.omegat.util.MemoryUtils;
 import org.omegat.util.OConsts;
 import org.omegat.util.OStrings;
 import org.omegat.util.PatternConsts;
@@ -169,6 +182,29 @@ public class RealProject implements IProject {
 
     private final ITokenizer sourceTokenizer, targetTokenizer;
 
+    /** Tokenized texts, shared by fuzzy match searches and statistics. */
+    private final TokenizedCorpus tokenizedCorpus;
+
+    /** Index of all sources used for fuzzy matching. */
+    private final FuzzyMatchIndex fuzzyMatchIndex;
+
+    /** Index of normalized sources used for find exact matches. */
+    private final ExactMatchIndex exactMatchIndex;
+
+    /** Matches of separate sentences, for paragraph segmented projects. */
+    private final SentenceMatchCache sentenceMatchCache = new SentenceMatchCache();
+
+    /** Standard statistics, updated on every translation change. */
+    private final ProjectStatistics projectStatistics = new ProjectStatistics(this);
+
+    /** Background thread which fills the fuzzy match index. */
+    private final ExecutorService fuzzyMatchIndexer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Fuzzy match indexer");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
     private DirectoryMonitor tmMonitor;
 
     private DirectoryMonitor tmOtherLanguagesMonitor;
@@ -212,6 +248,12 @@ public class RealProject implements IProject {
     private Set<String> existSource = new HashSet<>();
     private Set<EntryKey> existKeys = new HashSet<>();
 
+    /**
+     * Strings of segments which are loaded from source files, for share equal
+     * strings between segments. Exists only while source files are loaded.
+     */
+    private Map<String, String> sharedStrings;
+
     /** Segments count in project files. */
     protected List<FileInfo> projectFilesList = new ArrayList<>();
 
@@ -223,6 +265,12 @@ public class RealProject implements IProject {
         EMPTY_TRANSLATION = new TMXEntry(empty, true, null);
     }
 
+    /** Default limit of threads which load translation memories. */
+    private static final int DEFAULT_TM_LOAD_THREADS = 4;
+
+    /** Default limit of the translation journal size, in megabytes. */
+    private static final int DEFAULT_JOURNAL_MAX_SIZE = 16;
+
     private final boolean allowTranslationEqualToSource = Preferences
             .isPreference(Preferences.ALLOW_TRANS_EQUAL_TO_SRC);
 
@@ -261,6 +309,9 @@ public class RealProject implements IProject {
         targetTokenizer = createTokenizer(Core.getParams().get(CLIParameters.TOKENIZER_TARGET),
                 props.getTargetTokenizer());
         Log.logInfoRB("TARGET_TOKENIZER", targetTokenizer.getClass().getName());
+        tokenizedCorpus = new TokenizedCorpus(sourceTokenizer, props.getSourceLanguage().getLocale());
+        fuzzyMatchIndex = new FuzzyMatchIndex(tokenizedCorpus);
+        exactMatchIndex = new ExactMatchIndex(props.getSourceLanguage().getLocale());
         logger = LoggerFactory.getLogger(RealProject.class, OStrings.getResourceBundle());
     }
 
@@ -417,12 +468,13 @@ public class RealProject implements IProject {
             loadOtherLanguages();
 
             // build word count
-            StatsResult stat = CalcStandardStatistics.buildProjectStats(this);
-            stat.updateStatisticsInfo(hotStat);
+            StatsResult stat = rebuildStatistics();
             Statistics.writeStat(config.getProjectInternal(), stat);
 
             loaded = true;
 
+            indexFuzzyMatchSources();
+
             // Project Loaded...
             Core.getMainWindow().showStatusMessageRB(null);
 
@@ -537,10 +589,67 @@ public class RealProject implements IProject {
         tmMonitor.fin();
         tmOtherLanguagesMonitor.fin();
         tmOtherLanguagesDirMonitor.fin();
+        fuzzyMatchIndexer.shutdownNow();
+        fuzzyMatchIndex.clear();
+        exactMatchIndex.clear();
+        tokenizedCorpus.clear();
+        sentenceMatchCache.clear();
+        projectStatistics.clear();
         unlockProject();
         Log.logInfoRB("LOG_DATAENGINE_CLOSE");
     }
 
+    /**
+     * Tokenize and index all sources used for fuzzy matching in background,
+     * so the first searches and statistics don't have to do it.
+     */
+    private void indexFuzzyMatchSources() {
+        Map<String, ExternalTMX> tms = transMemories;
+        runFuzzyMatchIndexer(() -> {
+            long start = System.currentTimeMillis();
+            fuzzyMatchIndex.checkRemovePattern(PatternConsts.getRemovePattern());
+            exactMatchIndex.checkRemovePattern(PatternConsts.getRemovePattern());
+            exactMatchIndex.index(allProjectEntries);
+            for (ExternalTMX tmx : tms.values()) {
+                exactMatchIndex.index(tmx);
+            }
+            for (SourceTextEntry ste : allProjectEntries) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // project closed
+                    return;
+                }
+                fuzzyMatchIndex.getDocId(ste.getSrcText());
+            }
+            for (ExternalTMX tmx : tms.values()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                fuzzyMatchIndex.getDocIds(tmx);
+            }
+            logger.atDebug().setMessage("Fuzzy match index built: {0} sources in {1} ms")
+                    .addArgument(fuzzyMatchIndex.size()).addArgument(System.currentTimeMillis() - start).log();
+        });
+    }
+
+    /**
+     * Count all statistics again, after translations were replaced, and
+     * refresh the statistics shown by the UI.
+     */
+    private StatsResult rebuildStatistics() {
+        projectStatistics.rebuild();
+        StatsResult stat = projectStatistics.getResult();
+        stat.updateStatisticsInfo(hotStat);
+        return stat;
+    }
+
+    private void runFuzzyMatchIndexer(Runnable task) {
+        try {
+            fuzzyMatchIndexer.execute(task);
+        } catch (RejectedExecutionException ex) {
+            // project already closed
+        }
+    }
+
     /**
      * Lock omegat.project file against rename or move project.
      */
@@ -659,26 +768,32 @@ public class RealProject implements IProject {
         // - OmegaT-specific, with inline OmegaT formatting tags
         // - TMX Level 1, without formatting tags
         // - TMX Level 2, with OmegaT formatting tags wrapped in TMX inline tags
+        // All files are written from one sorted snapshot of translations.
         try {
+            List<ProjectTMX.ExportFile> exportFiles = new ArrayList<>();
             if (config.isExportTm("omegat")) {
                 // build TMX with OmegaT tags
                 fname = config.getExportTMRoot() + config.getProjectName() + OConsts.OMEGAT_TMX
                         + OConsts.TMX_EXTENSION;
-                projectTMX.exportTMX(config, new File(fname), false, false, false);
+                exportFiles.add(new ProjectTMX.ExportFile(new File(fname), false, false));
             }
 
             if (config.isExportTm("level1")) {
                 // build TMX level 1 compliant file
                 fname = config.getExportTMRoot() + config.getProjectName() + OConsts.LEVEL1_TMX
                         + OConsts.TMX_EXTENSION;
-                projectTMX.exportTMX(config, new File(fname), true, false, false);
+                exportFiles.add(new ProjectTMX.ExportFile(new File(fname), true, false));
             }
 
             if (config.isExportTm("level2")) {
                 // build three-quarter-assed TMX level 2 file
                 fname = config.getExportTMRoot() + config.getProjectName() + OConsts.LEVEL2_TMX
                         + OConsts.TMX_EXTENSION;
-                projectTMX.exportTMX(config, new File(fname), false, true, false);
+                exportFiles.add(new ProjectTMX.ExportFile(new File(fname), false, true));
+            }
+
+            if (!exportFiles.isEmpty()) {
+                projectTMX.exportTMX(config, exportFiles, false, getProjectCompileThreads());
             }
         } catch (Exception e) {
             Log.logErrorRB("CT_ERROR_CREATING_TMX");
@@ -695,10 +810,7 @@ public class RealProject implements IProject {
         List<String> pathList = FileUtil.buildRelativeFilesList(new File(srcRoot), Collections.emptyList(),
                 config.getSourceRootExcludes());
 
-        TranslateFilesCallback translateFilesCallback = new TranslateFilesCallback();
-
-        int numberOfCompiled = 0;
-
+        List<String> targetFiles = new ArrayList<>();
         for (String midName : pathList) {
             // shorten filename to that which is relative to src root
             Matcher fileMatch = filePattern.matcher(midName);
@@ -711,13 +823,65 @@ public class RealProject implements IProject {
                                 OStrings.getString("CT_ERROR_CREATING_TARGET_DIR") + fn.getParentFile());
                     }
                 }
+                targetFiles.add(midName);
+            }
+        }
+
+        int numberOfCompiled = targetFiles.size();
+
+        // skip files which would be the same as created by the last compile
+        CompileManifest manifest = null;
+        Map<String, byte[]> translationDigests = new HashMap<>();
+        if (Preferences.isPreferenceDefault(Preferences.PROJECT_COMPILE_INCREMENTAL, true)) {
+            manifest = new CompileManifest(new File(config.getProjectInternal(), OConsts.COMPILE_MANIFEST_FILENAME),
+                    CompileManifest.digestSettings(config, fm.getConfig(), Core.getSegmenter().getSRX()));
+            manifest.load();
+            Map<String, FileInfo> filesByPath = new HashMap<>();
+            for (FileInfo fi : projectFilesList) {
+                filesByPath.put(fi.filePath, fi);
+            }
+            for (Iterator<String> it = targetFiles.iterator(); it.hasNext();) {
+                String midName = it.next();
+                FileInfo fi = filesByPath.get(midName);
+                byte[] digest = CompileManifest.digestTranslations(
+                        fi == null ? Collections.emptyList() : fi.entries, this::getCompileTranslation);
+                if (manifest.isUpToDate(midName, new File(srcRoot), digest, new File(locRoot))) {
+                    it.remove();
+                } else {
+                    translationDigests.put(midName, digest);
+                }
+            }
+        }
+
+        long compileStart = System.currentTimeMillis();
+        int threads = Math.min(getProjectCompileThreads(), targetFiles.size());
+        if (threads > 1) {
+            translateFilesParallel(fm, srcRoot, locRoot, targetFiles, threads);
+        } else {
+            TranslateFilesCallback translateFilesCallback = new TranslateFilesCallback();
+            for (String midName : targetFiles) {
                 Core.getMainWindow().showStatusMessageRB("CT_COMPILE_FILE_MX", midName);
+                long start = System.currentTimeMillis();
                 translateFilesCallback.fileStarted(midName);
                 fm.translateFile(srcRoot, midName, locRoot, new FilterContext(config),
                         translateFilesCallback);
                 translateFilesCallback.fileFinished();
-                numberOfCompiled++;
+                logger.atDebug().setMessage("Target file {0} created in {1} ms").addArgument(midName)
+                        .addArgument(System.currentTimeMillis() - start).log();
+            }
+        }
+        logger.atDebug().setMessage("{0} target files created by {1} threads in {2} ms, {3} up to date")
+                .addArgument(targetFiles.size()).addArgument(Math.max(threads, 1))
+                .addArgument(System.currentTimeMillis() - compileStart)
+                .addArgument(numberOfCompiled - targetFiles.size()).log();
+
+        if (manifest != null) {
+            FilterContext fc = new FilterContext(config);
+            for (String midName : targetFiles) {
+                manifest.update(midName, new File(srcRoot), translationDigests.get(midName), new File(locRoot),
+                        fm.getTargetForSource(srcRoot, midName, fc));
             }
+            manifest.save();
         }
 
         // COMPILE event is fired before committing translated files to remote
@@ -733,7 +897,7 @@ public class RealProject implements IProject {
             // Ticket 1690 - build project statistics files
             // so that contents of these files is up to date with target files
             // sent at same moment
-            StatsResult stat = CalcStandardStatistics.buildProjectStats(this);
+            StatsResult stat = projectStatistics.getResult();
             stat.updateStatisticsInfo(hotStat);
             String fn = config.getProjectInternal() + OConsts.STATS_FILENAME;
             Statistics.writeStat(fn, stat.getTextData());
@@ -855,8 +1019,7 @@ public class RealProject implements IProject {
                 try {
                     saveProjectProperties();
 
-                    projectTMX.save(config, config.getProjectInternal() + OConsts.STATUS_EXTENSION,
-                            isProjectModified());
+                    saveTranslations(doTeamSync);
 
                     if (remoteRepositoryProvider != null && doTeamSync) {
                         tmxPrepared = null;
@@ -883,7 +1046,7 @@ public class RealProject implements IProject {
                 LastSegmentManager.saveLastSegment();
 
                 // update statistics
-                StatsResult stat = CalcStandardStatistics.buildProjectStats(this);
+                StatsResult stat = projectStatistics.getResult();
                 stat.updateStatisticsInfo(hotStat);
                 Statistics.writeStat(config.getProjectInternal(), stat);
             } finally {
@@ -899,6 +1062,24 @@ public class RealProject implements IProject {
         isSaving = false;
     }
 
+    /**
+     * Saves translations into project_save.tmx. Autosave only appends changes
+     * to the translation journal if possible, and the full file is written on
+     * save with team sync, i.e. by the user or on project close.
+     *
+     * @param full
+     *            true if project_save.tmx should contain all translations
+     *            after save
+     */
+    private void saveTranslations(boolean full) throws Exception {
+        if (!full && projectTMX.saveJournal()) {
+            logger.atDebug().log("Translation changes saved into the journal");
+            return;
+        }
+        projectTMX.save(config, config.getProjectInternal() + OConsts.STATUS_EXTENSION,
+                isProjectModified() || projectTMX.hasJournaledChanges());
+    }
+
     /**
      * Prepare for future team sync.
      *
@@ -947,8 +1128,7 @@ public class RealProject implements IProject {
         try {
             preparedStatus = PreparedStatus.PREPARED2;
             synchronized (RealProject.this) {
-                projectTMX.save(config, config.getProjectInternal() + OConsts.STATUS_EXTENSION,
-                        isProjectModified());
+                saveTranslations(true);
             }
             rebaseAndCommitProject(glossaryPrepared != null);
             preparedStatus = PreparedStatus.REBASED;
@@ -1067,6 +1247,8 @@ public class RealProject implements IProject {
                             ProjectTMX newTMX = new ProjectTMX(config.getSourceLanguage(), config.getTargetLanguage(),
                                     config.isSentenceSegmentingEnabled(), file, null);
                             projectTMX.replaceContent(newTMX);
+                            sentenceMatchCache.clear();
+                            rebuildStatistics();
                         }
 
                         @Override
@@ -1234,6 +1416,12 @@ public class RealProject implements IProject {
             Log.logErrorRB(ex, "TMXR_EXCEPTION_WHILE_PARSING");
             throw ex;
         }
+        int journalMaxSize = Preferences.getPreferenceDefault(Preferences.PROJECT_JOURNAL_MAX_SIZE,
+                DEFAULT_JOURNAL_MAX_SIZE);
+        TranslationJournal journal = new TranslationJournal(
+                new File(config.getProjectInternalDir(), OConsts.TRANSLATION_JOURNAL_FILENAME), file,
+                Math.max(journalMaxSize, 0) * 1024L * 1024L);
+        int replayed = projectTMX.attachJournal(journal);
         if (file.exists()) {
             // RFE 1001918 - backing up project's TMX upon successful read
             File backup = FileUtil.backupFile(file);
@@ -1242,14 +1430,24 @@ public class RealProject implements IProject {
         } else {
             Core.getMainWindow().showStatusMessageRB("CT_LOAD_TMX_START_NEW");
         }
+        if (replayed > 0) {
+            // Team sync finds local changes by comparing project_save.tmx with
+            // the base version, and would replace translations recovered from
+            // the journal by the remote file. Write them into the file first.
+            projectTMX.save(config, file.getPath(), true);
+        }
     }
 
     /**
      * Load source files for project.
+     * <p>
+     * Files are parsed by several threads (see
+     * {@link Preferences#PROJECT_LOAD_THREADS}), but segments of every file
+     * are added to the project in the files order, so segments are numbered
+     * the same way as by one thread.
      */
-    private void loadSourceFiles() throws IOException {
+    void loadSourceFiles() throws IOException {
         long st = System.currentTimeMillis();
-        FilterMaster fm = Core.getFilterMaster();
 
         File root = new File(config.getSourceRoot());
         List<String> srcPathList = FileUtil
@@ -1259,38 +1457,114 @@ public class RealProject implements IProject {
 
         List<String> errorSrcList = new ArrayList<>();
 
+        List<SourceFileLoad> loads = new ArrayList<>(srcPathList.size());
         for (String filepath : srcPathList) {
-            Core.getMainWindow().showStatusMessageRB("CT_LOAD_FILE_MX", filepath);
+            loads.add(new SourceFileLoad(filepath));
+        }
+
+        // files which didn't change since the last load are not parsed again
+        SourceFilesCache cache = null;
+        Map<String, Class<?>> filterClasses = new HashMap<>();
+        int cached = 0;
+        if (Preferences.isPreferenceDefault(Preferences.PROJECT_SOURCE_CACHE, true)) {
+            cache = new SourceFilesCache(new File(config.getProjectInternal(), OConsts.SOURCE_CACHE_FILENAME),
+                    CompileManifest.digestSettings(config, Core.getFilterMaster().getConfig(),
+                            Core.getSegmenter().getSRX()));
+            cache.load();
+            for (SourceFileLoad load : loads) {
+                SourceFilesCache.ParsedFile parsed = cache.get(load.fileInfo.filePath, root);
+                if (parsed != null && filterClasses.computeIfAbsent(parsed.filterClass, name -> {
+                    IFilter filter = FilterMaster.getFilterInstance(name);
+                    return filter == null ? null : filter.getClass();
+                }) != null) {
+                    load.cached = parsed;
+                    cached++;
+                }
+            }
+        }
 
-            LoadFilesCallback loadFilesCallback = new LoadFilesCallback(existSource, existKeys,
-                    transMemories);
+        int threads = Math.min(getProjectLoadThreads(), loads.size() - cached);
+        ExecutorService executor = null;
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "Source files loader");
+                t.setDaemon(true);
+                return t;
+            });
+            for (SourceFileLoad load : loads) {
+                if (load.cached == null) {
+                    load.future = executor.submit(load::parse);
+                }
+            }
+        }
 
-            FileInfo fi = new FileInfo();
-            fi.filePath = filepath;
+        sharedStrings = new HashMap<>();
+        try {
+            for (SourceFileLoad load : loads) {
+                String filepath = load.fileInfo.filePath;
+                Core.getMainWindow().showStatusMessageRB("CT_LOAD_FILE_MX", filepath);
 
-            try {
-                loadFilesCallback.setCurrentFile(fi);
-                IFilter filter = fm.loadFile(config.getSourceRoot() + filepath, new FilterContext(config),
-                        loadFilesCallback);
-                loadFilesCallback.fileFinished();
-
-                if (filter != null && !fi.entries.isEmpty()) {
-                    fi.filterClass = filter.getClass();
-                    // Don't store the instance, because
-                    // every file gets an instance and
-                    // then we consume a lot of memory for all
-                    // instances. See also IFilter
-                    fi.filterFileFormatName = filter.getFileFormatName();
-                    fi.fileEncoding = filter.getInEncodingLastParsedFile();
-                    projectFilesList.add(fi);
+                FileInfo fi = load.fileInfo;
+                try {
+                    Class<?> filterClass = null;
+                    if (load.cached != null) {
+                        try {
+                            load.callback.addParsedSegments(load.cached.getSegments());
+                            filterClass = filterClasses.get(load.cached.filterClass);
+                            fi.filterFileFormatName = load.cached.fileFormatName;
+                            fi.fileEncoding = load.cached.fileEncoding;
+                        } catch (IOException e) {
+                            Log.log(e);
+                            load.cached = null;
+                        }
+                    }
+                    if (load.cached == null) {
+                        IFilter filter = load.get();
+                        if (filter != null) {
+                            // Don't store the instance, because
+                            // every file gets an instance and
+                            // then we consume a lot of memory for all
+                            // instances. See also IFilter
+                            filterClass = filter.getClass();
+                            fi.filterFileFormatName = filter.getFileFormatName();
+                            fi.fileEncoding = filter.getInEncodingLastParsedFile();
+                            if (cache != null) {
+                                // segments are changed when added to project
+                                cache.put(filepath, root, filterClass.getName(), fi.filterFileFormatName,
+                                        fi.fileEncoding, load.callback.getParsedSegments());
+                            }
+                        }
+                    }
+                    load.callback.fileFinished();
+
+                    if (filterClass != null && !fi.entries.isEmpty()) {
+                        fi.filterClass = filterClass;
+                        projectFilesList.add(fi);
+                    }
+                } catch (TranslationException e) {
+                    // ignore failed file and continue loading next.
+                    Log.logErrorRB("TF_SOURCE_LOAD_ERROR", e.getLocalizedMessage());
+                    Core.getMainWindow().displayErrorRB(e, "TF_SOURCE_LOAD_ERROR", filepath);
+                    errorSrcList.add(filepath);
                 }
-            } catch (TranslationException e) {
-                // ignore failed file and continue loading next.
-                Log.logErrorRB("TF_SOURCE_LOAD_ERROR", e.getLocalizedMessage());
-                Core.getMainWindow().displayErrorRB(e, "TF_SOURCE_LOAD_ERROR", filepath);
-                errorSrcList.add(filepath);
             }
+        } finally {
+            sharedStrings = null;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        if (cache != null) {
+            List<String> loadedPaths = new ArrayList<>(srcPathList);
+            loadedPaths.removeAll(errorSrcList);
+            cache.save(loadedPaths);
+        }
+        if (Preferences.isPreference(Preferences.PROJECT_MEMORY_REPORT)) {
+            logSegmentsMemory();
         }
+        logger.atDebug().setMessage("Source files parsed by {0} threads in {1} ms, {2} files from cache")
+                .addArgument(Math.max(threads, 1)).addArgument(System.currentTimeMillis() - st)
+                .addArgument(cached).log();
 
         findNonUniqueSegments();
 
@@ -1303,6 +1577,122 @@ public class RealProject implements IProject {
         Log.logInfoRB("CT_LOAD_SRC_FILES", en - st);
     }
 
+    /**
+     * Log memory used by segments of source files, with and without strings
+     * shared between segments. Calculation takes time for big projects.
+     */
+    private void logSegmentsMemory() {
+        int count = Math.max(allProjectEntries.size(), 1);
+        long shared = MemoryUtils.calcDeepSize(allProjectEntries, false);
+        long unshared = MemoryUtils.calcDeepSize(allProjectEntries, true);
+        logger.atInfo().setMessage("Memory of {0} segments: {1} bytes per segment, {2} without shared strings")
+                .addArgument(allProjectEntries.size()).addArgument(shared / count)
+                .addArgument(unshared / count).log();
+    }
+
+    /**
+     * Returns translation which compile uses for segment, the same way as
+     * {@link TranslateFilesCallback}.
+     */
+    private String getCompileTranslation(SourceTextEntry ste) {
+        TMXEntry tr = projectTMX.getMultipleTranslation(ste.getKey());
+        if (tr == null) {
+            tr = projectTMX.getDefaultTranslation(ste.getSrcText());
+        }
+        return tr != null ? tr.translation : null;
+    }
+
+    /**
+     * Returns the number of threads for creating target files: the user
+     * setting, or the number of available processors.
+     */
+    static int getProjectCompileThreads() {
+        int threads = Preferences.getPreferenceDefault(Preferences.PROJECT_COMPILE_THREADS, 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Create target files by several threads. Every file gets its own
+     * callback, since the callback keeps segments of the file between passes.
+     * Method returns when all files are created.
+     * <p>
+     * If a file fails, its exception is thrown like by one thread. Files which
+     * are not started yet are skipped, and files which are being created are
+     * finished before the method returns, so no target file is left half
+     * written.
+     */
+    private void translateFilesParallel(FilterMaster fm, String srcRoot, String locRoot, List<String> files,
+            int threads) throws IOException, TranslationException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "Target files compiler");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<Void>> futures = new ArrayList<>(files.size());
+        try {
+            for (String midName : files) {
+                futures.add(executor.submit(() -> {
+                    long start = System.currentTimeMillis();
+                    TranslateFilesCallback translateFilesCallback = new TranslateFilesCallback();
+                    translateFilesCallback.fileStarted(midName);
+                    fm.translateFile(srcRoot, midName, locRoot, new FilterContext(config),
+                            translateFilesCallback);
+                    translateFilesCallback.fileFinished();
+                    logger.atDebug().setMessage("Target file {0} created in {1} ms").addArgument(midName)
+                            .addArgument(System.currentTimeMillis() - start).log();
+                    return null;
+                }));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                Core.getMainWindow().showStatusMessageRB("CT_COMPILE_FILE_MX", files.get(i));
+                FutureUtils.getResult(futures.get(i), files.get(i));
+            }
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(false);
+            }
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of threads for parsing source files: the user
+     * setting, or the number of available processors.
+     */
+    static int getProjectLoadThreads() {
+        int threads = Preferences.getPreferenceDefault(Preferences.PROJECT_LOAD_THREADS, 0);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns number of threads for load translation memories. Big memories
+     * use a lot of memory while loading, so not all processors are used by
+     * default.
+     */
+    static int getTMLoadThreads() {
+        int threads = Preferences.getPreferenceDefault(Preferences.PROJECT_TM_LOAD_THREADS, 0);
+        return threads > 0 ? threads : Math.min(Runtime.getRuntime().availableProcessors(), DEFAULT_TM_LOAD_THREADS);
+    }
+
+    /**
+     * Returns number of threads for reading one translation memory, when
+     * several memories are loaded at once. Files and reader threads of every
+     * file share the threads of {@link #getProjectLoadThreads()}, so they
+     * don't multiply.
+     *
+     * @param concurrentFiles
+     *            number of files loaded at once
+     */
+    static int getTMReaderThreads(int concurrentFiles) {
+        return Math.max(1, getProjectLoadThreads() / Math.max(1, concurrentFiles));
+    }
+
     protected void findNonUniqueSegments() {
         Map<String, SourceTextEntry> exists = new HashMap<>(16384);
 
@@ -1404,7 +1794,15 @@ public class RealProject implements IProject {
      * directory monitor for check file updates.
      */
     private void loadTM() {
+        long st = System.currentTimeMillis();
         File tmRoot = new File(config.getTMRoot());
+        FileFilter tmFilter = file -> ExternalTMFactory.isSupported(file)
+                && !file.getPath().replace('\\', '/').startsWith(config.getTMOtherLangRoot());
+        List<File> tmFiles = FileUtil.findFiles(tmRoot, tmFilter);
+        int concurrentFiles = Math.max(1, Math.min(getTMLoadThreads(), tmFiles.size()));
+        int readerThreads = getTMReaderThreads(concurrentFiles);
+        PreloadedFiles<ExternalTMX> preloaded = new PreloadedFiles<>("TM loader", tmFiles, concurrentFiles,
+                file -> ExternalTMFactory.load(file, readerThreads));
         tmMonitor = new DirectoryMonitor(tmRoot, file -> {
             if (!ExternalTMFactory.isSupported(file)) {
                 // not a TMX file
@@ -1415,14 +1813,25 @@ public class RealProject implements IProject {
                 // it.
                 return;
             }
+            if (!loaded) {
+                Core.getMainWindow().showStatusMessageRB("CT_LOAD_FILE_MX", file.getName());
+            }
             // create new translation memories map
             Map<String, ExternalTMX> newTransMemories = new TreeMap<>(
                     new FileUtil.TmFileComparator(config.getTmDir().getAsFile()));
             newTransMemories.putAll(transMemories);
+            boolean replaced = newTransMemories.containsKey(file.getPath());
             if (file.exists()) {
                 try {
-                    ExternalTMX newTMX = ExternalTMFactory.load(file);
+                    ExternalTMX newTMX = preloaded.get(file);
                     newTransMemories.put(file.getPath(), newTMX);
+                    if (loaded && !replaced) {
+                        // TM added or changed while project is open
+                        runFuzzyMatchIndexer(() -> {
+                            exactMatchIndex.index(newTMX);
+                            fuzzyMatchIndex.getDocIds(newTMX);
+                        });
+                    }
 
                     // Please note the use of "/". FileUtil.computeRelativePath
                     // rewrites all other
@@ -1443,9 +1852,27 @@ public class RealProject implements IProject {
                 newTransMemories.remove(file.getPath());
             }
             transMemories = newTransMemories;
+            sentenceMatchCache.clear();
+            if (loaded && replaced) {
+                // sources of the old TM would stay in the index
+                runFuzzyMatchIndexer(fuzzyMatchIndex::clear);
+                indexFuzzyMatchSources();
+            }
+            if (loaded) {
+                // auto TMs could translate some segments
+                rebuildStatistics();
+            }
         });
-        tmMonitor.checkChanges();
+        try {
+            tmMonitor.checkChanges();
+        } finally {
+            preloaded.close();
+        }
+        // mapped files of TMX removed while the project was closed
+        MappedTMXEntries.removeOrphaned(new File(config.getProjectInternal(), OConsts.MAPPED_TM_DIR), tmFiles);
         tmMonitor.start();
+        logger.atDebug().setMessage("Translation memories loaded in {0} ms")
+                .addArgument(System.currentTimeMillis() - st).log();
     }
 
     /**
@@ -1457,20 +1884,27 @@ public class RealProject implements IProject {
      * language) Uses directory monitor for check file updates.
      */
     private void loadOtherLanguages() {
+        long st = System.currentTimeMillis();
         File tmOtherLanguagesRoot = new File(config.getTMOtherLangRoot());
+        FileFilter tmFilter = file -> file.getName().matches("[A-Z]{2}([-_][A-Z]{2})?\\.tmx");
+        PreloadedFiles<ProjectTMX> preloaded = new PreloadedFiles<>("TM loader",
+                FileUtil.findFiles(tmOtherLanguagesRoot, tmFilter), getTMLoadThreads(),
+                file -> loadOtherLanguageTM(file, getOtherLanguage(file.getName())));
         tmOtherLanguagesMonitor = new DirectoryMonitor(tmOtherLanguagesRoot, file -> {
             String name = file.getName();
             if (!name.matches("[A-Z]{2}([-_][A-Z]{2})?\\.tmx")) {
                 // not a TMX file in XX_XX.tmx format
                 return;
             }
-            Language targetLanguage = new Language(name.substring(0, name.length() - ".tmx".length()));
+            if (!loaded) {
+                Core.getMainWindow().showStatusMessageRB("CT_LOAD_FILE_MX", name);
+            }
+            Language targetLanguage = getOtherLanguage(name);
             // create new translation memories map
             Map<Language, ProjectTMX> newOtherTargetLangTMs = new TreeMap<>(otherTargetLangTMs);
             if (file.exists()) {
                 try {
-                    ProjectTMX newTMX = new ProjectTMX(config.getSourceLanguage(), targetLanguage,
-                            config.isSentenceSegmentingEnabled(), file, checkOrphanedCallback);
+                    ProjectTMX newTMX = preloaded.get(file);
                     newOtherTargetLangTMs.put(targetLanguage, newTMX);
                 } catch (Exception e) {
                     String filename = file.getPath();
@@ -1482,7 +1916,11 @@ public class RealProject implements IProject {
             }
             otherTargetLangTMs = newOtherTargetLangTMs;
         });
-        tmOtherLanguagesMonitor.checkChanges();
+        try {
+            tmOtherLanguagesMonitor.checkChanges();
+        } finally {
+            preloaded.close();
+        }
         tmOtherLanguagesMonitor.start();
 
         // find other lang tmx in directories with source file name
@@ -1515,8 +1953,7 @@ public class RealProject implements IProject {
                 Map<String, Map.Entry<Language, ProjectTMX>> newOtherTargetLangTMs = new TreeMap<>(otherTargetLangTMsDirs);
                 if (file.exists()) {
                     try {
-                        ProjectTMX newTMX = new ProjectTMX(config.getSourceLanguage(), targetLanguage,
-                                config.isSentenceSegmentingEnabled(), file, checkOrphanedCallback);
+                        ProjectTMX newTMX = loadOtherLanguageTM(file, targetLanguage);
                         newOtherTargetLangTMs.put(searchPath, new AbstractMap.SimpleImmutableEntry<>(targetLanguage, newTMX));
                     } catch (Exception e) {
                         String filename = file.getPath();
@@ -1531,6 +1968,17 @@ public class RealProject implements IProject {
             tmOtherLanguagesDirMonitor.checkChanges();
             tmOtherLanguagesDirMonitor.start();
         }
+        logger.atDebug().setMessage("Other languages translation memories loaded in {0} ms")
+                .addArgument(System.currentTimeMillis() - st).log();
+    }
+
+    private static Language getOtherLanguage(String fileName) {
+        return new Language(fileName.substring(0, fileName.length() - ".tmx".length()));
+    }
+
+    private ProjectTMX loadOtherLanguageTM(File file, Language targetLanguage) throws Exception {
+        return new ProjectTMX(config.getSourceLanguage(), targetLanguage, config.isSentenceSegmentingEnabled(),
+                file, checkOrphanedCallback);
     }
 
     /**
@@ -1565,22 +2013,21 @@ public class RealProject implements IProject {
 
     public AllTranslations getAllTranslations(SourceTextEntry ste) {
         AllTranslations r = new AllTranslations();
-        synchronized (projectTMX) {
-            r.defaultTranslation = projectTMX.getDefaultTranslation(ste.getSrcText());
-            r.alternativeTranslation = projectTMX.getMultipleTranslation(ste.getKey());
-            if (r.alternativeTranslation != null) {
-                r.currentTranslation = r.alternativeTranslation;
-            } else if (r.defaultTranslation != null) {
-                r.currentTranslation = r.defaultTranslation;
-            } else {
-                r.currentTranslation = EMPTY_TRANSLATION;
-            }
-            if (r.defaultTranslation == null) {
-                r.defaultTranslation = EMPTY_TRANSLATION;
-            }
-            if (r.alternativeTranslation == null) {
-                r.alternativeTranslation = EMPTY_TRANSLATION;
-            }
+        ProjectTMX.Snapshot snapshot = projectTMX.snapshot();
+        r.defaultTranslation = snapshot.defaults.get(ste.getSrcText());
+        r.alternativeTranslation = snapshot.alternatives.get(ste.getKey());
+        if (r.alternativeTranslation != null) {
+            r.currentTranslation = r.alternativeTranslation;
+        } else if (r.defaultTranslation != null) {
+            r.currentTranslation = r.defaultTranslation;
+        } else {
+            r.currentTranslation = EMPTY_TRANSLATION;
+        }
+        if (r.defaultTranslation == null) {
+            r.defaultTranslation = EMPTY_TRANSLATION;
+        }
+        if (r.alternativeTranslation == null) {
+            r.alternativeTranslation = EMPTY_TRANSLATION;
         }
         return r;
     }
@@ -1685,14 +2132,21 @@ public class RealProject implements IProject {
         setProjectModified(true);
 
         projectTMX.setTranslation(entry, newTrEntry, defaultTranslation);
+        if (newTrEntry != null && (prevTrEntry == EMPTY_TRANSLATION
+                || prevTrEntry.translation == null && newTrEntry.translation != null)) {
+            // new fuzzy match candidate can be better than any stored match
+            sentenceMatchCache.clear();
+        } else {
+            sentenceMatchCache.invalidate(entry.getSrcText());
+        }
 
-        /*
-         * Calculate how to statistics should be changed.
-         */
-        int diff = prevTrEntry.translation == null ? 0 : -1;
-        diff += trans.translation == null ? 0 : +1;
-        hotStat.numberOfTranslatedSegments = Math.max(0,
-                Math.min(hotStat.numberOfUniqueSegments, hotStat.numberOfTranslatedSegments + diff));
+        if (loaded && newTrEntry != null) {
+            // translated source becomes a fuzzy match candidate
+            runFuzzyMatchIndexer(() -> fuzzyMatchIndex.getDocId(entry.getSrcText()));
+        }
+
+        projectStatistics.update(entry);
+        hotStat.numberOfTranslatedSegments = projectStatistics.getTranslatedUniqueCount();
     }
 
     @Override
@@ -1721,6 +2175,7 @@ public class RealProject implements IProject {
             en.translation = null;
             projectTMX.setTranslation(entry, new TMXEntry(en, true, null), true);
         }
+        projectStatistics.update(entry);
 
         setProjectModified(true);
     }
@@ -1729,11 +2184,7 @@ public class RealProject implements IProject {
         if (projectTMX == null) {
             return;
         }
-        Map.Entry<String, TMXEntry>[] entries;
-        synchronized (projectTMX) {
-            entries = entrySetToArray(projectTMX.defaults.entrySet());
-        }
-        for (Map.Entry<String, TMXEntry> en : entries) {
+        for (Map.Entry<String, TMXEntry> en : projectTMX.snapshot().defaults.entrySet()) {
             it.iterate(en.getKey(), en.getValue());
         }
     }
@@ -1742,22 +2193,11 @@ public class RealProject implements IProject {
         if (projectTMX == null) {
             return;
         }
-        Map.Entry<EntryKey, TMXEntry>[] entries;
-        synchronized (projectTMX) {
-            entries = entrySetToArray(projectTMX.alternatives.entrySet());
-        }
-        for (Map.Entry<EntryKey, TMXEntry> en : entries) {
+        for (Map.Entry<EntryKey, TMXEntry> en : projectTMX.snapshot().alternatives.entrySet()) {
             it.iterate(en.getKey(), en.getValue());
         }
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    private <K, V> Map.Entry<K, V>[] entrySetToArray(Set<Map.Entry<K, V>> set) {
-        // Assign to variable to facilitate suppressing the rawtypes warning
-        Map.Entry[] a = new Map.Entry[set.size()];
-        return set.toArray(a);
-    }
-
     public boolean isOrphaned(String source) {
         return !checkOrphanedCallback.existSourceInProject(source);
     }
@@ -1770,6 +2210,34 @@ public class RealProject implements IProject {
         return Collections.unmodifiableMap(transMemories);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public FuzzyMatchIndex getFuzzyMatchIndex() {
+        return fuzzyMatchIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ExactMatchIndex getExactMatchIndex() {
+        return exactMatchIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public TokenizedCorpus getTokenizedCorpus() {
+        return tokenizedCorpus;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SentenceMatchCache getSentenceMatchCache() {
+        return sentenceMatchCache;
+    }
+
     public Map<Language, ProjectTMX> getOtherTargetLanguageTMs() {
         return Collections.unmodifiableMap(otherTargetLangTMs);
     }
@@ -1903,6 +2371,42 @@ public class RealProject implements IProject {
         }
     }
 
+    /**
+     * Parsing of one source file, which can run in a worker thread. Parsed
+     * segments stay in the callback until
+     * {@link LoadFilesCallback#fileFinished()} adds them to the project, which
+     * is done by the loading thread.
+     */
+    private class SourceFileLoad {
+        final FileInfo fileInfo = new FileInfo();
+        final LoadFilesCallback callback = new LoadFilesCallback(existSource, existKeys, transMemories);
+        /** Result of parsing in a worker thread, or null if parsed in the loading thread. */
+        Future<IFilter> future;
+        /** Stored result of previous parsing, if the file didn't change. */
+        SourceFilesCache.ParsedFile cached;
+
+        SourceFileLoad(String filepath) {
+            fileInfo.filePath = filepath;
+            callback.setCurrentFile(fileInfo);
+        }
+
+        IFilter parse() throws IOException, TranslationException {
+            return Core.getFilterMaster().loadFile(config.getSourceRoot() + fileInfo.filePath,
+                    new FilterContext(config), callback);
+        }
+
+        /**
+         * Returns the filter which parsed the file, waiting for the worker
+         * thread if needed.
+         */
+        IFilter get() throws IOException, TranslationException {
+            if (future == null) {
+                return parse();
+            }
+            return FutureUtils.getResult(future, fileInfo.filePath);
+        }
+    }
+
     protected class LoadFilesCallback extends ParseEntry {
         private FileInfo fileInfo;
         private String entryKeyFilename;
@@ -1950,7 +2454,15 @@ public class RealProject implements IProject {
                 throw new RuntimeException("Segment must not be empty");
             }
 
-            EntryKey ek = new EntryKey(entryKeyFilename, segmentSource, id, prevSegment, nextSegment, path);
+            // neighbours and duplicates refer to the same strings
+            segmentSource = share(segmentSource);
+            if (props != null) {
+                for (int i = 0; i < props.length; i += 2) {
+                    props[i] = share(props[i]);
+                }
+            }
+            EntryKey ek = new EntryKey(entryKeyFilename, segmentSource, share(id), share(prevSegment),
+                    share(nextSegment), share(path));
 
             protectedParts = TagUtil.applyCustomProtectedParts(segmentSource,
                     PatternConsts.getPlaceholderPattern(), protectedParts);
@@ -1977,6 +2489,17 @@ public class RealProject implements IProject {
                 existKeys.add(srcTextEntry.getKey());
             }
         }
+
+        /**
+         * Returns the equal string from previous segments, if any.
+         */
+        private String share(String s) {
+            if (s == null || sharedStrings == null) {
+                return s;
+            }
+            String r = sharedStrings.putIfAbsent(s, s);
+            return r != null ? r : s;
+        }
     }
 
     private class TranslateFilesCallback extends TranslateEntry {
@@ -0,0 +1,366 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.omegat.core.data.ParseEntry.ParseEntryQueueItem;
+
+/**
+ * Segments of the source files parsed by the last project load, kept in the
+ * project's internal folder, for don't parse unchanged files again.
+ * <p>
+ * For every file the cache keeps the segments as the filter produced them,
+ * i.e. before they were numbered and added to the project, with protected
+ * parts and properties, and the filter which parsed the file. Segments are
+ * kept serialized, since adding them to the project changes them. A file is
+ * up to date if its size, modification time (or, if the time changed, the
+ * digest of content) are the same. The file also keeps the digest of settings
+ * parsing depends on, see {@link CompileManifest#digestSettings}, and nothing
+ * is used when settings changed.
+ * <p>
+ * This class is not thread safe.
+ */
+class SourceFilesCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceFilesCache.class);
+
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    private final File file;
+    private final byte[] settings;
+    private final Map<String, ParsedFile> files = new HashMap<>();
+    private boolean modified;
+
+    /**
+     * @param settings
+     *            digest of settings which affect parsing
+     */
+    SourceFilesCache(File file, byte[] settings) {
+        this.file = file;
+        this.settings = settings;
+    }
+
+    /**
+     * Read the cache. Nothing is read if the file doesn't exist, or it was
+     * written for other settings.
+     */
+    void load() {
+        files.clear();
+        modified = false;
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != VERSION || !Arrays.equals(readBytes(in), settings)) {
+                LOGGER.debug("Source files cache is outdated");
+                modified = true;
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = readString(in);
+                ParsedFile parsed = new ParsedFile();
+                parsed.length = in.readLong();
+                parsed.modified = in.readLong();
+                parsed.digest = readBytes(in);
+                parsed.filterClass = readString(in);
+                parsed.fileFormatName = readString(in);
+                parsed.fileEncoding = readString(in);
+                parsed.segments = readBytes(in);
+                files.put(path, parsed);
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Source files cache can't be read", ex);
+            files.clear();
+            modified = true;
+        }
+    }
+
+    /**
+     * Write the cache, if anything changed since it was read. Files which are
+     * not in the project anymore, or failed to load, are dropped. Errors are
+     * only logged, since the next load can just parse all files.
+     *
+     * @param paths
+     *            paths of the loaded project files, relative to the source
+     *            root
+     */
+    void save(Collection<String> paths) {
+        modified |= files.keySet().retainAll(new HashSet<>(paths));
+        if (!modified) {
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(VERSION);
+                writeBytes(out, settings);
+                out.writeInt(files.size());
+                for (Map.Entry<String, ParsedFile> en : files.entrySet()) {
+                    ParsedFile parsed = en.getValue();
+                    writeString(out, en.getKey());
+                    out.writeLong(parsed.length);
+                    out.writeLong(parsed.modified);
+                    writeBytes(out, parsed.digest);
+                    writeString(out, parsed.filterClass);
+                    writeString(out, parsed.fileFormatName);
+                    writeString(out, parsed.fileEncoding);
+                    writeBytes(out, parsed.segments);
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            modified = false;
+        } catch (IOException ex) {
+            LOGGER.warn("Source files cache can't be written", ex);
+        }
+    }
+
+    /**
+     * Returns the stored result of parsing of the file, or null if the file
+     * wasn't stored or changed since.
+     *
+     * @param path
+     *            path of the file, relative to the source root
+     */
+    ParsedFile get(String path, File sourceRoot) {
+        ParsedFile parsed = files.get(path);
+        if (parsed == null) {
+            return null;
+        }
+        File source = new File(sourceRoot, path);
+        if (!source.isFile() || source.length() != parsed.length) {
+            return null;
+        }
+        if (source.lastModified() != parsed.modified) {
+            // touched, but the content could be the same, e.g. after checkout
+            try {
+                if (!Arrays.equals(CompileManifest.digestFile(source), parsed.digest)) {
+                    return null;
+                }
+            } catch (IOException ex) {
+                LOGGER.warn("Source file can't be read", ex);
+                return null;
+            }
+            parsed.modified = source.lastModified();
+            modified = true;
+        }
+        return parsed;
+    }
+
+    /**
+     * Store result of parsing of the file. Must be called before segments are
+     * added to the project.
+     *
+     * @param filterClass
+     *            name of the filter class which parsed the file
+     */
+    void put(String path, File sourceRoot, String filterClass, String fileFormatName, String fileEncoding,
+            List<ParseEntryQueueItem> segments) {
+        File source = new File(sourceRoot, path);
+        ParsedFile parsed = new ParsedFile();
+        parsed.length = source.length();
+        parsed.modified = source.lastModified();
+        parsed.filterClass = filterClass;
+        parsed.fileFormatName = fileFormatName;
+        parsed.fileEncoding = fileEncoding;
+        try {
+            parsed.digest = CompileManifest.digestFile(source);
+            parsed.segments = writeSegments(segments);
+        } catch (IOException ex) {
+            LOGGER.warn("Source file can't be read", ex);
+            modified |= files.remove(path) != null;
+            return;
+        }
+        files.put(path, parsed);
+        modified = true;
+    }
+
+    /**
+     * Returns the number of stored files.
+     */
+    int size() {
+        return files.size();
+    }
+
+    static byte[] writeSegments(List<ParseEntryQueueItem> segments) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(segments.size());
+            for (ParseEntryQueueItem item : segments) {
+                writeString(out, item.id);
+                out.writeShort(item.segmentIndex);
+                writeString(out, item.segmentSource);
+                if (item.protectedParts == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(item.protectedParts.size());
+                    for (ProtectedPart pp : item.protectedParts) {
+                        writeString(out, pp.getTextInSourceSegment());
+                        writeString(out, pp.getDetailsFromSourceFile());
+                        writeString(out, pp.getReplacementWordsCountCalculation());
+                        writeString(out, pp.getReplacementUniquenessCalculation());
+                        writeString(out, pp.getReplacementMatchCalculation());
+                    }
+                }
+                writeString(out, item.segmentTranslation);
+                out.writeBoolean(item.segmentTranslationFuzzy);
+                if (item.props == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(item.props.length);
+                    for (String prop : item.props) {
+                        writeString(out, prop);
+                    }
+                }
+                writeString(out, item.prevSegment);
+                writeString(out, item.nextSegment);
+                writeString(out, item.path);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<ParseEntryQueueItem> readSegments(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int count = in.readInt();
+            List<ParseEntryQueueItem> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ParseEntryQueueItem item = new ParseEntryQueueItem();
+                item.id = readString(in);
+                item.segmentIndex = in.readShort();
+                item.segmentSource = readString(in);
+                int partsCount = in.readInt();
+                if (partsCount >= 0) {
+                    item.protectedParts = new ArrayList<>(partsCount);
+                    for (int j = 0; j < partsCount; j++) {
+                        ProtectedPart pp = new ProtectedPart();
+                        pp.setTextInSourceSegment(readString(in));
+                        pp.setDetailsFromSourceFile(readString(in));
+                        pp.setReplacementWordsCountCalculation(readString(in));
+                        pp.setReplacementUniquenessCalculation(readString(in));
+                        pp.setReplacementMatchCalculation(readString(in));
+                        item.protectedParts.add(pp);
+                    }
+                }
+                item.segmentTranslation = readString(in);
+                item.segmentTranslationFuzzy = in.readBoolean();
+                int propsCount = in.readInt();
+                if (propsCount >= 0) {
+                    item.props = new String[propsCount];
+                    for (int j = 0; j < propsCount; j++) {
+                        item.props[j] = readString(in);
+                    }
+                }
+                item.prevSegment = readString(in);
+                item.nextSegment = readString(in);
+                item.path = readString(in);
+                result.add(item);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Strings are written as UTF-8 bytes with length, since
+     * {@link DataOutputStream#writeUTF(String)} is limited to 64 KB, and
+     * segments can be longer.
+     */
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] result = new byte[in.readInt()];
+        in.readFully(result);
+        return result;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] data) throws IOException {
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    /**
+     * Result of parsing of one file.
+     */
+    static class ParsedFile {
+        long length;
+        long modified;
+        byte[] digest;
+        String filterClass;
+        String fileFormatName;
+        String fileEncoding;
+        /** Serialized segments, see {@link #getSegments()}. */
+        byte[] segments;
+
+        /**
+         * Returns new copies of the stored segments.
+         */
+        List<ParseEntryQueueItem> getSegments() throws IOException {
+            return readSegments(segments);
+        }
+    }
+}
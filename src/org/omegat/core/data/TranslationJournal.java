@@ -0,0 +1,360 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.omegat.util.TMXProp;
+
+/**
+ * Journal of translation changes made since project_save.tmx was written.
+ * <p>
+ * Rewriting of the whole project_save.tmx takes time for big projects, so
+ * autosave appends changed translations to the journal instead. The journal
+ * is applied to translations read from project_save.tmx on project load, and
+ * is removed when project_save.tmx is written again, i.e. on save with team
+ * sync, on project close, or when the journal is bigger than the limit.
+ * <p>
+ * The file header keeps size and modification time of project_save.tmx the
+ * journal was started for, and the journal is ignored if project_save.tmx
+ * changed since. Every record is written with its length and checksum, so a
+ * record which was written partially, e.g. because of a crash, is dropped on
+ * load together with everything after it.
+ * <p>
+ * Changes are collected in memory by {@link #add}, and written by
+ * {@link #append()}.
+ */
+class TranslationJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TranslationJournal.class);
+
+    private static final int MAGIC = 0x4f544a4c; // "OTJL"
+
+    /** Version of the file format. */
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    private static final int FLAG_DEFAULT = 1;
+    private static final int FLAG_REMOVED = 2;
+
+    private final File file;
+    private final File base;
+    private final long maxSize;
+
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final CRC32 crc = new CRC32();
+
+    /** Size and modification time of project_save.tmx the existing journal file was started for. */
+    private long baseLength, baseModified;
+    /** Size of the journal file. 0 if there is no file. */
+    private long length;
+    /** Set when the file can't be appended since the last write failed. */
+    private boolean broken;
+
+    /**
+     * @param file
+     *            journal file
+     * @param base
+     *            project_save.tmx
+     * @param maxSize
+     *            maximal size of the journal in bytes, after that
+     *            {@link #append()} doesn't write anything
+     */
+    TranslationJournal(File file, File base, long maxSize) {
+        this.file = file;
+        this.base = base;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Applies changes from the journal file to the translations read from
+     * project_save.tmx. Journal which doesn't correspond to project_save.tmx
+     * is removed, and a partially written record is cut off.
+     *
+     * @return number of applied changes
+     */
+    synchronized int replay(ProjectTMX tmx) {
+        if (!file.exists()) {
+            return 0;
+        }
+        int count = 0;
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warn("Unknown format of translation journal {}, ignored", file);
+                delete();
+                return 0;
+            }
+            baseLength = in.readLong();
+            baseModified = in.readLong();
+            if (!isBaseUnchanged()) {
+                LOGGER.info("Translation journal {} was started for other {}, ignored", file, base.getName());
+                delete();
+                return 0;
+            }
+            validLength = HEADER_SIZE;
+            while (true) {
+                byte[] record = readRecord(in);
+                if (record == null) {
+                    break;
+                }
+                apply(tmx, record);
+                validLength += 8 + record.length;
+                count++;
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Translation journal " + file + " can't be read", ex);
+        }
+        length = validLength;
+        if (length < file.length()) {
+            LOGGER.warn("Translation journal {} is truncated to the last complete change", file);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(length);
+            } catch (IOException ex) {
+                LOGGER.warn("Translation journal " + file + " can't be truncated", ex);
+                broken = true;
+            }
+        }
+        LOGGER.info("Applied {} translation changes from {}", count, file);
+        return count;
+    }
+
+    /**
+     * Adds change of translation. Changes are kept in memory until
+     * {@link #append()}.
+     *
+     * @param te
+     *            new translation, or null if translation was removed
+     */
+    synchronized void add(EntryKey key, TMXEntry te, boolean isDefault) {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeByte((isDefault ? FLAG_DEFAULT : 0) | (te == null ? FLAG_REMOVED : 0));
+            writeString(out, key.sourceText);
+            if (!isDefault) {
+                writeString(out, key.file);
+                writeString(out, key.id);
+                writeString(out, key.prev);
+                writeString(out, key.next);
+                writeString(out, key.path);
+            }
+            if (te != null) {
+                writeString(out, te.translation);
+                writeString(out, te.changer);
+                out.writeLong(te.changeDate);
+                writeString(out, te.creator);
+                out.writeLong(te.creationDate);
+                writeString(out, te.note);
+                out.writeByte(te.linked == null ? -1 : te.linked.ordinal());
+                writeString(out, te.origin);
+            }
+        } catch (IOException ex) {
+            // ByteArrayOutputStream doesn't throw
+            throw new RuntimeException(ex);
+        }
+        byte[] bytes = record.toByteArray();
+        crc.reset();
+        crc.update(bytes, 0, bytes.length);
+        try {
+            pendingOut.writeInt(bytes.length);
+            pendingOut.write(bytes);
+            pendingOut.writeInt((int) crc.getValue());
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Writes changes collected by {@link #add} into the journal file, and
+     * forces them to the disk.
+     *
+     * @return false if changes were not written, i.e. project_save.tmx should
+     *         be written instead: project_save.tmx doesn't exist or changed
+     *         since the journal was started, the journal is too big, or can't
+     *         be written
+     */
+    synchronized boolean append() {
+        if (broken || !base.exists() || length + pending.size() > maxSize) {
+            return false;
+        }
+        if (length > 0 && (!isBaseUnchanged() || file.length() != length)) {
+            return false;
+        }
+        if (pending.size() == 0) {
+            return true;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (length == 0) {
+                baseLength = base.length();
+                baseModified = base.lastModified();
+                raf.setLength(0);
+                raf.writeInt(MAGIC);
+                raf.writeInt(VERSION);
+                raf.writeLong(baseLength);
+                raf.writeLong(baseModified);
+                length = HEADER_SIZE;
+            }
+            raf.seek(length);
+            raf.write(pending.toByteArray());
+            raf.getChannel().force(true);
+            length += pending.size();
+        } catch (IOException ex) {
+            LOGGER.warn("Translation journal " + file + " can't be written", ex);
+            broken = true;
+            return false;
+        }
+        LOGGER.debug("Appended {} bytes to translation journal {}", pending.size(), file);
+        pending.reset();
+        return true;
+    }
+
+    /**
+     * Returns true if there are changes in memory or in the journal file,
+     * i.e. project_save.tmx doesn't contain all translations.
+     */
+    synchronized boolean hasChanges() {
+        return pending.size() > 0 || length > 0;
+    }
+
+    /**
+     * Drops changes collected in memory. Should be called when all
+     * translations are taken for write into project_save.tmx.
+     */
+    synchronized void clearPending() {
+        pending.reset();
+    }
+
+    /**
+     * Removes the journal file. Should be called when project_save.tmx with
+     * all translations was written.
+     */
+    synchronized void delete() {
+        length = 0;
+        broken = false;
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("Translation journal {} can't be removed", file);
+            broken = true;
+        }
+    }
+
+    private boolean isBaseUnchanged() {
+        return base.length() == baseLength && base.lastModified() == baseModified;
+    }
+
+    /**
+     * Reads one record, or returns null at the end of file or at the partially
+     * written record.
+     */
+    private byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int size = in.readInt();
+            if (size <= 0 || size > file.length()) {
+                return null;
+            }
+            byte[] record = new byte[size];
+            in.readFully(record);
+            int checksum = in.readInt();
+            crc.reset();
+            crc.update(record, 0, record.length);
+            return checksum == (int) crc.getValue() ? record : null;
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    private static void apply(ProjectTMX tmx, byte[] record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            int flags = in.readByte();
+            boolean isDefault = (flags & FLAG_DEFAULT) != 0;
+            String source = readString(in);
+            EntryKey key;
+            if (isDefault) {
+                key = new EntryKey(null, source, null, null, null, null);
+            } else {
+                key = new EntryKey(readString(in), source, readString(in), readString(in), readString(in),
+                        readString(in));
+            }
+            TMXEntry te = null;
+            if ((flags & FLAG_REMOVED) == 0) {
+                PrepareTMXEntry prepare = new PrepareTMXEntry();
+                prepare.source = source;
+                prepare.translation = readString(in);
+                prepare.changer = readString(in);
+                prepare.changeDate = in.readLong();
+                prepare.creator = readString(in);
+                prepare.creationDate = in.readLong();
+                prepare.note = readString(in);
+                int linked = in.readByte();
+                String origin = readString(in);
+                if (origin != null) {
+                    prepare.otherProperties = new ArrayList<>();
+                    prepare.otherProperties.add(new TMXProp(ProjectTMX.PROP_ORIGIN, origin));
+                }
+                te = new TMXEntry(prepare, isDefault,
+                        linked < 0 ? null : TMXEntry.ExternalLinked.values()[linked]);
+            }
+            tmx.applyJournaled(key, te, isDefault);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
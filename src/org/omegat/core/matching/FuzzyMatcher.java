@@ -90,4 +90,57 @@ public final class FuzzyMatcher {
         int similarity = (100 * (Math.max(str.length, cand.length) - ld)) / Math.max(str.length, cand.length);
         return similarity;
     }
+
+    /**
+     * Calculate similarity for token id arrays(percent).
+     *
+     * @param str
+     *            original string token ids
+     * @param cand
+     *            candidate string token ids
+     * @return similarity in percents
+     * @see TokenInterner
+     */
+    public static int calcSimilarity(final TokenIdLevenshteinDistance distanceCalculator, final int[] str,
+            final int[] cand) {
+        if (str.length == 0 && cand.length == 0) {
+            // empty token lists - can't calculate similarity
+            return 0;
+        }
+        int ld = distanceCalculator.compute(str, cand);
+        return (100 * (Math.max(str.length, cand.length) - ld)) / Math.max(str.length, cand.length);
+    }
+
+    /**
+     * Calculate similarity for token id arrays(percent), when only values not
+     * less than minSimilarity are interesting. Distance calculation stops early
+     * when the similarity can't reach minSimilarity.
+     *
+     * @param str
+     *            original string token ids
+     * @param cand
+     *            candidate string token ids
+     * @param minSimilarity
+     *            minimal interesting similarity
+     * @return exact similarity in percents if it's not less than
+     *         minSimilarity, any lower value otherwise
+     */
+    public static int calcSimilarity(final TokenIdLevenshteinDistance distanceCalculator, final int[] str,
+            final int[] cand, int minSimilarity) {
+        if (minSimilarity <= 0) {
+            return calcSimilarity(distanceCalculator, str, cand);
+        }
+        if (str.length == 0 && cand.length == 0) {
+            // empty token lists - can't calculate similarity
+            return 0;
+        }
+        int len = Math.max(str.length, cand.length);
+        // similarity >= minSimilarity <=> 100 * (len - ld) >= minSimilarity * len
+        int maxDistance = len - (minSimilarity * len + 99) / 100;
+        if (maxDistance < 0) {
+            return minSimilarity - 1;
+        }
+        int ld = distanceCalculator.compute(str, cand, maxDistance);
+        return (100 * (len - ld)) / len;
+    }
 }
@@ -78,7 +78,7 @@ public class LevenshteinDistance implements ISimilarityCalculator {
     }
 
     /** Maximal number of items compared. */
-    private static final int MAX_N = 1000;
+    public static final int MAX_N = 1000;
 
     /**
      * Cost array, horizontally. Here to avoid excessive allocation and garbage
@@ -145,6 +145,37 @@ public class NearString {
         return merged;
     }
 
+    /**
+     * Merge two NearString objects with the same source and translation, for
+     * example found by separate search tasks. The one with the better score
+     * goes first.
+     * @param ns NearString to merge into.
+     * @param other NearString to merge.
+     * @return NearString merged.
+     */
+    public static NearString merge(NearString ns, NearString other) {
+        List<String> projs = new ArrayList<>(Arrays.asList(ns.projs));
+        List<Scores> mergedScores = new ArrayList<>(Arrays.asList(ns.scores));
+
+        NearString merged;
+        if (other.scores[0].score > ns.scores[0].score) {
+            merged = new NearString(other.key, other.source, other.translation, other.comesFrom,
+                    other.fuzzyMark, other.scores[0], other.attr, null, other.creator, other.creationDate,
+                    other.changer, other.changedDate, other.props);
+            projs.addAll(0, Arrays.asList(other.projs));
+            mergedScores.addAll(0, Arrays.asList(other.scores));
+        } else {
+            merged = new NearString(ns.key, ns.source, ns.translation, ns.comesFrom, ns.fuzzyMark,
+                    ns.scores[0], ns.attr, null, ns.creator, ns.creationDate, ns.changer, ns.changedDate,
+                    ns.props);
+            projs.addAll(Arrays.asList(other.projs));
+            mergedScores.addAll(Arrays.asList(other.scores));
+        }
+        merged.projs = projs.toArray(new String[projs.size()]);
+        merged.scores = mergedScores.toArray(new Scores[mergedScores.size()]);
+        return merged;
+    }
+
     @Deprecated
     public static NearString merge(NearString ns, final EntryKey key, final String source, final String translation,
             MATCH_SOURCE comesFrom, final boolean fuzzyMark, final int nearScore, final int nearScoreNoStem,
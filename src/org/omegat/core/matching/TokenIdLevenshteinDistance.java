@@ -0,0 +1,266 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.matching;
+
+import java.util.Arrays;
+
+import org.omegat.util.OStrings;
+import org.omegat.util.Token;
+
+/**
+ * Levenshtein distance over token ids.
+ * <p>
+ * Produces the same result as {@link LevenshteinDistance}, including the
+ * {@link LevenshteinDistance#MAX_N} limit, but compares primitive ints assigned
+ * by {@link TokenInterner} instead of calling {@link Token#equals(Object)} in
+ * the inner loop.
+ * <p>
+ * When the caller knows the maximal interesting distance, the calculation is
+ * bounded: sequences of up to 64 tokens are compared with the bit-parallel
+ * algorithm of Myers (in the form given by Hyyro), longer ones with a banded
+ * matrix of width 2 * maxDistance + 1 (Ukkonen). Both stop as soon as the
+ * distance is known to exceed the bound.
+ * <p>
+ * Like {@link LevenshteinDistance}, instances keep work arrays and are not
+ * thread safe: use one instance per thread.
+ */
+public class TokenIdLevenshteinDistance implements ISimilarityCalculator {
+
+    private int[] d = new int[LevenshteinDistance.MAX_N + 1];
+    private int[] p = new int[LevenshteinDistance.MAX_N + 1];
+
+    /**
+     * Open addressing table of match masks for Myers algorithm, by token id.
+     * Entries are valid only if their stamp is the current one, so the table
+     * doesn't need to be cleared between calls.
+     */
+    private static final int PEQ_SIZE = 128;
+    private final int[] peqKeys = new int[PEQ_SIZE];
+    private final long[] peqMasks = new long[PEQ_SIZE];
+    private final int[] peqStamps = new int[PEQ_SIZE];
+    private int stamp;
+
+    /**
+     * Compute distance for tokens. Tokens are compared by their hashes, which
+     * is the same as {@link Token#equals(Object)} does.
+     */
+    @Override
+    public int compute(Token[] s, Token[] t) {
+        if (s == null || t == null) {
+            throw new IllegalArgumentException(OStrings.getString("LD_NULL_ARRAYS_ERROR"));
+        }
+        return compute(hashes(s), hashes(t));
+    }
+
+    /**
+     * Compute distance of token id sequences, as produced by
+     * {@link TokenInterner}. Ids must be assigned by the same interner for both
+     * sequences.
+     */
+    public int compute(int[] s, int[] t) {
+        if (s == null || t == null) {
+            throw new IllegalArgumentException(OStrings.getString("LD_NULL_ARRAYS_ERROR"));
+        }
+
+        int n = Math.min(s.length, LevenshteinDistance.MAX_N);
+        int m = Math.min(t.length, LevenshteinDistance.MAX_N);
+
+        if (n == 0) {
+            return m;
+        } else if (m == 0) {
+            return n;
+        }
+
+        int[] prev = p;
+        int[] cur = d;
+        for (int i = 0; i <= n; i++) {
+            prev[i] = i;
+        }
+        for (int j = 1; j <= m; j++) {
+            int tj = t[j - 1];
+            cur[0] = j;
+            int left = j;
+            for (int i = 1; i <= n; i++) {
+                int diag = prev[i - 1] + (s[i - 1] == tj ? 0 : 1);
+                int v = Math.min(Math.min(left, prev[i]) + 1, diag);
+                cur[i] = v;
+                left = v;
+            }
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return prev[n];
+    }
+
+    /**
+     * Compute distance of token id sequences, when only values up to
+     * maxDistance are interesting. Stops as soon as the distance is known to
+     * be greater than maxDistance.
+     *
+     * @return exact distance if it is not greater than maxDistance, any value
+     *         greater than maxDistance otherwise
+     */
+    public int compute(int[] s, int[] t, int maxDistance) {
+        if (s == null || t == null) {
+            throw new IllegalArgumentException(OStrings.getString("LD_NULL_ARRAYS_ERROR"));
+        }
+
+        int n = Math.min(s.length, LevenshteinDistance.MAX_N);
+        int m = Math.min(t.length, LevenshteinDistance.MAX_N);
+
+        if (maxDistance >= Math.max(n, m)) {
+            // bound doesn't help
+            return compute(s, t);
+        }
+        if (maxDistance < 0 || Math.abs(n - m) > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (n == 0 || m == 0) {
+            return Math.max(n, m);
+        }
+        if (Math.min(n, m) <= Long.SIZE) {
+            return n <= m ? computeBitParallel(s, n, t, m, maxDistance)
+                    : computeBitParallel(t, m, s, n, maxDistance);
+        }
+        return computeBanded(s, n, t, m, maxDistance);
+    }
+
+    /**
+     * Myers' bit-vector algorithm: the column of the matrix for the pattern of
+     * up to 64 tokens is kept as bit vectors of vertical deltas, and only the
+     * value in the last row is tracked.
+     */
+    private int computeBitParallel(int[] pattern, int n, int[] text, int m, int maxDistance) {
+        if (++stamp == 0) {
+            // stamp wrapped around, old entries could look valid again
+            Arrays.fill(peqStamps, 0);
+            stamp = 1;
+        }
+        for (int i = 0; i < n; i++) {
+            int slot = peqSlot(pattern[i]);
+            if (peqStamps[slot] != stamp) {
+                peqStamps[slot] = stamp;
+                peqKeys[slot] = pattern[i];
+                peqMasks[slot] = 0;
+            }
+            peqMasks[slot] |= 1L << i;
+        }
+
+        long last = 1L << (n - 1);
+        long pv = -1L;
+        long mv = 0;
+        int score = n;
+        for (int j = 0; j < m; j++) {
+            int slot = peqSlot(text[j]);
+            long eq = peqStamps[slot] == stamp ? peqMasks[slot] : 0;
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // each remaining token can decrease the distance by one at most
+            if (score - (m - j - 1) > maxDistance) {
+                return maxDistance + 1;
+            }
+            // first row of the matrix grows by one on each column
+            ph = (ph << 1) | 1;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return score <= maxDistance ? score : maxDistance + 1;
+    }
+
+    /**
+     * Find slot of token id in the match masks table. The table can't be full,
+     * since patterns have at most 64 distinct tokens.
+     */
+    private int peqSlot(int id) {
+        int slot = (id * 0x9E3779B9) >>> (Integer.SIZE - 7);
+        while (peqStamps[slot] == stamp && peqKeys[slot] != id) {
+            slot = (slot + 1) & (PEQ_SIZE - 1);
+        }
+        return slot;
+    }
+
+    /**
+     * Ukkonen's banded algorithm: cells farther than maxDistance from the
+     * diagonal always exceed maxDistance, so only the band around it is
+     * computed. Values above maxDistance are capped, since they are not
+     * interesting anyway.
+     */
+    private int computeBanded(int[] s, int n, int[] t, int m, int maxDistance) {
+        int big = maxDistance + 1;
+        int[] prev = p;
+        int[] cur = d;
+        for (int i = 0; i <= Math.min(n, maxDistance); i++) {
+            prev[i] = i;
+        }
+        if (maxDistance + 1 <= n) {
+            prev[maxDistance + 1] = big;
+        }
+        for (int j = 1; j <= m; j++) {
+            int tj = t[j - 1];
+            int lo = Math.max(1, j - maxDistance);
+            int hi = Math.min(n, j + maxDistance);
+            int left = lo == 1 ? Math.min(j, big) : big;
+            cur[lo - 1] = left;
+            int rowMin = left;
+            for (int i = lo; i <= hi; i++) {
+                int diag = prev[i - 1] + (s[i - 1] == tj ? 0 : 1);
+                int v = Math.min(Math.min(Math.min(left, prev[i]) + 1, diag), big);
+                cur[i] = v;
+                left = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (hi < n) {
+                cur[hi + 1] = big;
+            }
+            // values never decrease along a path, so the result can't be less
+            // than the row minimum
+            if (rowMin > maxDistance) {
+                return big;
+            }
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return prev[n];
+    }
+
+    private static int[] hashes(Token[] tokens) {
+        int[] result = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            result[i] = tokens[i].hashCode();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+package org.omegat.core.matching;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.omegat.util.Token;
+
+/**
+ * Assigns small dense integer ids to tokens, so token sequences can be
+ * compared as primitive arrays.
+ * <p>
+ * Two tokens get the same id exactly when they are equal by
+ * {@link Token#equals(Object)}, i.e. when their hashes are equal. Ids are only
+ * comparable between sequences interned by the same instance, so separate
+ * instances should be used for each tokenizer and tokenization mode.
+ * <p>
+ * Hashes and ids are kept in an open addressing table of primitive slots, so
+ * a big corpus doesn't cost two boxed integers and a map node per distinct
+ * token. Known tokens are looked up without locking; only new tokens lock the
+ * interner.
+ * <p>
+ * This class is thread safe.
+ */
+public class TokenInterner {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Table slots: token hash in the high half, id + 1 in the low half, or 0
+     * for an empty slot. Capacity is a power of two and the table is at most
+     * half full, so lookups always stop on an empty slot. Full table is
+     * replaced on growth, so readers always see a consistent table.
+     */
+    private volatile AtomicLongArray table = new AtomicLongArray(INITIAL_CAPACITY);
+
+    /** Number of assigned ids, changed only under lock. */
+    private volatile int size;
+
+    /**
+     * Returns id of token, assigning a new one if token was not seen before.
+     */
+    public int intern(Token token) {
+        int hash = token.hashCode();
+        int id = find(table, hash);
+        return id >= 0 ? id : add(hash);
+    }
+
+    /**
+     * Returns ids of all tokens.
+     */
+    public int[] intern(Token[] tokens) {
+        int[] result = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            result[i] = intern(tokens[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of assigned ids. All ids are less than this value.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Forgets all tokens, so ids are assigned again from 0. Ids assigned
+     * before are not comparable with ids assigned after.
+     */
+    public synchronized void clear() {
+        table = new AtomicLongArray(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    private synchronized int add(int hash) {
+        AtomicLongArray t = table;
+        int id = find(t, hash);
+        if (id >= 0) {
+            // added by another thread meanwhile
+            return id;
+        }
+        if (2 * (size + 1) > t.length()) {
+            AtomicLongArray grown = new AtomicLongArray(t.length() * 2);
+            for (int i = 0; i < t.length(); i++) {
+                long slot = t.get(i);
+                if (slot != 0) {
+                    put(grown, slot);
+                }
+            }
+            t = grown;
+            table = grown;
+        }
+        id = size;
+        put(t, ((long) hash << 32) | (id + 1L));
+        size = id + 1;
+        return id;
+    }
+
+    private static int find(AtomicLongArray t, int hash) {
+        int mask = t.length() - 1;
+        for (int i = spread(hash) & mask;; i = (i + 1) & mask) {
+            long slot = t.get(i);
+            if (slot == 0) {
+                return -1;
+            }
+            if ((int) (slot >>> 32) == hash) {
+                return (int) slot - 1;
+            }
+        }
+    }
+
+    private static void put(AtomicLongArray t, long slot) {
+        int mask = t.length() - 1;
+        int i = spread((int) (slot >>> 32)) & mask;
+        while (t.get(i) != 0) {
+            i = (i + 1) & mask;
+        }
+        t.set(i, slot);
+    }
+
+    /**
+     * Spreads hash bits, since token hashes of similar words differ mostly in
+     * the low bits.
+     */
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
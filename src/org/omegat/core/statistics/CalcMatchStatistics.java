@@ -29,31 +29,36 @@
 
 package org.omegat.core.statistics;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Logger;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
 import org.omegat.core.Core;
 import org.omegat.core.data.IProject;
 import org.omegat.core.data.ProtectedPart;
 import org.omegat.core.data.SourceTextEntry;
 import org.omegat.core.matching.FuzzyMatcher;
-import org.omegat.core.matching.ISimilarityCalculator;
-import org.omegat.core.matching.LevenshteinDistance;
 import org.omegat.core.matching.NearString;
+import org.omegat.core.matching.TokenIdLevenshteinDistance;
 import org.omegat.core.segmentation.Segmenter;
 import org.omegat.core.statistics.FindMatches.StoppedException;
 import org.omegat.core.threads.LongProcessInterruptedException;
 import org.omegat.core.threads.LongProcessThread;
+import org.omegat.tokenizer.BaseTokenizer;
 import org.omegat.util.OConsts;
 import org.omegat.util.OStrings;
 import org.omegat.util.Preferences;
 import org.omegat.util.StringUtil;
-import org.omegat.util.Token;
 import org.omegat.util.gui.TextUtil;
 
 /**
@@ -75,6 +80,9 @@ import org.omegat.util.gui.TextUtil;
  * @author Aaron Madlon-Kay
  */
 public class CalcMatchStatistics extends LongProcessThread {
+    /** Number of untranslated entries searched at once, between progress updates. */
+    private static final int BATCH_SIZE = 1024;
+
     private final String[] header = new String[] { "", OStrings.getString("CT_STATS_Segments"),
             OStrings.getString("CT_STATS_Words"), OStrings.getString("CT_STATS_Characters_NOSP"),
             OStrings.getString("CT_STATS_Characters") };
@@ -101,11 +109,16 @@ public class CalcMatchStatistics extends LongProcessThread {
     private final Set<String> alreadyProcessedInFile = new HashSet<String>();
     private final Set<String> alreadyProcessedInProject = new HashSet<String>();
 
-    private final ThreadLocal<ISimilarityCalculator> distanceCalculator = ThreadLocal
-            .withInitial(LevenshteinDistance::new);
-    private final ThreadLocal<FindMatches> finder;
+    private final ThreadLocal<TokenIdLevenshteinDistance> distanceCalculator = ThreadLocal
+            .withInitial(TokenIdLevenshteinDistance::new);
+    private final FindMatches finder;
     private final StringBuilder textForLog = new StringBuilder();
     private final IProject project;
+    private final Segmenter segmenter;
+    private final int threshold;
+
+    /** Similarities of previous runs, or null if not used. */
+    private MatchStatisticsCache statsCache;
 
     public CalcMatchStatistics(IStatsConsumer callback, boolean perFile) {
         this(Core.getProject(), Core.getSegmenter(), callback, perFile,
@@ -116,25 +129,49 @@ public class CalcMatchStatistics extends LongProcessThread {
     public CalcMatchStatistics(IProject project, Segmenter segmenter, IStatsConsumer callback,
                                boolean perFile, int threshold) {
         this.project = project;
+        this.segmenter = segmenter;
+        this.threshold = threshold;
         this.callback = callback;
         this.perFile = perFile;
-        finder = ThreadLocal.withInitial(
-                () -> new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, true,
-                        false, false, threshold));
+        finder = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, true, false, false, threshold,
+                true);
     }
 
     @Override
     public void run() {
-        if (perFile) {
-            entriesToProcess = project.getAllEntries().size() * 2;
-            calcPerFile();
-        } else {
-            entriesToProcess = project.getAllEntries().size();
-            calcTotal(true);
+        setStatsCache(createStatsCache(new File(project.getProjectProperties().getProjectInternal(),
+                OConsts.STATS_MATCH_CACHE_FILENAME)));
+        try {
+            if (perFile) {
+                entriesToProcess = project.getAllEntries().size();
+                calcPerFile();
+            } else {
+                entriesToProcess = project.getAllEntries().size();
+                calcTotal(true);
+            }
+        } finally {
+            // similarities found before interruption are valid too
+            statsCache.save();
         }
         callback.finishData();
     }
 
+    /**
+     * Read similarities found by previous runs from the file.
+     */
+    MatchStatisticsCache createStatsCache(File file) {
+        MatchStatisticsCache cache = new MatchStatisticsCache(project, segmenter, finder, threshold, file);
+        cache.load();
+        return cache;
+    }
+
+    /**
+     * Use similarities found by previous runs, and store found ones.
+     */
+    void setStatsCache(MatchStatisticsCache statsCache) {
+        this.statsCache = statsCache;
+    }
+
     void appendText(String text) {
         textForLog.append(text);
         callback.appendTextData(text);
@@ -154,25 +191,67 @@ public class CalcMatchStatistics extends LongProcessThread {
         callback.setTable(header, table);
     }
 
+    /**
+     * Calculate statistics for every file and for the whole project. Segments
+     * are classified for files and for the project first, then the similarity
+     * of every segment which needs it in any of them is found once, and
+     * added to both.
+     */
     void calcPerFile() {
-        int fileNumber = 0;
-        for (IProject.FileInfo fi : project.getProjectFiles()) {
-            fileNumber++;
-
-            MatchStatCounts perFileCounts = forFile(fi);
+        List<IProject.FileInfo> files = project.getProjectFiles();
+        List<MatchStatCounts> perFileCounts = new ArrayList<>(files.size());
+        List<List<SourceTextEntry>> perFileUntranslated = new ArrayList<>(files.size());
+        alreadyProcessedInProject.clear();
+        for (IProject.FileInfo fi : files) {
+            MatchStatCounts counts = new MatchStatCounts();
+            List<SourceTextEntry> untranslated = new ArrayList<>();
+            classifyFile(fi, counts, untranslated);
+            perFileCounts.add(counts);
+            perFileUntranslated.add(untranslated);
+        }
+        MatchStatCounts total = new MatchStatCounts();
+        List<SourceTextEntry> totalUntranslated = new ArrayList<>();
+        classifyTotal(total, totalUntranslated);
+
+        // the same segment is usually searched for its file and for total
+        Map<SourceTextEntry, Integer> positions = new IdentityHashMap<>();
+        List<SourceTextEntry> searchEntries = new ArrayList<>();
+        for (SourceTextEntry ste : totalUntranslated) {
+            positions.put(ste, searchEntries.size());
+            searchEntries.add(ste);
+        }
+        for (List<SourceTextEntry> untranslated : perFileUntranslated) {
+            for (SourceTextEntry ste : untranslated) {
+                if (!positions.containsKey(ste)) {
+                    positions.put(ste, searchEntries.size());
+                    searchEntries.add(ste);
+                }
+            }
+        }
+        // classification of the total has processed all other entries
+        entriesToProcess = treated + searchEntries.size();
+        int[] similarities = findSimilarities(searchEntries);
+        if (similarities == null) {
             checkInterrupted();
+            return;
+        }
 
-            String[][] table = perFileCounts.calcTable(rowsPerFile);
+        for (int i = 0; i < files.size(); i++) {
+            for (SourceTextEntry ste : perFileUntranslated.get(i)) {
+                perFileCounts.get(i).addForPercents(similarities[positions.get(ste)], new StatCount(ste));
+            }
+            String[][] table = perFileCounts.get(i).calcTable(rowsPerFile);
             String outText = TextUtil.showTextTable(header, table, align);
-            String title = StringUtil.format(OStrings.getString("CT_STATSMATCH_File"), fileNumber,
-                    fi.filePath);
+            String title = StringUtil.format(OStrings.getString("CT_STATSMATCH_File"), i + 1,
+                    files.get(i).filePath);
             appendText(title + "\n");
             appendText(outText + "\n");
             appendTable(title, table);
         }
 
-        MatchStatCounts total = calcTotal(false);
-
+        for (SourceTextEntry ste : totalUntranslated) {
+            total.addForPercents(similarities[positions.get(ste)], new StatCount(ste));
+        }
         String title = OStrings.getString("CT_STATSMATCH_FileTotal");
         appendText(title + "\n");
         String[][] table = total.calcTable(rowsTotal, i -> i != 1);
@@ -188,29 +267,8 @@ public class CalcMatchStatistics extends LongProcessThread {
 
     MatchStatCounts calcTotal(boolean outData) {
         MatchStatCounts result = new MatchStatCounts();
-        alreadyProcessedInProject.clear();
-
         final List<SourceTextEntry> untranslatedEntries = new ArrayList<SourceTextEntry>();
-
-        // We should iterate all segments from all files in project.
-        for (SourceTextEntry ste : project.getAllEntries()) {
-            checkInterrupted();
-            StatCount count = new StatCount(ste);
-            boolean isFirst = alreadyProcessedInProject.add(ste.getSrcText());
-            if (project.getTranslationInfo(ste).isTranslated()) {
-                // segment has translation - should be calculated as "Exact
-                // matched"
-                result.addExact(count);
-                entryProcessed();
-            } else if (!isFirst) {
-                // already processed - repetition
-                result.addRepetition(count);
-                entryProcessed();
-            } else {
-                // first time
-                untranslatedEntries.add(ste);
-            }
-        }
+        classifyTotal(result, untranslatedEntries);
 
         if (outData) {
             String[][] table = result.calcTableWithoutPercentage(rowsTotal);
@@ -235,11 +293,43 @@ public class CalcMatchStatistics extends LongProcessThread {
         return result;
     }
 
-    MatchStatCounts forFile(IProject.FileInfo fi) {
-        MatchStatCounts result = new MatchStatCounts();
-        alreadyProcessedInFile.clear();
+    /**
+     * Count translated segments and repetitions in the whole project, and
+     * collect first occurrences of untranslated segments.
+     */
+    private void classifyTotal(MatchStatCounts result, List<SourceTextEntry> untranslatedEntries) {
+        alreadyProcessedInProject.clear();
 
-        final List<SourceTextEntry> untranslatedEntries = new ArrayList<SourceTextEntry>();
+        // We should iterate all segments from all files in project.
+        for (SourceTextEntry ste : project.getAllEntries()) {
+            checkInterrupted();
+            StatCount count = new StatCount(ste);
+            boolean isFirst = alreadyProcessedInProject.add(ste.getSrcText());
+            if (project.getTranslationInfo(ste).isTranslated()) {
+                // segment has translation - should be calculated as "Exact
+                // matched"
+                result.addExact(count);
+                entryProcessed();
+            } else if (!isFirst) {
+                // already processed - repetition
+                result.addRepetition(count);
+                entryProcessed();
+            } else {
+                // first time
+                untranslatedEntries.add(ste);
+            }
+        }
+    }
+
+    /**
+     * Count translated segments and repetitions in the file, and collect
+     * untranslated segments which are met for the first time. Files must be
+     * classified in the project order, since repetitions from previous files
+     * are counted separately.
+     */
+    private void classifyFile(IProject.FileInfo fi, MatchStatCounts result,
+            List<SourceTextEntry> untranslatedEntries) {
+        alreadyProcessedInFile.clear();
 
         // We should iterate all segments from file.
         for (SourceTextEntry ste : fi.entries) {
@@ -251,15 +341,12 @@ public class CalcMatchStatistics extends LongProcessThread {
                 // segment has translation - should be calculated as
                 // "Exact matched"
                 result.addExact(count);
-                treated++;
             } else if (existInPreviousFiles) {
                 // exist in other file
                 result.addRepetitionFromOtherFiles(count);
-                entryProcessed();
             } else if (existInFile) {
                 // exist in this file
                 result.addRepetitionWithinThisFile(count);
-                entryProcessed();
             } else {
                 // first time
                 untranslatedEntries.add(ste);
@@ -267,10 +354,6 @@ public class CalcMatchStatistics extends LongProcessThread {
             }
         }
         alreadyProcessedInProject.addAll(alreadyProcessedInFile);
-
-        calcSimilarity(untranslatedEntries).ifPresent(result::addCounts);
-
-        return result;
     }
 
     /**
@@ -289,37 +372,95 @@ public class CalcMatchStatistics extends LongProcessThread {
      * ITokenizer.tokenizeAllExactly() (adjustedScore)
      */
     Optional<MatchStatCounts> calcSimilarity(List<SourceTextEntry> untranslatedEntries) {
-        // If we have more than one available processor then we do the
-        // calculation in parallel.
-        boolean doParallel = Runtime.getRuntime().availableProcessors() > 1;
-        Stream<SourceTextEntry> stream = doParallel ? untranslatedEntries.parallelStream()
-                : untranslatedEntries.stream();
+        int[] similarities = findSimilarities(untranslatedEntries);
+        if (similarities == null) {
+            return Optional.empty();
+        }
+        MatchStatCounts result = new MatchStatCounts();
+        for (int i = 0; i < similarities.length; i++) {
+            result.addForPercents(similarities[i], new StatCount(untranslatedEntries.get(i)));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Find the best similarity of every entry.
+     *
+     * @return similarities in the order of entries, or null if calculation
+     *         was interrupted
+     */
+    int[] findSimilarities(List<SourceTextEntry> entries) {
+        // Entries are searched in batches, so the corpus is travelled once
+        // for many entries. The batch search itself is parallel if we have
+        // more than one available processor.
         long startTime = System.currentTimeMillis();
-        MatchStatCounts result = null;
+        int[] result = new int[entries.size()];
         try {
-            result = stream.collect(MatchStatCounts::new, (counts, ste) -> {
+            // similarities which are still valid are not searched again
+            List<Integer> searchPositions = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                SourceTextEntry ste = entries.get(i);
+                result[i] = statsCache == null ? -1 : statsCache.get(ste, removeXmlTags(ste));
+                if (result[i] >= 0) {
+                    entryProcessed();
+                } else {
+                    searchPositions.add(i);
+                }
+            }
+            for (int from = 0; from < searchPositions.size(); from += BATCH_SIZE) {
                 checkInterrupted();
-                counts.addForPercents(calcMaxSimilarity(ste), new StatCount(ste));
-                entryProcessed();
-            }, MatchStatCounts::addCounts);
+                List<SourceTextEntry> batch = searchPositions
+                        .subList(from, Math.min(searchPositions.size(), from + BATCH_SIZE)).stream()
+                        .map(entries::get).collect(Collectors.toList());
+                List<String> queries = batch.stream().map(this::removeXmlTags).collect(Collectors.toList());
+                List<List<NearString>> nears = finder.search(queries, true, false, this::isInterrupted);
+                int[] similarities = IntStream.range(0, batch.size()).parallel()
+                        .map(i -> calcMaxSimilarity(batch.get(i), nears.get(i))).toArray();
+                for (int i = 0; i < batch.size(); i++) {
+                    result[searchPositions.get(from + i)] = similarities[i];
+                    if (statsCache != null) {
+                        statsCache.put(batch.get(i), queries.get(i), similarities[i], nears.get(i));
+                    }
+                    entryProcessed();
+                }
+            }
         } catch (StoppedException | LongProcessInterruptedException ex) {
+            result = null;
         }
         long endTime = System.currentTimeMillis();
-        Logger.getLogger(getClass().getName()).fine(String.format("Calc similarity took %.3f s (%s)",
-                (endTime - startTime) / 1000f, doParallel ? "parallel" : "sequential"));
-        return Optional.ofNullable(result);
+        Logger logger = Logger.getLogger(getClass().getName());
+        logger.fine(String.format("Calc similarity took %.3f s", (endTime - startTime) / 1000f));
+        if (statsCache != null) {
+            logger.fine("Similarities reused from previous runs: " + statsCache.getReused());
+        }
+        // usage of the memory-limited caches, for sizing them on big corpora
+        logger.fine("Tokenized corpus: " + finder.getCorpus());
+        if (project.getSourceTokenizer() instanceof BaseTokenizer) {
+            CacheStats stats = ((BaseTokenizer) project.getSourceTokenizer()).getCacheStats();
+            logger.fine(String.format("Tokenizer caches: hit rate %.1f%%, %d evictions", stats.hitRate() * 100,
+                    stats.evictionCount()));
+        }
+        return result;
     }
 
     int calcMaxSimilarity(SourceTextEntry ste) {
-        String srcNoXmlTags = removeXmlTags(ste);
-        FindMatches localFinder = finder.get();
-        List<NearString> nears = localFinder.search(srcNoXmlTags, true, false, this::isInterrupted);
-        final Token[] strTokensStem = localFinder.tokenizeAll(ste.getSrcText());
+        List<NearString> nears = finder.search(removeXmlTags(ste), true, false, this::isInterrupted);
+        return calcMaxSimilarity(ste, nears);
+    }
+
+    /**
+     * Find the best similarity of the segment with the near strings, without
+     * any tags removing.
+     */
+    int calcMaxSimilarity(SourceTextEntry ste, List<NearString> nears) {
+        final int[] strTokensStem = finder.tokenizeAllIds(ste.getSrcText());
         int maxSimilarity = 0;
         CACHE: for (NearString near : nears) {
-            final Token[] candTokens = localFinder.tokenizeAll(near.source);
+            final int[] candTokens = finder.tokenizeAllIds(near.source);
+            // only a better similarity is interesting
+            int minSimilarity = maxSimilarity + 1 + (near.fuzzyMark ? FindMatches.PENALTY_FOR_FUZZY : 0);
             int newSimilarity = FuzzyMatcher.calcSimilarity(distanceCalculator.get(), strTokensStem,
-                    candTokens);
+                    candTokens, minSimilarity);
             if (near.fuzzyMark) {
                 newSimilarity -= FindMatches.PENALTY_FOR_FUZZY;
             }
@@ -0,0 +1,246 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+import org.omegat.core.data.ExternalTMX;
+import org.omegat.core.data.ITMXEntry;
+import org.omegat.core.data.SourceTextEntry;
+
+/**
+ * Hash index of normalized source texts, for find exact and case-only matches
+ * without comparing the query with the whole corpus.
+ * <p>
+ * A source is normalized by removing text matched by the remove pattern and
+ * converting to lower case, so sources which differ only in case have the same
+ * key. The index covers the project segments (for their translations in the
+ * project memory and in the source files) and the external TMs. Each table
+ * keeps only two ints per entry: the hash of the normalized source, and the
+ * entry position. Lookup finds the range of equal hashes by binary search and
+ * compares the normalized sources of that range with the key.
+ * <p>
+ * This class is thread safe.
+ */
+public class ExactMatchIndex {
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final Locale srcLocale;
+
+    /** Remove pattern the keys were normalized with. */
+    private volatile Pattern removePattern;
+    private String removeRegex;
+
+    /** Table of the project segments, and the list it was built for. */
+    private List<SourceTextEntry> entriesList;
+    private Table entriesTable;
+
+    /** Tables of the external TMs, guarded by this. */
+    private final Map<ExternalTMX, Table> memories = new WeakHashMap<>();
+
+    /** Incremented on each clear, so tables built before are not published. */
+    private int generation;
+
+    public ExactMatchIndex(Locale srcLocale) {
+        this.srcLocale = srcLocale;
+    }
+
+    /**
+     * Make sure the keys were normalized with the same remove pattern as the
+     * caller uses. If the user changed the pattern, all tables have to be
+     * built again.
+     */
+    public synchronized void checkRemovePattern(Pattern pattern) {
+        String regex = pattern == null ? null : pattern.pattern();
+        if (!Objects.equals(regex, removeRegex)) {
+            clear();
+            removeRegex = regex;
+            removePattern = pattern;
+        }
+    }
+
+    /**
+     * Drop all tables.
+     */
+    public synchronized void clear() {
+        generation++;
+        entriesList = null;
+        entriesTable = null;
+        memories.clear();
+    }
+
+    /**
+     * Returns the key of source text: without text matched by the remove
+     * pattern, in lower case.
+     */
+    public String normalize(String source) {
+        Pattern pattern = removePattern;
+        String realSource = pattern == null ? source : pattern.matcher(source).replaceAll("");
+        return realSource.toLowerCase(srcLocale);
+    }
+
+    /**
+     * Returns positions of the project segments with the key, in ascending
+     * order.
+     *
+     * @param entries
+     *            all project segments, as returned by
+     *            {@link org.omegat.core.data.IProject#getAllEntries()}
+     * @param key
+     *            normalized source
+     */
+    public int[] findEntries(List<SourceTextEntry> entries, String key) {
+        Table table;
+        synchronized (this) {
+            if (entriesList != entries) {
+                // project entries list can't be changed after load
+                entriesTable = new Table(entries.size(), i -> normalize(entries.get(i).getSrcText()));
+                entriesList = entries;
+            }
+            table = entriesTable;
+        }
+        return table.find(key, i -> normalize(entries.get(i).getSrcText()));
+    }
+
+    /**
+     * Returns positions of the TM entries with the key, in ascending order.
+     * The table for the TM is built on the first call.
+     *
+     * @param key
+     *            normalized source
+     */
+    public int[] findEntries(ExternalTMX tmx, String key) {
+        List<ITMXEntry> tmEntries = tmx.getEntries();
+        IntFunction<String> keys = i -> {
+            String source = tmEntries.get(i).getSourceText();
+            return source == null ? null : normalize(source);
+        };
+        Table table;
+        int gen;
+        synchronized (this) {
+            table = memories.get(tmx);
+            gen = generation;
+        }
+        if (table == null) {
+            // build outside of the lock, since it's slow for big TMs, and
+            // publish only if the index was not cleared meanwhile
+            table = new Table(tmEntries.size(), keys);
+            synchronized (this) {
+                if (gen == generation) {
+                    Table existing = memories.putIfAbsent(tmx, table);
+                    if (existing != null) {
+                        table = existing;
+                    }
+                }
+            }
+        }
+        return table.find(key, keys);
+    }
+
+    /**
+     * Prepare the table of the project segments, so the first search doesn't
+     * have to.
+     */
+    public void index(List<SourceTextEntry> entries) {
+        findEntries(entries, "");
+    }
+
+    /**
+     * Prepare the table of the TM, so the first search doesn't have to.
+     */
+    public void index(ExternalTMX tmx) {
+        findEntries(tmx, "");
+    }
+
+    /**
+     * Entry positions sorted by hash of key, then by position.
+     */
+    private static class Table {
+        private final int[] hashes;
+        private final int[] positions;
+
+        Table(int size, IntFunction<String> keys) {
+            long[] packed = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                String key = keys.apply(i);
+                if (key != null) {
+                    packed[count++] = ((long) key.hashCode() << 32) | i;
+                }
+            }
+            Arrays.sort(packed, 0, count);
+            hashes = new int[count];
+            positions = new int[count];
+            for (int i = 0; i < count; i++) {
+                hashes[i] = (int) (packed[i] >> 32);
+                positions[i] = (int) packed[i];
+            }
+        }
+
+        int[] find(String key, IntFunction<String> keys) {
+            int hash = key.hashCode();
+            int from = lowerBound(hash);
+            int to = from;
+            while (to < hashes.length && hashes[to] == hash) {
+                to++;
+            }
+            if (from == to) {
+                return NO_POSITIONS;
+            }
+            int[] result = new int[to - from];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                // different keys can have the same hash
+                if (key.equals(keys.apply(positions[i]))) {
+                    result[count++] = positions[i];
+                }
+            }
+            return count == result.length ? result : Arrays.copyOf(result, count);
+        }
+
+        private int lowerBound(int hash) {
+            int lo = 0;
+            int hi = hashes.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (hashes[mid] < hash) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
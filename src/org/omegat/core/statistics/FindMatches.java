@@ -30,13 +30,21 @@
 package org.omegat.core.statistics;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.omegat.core.Core;
 import org.omegat.core.data.EntryKey;
@@ -46,11 +54,12 @@ import org.omegat.core.data.IProject;
 import org.omegat.core.data.ITMXEntry;
 import org.omegat.core.data.PrepareTMXEntry;
 import org.omegat.core.data.SourceTextEntry;
+import org.omegat.core.data.TMXEntry;
 import org.omegat.core.events.IStopped;
 import org.omegat.core.matching.FuzzyMatcher;
-import org.omegat.core.matching.ISimilarityCalculator;
 import org.omegat.core.matching.LevenshteinDistance;
 import org.omegat.core.matching.NearString;
+import org.omegat.core.matching.TokenIdLevenshteinDistance;
 import org.omegat.core.segmentation.Rule;
 import org.omegat.core.segmentation.Segmenter;
 import org.omegat.tokenizer.ITokenizer;
@@ -76,7 +85,10 @@ import org.omegat.util.Token;
  * 3. Split original segment into not-only-words tokens (including numbers and
  * tags) without stemmer, then compare tokens.
  *
- * This class is not thread safe ! Must be used in the one thread only.
+ * This class is not thread safe ! Must be used in the one thread only. In the
+ * parallel mode, the search itself is split between workers of the common
+ * fork-join pool: each worker has own FindMatches instance with own top list,
+ * and lists are merged in the corpus order at the end.
  *
  * @author Maxym Mykhalchuk
  * @author Alex Buloichik (alex73mail@gmail.com)
@@ -94,11 +106,23 @@ public class FindMatches {
     private static final int PENALTY_FOR_REMOVED = 5;
     private static final int SUBSEGMENT_MATCH_THRESHOLD = 85;
 
+    /** Minimal number of entries processed by one parallel task. */
+    private static final int PARALLEL_MIN_CHUNK_SIZE = 64;
+    /** Number of parallel tasks per processor, for balance load. */
+    private static final int PARALLEL_CHUNKS_PER_THREAD = 4;
+
+    /** Maximal number of original strings compared together in batch search. */
+    private static final int BATCH_TILE_SIZE = 32;
+    /** Number of entries prepared at once in batch search. */
+    private static final int BATCH_BLOCK_SIZE = 256;
+
+    private static final Logger LOGGER = Logger.getLogger(FindMatches.class.getName());
+
     private static final Pattern SEARCH_FOR_PENALTY = Pattern.compile("penalty-(\\d+)");
 
     private static final String ORPHANED_FILE_NAME = OStrings.getString("CT_ORPHAN_STRINGS");
 
-    private final ISimilarityCalculator distance = new LevenshteinDistance();
+    private final TokenIdLevenshteinDistance distance = new TokenIdLevenshteinDistance();
 
     /**
      * the removePattern that was configured by the user.
@@ -114,6 +138,9 @@ public class FindMatches {
     private List<NearString> result;
 
     private final boolean searchExactlyTheSame;
+
+    /** Original string, as passed to search. */
+    private String searchText;
     private String srcText;
 
     /**
@@ -127,6 +154,15 @@ public class FindMatches {
     /** Tokens for original string, includes numbers and tags. */
     private Token[] strTokensAll;
 
+    /** Token ids for original string, for each tokenization. */
+    private int[] strIdsStem, strIdsNoStem, strIdsAll;
+
+    /** Token counts of original string, for upper bounds of similarity. */
+    private TokenBag strBagStem, strBagNoStem, strBagAll;
+
+    /** Candidates pruned on each stage, for the last search. */
+    private final PruningStats pruningStats = new PruningStats();
+
     // This finder used for search separate segment matches
     private FindMatches separateSegmentMatcher;
 
@@ -136,6 +172,35 @@ public class FindMatches {
 
     private final Segmenter segmenter;
 
+    /**
+     * True if candidates should be preselected by the project's fuzzy match
+     * index, false for compare with every entry.
+     */
+    private final boolean useIndex;
+
+    /** True if search should be split between processors. */
+    private final boolean parallel;
+
+    /**
+     * True for workers of the parallel search: matches with the same scores as
+     * the last one are kept above the maximal count, so the merge of workers'
+     * results gets all their attributions, as the sequential search does.
+     */
+    private boolean keepTies;
+
+    /**
+     * True if the full search should be skipped when the project's exact
+     * match index finds enough 100% matches.
+     */
+    private final boolean useExactIndex;
+
+    /** Candidates which can reach the threshold, or null if all can. */
+    private FuzzyMatchIndex.Candidates candidates;
+    private FuzzyMatchIndex index;
+
+    /** Token ids of compared texts, shared with other searches. */
+    private final TokenizedCorpus corpus;
+
     /**
      * @param searchExactlyTheSame
      *            allows to search similarities with the same text as source
@@ -147,11 +212,24 @@ public class FindMatches {
             boolean searchExactlyTheSame) {
         this(project, Core.getSegmenter(), maxCount, allowSeparateSegmentMatch, searchExactlyTheSame, true,
                 Preferences.getPreferenceDefault(Preferences.EXT_TMX_FUZZY_MATCH_THRESHOLD,
-                        OConsts.FUZZY_MATCH_THRESHOLD));
+                        OConsts.FUZZY_MATCH_THRESHOLD),
+                Preferences.isPreferenceDefault(Preferences.FUZZY_MATCH_PARALLEL_SEARCH, true));
     }
 
     public FindMatches(IProject project, Segmenter segmenter, int maxCount, boolean allowSeparateSegmentMatch,
             boolean searchExactlyTheSame, boolean applyThreshold, int threshold) {
+        this(project, segmenter, maxCount, allowSeparateSegmentMatch, searchExactlyTheSame, applyThreshold,
+                threshold, false);
+    }
+
+    /**
+     * @param parallel
+     *            split search between available processors. Should be false
+     *            when many searches already run in parallel, like for
+     *            statistics.
+     */
+    public FindMatches(IProject project, Segmenter segmenter, int maxCount, boolean allowSeparateSegmentMatch,
+            boolean searchExactlyTheSame, boolean applyThreshold, int threshold, boolean parallel) {
         this.project = project;
         this.segmenter = segmenter;
         this.tok = project.getSourceTokenizer();
@@ -163,103 +241,284 @@ public class FindMatches {
         }
         this.fuzzyMatchThreshold = threshold;
         this.applyThreshold = applyThreshold;
+        // The index can only prove that an entry doesn't reach the threshold.
+        this.useIndex = applyThreshold && threshold > 0
+                && !Preferences.isPreference(Preferences.FUZZY_MATCH_EXHAUSTIVE_SCAN);
+        this.useExactIndex = !Preferences.isPreference(Preferences.FUZZY_MATCH_EXHAUSTIVE_SCAN);
+        this.parallel = parallel && Runtime.getRuntime().availableProcessors() > 1;
+        TokenizedCorpus projectCorpus = project.getTokenizedCorpus();
+        this.corpus = projectCorpus != null ? projectCorpus : new TokenizedCorpus(tok, srcLocale);
+    }
+
+    /**
+     * Create worker for parallel or batch search, with the same settings as
+     * parent.
+     */
+    private FindMatches(FindMatches parent) {
+        this.project = parent.project;
+        this.segmenter = parent.segmenter;
+        this.tok = parent.tok;
+        this.srcLocale = parent.srcLocale;
+        this.maxCount = parent.maxCount;
+        this.searchExactlyTheSame = parent.searchExactlyTheSame;
+        this.fuzzyMatchThreshold = parent.fuzzyMatchThreshold;
+        this.applyThreshold = parent.applyThreshold;
+        this.useIndex = parent.useIndex;
+        this.useExactIndex = parent.useExactIndex;
+        this.parallel = false;
+        this.result = new ArrayList<>(maxCount + 1);
+        this.corpus = parent.corpus;
     }
 
     public List<NearString> search(String searchText, boolean requiresTranslation, boolean fillSimilarityData,
             IStopped stop) throws StoppedException {
         result = new ArrayList<>(OConsts.MAX_NEAR_STRINGS + 1);
-        srcText = searchText;
-        removedText = "";
-        // remove part that is to be removed according to user settings.
-        // Rationale: it might be a big string influencing the 'editing
-        // distance', while it is not really part
-        // of the translatable text
-        if (removePattern != null) {
-            StringBuilder removedBuffer = new StringBuilder();
-            Matcher removeMatcher = removePattern.matcher(srcText);
-            while (removeMatcher.find()) {
-                removedBuffer.append(removeMatcher.group());
+        setQuery(searchText);
+        prepareQuery();
+
+        Map<String, ExternalTMX> transMemories = project.getTransMemories();
+        if (useExactIndex && searchExact(searchText, requiresTranslation, transMemories, stop)) {
+            // nothing can be better than enough 100% matches
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Exact matches for \"" + srcText + "\": " + result.size());
             }
-            srcText = removeMatcher.replaceAll("");
-            removedText = removedBuffer.toString();
+            fillSimilarityData(fillSimilarityData);
+            return result;
         }
-        // get tokens for original string which includes non-word tokens
-        strTokensStem = tokenizeStem(srcText);
-        strTokensNoStem = tokenizeNoStem(srcText);
-        strTokensAll = tokenizeAll(srcText);
+        prepareCandidates(transMemories);
 
-        // travel by project entries, including orphaned
-        if (project.getProjectProperties().isSupportDefaultTranslations()) {
-            project.iterateByDefaultTranslations((source, trans) -> {
-                checkStopped(stop);
-                if (!searchExactlyTheSame && source.equals(searchText)) {
-                    // skip original==original entry comparison
-                    return;
-                }
-                if (requiresTranslation && trans.translation == null) {
-                    return;
-                }
-                String fileName = project.isOrphaned(source) ? ORPHANED_FILE_NAME : null;
-                PrepareTMXEntry entry = new PrepareTMXEntry(trans);
-                entry.source = source;
-                processEntry(null, entry, fileName, NearString.MATCH_SOURCE.MEMORY, false, 0);
-            });
-        }
-        project.iterateByMultipleTranslations((source, trans) -> {
-            checkStopped(stop);
-            if (!searchExactlyTheSame && source.sourceText.equals(searchText)) {
-                // skip original==original entry comparison
-                return;
+        if (parallel) {
+            searchParallel(searchText, requiresTranslation, transMemories, stop);
+        } else {
+            iterateMemory(searchText, requiresTranslation, stop, this::processEntry);
+            int foreignPenalty = Preferences.getPreferenceDefault(Preferences.PENALTY_FOR_FOREIGN_MATCHES,
+                    Preferences.PENALTY_FOR_FOREIGN_MATCHES_DEFAULT);
+            for (Map.Entry<String, ExternalTMX> en : transMemories.entrySet()) {
+                List<ITMXEntry> tmEntries = en.getValue().getEntries();
+                processTM(en.getKey(), en.getValue(), foreignPenalty, 0, tmEntries.size(), requiresTranslation,
+                        stop);
             }
-            if (requiresTranslation && trans.translation == null) {
-                return;
+            iterateSourceTranslations(stop, this::processEntry);
+        }
+        searchSeparateSegments(requiresTranslation, stop);
+        fillSimilarityData(fillSimilarityData);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Fuzzy matches for \"" + srcText + "\": " + pruningStats);
+        }
+        return result;
+    }
+
+    /**
+     * Find matches for many original strings at once. The result for each
+     * string is the same as {@link #search(String, boolean, boolean, IStopped)}
+     * returns, but the corpus is travelled once for a tile of strings instead
+     * of once for each string: entries are prepared in blocks, and each block
+     * is compared with all strings of the tile while its token ids are still in
+     * the processor cache. Tiles are processed in parallel if the finder was
+     * created for parallel search.
+     *
+     * @return results, in the order of original strings
+     */
+    public List<List<NearString>> search(List<String> searchTexts, boolean requiresTranslation,
+            boolean fillSimilarityData, IStopped stop) throws StoppedException {
+        long start = System.currentTimeMillis();
+        List<FindMatches> queries = new ArrayList<>(searchTexts.size());
+        for (String searchText : searchTexts) {
+            FindMatches query = new FindMatches(this);
+            query.setQuery(searchText);
+            query.prepareQuery();
+            if (separateSegmentMatcher != null) {
+                query.separateSegmentMatcher = new FindMatches(project, segmenter, 1, false, true, true,
+                        fuzzyMatchThreshold);
             }
-            String fileName = project.isOrphaned(source) ? ORPHANED_FILE_NAME : null;
-            PrepareTMXEntry entry = new PrepareTMXEntry(trans);
-            entry.source = source.sourceText;
-            processEntry(source, entry, fileName, NearString.MATCH_SOURCE.MEMORY, false, 0);
-        });
-        /*
-         * Penalty applied for fuzzy matches in another language (if no match in
-         * the target language was found).
-         */
+            queries.add(query);
+        }
+
+        // candidates are checked for each string later
+        Map<String, ExternalTMX> transMemories = project.getTransMemories();
+        candidates = null;
+        MemoryEntries memory = new MemoryEntries(project);
+        List<SourceTextEntry> allEntries = project.getAllEntries();
+
+        FuzzyMatchIndex batchIndex = useIndex ? project.getFuzzyMatchIndex() : null;
+        if (batchIndex != null) {
+            batchIndex.checkRemovePattern(removePattern);
+        }
+        List<Function<FindMatches, List<PreparedEntry>>> blocks = new ArrayList<>();
+        for (int from = 0; from < memory.size(); from += BATCH_BLOCK_SIZE) {
+            int blockStart = from;
+            int blockEnd = Math.min(memory.size(), from + BATCH_BLOCK_SIZE);
+            blocks.add(worker -> worker.prepareEntries(true, batchIndex, processor -> worker
+                    .iterateMemory(memory, blockStart, blockEnd, null, requiresTranslation, stop, processor)));
+        }
         int foreignPenalty = Preferences.getPreferenceDefault(Preferences.PENALTY_FOR_FOREIGN_MATCHES,
                 Preferences.PENALTY_FOR_FOREIGN_MATCHES_DEFAULT);
-        // travel by translation memories
-        for (Map.Entry<String, ExternalTMX> en : project.getTransMemories().entrySet()) {
-            int penalty = 0;
-            Matcher matcher = SEARCH_FOR_PENALTY.matcher(en.getKey());
-            if (matcher.find()) {
-                penalty = Integer.parseInt(matcher.group(1));
-            }
-            for (ITMXEntry tmen : en.getValue().getEntries()) {
+        for (Map.Entry<String, ExternalTMX> en : transMemories.entrySet()) {
+            int size = en.getValue().getEntries().size();
+            for (int from = 0; from < size; from += BATCH_BLOCK_SIZE) {
+                int blockStart = from;
+                int blockEnd = Math.min(size, from + BATCH_BLOCK_SIZE);
+                blocks.add(worker -> worker.prepareTM(en.getKey(), en.getValue(), foreignPenalty, blockStart,
+                        blockEnd, requiresTranslation, batchIndex));
+            }
+        }
+        for (int from = 0; from < allEntries.size(); from += BATCH_BLOCK_SIZE) {
+            int blockStart = from;
+            int blockEnd = Math.min(allEntries.size(), from + BATCH_BLOCK_SIZE);
+            blocks.add(worker -> worker.prepareEntries(false, batchIndex, processor -> worker
+                    .iterateSourceTranslations(allEntries, blockStart, blockEnd, stop, processor)));
+        }
+
+        int tileSize = BATCH_TILE_SIZE;
+        if (parallel) {
+            // enough tiles for all processors
+            int tiles = ForkJoinPool.getCommonPoolParallelism() * PARALLEL_CHUNKS_PER_THREAD;
+            tileSize = Math.max(1, Math.min(BATCH_TILE_SIZE, (queries.size() + tiles - 1) / tiles));
+        }
+        int tileCount = (queries.size() + tileSize - 1) / tileSize;
+        int finalTileSize = tileSize;
+        IntStream tileStream = IntStream.range(0, tileCount);
+        if (parallel && tileCount > 1) {
+            tileStream = tileStream.parallel();
+        }
+        tileStream.forEach(t -> searchTile(queries.subList(t * finalTileSize,
+                Math.min(queries.size(), (t + 1) * finalTileSize)), blocks, transMemories, requiresTranslation,
+                fillSimilarityData, stop));
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Fuzzy matches for " + queries.size() + " strings in " + tileCount + " tiles took "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+        return queries.stream().map(query -> query.result).collect(Collectors.toList());
+    }
+
+    /**
+     * Compare all strings of the tile with the corpus, block by block.
+     */
+    private void searchTile(List<FindMatches> tile, List<Function<FindMatches, List<PreparedEntry>>> blocks,
+            Map<String, ExternalTMX> transMemories, boolean requiresTranslation, boolean fillSimilarityData,
+            IStopped stop) {
+        FindMatches preparer = new FindMatches(this);
+        List<FindMatches> active = new ArrayList<>(tile.size());
+        for (FindMatches query : tile) {
+            if (query.useExactIndex
+                    && query.searchExact(query.searchText, requiresTranslation, transMemories, stop)) {
+                continue;
+            }
+            query.prepareCandidates(transMemories);
+            active.add(query);
+        }
+        if (!active.isEmpty()) {
+            for (Function<FindMatches, List<PreparedEntry>> block : blocks) {
                 checkStopped(stop);
-                if (tmen.getSourceText() == null) {
-                    // Not all TMX entries have a source; in that case there can
-                    // be no meaningful match, so skip.
-                    continue;
-                }
-                if (requiresTranslation && tmen.getTranslationText() == null) {
-                    continue;
-                }
-                int tmenPenalty = penalty;
-                if (tmen.hasPropValue(ExternalTMFactory.TMXLoader.PROP_FOREIGN_MATCH, "true")) {
-                    tmenPenalty += foreignPenalty;
+                List<PreparedEntry> entries = block.apply(preparer);
+                for (FindMatches query : active) {
+                    for (PreparedEntry entry : entries) {
+                        query.processPrepared(entry);
+                    }
                 }
-                processEntry(null, tmen, en.getKey(), NearString.MATCH_SOURCE.TM, false, tmenPenalty);
             }
         }
-        // travel by all entries for check source file translations
-        for (SourceTextEntry ste : project.getAllEntries()) {
-            checkStopped(stop);
-            if (ste.getSourceTranslation() != null) {
-                PrepareTMXEntry entry = new PrepareTMXEntry();
-                entry.source = ste.getSrcText();
-                entry.translation = ste.getSourceTranslation();
-                processEntry(ste.getKey(), entry, ste.getKey().file, NearString.MATCH_SOURCE.MEMORY,
-                        ste.isSourceTranslationFuzzy(), 0);
+        for (FindMatches query : active) {
+            query.searchSeparateSegments(requiresTranslation, stop);
+        }
+        for (FindMatches query : tile) {
+            query.fillSimilarityData(fillSimilarityData);
+        }
+    }
+
+    /**
+     * Prepare project entries passed by the travel function to its processor.
+     */
+    private List<PreparedEntry> prepareEntries(boolean skipSame, FuzzyMatchIndex batchIndex,
+            Consumer<EntryProcessor> travel) {
+        List<PreparedEntry> prepared = new ArrayList<>();
+        travel.accept((key, entry, tmxName, comesFrom, fuzzy, penalty) -> {
+            PreparedEntry p = prepareEntry(key, entry, tmxName, comesFrom, fuzzy, penalty);
+            p.skipSame = skipSame;
+            if (batchIndex != null) {
+                p.docId = batchIndex.getDocId(entry.getSourceText());
             }
+            prepared.add(p);
+        });
+        return prepared;
+    }
+
+    /**
+     * Prepare TM entries from 'from' to 'to' in the same way as processTM
+     * compares them.
+     */
+    private List<PreparedEntry> prepareTM(String tmxName, ExternalTMX tmx, int foreignPenalty, int from, int to,
+            boolean requiresTranslation, FuzzyMatchIndex batchIndex) {
+        int penalty = getPenalty(tmxName);
+        List<ITMXEntry> tmEntries = tmx.getEntries();
+        int[] docIds = batchIndex != null ? batchIndex.getDocIds(tmx) : null;
+        List<PreparedEntry> prepared = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ITMXEntry tmen = tmEntries.get(i);
+            if (tmen.getSourceText() == null) {
+                continue;
+            }
+            if (requiresTranslation && tmen.getTranslationText() == null) {
+                continue;
+            }
+            int tmenPenalty = penalty;
+            if (tmen.hasPropValue(ExternalTMFactory.TMXLoader.PROP_FOREIGN_MATCH, "true")) {
+                tmenPenalty += foreignPenalty;
+            }
+            PreparedEntry p = prepareEntry(null, tmen, tmxName, NearString.MATCH_SOURCE.TM, false, tmenPenalty);
+            if (docIds != null) {
+                p.docId = docIds[i];
+            }
+            prepared.add(p);
+        }
+        return prepared;
+    }
+
+    /**
+     * Compare prepared entry with the original string, after the same checks
+     * as the full search does.
+     */
+    private void processPrepared(PreparedEntry prepared) {
+        if (prepared.skipSame && !searchExactlyTheSame && prepared.entry.getSourceText().equals(searchText)) {
+            // skip original==original entry comparison
+            return;
         }
+        if (candidates != null && !candidates.contains(prepared.docId)) {
+            pruningStats.byIndex++;
+            return;
+        }
+        processEntry(prepared);
+    }
+
+    /**
+     * Set the original string. Text matched by the remove pattern is removed
+     * according to user settings. Rationale: it might be a big string
+     * influencing the 'editing distance', while it is not really part of the
+     * translatable text.
+     */
+    private void setQuery(String text) {
+        searchText = text;
+        srcText = text;
+        removedText = "";
+        if (removePattern != null) {
+            StringBuilder removedBuffer = new StringBuilder();
+            Matcher removeMatcher = removePattern.matcher(srcText);
+            while (removeMatcher.find()) {
+                removedBuffer.append(removeMatcher.group());
+            }
+            srcText = removeMatcher.replaceAll("");
+            removedText = removedBuffer.toString();
+        }
+    }
+
+    /**
+     * Find matches for separate segments of the paragraph, and add the glued
+     * result. Matches of sentences are kept in the project's sentence match
+     * cache; sentences not found there are searched in parallel if the finder
+     * was created for parallel search.
+     */
+    private void searchSeparateSegments(boolean requiresTranslation, IStopped stop) {
         if (separateSegmentMatcher != null) {
             // split paragraph even when segmentation disabled, then find
             // matches for every segment
@@ -269,20 +528,38 @@ public class FindMatches {
             Language targetLang = project.getProjectProperties().getTargetLanguage();
             List<String> segments = segmenter.segment(sourceLang, srcText, spaces, brules);
             if (segments.size() > 1) {
+                SentenceMatchCache cache = project.getSentenceMatchCache();
+                String settings = getSentenceMatchSettings(requiresTranslation);
+                long generation = cache != null ? cache.getGeneration() : 0;
+                SentenceMatchCache.Match[] matches = new SentenceMatchCache.Match[segments.size()];
+                List<Integer> missing = new ArrayList<>();
+                for (int i = 0; i < segments.size(); i++) {
+                    matches[i] = cache != null ? cache.get(settings, segments.get(i)) : null;
+                    if (matches[i] == null) {
+                        missing.add(i);
+                    }
+                }
+                if (parallel && missing.size() > 1) {
+                    // sentence finder isn't thread safe, so every sentence
+                    // gets its own
+                    missing.parallelStream().forEach(i -> matches[i] = searchSentence(
+                            new FindMatches(project, segmenter, 1, false, true, true, fuzzyMatchThreshold),
+                            segments.get(i), requiresTranslation, stop));
+                } else {
+                    for (int i : missing) {
+                        matches[i] = searchSentence(separateSegmentMatcher, segments.get(i), requiresTranslation,
+                                stop);
+                    }
+                }
                 List<String> fsrc = new ArrayList<>(segments.size());
                 List<String> ftrans = new ArrayList<>(segments.size());
-                // multiple segments
-                for (String onesrc : segments) {
-                    // find match for a separate segment
-                    List<NearString> segmentMatch = separateSegmentMatcher.search(onesrc, requiresTranslation,
-                            false, stop);
-                    if (!segmentMatch.isEmpty()
-                            && segmentMatch.get(0).scores[0].score >= SUBSEGMENT_MATCH_THRESHOLD) {
-                        fsrc.add(segmentMatch.get(0).source);
-                        ftrans.add(segmentMatch.get(0).translation);
-                    } else {
-                        fsrc.add("");
-                        ftrans.add("");
+                for (SentenceMatchCache.Match match : matches) {
+                    fsrc.add(match.source);
+                    ftrans.add(match.translation);
+                }
+                if (cache != null) {
+                    for (int i : missing) {
+                        cache.put(settings, segments.get(i), generation, matches[i]);
                     }
                 }
                 // glue found sources and translations
@@ -292,13 +569,394 @@ public class FindMatches {
                 processEntry(null, entry, "", NearString.MATCH_SOURCE.TM, false, 0);
             }
         }
-        // fill similarity data only for a result
+    }
+
+    /**
+     * Find match for a separate segment.
+     */
+    private static SentenceMatchCache.Match searchSentence(FindMatches finder, String sentence,
+            boolean requiresTranslation, IStopped stop) {
+        List<NearString> segmentMatch = finder.search(sentence, requiresTranslation, false, stop);
+        if (!segmentMatch.isEmpty() && segmentMatch.get(0).scores[0].score >= SUBSEGMENT_MATCH_THRESHOLD) {
+            return new SentenceMatchCache.Match(segmentMatch.get(0).source, segmentMatch.get(0).translation);
+        }
+        return SentenceMatchCache.Match.NONE;
+    }
+
+    /**
+     * Settings which affect the match of a separate segment, besides the
+     * memories.
+     */
+    private String getSentenceMatchSettings(boolean requiresTranslation) {
+        int foreignPenalty = Preferences.getPreferenceDefault(Preferences.PENALTY_FOR_FOREIGN_MATCHES,
+                Preferences.PENALTY_FOR_FOREIGN_MATCHES_DEFAULT);
+        return requiresTranslation + " " + fuzzyMatchThreshold + " " + foreignPenalty + " "
+                + (removePattern == null ? "" : removePattern.pattern());
+    }
+
+    /**
+     * Fill similarity data only for a result.
+     */
+    private void fillSimilarityData(boolean fillSimilarityData) {
         if (fillSimilarityData) {
             for (NearString near : result) {
                 near.attr = FuzzyMatcher.buildSimilarityData(strTokensAll, tokenizeAll(near.source));
             }
         }
-        return result;
+    }
+
+    /**
+     * Compare only entries whose source is the same as the original string,
+     * ignoring case and text removed by the remove pattern, which are found in
+     * the project's exact match index. Entries are compared in the same order
+     * as by the full search.
+     * <p>
+     * Orphaned project memory entries are not indexed, so they can be found
+     * only by the full search.
+     *
+     * @return true if there are maxCount matches with 100% similarity, i.e.
+     *         the full search can't find better ones. Otherwise the result is
+     *         cleared for the full search.
+     */
+    private boolean searchExact(String searchText, boolean requiresTranslation,
+            Map<String, ExternalTMX> transMemories, IStopped stop) {
+        ExactMatchIndex exactIndex = project.getExactMatchIndex();
+        if (exactIndex == null || maxCount <= 0) {
+            return false;
+        }
+        exactIndex.checkRemovePattern(removePattern);
+        String key = exactIndex.normalize(searchText);
+        List<SourceTextEntry> entries = project.getAllEntries();
+        int[] found = exactIndex.findEntries(entries, key);
+
+        // project memory, default translations first
+        if (project.getProjectProperties().isSupportDefaultTranslations()) {
+            Set<String> sources = new HashSet<>();
+            for (int i : found) {
+                SourceTextEntry ste = entries.get(i);
+                if (sources.add(ste.getSrcText())) {
+                    processExactMemoryEntry(null, ste.getSrcText(),
+                            project.getAllTranslations(ste).getDefaultTranslation(), searchText,
+                            requiresTranslation, stop);
+                }
+            }
+        }
+        for (int i : found) {
+            SourceTextEntry ste = entries.get(i);
+            processExactMemoryEntry(ste.getKey(), ste.getSrcText(),
+                    project.getAllTranslations(ste).getAlternativeTranslation(), searchText, requiresTranslation,
+                    stop);
+        }
+
+        int foreignPenalty = Preferences.getPreferenceDefault(Preferences.PENALTY_FOR_FOREIGN_MATCHES,
+                Preferences.PENALTY_FOR_FOREIGN_MATCHES_DEFAULT);
+        for (Map.Entry<String, ExternalTMX> en : transMemories.entrySet()) {
+            int penalty = getPenalty(en.getKey());
+            List<ITMXEntry> tmEntries = en.getValue().getEntries();
+            for (int i : exactIndex.findEntries(en.getValue(), key)) {
+                checkStopped(stop);
+                processTMEntry(en.getKey(), tmEntries.get(i), penalty, foreignPenalty, requiresTranslation);
+            }
+        }
+
+        for (int i : found) {
+            SourceTextEntry ste = entries.get(i);
+            if (ste.getSourceTranslation() != null) {
+                PrepareTMXEntry entry = new PrepareTMXEntry();
+                entry.source = ste.getSrcText();
+                entry.translation = ste.getSourceTranslation();
+                processEntry(ste.getKey(), entry, ste.getKey().file, NearString.MATCH_SOURCE.MEMORY,
+                        ste.isSourceTranslationFuzzy(), 0);
+            }
+        }
+
+        if (result.size() >= maxCount && isPerfect(result.get(result.size() - 1).scores[0])) {
+            return true;
+        }
+        result.clear();
+        pruningStats.reset();
+        return false;
+    }
+
+    /**
+     * Compare project memory entry in the same way as iterateMemory does.
+     */
+    private void processExactMemoryEntry(EntryKey key, String source, TMXEntry trans, String searchText,
+            boolean requiresTranslation, IStopped stop) {
+        checkStopped(stop);
+        if (trans == null || (trans.translation == null && trans.note == null)) {
+            // no entry in the project memory
+            return;
+        }
+        if (!searchExactlyTheSame && source.equals(searchText)) {
+            // skip original==original entry comparison
+            return;
+        }
+        if (requiresTranslation && trans.translation == null) {
+            return;
+        }
+        PrepareTMXEntry entry = new PrepareTMXEntry(trans);
+        entry.source = source;
+        processEntry(key, entry, null, NearString.MATCH_SOURCE.MEMORY, false, 0);
+    }
+
+    private static boolean isPerfect(NearString.Scores scores) {
+        return scores.score == 100 && scores.scoreNoStem == 100 && scores.adjustedScore == 100;
+    }
+
+    /**
+     * Returns numbers of candidates pruned on each stage of the last search.
+     */
+    public PruningStats getPruningStats() {
+        return pruningStats;
+    }
+
+    /**
+     * Tokenize the original string, after removing of text by the remove
+     * pattern.
+     */
+    private void prepareQuery() {
+        // get tokens for original string which includes non-word tokens
+        strTokensStem = tokenizeStem(srcText);
+        strTokensNoStem = tokenizeNoStem(srcText);
+        strTokensAll = tokenizeAll(srcText);
+        strIdsStem = tokenizeStemIds(srcText);
+        strIdsNoStem = tokenizeNoStemIds(srcText);
+        strIdsAll = tokenizeAllIds(srcText);
+        strBagStem = new TokenBag(strIdsStem);
+        strBagNoStem = new TokenBag(strIdsNoStem);
+        strBagAll = new TokenBag(strIdsAll);
+        pruningStats.reset();
+    }
+
+    /**
+     * Travel by project entries, including orphaned.
+     */
+    private void iterateMemory(String searchText, boolean requiresTranslation, IStopped stop,
+            EntryProcessor processor) {
+        if (project.getProjectProperties().isSupportDefaultTranslations()) {
+            project.iterateByDefaultTranslations((source, trans) -> processMemoryEntry(null, source, trans,
+                    searchText, requiresTranslation, stop, processor));
+        }
+        project.iterateByMultipleTranslations((key, trans) -> processMemoryEntry(key, key.sourceText, trans,
+                searchText, requiresTranslation, stop, processor));
+    }
+
+    /**
+     * Travel by collected project entries from 'from' to 'to'.
+     */
+    private void iterateMemory(MemoryEntries memory, int from, int to, String searchText,
+            boolean requiresTranslation, IStopped stop, EntryProcessor processor) {
+        for (int i = from; i < to; i++) {
+            processMemoryEntry(memory.keys.get(i), memory.sources.get(i), memory.translations.get(i), searchText,
+                    requiresTranslation, stop, processor);
+        }
+    }
+
+    /**
+     * Pass project entry to the processor, if it should be compared.
+     *
+     * @param key
+     *            entry key, or null for default translation
+     */
+    private void processMemoryEntry(EntryKey key, String source, TMXEntry trans, String searchText,
+            boolean requiresTranslation, IStopped stop, EntryProcessor processor) {
+        checkStopped(stop);
+        if (!searchExactlyTheSame && source.equals(searchText)) {
+            // skip original==original entry comparison
+            return;
+        }
+        if (requiresTranslation && trans.translation == null) {
+            return;
+        }
+        if (!isCandidate(source)) {
+            return;
+        }
+        boolean orphaned = key != null ? project.isOrphaned(key) : project.isOrphaned(source);
+        PrepareTMXEntry entry = new PrepareTMXEntry(trans);
+        entry.source = source;
+        processor.process(key, entry, orphaned ? ORPHANED_FILE_NAME : null, NearString.MATCH_SOURCE.MEMORY, false,
+                0);
+    }
+
+    /**
+     * Travel by translation memory entries from 'from' to 'to'.
+     *
+     * @param foreignPenalty
+     *            penalty applied for fuzzy matches in another language (if
+     *            no match in the target language was found)
+     */
+    private void processTM(String tmxName, ExternalTMX tmx, int foreignPenalty, int from, int to,
+            boolean requiresTranslation, IStopped stop) {
+        int penalty = getPenalty(tmxName);
+        List<ITMXEntry> tmEntries = tmx.getEntries();
+        int[] docIds = candidates != null ? index.getDocIds(tmx) : null;
+        for (int i = from; i < to; i++) {
+            checkStopped(stop);
+            // check the index before getting the entry: entries of mapped TMs
+            // are decoded on access
+            if (docIds != null) {
+                if (docIds[i] < 0) {
+                    // no source, skipped by processTMEntry
+                    continue;
+                }
+                if (!candidates.contains(docIds[i])) {
+                    pruningStats.byIndex++;
+                    continue;
+                }
+            }
+            processTMEntry(tmxName, tmEntries.get(i), penalty, foreignPenalty, requiresTranslation);
+        }
+    }
+
+    /**
+     * Returns penalty of TM by its name, i.e. by the "penalty-xx" directory.
+     */
+    private static int getPenalty(String tmxName) {
+        Matcher matcher = SEARCH_FOR_PENALTY.matcher(tmxName);
+        if (matcher.find()) {
+            return Integer.parseInt(matcher.group(1));
+        }
+        return 0;
+    }
+
+    private void processTMEntry(String tmxName, ITMXEntry tmen, int penalty, int foreignPenalty,
+            boolean requiresTranslation) {
+        if (tmen.getSourceText() == null) {
+            // Not all TMX entries have a source; in that case there can
+            // be no meaningful match, so skip.
+            return;
+        }
+        if (requiresTranslation && tmen.getTranslationText() == null) {
+            return;
+        }
+        int tmenPenalty = penalty;
+        if (tmen.hasPropValue(ExternalTMFactory.TMXLoader.PROP_FOREIGN_MATCH, "true")) {
+            tmenPenalty += foreignPenalty;
+        }
+        processEntry(null, tmen, tmxName, NearString.MATCH_SOURCE.TM, false, tmenPenalty);
+    }
+
+    /**
+     * Travel by all entries for check source file translations.
+     */
+    private void iterateSourceTranslations(IStopped stop, EntryProcessor processor) {
+        List<SourceTextEntry> allEntries = project.getAllEntries();
+        iterateSourceTranslations(allEntries, 0, allEntries.size(), stop, processor);
+    }
+
+    /**
+     * Travel by source file translations of entries from 'from' to 'to'.
+     */
+    private void iterateSourceTranslations(List<SourceTextEntry> allEntries, int from, int to, IStopped stop,
+            EntryProcessor processor) {
+        for (int i = from; i < to; i++) {
+            SourceTextEntry ste = allEntries.get(i);
+            checkStopped(stop);
+            if (ste.getSourceTranslation() != null && isCandidate(ste.getSrcText())) {
+                PrepareTMXEntry entry = new PrepareTMXEntry();
+                entry.source = ste.getSrcText();
+                entry.translation = ste.getSourceTranslation();
+                processor.process(ste.getKey(), entry, ste.getKey().file, NearString.MATCH_SOURCE.MEMORY,
+                        ste.isSourceTranslationFuzzy(), 0);
+            }
+        }
+    }
+
+    /**
+     * Split the corpus into chunks in the same order as the sequential search
+     * travels it, process chunks in the common fork-join pool, each by own
+     * worker, then merge workers' results in the chunks order. Workers travel
+     * project entries and TMs by index ranges, and filter entries themselves.
+     */
+    private void searchParallel(String searchText, boolean requiresTranslation,
+            Map<String, ExternalTMX> transMemories, IStopped stop) {
+        MemoryEntries memory = new MemoryEntries(project);
+        List<SourceTextEntry> allEntries = project.getAllEntries();
+
+        long total = memory.size() + allEntries.size();
+        for (ExternalTMX tmx : transMemories.values()) {
+            total += tmx.getEntries().size();
+        }
+        int chunkSize = (int) Math.max(PARALLEL_MIN_CHUNK_SIZE,
+                total / (ForkJoinPool.getCommonPoolParallelism() * PARALLEL_CHUNKS_PER_THREAD));
+
+        List<Consumer<FindMatches>> chunks = new ArrayList<>();
+        for (int from = 0; from < memory.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(memory.size(), from + chunkSize);
+            chunks.add(worker -> worker.iterateMemory(memory, start, end, searchText, requiresTranslation, stop,
+                    worker::processEntry));
+        }
+        int foreignPenalty = Preferences.getPreferenceDefault(Preferences.PENALTY_FOR_FOREIGN_MATCHES,
+                Preferences.PENALTY_FOR_FOREIGN_MATCHES_DEFAULT);
+        for (Map.Entry<String, ExternalTMX> en : transMemories.entrySet()) {
+            int size = en.getValue().getEntries().size();
+            for (int from = 0; from < size; from += chunkSize) {
+                int start = from;
+                int end = Math.min(size, from + chunkSize);
+                chunks.add(worker -> worker.processTM(en.getKey(), en.getValue(), foreignPenalty, start, end,
+                        requiresTranslation, stop));
+            }
+        }
+        for (int from = 0; from < allEntries.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(allEntries.size(), from + chunkSize);
+            chunks.add(worker -> worker.iterateSourceTranslations(allEntries, start, end, stop,
+                    worker::processEntry));
+        }
+
+        if (chunks.size() < 2) {
+            // not worth to start workers
+            chunks.forEach(chunk -> chunk.accept(this));
+            return;
+        }
+        List<FindMatches> workers = IntStream.range(0, chunks.size()).parallel().mapToObj(i -> {
+            FindMatches worker = new FindMatches(this);
+            worker.searchText = searchText;
+            worker.srcText = srcText;
+            worker.removedText = removedText;
+            worker.candidates = candidates;
+            worker.index = index;
+            worker.keepTies = true;
+            worker.prepareQuery();
+            chunks.get(i).accept(worker);
+            return worker;
+        }).collect(Collectors.toList());
+        for (FindMatches worker : workers) {
+            for (NearString near : worker.result) {
+                addNearString(near);
+            }
+            pruningStats.add(worker.pruningStats);
+        }
+    }
+
+    /**
+     * Find candidates in the project's fuzzy match index. All TMs are indexed
+     * before the search, so candidates can be checked for all their entries.
+     */
+    private void prepareCandidates(Map<String, ExternalTMX> transMemories) {
+        candidates = null;
+        index = useIndex ? project.getFuzzyMatchIndex() : null;
+        if (index == null) {
+            return;
+        }
+        index.checkRemovePattern(removePattern);
+        for (ExternalTMX tmx : transMemories.values()) {
+            index.getDocIds(tmx);
+        }
+        candidates = index.findCandidates(srcText, fuzzyMatchThreshold);
+    }
+
+    /**
+     * Check if the source can reach the threshold. New sources are indexed.
+     */
+    private boolean isCandidate(String source) {
+        if (candidates == null || candidates.contains(index.getDocId(source))) {
+            return true;
+        }
+        pruningStats.byIndex++;
+        return false;
     }
 
     /**
@@ -319,28 +977,79 @@ public class FindMatches {
      */
     public void processEntry(EntryKey key, ITMXEntry entry, String tmxName,
                               NearString.MATCH_SOURCE comesFrom, boolean fuzzy, int penalty) {
+        processEntry(prepareEntry(key, entry, tmxName, comesFrom, fuzzy, penalty));
+    }
+
+    /**
+     * Tokenize entry source, after removing of text by the remove pattern. The
+     * prepared entry can be compared with any original string.
+     */
+    private PreparedEntry prepareEntry(EntryKey key, ITMXEntry entry, String tmxName,
+            NearString.MATCH_SOURCE comesFrom, boolean fuzzy, int penalty) {
         // remove part that is to be removed prior to tokenize
         String realSource = entry.getSourceText();
-        int realPenaltyForRemoved = 0;
+        String entryRemovedText = "";
         if (removePattern != null) {
-            StringBuilder entryRemovedText = new StringBuilder();
+            StringBuilder removedBuffer = new StringBuilder();
             Matcher removeMatcher = removePattern.matcher(realSource);
             while (removeMatcher.find()) {
-                entryRemovedText.append(removeMatcher.group());
+                removedBuffer.append(removeMatcher.group());
             }
             realSource = removeMatcher.replaceAll("");
-            // calculate penalty if something has been removed, otherwise
-            // different strings get 100% match.
-            if (!entryRemovedText.toString().equals(removedText)) {
-                // penalty for different 'removed'-part
-                realPenaltyForRemoved = PENALTY_FOR_REMOVED;
-            }
+            entryRemovedText = removedBuffer.toString();
         }
+        return new PreparedEntry(key, entry, tmxName, comesFrom, fuzzy, penalty, entryRemovedText,
+                corpus.get(realSource));
+    }
+
+    private void processEntry(PreparedEntry prepared) {
+        EntryKey key = prepared.key;
+        ITMXEntry entry = prepared.entry;
+        String tmxName = prepared.tmxName;
+        NearString.MATCH_SOURCE comesFrom = prepared.comesFrom;
+        boolean fuzzy = prepared.fuzzy;
+        int penalty = prepared.penalty;
+        int realPenaltyForRemoved = 0;
+        // calculate penalty if something has been removed, otherwise
+        // different strings get 100% match.
+        if (removePattern != null && !prepared.removedText.equals(removedText)) {
+            // penalty for different 'removed'-part
+            realPenaltyForRemoved = PENALTY_FOR_REMOVED;
+        }
+
+        pruningStats.compared++;
+        int totalPenalty = penalty + (fuzzy ? PENALTY_FOR_FUZZY : 0) + realPenaltyForRemoved;
+        // The last entry of a full result list is the bar to beat. Distance
+        // calculation stops as soon as similarity can't reach it.
+        NearString.Scores tail = result.size() < maxCount ? null : result.get(result.size() - 1).scores[0];
 
-        Token[] candTokens = tokenizeStem(realSource);
+        int[] candTokens = prepared.ids[TokenizedCorpus.STEM];
+        int[] candTokensNoStem = prepared.ids[TokenizedCorpus.NO_STEM];
+        int[] candTokensAll = prepared.ids[TokenizedCorpus.ALL];
+
+        if (applyThreshold) {
+            // entry is rejected if all similarities are below threshold
+            int minThreshold = fuzzyMatchThreshold + totalPenalty;
+            if (lengthBound(strIdsStem, candTokens) < minThreshold
+                    && lengthBound(strIdsNoStem, candTokensNoStem) < minThreshold
+                    && lengthBound(strIdsAll, candTokensAll) < minThreshold) {
+                pruningStats.byLength++;
+                return;
+            }
+            if (tokensBound(strIdsStem, strBagStem, candTokens) < minThreshold
+                    && tokensBound(strIdsNoStem, strBagNoStem, candTokensNoStem) < minThreshold
+                    && tokensBound(strIdsAll, strBagAll, candTokensAll) < minThreshold) {
+                pruningStats.byTokens++;
+                return;
+            }
+        }
 
         // First percent value - with stemming if possible
-        int similarityStem = FuzzyMatcher.calcSimilarity(distance, strTokensStem, candTokens);
+        int minStem = tail == null ? 0 : tail.score + totalPenalty;
+        if (cantReach(strIdsStem, strBagStem, candTokens, minStem)) {
+            return;
+        }
+        int similarityStem = FuzzyMatcher.calcSimilarity(distance, strIdsStem, candTokens, minStem);
 
         similarityStem -= penalty;
         if (fuzzy) {
@@ -351,12 +1060,17 @@ public class FindMatches {
 
         // check if we have a chance by first percentage only
         if (noChanceToAdd(similarityStem, Integer.MAX_VALUE, Integer.MAX_VALUE)) {
+            pruningStats.byDistance++;
             return;
         }
 
-        Token[] candTokensNoStem = tokenizeNoStem(realSource);
         // Second percent value - without stemming
-        int similarityNoStem = FuzzyMatcher.calcSimilarity(distance, strTokensNoStem, candTokensNoStem);
+        int minNoStem = tail != null && tail.score == similarityStem ? tail.scoreNoStem + totalPenalty : 0;
+        if (cantReach(strIdsNoStem, strBagNoStem, candTokensNoStem, minNoStem)) {
+            return;
+        }
+        int similarityNoStem = FuzzyMatcher.calcSimilarity(distance, strIdsNoStem, candTokensNoStem,
+                minNoStem);
         similarityNoStem -= penalty;
         if (fuzzy) {
             // penalty for fuzzy
@@ -366,12 +1080,22 @@ public class FindMatches {
 
         // check if we have a chance by first and second percentages
         if (noChanceToAdd(similarityStem, similarityNoStem, Integer.MAX_VALUE)) {
+            pruningStats.byDistance++;
             return;
         }
 
-        Token[] candTokensAll = tokenizeAll(realSource);
         // Third percent value - with numbers, tags, etc.
-        int simAdjusted = FuzzyMatcher.calcSimilarity(distance, strTokensAll, candTokensAll);
+        int minAdjusted = 0;
+        if (tail != null && tail.score == similarityStem && tail.scoreNoStem == similarityNoStem) {
+            minAdjusted = tail.adjustedScore + totalPenalty;
+        }
+        if (applyThreshold && similarityStem < fuzzyMatchThreshold && similarityNoStem < fuzzyMatchThreshold) {
+            minAdjusted = Math.max(minAdjusted, fuzzyMatchThreshold + totalPenalty);
+        }
+        if (cantReach(strIdsAll, strBagAll, candTokensAll, minAdjusted)) {
+            return;
+        }
+        int simAdjusted = FuzzyMatcher.calcSimilarity(distance, strIdsAll, candTokensAll, minAdjusted);
         simAdjusted -= penalty;
         if (fuzzy) {
             // penalty for fuzzy
@@ -381,12 +1105,14 @@ public class FindMatches {
 
         // check if we have chance by first, second and third percentages
         if (noChanceToAdd(similarityStem, similarityNoStem, simAdjusted)) {
+            pruningStats.byDistance++;
             return;
         }
 
         // BUGS#1236 - stat display does not use threshold config check
         if (applyThreshold && similarityStem < fuzzyMatchThreshold
                 && similarityNoStem < fuzzyMatchThreshold && simAdjusted < fuzzyMatchThreshold) {
+            pruningStats.byDistance++;
             return;
         }
 
@@ -394,6 +1120,57 @@ public class FindMatches {
                 simAdjusted), tmxName);
     }
 
+    /**
+     * Check cheap upper bounds of similarity before calculating it.
+     *
+     * @return true if similarity can't reach minSimilarity
+     */
+    private boolean cantReach(int[] str, TokenBag strBag, int[] cand, int minSimilarity) {
+        if (minSimilarity <= 0) {
+            return false;
+        }
+        if (lengthBound(str, cand) < minSimilarity) {
+            pruningStats.byLength++;
+            return true;
+        }
+        if (tokensBound(str, strBag, cand) < minSimilarity) {
+            pruningStats.byTokens++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Upper bound of similarity by lengths only: the Levenshtein distance can't
+     * be less than the length difference.
+     */
+    private static int lengthBound(int[] str, int[] cand) {
+        int len = Math.max(str.length, cand.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (len > LevenshteinDistance.MAX_N) {
+            // distance is calculated on truncated arrays
+            return 100;
+        }
+        return 100 * Math.min(str.length, cand.length) / len;
+    }
+
+    /**
+     * Upper bound of similarity by common tokens: the Levenshtein distance
+     * can't be less than the longer length minus the number of common tokens.
+     */
+    private static int tokensBound(int[] str, TokenBag strBag, int[] cand) {
+        int len = Math.max(str.length, cand.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (len > LevenshteinDistance.MAX_N) {
+            return 100;
+        }
+        return 100 * strBag.common(cand) / len;
+    }
+
     /**
      * Check if entries have a chance to be added to a result list. If true,
      * there is no sense to calculate other parameters.
@@ -439,70 +1216,269 @@ public class FindMatches {
                 result.set(i, NearString.merge(st, key, entry, comesFrom, fuzzy, scores, null, tmxName));
                 return;
             }
-            if (st.scores[0].score < scores.score) {
+            if (goesBefore(scores, source, st)) {
                 break;
             }
-            if (st.scores[0].score == scores.score) {
-                if (st.scores[0].scoreNoStem < scores.scoreNoStem) {
-                    break;
-                }
-                if (st.scores[0].scoreNoStem == scores.scoreNoStem) {
-                    if (st.scores[0].adjustedScore < scores.adjustedScore) {
-                        break;
-                    }
-                    // Patch contributed by Antonio Vilei
-                    // text with the same case has precedence
-                    if (scores.score == 100 && !st.source.equals(srcText) && source.equals(srcText)) {
-                        break;
-                    }
-                }
-            }
             pos = i + 1;
         }
         result.add(pos, new NearString(key, entry, comesFrom, fuzzy, scores, null, tmxName));
-        if (result.size() > maxCount) {
+        truncateResult();
+    }
+
+    /**
+     * Add near string found by parallel worker into the result list, in the
+     * same way as entries are added.
+     */
+    private void addNearString(NearString near) {
+        int pos = 0;
+        for (int i = 0; i < result.size(); i++) {
+            NearString st = result.get(i);
+            if (near.source.equals(st.source) && Objects.equals(near.translation, st.translation)) {
+                result.set(i, NearString.merge(st, near));
+                return;
+            }
+            if (goesBefore(near.scores[0], near.source, st)) {
+                break;
+            }
+            pos = i + 1;
+        }
+        result.add(pos, near);
+        truncateResult();
+    }
+
+    /**
+     * Remove matches above the maximal count. Workers of the parallel search
+     * keep matches with the same scores as the last counted one: equal matches
+     * from other workers can go before them on merge, and the sequential search
+     * would merge their duplicates into the result.
+     */
+    private void truncateResult() {
+        while (result.size() > maxCount) {
+            NearString.Scores last = result.get(result.size() - 1).scores[0];
+            if (keepTies && sameScores(last, result.get(maxCount - 1).scores[0])) {
+                break;
+            }
             result.remove(result.size() - 1);
         }
     }
 
-    /*
-     * Methods for tokenize strings with caching.
+    private static boolean sameScores(NearString.Scores a, NearString.Scores b) {
+        return a.score == b.score && a.scoreNoStem == b.scoreNoStem && a.adjustedScore == b.adjustedScore;
+    }
+
+    /**
+     * Check if new data should be placed before existing near string. Near
+     * strings sorted by "similarity, simAdjusted".
      */
-    Map<String, Token[]> tokenizeStemCache = new HashMap<>();
-    Map<String, Token[]> tokenizeNoStemCache = new HashMap<>();
-    Map<String, Token[]> tokenizeAllCache = new HashMap<>();
+    private boolean goesBefore(NearString.Scores scores, String source, NearString st) {
+        if (st.scores[0].score != scores.score) {
+            return st.scores[0].score < scores.score;
+        }
+        if (st.scores[0].scoreNoStem != scores.scoreNoStem) {
+            return st.scores[0].scoreNoStem < scores.scoreNoStem;
+        }
+        if (st.scores[0].adjustedScore < scores.adjustedScore) {
+            return true;
+        }
+        // Patch contributed by Antonio Vilei
+        // text with the same case has precedence
+        return scores.score == 100 && !st.source.equals(srcText) && source.equals(srcText);
+    }
 
+    /*
+     * Methods for tokenize strings. Results are cached by the tokenizer, in
+     * caches shared by all searches and limited in size.
+     */
     Token[] tokenizeStem(String str) {
-        Token[] tokens = tokenizeStemCache.get(str);
-        if (tokens == null) {
-            tokens = tok.tokenizeWords(str, ITokenizer.StemmingMode.MATCHING);
-            tokenizeStemCache.put(str, tokens);
-        }
-        return tokens;
+        return tok.tokenizeWords(str, ITokenizer.StemmingMode.MATCHING);
     }
 
     Token[] tokenizeNoStem(String str) {
         // No-stemming token comparisons are intentionally case-insensitive
         // for matching purposes.
-        str = str.toLowerCase(srcLocale);
-        Token[] tokens = tokenizeNoStemCache.get(str);
-        if (tokens == null) {
-            tokens = tok.tokenizeWords(str, ITokenizer.StemmingMode.NONE);
-            tokenizeNoStemCache.put(str, tokens);
-        }
-        return tokens;
+        return tok.tokenizeWords(str.toLowerCase(srcLocale), ITokenizer.StemmingMode.NONE);
     }
 
     Token[] tokenizeAll(String str) {
         // Verbatim token comparisons are intentionally case-insensitive.
         // for matching purposes.
-        str = str.toLowerCase(srcLocale);
-        Token[] tokens = tokenizeAllCache.get(str);
-        if (tokens == null) {
-            tokens = tok.tokenizeVerbatim(str);
-            tokenizeAllCache.put(str, tokens);
+        return tok.tokenizeVerbatim(str.toLowerCase(srcLocale));
+    }
+
+    /*
+     * Methods for tokenize strings into token ids. Ids are assigned separately
+     * for each tokenization, and cached by the shared corpus.
+     */
+    int[] tokenizeStemIds(String str) {
+        return corpus.get(str, TokenizedCorpus.STEM);
+    }
+
+    int[] tokenizeNoStemIds(String str) {
+        return corpus.get(str, TokenizedCorpus.NO_STEM);
+    }
+
+    int[] tokenizeAllIds(String str) {
+        return corpus.get(str, TokenizedCorpus.ALL);
+    }
+
+    /**
+     * Token ids with stemming of text without parts matched by the remove
+     * pattern, as the search compares them.
+     */
+    int[] tokenizeRealStemIds(String str) {
+        return tokenizeStemIds(removePattern == null ? str : removePattern.matcher(str).replaceAll(""));
+    }
+
+    TokenizedCorpus getCorpus() {
+        return corpus;
+    }
+
+    /**
+     * Multiset of token ids of the original string, for count common tokens
+     * with candidates.
+     */
+    private static class TokenBag {
+        private final int[] counts;
+        private final int[] used;
+
+        TokenBag(int[] ids) {
+            int size = 0;
+            for (int id : ids) {
+                size = Math.max(size, id + 1);
+            }
+            counts = new int[size];
+            used = new int[size];
+            for (int id : ids) {
+                counts[id]++;
+            }
+        }
+
+        /**
+         * Returns size of multiset intersection with the candidate tokens.
+         */
+        int common(int[] cand) {
+            int common = 0;
+            for (int id : cand) {
+                if (id < counts.length && used[id] < counts[id]) {
+                    used[id]++;
+                    common++;
+                }
+            }
+            for (int id : cand) {
+                if (id < used.length) {
+                    used[id] = 0;
+                }
+            }
+            return common;
+        }
+    }
+
+    /**
+     * Receiver of entries to compare, with the same arguments as
+     * {@link FindMatches#processEntry}.
+     */
+    private interface EntryProcessor {
+        void process(EntryKey key, ITMXEntry entry, String tmxName, NearString.MATCH_SOURCE comesFrom,
+                boolean fuzzy, int penalty);
+    }
+
+    /**
+     * References to project translations of one moment, in the order the
+     * sequential search travels them, so parallel workers can travel them by
+     * index ranges. Entries are filtered and copied by the workers.
+     */
+    private static final class MemoryEntries {
+        /** Keys of entries, or null for default translations. */
+        final List<EntryKey> keys = new ArrayList<>();
+        final List<String> sources = new ArrayList<>();
+        final List<TMXEntry> translations = new ArrayList<>();
+
+        MemoryEntries(IProject project) {
+            if (project.getProjectProperties().isSupportDefaultTranslations()) {
+                project.iterateByDefaultTranslations((source, trans) -> add(null, source, trans));
+            }
+            project.iterateByMultipleTranslations((key, trans) -> add(key, key.sourceText, trans));
+        }
+
+        private void add(EntryKey key, String source, TMXEntry trans) {
+            keys.add(key);
+            sources.add(source);
+            translations.add(trans);
+        }
+
+        int size() {
+            return keys.size();
+        }
+    }
+
+    /**
+     * Entry with tokenized source, ready for compare with original strings.
+     */
+    private static class PreparedEntry {
+        final EntryKey key;
+        final ITMXEntry entry;
+        final String tmxName;
+        final NearString.MATCH_SOURCE comesFrom;
+        final boolean fuzzy;
+        final int penalty;
+        /** Text removed from the source by the remove pattern. */
+        final String removedText;
+        /** Token ids of the source, by tokenization. */
+        final int[][] ids;
+        /** Document id in the fuzzy match index, or -1 if not known. */
+        int docId = -1;
+        /** True for project memory entries, which are skipped for the same source. */
+        boolean skipSame;
+
+        PreparedEntry(EntryKey key, ITMXEntry entry, String tmxName, NearString.MATCH_SOURCE comesFrom,
+                boolean fuzzy, int penalty, String removedText, int[][] ids) {
+            this.key = key;
+            this.entry = entry;
+            this.tmxName = tmxName;
+            this.comesFrom = comesFrom;
+            this.fuzzy = fuzzy;
+            this.penalty = penalty;
+            this.removedText = removedText;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Numbers of candidates pruned on each stage of the search.
+     */
+    public static class PruningStats {
+        /** Skipped because the fuzzy match index proved they can't match. */
+        public int byIndex;
+        /** Entries passed to comparison. */
+        public int compared;
+        /** Pruned by the length ratio bound. */
+        public int byLength;
+        /** Pruned by the common tokens bound. */
+        public int byTokens;
+        /** Rejected after the similarity calculation. */
+        public int byDistance;
+
+        void reset() {
+            byIndex = 0;
+            compared = 0;
+            byLength = 0;
+            byTokens = 0;
+            byDistance = 0;
+        }
+
+        void add(PruningStats other) {
+            byIndex += other.byIndex;
+            compared += other.compared;
+            byLength += other.byLength;
+            byTokens += other.byTokens;
+            byDistance += other.byDistance;
+        }
+
+        @Override
+        public String toString() {
+            return "skipped by index " + byIndex + ", compared " + compared + ", pruned by length " + byLength
+                    + ", by common tokens " + byTokens + ", by similarity " + byDistance;
         }
-        return tokens;
     }
 
     private void checkStopped(IStopped stop) throws StoppedException {
@@ -0,0 +1,399 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.omegat.core.data.ExternalTMX;
+import org.omegat.core.data.ITMXEntry;
+import org.omegat.core.matching.LevenshteinDistance;
+
+/**
+ * Inverted index of the source texts used as fuzzy match candidates.
+ * <p>
+ * Every distinct source text of the project memory, the external TMs and the
+ * source file translations is registered once as a "document". For each of
+ * the three tokenizations used by {@link FindMatches} the index keeps the
+ * token count of the document and the list of documents containing each
+ * token.
+ * <p>
+ * Similarity is calculated as
+ * <code>100 * (max(n, m) - LD) / max(n, m)</code>, and the Levenshtein
+ * distance can't be less than <code>max(n, m)</code> minus the number of
+ * common tokens, nor less than <code>|n - m|</code>. So a candidate can reach
+ * a similarity threshold <code>T</code> only when it shares at least
+ * <code>ceil(T * n / 100)</code> tokens with the query, and this requires it
+ * to contain at least one of the <code>n - ceil(T * n / 100) + 1</code>
+ * rarest query tokens (prefix filtering). The index returns only documents
+ * which pass that test and the length test for at least one tokenization,
+ * i.e. the result is exactly the set of documents that still can reach the
+ * threshold.
+ * <p>
+ * The index is filled incrementally: a source text is tokenized the first time
+ * it is seen and stays indexed until {@link #clear()}. The project clears and
+ * builds the index again when an external TM is changed or removed, so sources
+ * of TMs which are not used anymore don't stay in memory. Token ids come from
+ * the {@link TokenizedCorpus}, so texts already tokenized by the project are
+ * not tokenized again.
+ * <p>
+ * This class is thread safe.
+ */
+public class FuzzyMatchIndex {
+
+    private static final int MODES = TokenizedCorpus.MODES;
+
+    private final TokenizedCorpus corpus;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Document id by source text. */
+    private final Map<String, Integer> docs = new HashMap<>();
+    private final ModeIndex[] modes = new ModeIndex[MODES];
+
+    /** Document ids of the external TMs entries, by entry position. */
+    private final Map<ExternalTMX, int[]> memories = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Remove pattern the documents were tokenized with. */
+    private Pattern removePattern;
+    private String removeRegex;
+
+    /** Incremented on each clear, so ids calculated before can be dropped. */
+    private volatile int generation;
+
+    public FuzzyMatchIndex(TokenizedCorpus corpus) {
+        this.corpus = corpus;
+        for (int i = 0; i < MODES; i++) {
+            modes[i] = new ModeIndex();
+        }
+    }
+
+    /**
+     * Make sure the index was built with the same remove pattern as the
+     * caller uses. If the user changed the pattern, all documents have to be
+     * tokenized again.
+     */
+    public void checkRemovePattern(Pattern pattern) {
+        String regex = pattern == null ? null : pattern.pattern();
+        lock.readLock().lock();
+        try {
+            if (Objects.equals(regex, removeRegex)) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!Objects.equals(regex, removeRegex)) {
+                clear();
+                removeRegex = regex;
+                removePattern = pattern;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop all indexed documents.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            docs.clear();
+            for (int i = 0; i < MODES; i++) {
+                modes[i] = new ModeIndex();
+            }
+            memories.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed documents.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns document id of source text. The source is indexed if it was not
+     * seen before.
+     */
+    public int getDocId(String source) {
+        Pattern pattern;
+        lock.readLock().lock();
+        try {
+            Integer id = docs.get(source);
+            if (id != null) {
+                return id;
+            }
+            pattern = removePattern;
+        } finally {
+            lock.readLock().unlock();
+        }
+        // tokenize outside of the lock, it's the slowest part
+        int[][] tokens = tokenize(source, pattern);
+        lock.writeLock().lock();
+        try {
+            Integer id = docs.get(source);
+            if (id == null) {
+                if (pattern != removePattern) {
+                    tokens = tokenize(source, removePattern);
+                }
+                id = docs.size();
+                docs.put(source, id);
+                for (int i = 0; i < MODES; i++) {
+                    modes[i].add(id, tokens[i]);
+                }
+            }
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns document ids of all entries of the external TM, by entry
+     * position. Entries without source get -1. The TM is indexed on the first
+     * call.
+     */
+    public int[] getDocIds(ExternalTMX tmx) {
+        int[] ids = memories.get(tmx);
+        if (ids != null) {
+            return ids;
+        }
+        int gen = generation;
+        List<ITMXEntry> entries = tmx.getEntries();
+        ids = new int[entries.size()];
+        for (int i = 0; i < ids.length; i++) {
+            String source = entries.get(i).getSourceText();
+            ids[i] = source == null ? -1 : getDocId(source);
+        }
+        lock.writeLock().lock();
+        try {
+            if (gen == generation) {
+                memories.put(tmx, ids);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the store which tokenizes documents for this index.
+     */
+    public TokenizedCorpus getCorpus() {
+        return corpus;
+    }
+
+    /**
+     * Find documents which can reach the similarity threshold with the query.
+     *
+     * @param query
+     *            query text, already without text matched by the remove
+     *            pattern
+     * @param threshold
+     *            similarity threshold, must be positive
+     * @return candidates
+     */
+    public Candidates findCandidates(String query, int threshold) {
+        int[][] tokens = corpus.get(query);
+        lock.readLock().lock();
+        try {
+            int count = docs.size();
+            BitSet found = new BitSet(count);
+            for (int i = 0; i < MODES; i++) {
+                modes[i].collect(tokens[i], threshold, found);
+            }
+            return new Candidates(this, generation, found, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tokenize source in the same way as FindMatches does: remove text by
+     * remove pattern, then take token ids of the rest from the corpus.
+     */
+    private int[][] tokenize(String source, Pattern pattern) {
+        String realSource = pattern == null ? source : pattern.matcher(source).replaceAll("");
+        return corpus.get(realSource);
+    }
+
+    /**
+     * Set of candidate documents. Documents indexed after the search was
+     * started are always candidates, since they were not checked. After the
+     * index was cleared all documents are candidates, since ids are assigned
+     * again.
+     */
+    public static class Candidates {
+        private final FuzzyMatchIndex index;
+        private final int generation;
+        private final BitSet found;
+        private final int checkedCount;
+
+        Candidates(FuzzyMatchIndex index, int generation, BitSet found, int checkedCount) {
+            this.index = index;
+            this.generation = generation;
+            this.found = found;
+            this.checkedCount = checkedCount;
+        }
+
+        public boolean contains(int docId) {
+            return docId < 0 || docId >= checkedCount || found.get(docId) || generation != index.generation;
+        }
+
+        /** Returns the number of candidates found between checked documents. */
+        public int size() {
+            return found.cardinality();
+        }
+    }
+
+    /**
+     * Index for one tokenization mode.
+     */
+    private static class ModeIndex {
+        /** Token count by document id. */
+        private final IntList lengths = new IntList();
+        /** Documents which contain token, by token id. */
+        private final Map<Integer, IntList> postings = new HashMap<>();
+        /** Documents too long for exact comparison. */
+        private final IntList longDocs = new IntList();
+
+        void add(int docId, int[] tokens) {
+            lengths.add(tokens.length);
+            if (tokens.length > LevenshteinDistance.MAX_N) {
+                // Levenshtein distance is computed only for first MAX_N
+                // tokens, so bounds are not valid
+                longDocs.add(docId);
+                return;
+            }
+            for (int id : Arrays.stream(tokens).distinct().toArray()) {
+                postings.computeIfAbsent(id, k -> new IntList()).add(docId);
+            }
+        }
+
+        void collect(int[] query, int threshold, BitSet found) {
+            int n = query.length;
+            if (n == 0) {
+                // can't be similar by this tokenization
+                return;
+            }
+            int count = lengths.size();
+            if (n > LevenshteinDistance.MAX_N) {
+                found.set(0, count);
+                return;
+            }
+            // minimal number of common tokens
+            int minCommon = (threshold * n + 99) / 100;
+            int prefix = n - minCommon + 1;
+
+            // count query tokens, then sort by documents frequency
+            Map<Integer, int[]> counts = new HashMap<>();
+            for (int id : query) {
+                counts.computeIfAbsent(id, k -> new int[1])[0]++;
+            }
+            List<Map.Entry<Integer, int[]>> tokens = new ArrayList<>(counts.entrySet());
+            tokens.sort((a, b) -> Integer.compare(frequency(a.getKey()), frequency(b.getKey())));
+
+            int covered = 0;
+            for (Map.Entry<Integer, int[]> en : tokens) {
+                if (covered >= prefix) {
+                    break;
+                }
+                covered += en.getValue()[0];
+                IntList docs = postings.get(en.getKey());
+                if (docs == null) {
+                    continue;
+                }
+                for (int i = 0; i < docs.size(); i++) {
+                    int docId = docs.get(i);
+                    if (!found.get(docId) && lengthMatches(n, lengths.get(docId), threshold)) {
+                        found.set(docId);
+                    }
+                }
+            }
+            for (int i = 0; i < longDocs.size(); i++) {
+                found.set(longDocs.get(i));
+            }
+        }
+
+        private int frequency(int id) {
+            IntList docs = postings.get(id);
+            return docs == null ? 0 : docs.size();
+        }
+
+        /**
+         * Check that the length difference still allows to reach threshold,
+         * i.e. 100 * min(n, m) / max(n, m) &gt;= threshold.
+         */
+        private static boolean lengthMatches(int n, int m, int threshold) {
+            return 100 * Math.min(n, m) >= threshold * Math.max(n, m);
+        }
+    }
+
+    /**
+     * Growable array of primitive ints, to avoid boxing in posting lists.
+     */
+    private static class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int v) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = v;
+        }
+
+        int get(int i) {
+            return data[i];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import org.omegat.core.data.ExternalTMX;
+import org.omegat.core.data.IProject;
+import org.omegat.core.data.SourceTextEntry;
+import org.omegat.core.matching.FuzzyMatcher;
+import org.omegat.core.matching.NearString;
+import org.omegat.core.matching.TokenIdLevenshteinDistance;
+import org.omegat.core.segmentation.Segmenter;
+import org.omegat.util.OConsts;
+import org.omegat.util.OStrings;
+import org.omegat.util.PatternConsts;
+import org.omegat.util.Preferences;
+
+/**
+ * Best similarities of untranslated segments found by match statistics, kept
+ * between runs in the project's internal folder.
+ * <p>
+ * Every result is stored by the fingerprint of the segment (its source, with
+ * and without tags), together with hashes of the near strings it was found
+ * from and the score of the worst of them. The file also keeps the fingerprint
+ * of everything else results depend on (settings, external TMs, translations
+ * from source files), and fingerprints of the translations of every source of
+ * the project memory.
+ * <p>
+ * When statistics are calculated again, all results are dropped if settings
+ * or TMs changed. Otherwise, the sources of the project memory whose
+ * translations changed are found by comparing fingerprints, and a result is
+ * reused only if none of its near strings changed, and none of the changed
+ * sources could get into the near strings. The latter is checked with the
+ * similarity of stemmed tokens without penalties, which is never less than
+ * the score the search gives. Projects without sentence segmentation also
+ * glue matches of separate sentences, which any change can affect, so there
+ * every change of the memory drops all results.
+ * <p>
+ * Only results checked or found by the current run are saved, since the
+ * others weren't checked against the changes.
+ * <p>
+ * This class is not thread safe.
+ */
+public class MatchStatisticsCache {
+
+    private static final Logger LOGGER = Logger.getLogger(MatchStatisticsCache.class.getName());
+
+    /** Version of the file format and of the fingerprints. */
+    static final int VERSION = 1;
+
+    /**
+     * More changed sources than this make checking of every result slower
+     * than searching again.
+     */
+    static final int MAX_CHANGED_SOURCES = 1000;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final File file;
+    private final FindMatches finder;
+    private final TokenIdLevenshteinDistance distance = new TokenIdLevenshteinDistance();
+    private final boolean separateSegments;
+
+    /** Fingerprint of settings, TMs and translations from source files. */
+    private final long settings;
+
+    /** Fingerprints of the project memory translations, by source hash. */
+    private final Map<Long, Long> memory = new HashMap<>();
+    private final Map<Long, String> memorySources = new HashMap<>();
+
+    /** Results of previous runs, not checked yet. */
+    private final Map<Long, Result> stored = new HashMap<>();
+
+    /** Results checked or found by this run. */
+    private final Map<Long, Result> checked = new HashMap<>();
+
+    /** Hashes of the sources which changed since results were stored. */
+    private final Set<Integer> changedSources = new HashSet<>();
+
+    /** Token ids of the changed sources which are still in the memory. */
+    private final List<int[]> changedIds = new ArrayList<>();
+
+    private int reused;
+
+    /**
+     * @param finder
+     *            finder used by statistics, for tokenize texts the same way
+     */
+    public MatchStatisticsCache(IProject project, Segmenter segmenter, FindMatches finder, int threshold,
+            File file) {
+        this.file = file;
+        this.finder = finder;
+        this.separateSegments = !project.getProjectProperties().isSentenceSegmentingEnabled();
+        this.settings = fingerprintSettings(project, segmenter, threshold);
+        fingerprintMemory(project);
+    }
+
+    /**
+     * Read results of the previous run. Results which can't be valid anymore
+     * are dropped; a missing or broken file just means no results.
+     */
+    public void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        Map<Long, Long> oldMemory = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file
+                .toPath())))) {
+            if (in.readInt() != VERSION || in.readLong() != settings) {
+                LOGGER.fine("Match statistics cache is outdated");
+                return;
+            }
+            int memoryCount = in.readInt();
+            for (int i = 0; i < memoryCount; i++) {
+                oldMemory.put(in.readLong(), in.readLong());
+            }
+            int resultCount = in.readInt();
+            for (int i = 0; i < resultCount; i++) {
+                long key = in.readLong();
+                Result result = new Result(in.readByte(), in.readShort(), new int[in.readByte()]);
+                for (int j = 0; j < result.nearSources.length; j++) {
+                    result.nearSources[j] = in.readInt();
+                }
+                stored.put(key, result);
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Match statistics cache can't be read", ex);
+            stored.clear();
+            return;
+        }
+
+        for (Map.Entry<Long, Long> en : memory.entrySet()) {
+            if (!en.getValue().equals(oldMemory.remove(en.getKey()))) {
+                // added or changed
+                String source = memorySources.get(en.getKey());
+                changedSources.add(source.hashCode());
+                changedIds.add(finder.tokenizeRealStemIds(source));
+            }
+        }
+        for (Long removed : oldMemory.keySet()) {
+            // can't get the text back, but the hash is enough
+            changedSources.add((int) (removed >>> 32));
+        }
+        if (changedSources.size() > MAX_CHANGED_SOURCES || (separateSegments && !changedSources.isEmpty())) {
+            stored.clear();
+        }
+        LOGGER.fine("Match statistics cache: " + stored.size() + " results, " + changedSources.size()
+                + " changed sources");
+    }
+
+    /**
+     * Returns the stored similarity of the segment, or -1 if it has to be
+     * searched again.
+     *
+     * @param query
+     *            source of the segment, as searched by statistics
+     */
+    public int get(SourceTextEntry ste, String query) {
+        long key = fingerprint(FNV_OFFSET, ste.getSrcText(), query);
+        Result result = checked.get(key);
+        if (result == null) {
+            result = stored.remove(key);
+            if (result == null || !isValid(result, query)) {
+                return -1;
+            }
+            checked.put(key, result);
+        }
+        reused++;
+        return result.similarity;
+    }
+
+    /**
+     * Store the similarity found for the segment.
+     *
+     * @param nears
+     *            near strings the similarity was found from
+     */
+    public void put(SourceTextEntry ste, String query, int similarity, List<NearString> nears) {
+        int[] nearSources = new int[nears.size()];
+        for (int i = 0; i < nearSources.length; i++) {
+            nearSources[i] = nears.get(i).source.hashCode();
+        }
+        // while the list isn't full, any entry can get into it
+        int minScore = nears.size() < OConsts.MAX_NEAR_STRINGS ? Short.MIN_VALUE
+                : nears.get(nears.size() - 1).scores[0].score;
+        checked.put(fingerprint(FNV_OFFSET, ste.getSrcText(), query),
+                new Result(similarity, minScore, nearSources));
+    }
+
+    /**
+     * Returns the number of similarities reused by this run.
+     */
+    public int getReused() {
+        return reused;
+    }
+
+    /**
+     * Write results checked or found by this run. The file is replaced only
+     * when completely written.
+     */
+    public void save() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp
+                    .toPath())))) {
+                out.writeInt(VERSION);
+                out.writeLong(settings);
+                out.writeInt(memory.size());
+                for (Map.Entry<Long, Long> en : memory.entrySet()) {
+                    out.writeLong(en.getKey());
+                    out.writeLong(en.getValue());
+                }
+                out.writeInt(checked.size());
+                for (Map.Entry<Long, Result> en : checked.entrySet()) {
+                    Result result = en.getValue();
+                    out.writeLong(en.getKey());
+                    out.writeByte(result.similarity);
+                    out.writeShort(result.minScore);
+                    out.writeByte(result.nearSources.length);
+                    for (int source : result.nearSources) {
+                        out.writeInt(source);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Match statistics cache can't be written", ex);
+        }
+    }
+
+    /**
+     * Result is valid if none of its near strings changed, and none of the
+     * changed sources can beat the worst of them.
+     */
+    private boolean isValid(Result result, String query) {
+        for (int source : result.nearSources) {
+            if (changedSources.contains(source)) {
+                return false;
+            }
+        }
+        if (changedIds.isEmpty()) {
+            return true;
+        }
+        if (result.minScore <= 0) {
+            // the list of near strings wasn't full
+            return false;
+        }
+        int[] queryIds = finder.tokenizeRealStemIds(query);
+        for (int[] ids : changedIds) {
+            int maxLength = Math.max(queryIds.length, ids.length);
+            if (maxLength > 0 && 100 * Math.min(queryIds.length, ids.length) / maxLength < result.minScore) {
+                continue;
+            }
+            if (FuzzyMatcher.calcSimilarity(distance, queryIds, ids, result.minScore) >= result.minScore) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fingerprint of everything besides the project memory and the segment
+     * itself which affects the similarity.
+     */
+    private static long fingerprintSettings(IProject project, Segmenter segmenter, int threshold) {
+        Pattern removePattern = PatternConsts.getRemovePattern();
+        long h = fingerprint(FNV_OFFSET, OStrings.VERSION, project.getSourceTokenizer().getClass().getName(),
+                removePattern == null ? null : removePattern.pattern());
+        h = mix(h, VERSION);
+        h = mix(h, threshold);
+        h = mix(h, Preferences.getPreferenceDefault(Preferences.PENALTY_FOR_FOREIGN_MATCHES,
+                Preferences.PENALTY_FOR_FOREIGN_MATCHES_DEFAULT));
+        h = mix(h, Preferences.isPreference(Preferences.EXT_TMX_KEEP_FOREIGN_MATCH) ? 1 : 0);
+        h = mix(h, project.getProjectProperties().isSupportDefaultTranslations() ? 1 : 0);
+        h = mix(h, project.getProjectProperties().isSentenceSegmentingEnabled() ? 1 : 0);
+        if (!project.getProjectProperties().isSentenceSegmentingEnabled() && segmenter != null) {
+            // sentences of paragraphs are matched separately
+            h = mix(h, segmenter.getSRX().hashCode());
+        }
+        for (Map.Entry<String, ExternalTMX> en : project.getTransMemories().entrySet()) {
+            File tmFile = new File(en.getKey());
+            h = fingerprint(h, en.getKey());
+            h = mix(h, en.getValue().getEntries().size());
+            h = mix(h, tmFile.length());
+            h = mix(h, tmFile.lastModified());
+        }
+        for (SourceTextEntry ste : project.getAllEntries()) {
+            if (ste.getSourceTranslation() != null) {
+                h = fingerprint(h, ste.getSrcText(), ste.getSourceTranslation());
+                h = mix(h, ste.isSourceTranslationFuzzy() ? 1 : 0);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Fingerprint translations of every source of the project memory. Sources
+     * are identified by their own hash in the high half and a different hash
+     * in the low half, so removed sources can still be compared with near
+     * strings.
+     */
+    private void fingerprintMemory(IProject project) {
+        if (project.getProjectProperties().isSupportDefaultTranslations()) {
+            project.iterateByDefaultTranslations((source, trans) -> {
+                if (trans.translation != null) {
+                    addMemory(source, fingerprint(FNV_OFFSET, trans.translation));
+                }
+            });
+        }
+        project.iterateByMultipleTranslations((key, trans) -> {
+            if (trans.translation != null) {
+                addMemory(key.sourceText, fingerprint(FNV_OFFSET, key.file, key.id, key.prev, key.next,
+                        key.path, trans.translation));
+            }
+        });
+    }
+
+    private void addMemory(String source, long translation) {
+        long key = ((long) source.hashCode() << 32) | (fingerprint(FNV_OFFSET, source) & 0xffffffffL);
+        // order of entries doesn't matter
+        memory.merge(key, translation, Long::sum);
+        memorySources.put(key, source);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of strings, which is stable between runs.
+     */
+    static long fingerprint(long h, String... texts) {
+        for (String text : texts) {
+            if (text == null) {
+                h = mix(h, -1);
+                continue;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                h = (h ^ text.charAt(i)) * FNV_PRIME;
+            }
+            // separator, so "ab"+"c" differs from "a"+"bc"
+            h = mix(h, text.length());
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        return (h ^ value) * FNV_PRIME;
+    }
+
+    /**
+     * Similarity of segment, with what is needed for check if it's still
+     * valid.
+     */
+    private static class Result {
+        final int similarity;
+        /** Score of the worst near string, which other entries have to beat. */
+        final int minScore;
+        /** Hashes of near strings sources. */
+        final int[] nearSources;
+
+        Result(int similarity, int minScore, int[] nearSources) {
+            this.similarity = similarity;
+            this.minScore = minScore;
+            this.nearSources = nearSources;
+        }
+    }
+}
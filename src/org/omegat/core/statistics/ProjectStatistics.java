@@ -0,0 +1,378 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.omegat.core.data.IProject;
+import org.omegat.core.data.IProject.FileInfo;
+import org.omegat.core.data.ProtectedPart;
+import org.omegat.core.data.SourceTextEntry;
+
+/**
+ * Standard statistics of the project, kept up to date while the user
+ * translates.
+ * <p>
+ * {@link CalcStandardStatistics#buildProjectStats(IProject)} counts words and
+ * characters of every segment, which is too slow for every autosave of a big
+ * project. Here the counts are calculated once by {@link #rebuild()}, together
+ * with the unique segments and the files of every segment. Later only the
+ * segments whose translation changed are checked by
+ * {@link #update(SourceTextEntry)}, and totals are corrected by their counts.
+ * {@link #getResult()} returns the same data as {@link CalcStandardStatistics}
+ * would calculate.
+ * <p>
+ * Project segments are expected to be the same as segments of the project
+ * files; the project calls {@link #rebuild()} after changes of translations
+ * which don't come from the user, like team synchronization.
+ * <p>
+ * This class is thread safe.
+ */
+public class ProjectStatistics {
+
+    private final IProject project;
+
+    /** Segments of the project, then segments of files which are not there. */
+    private SourceTextEntry[] entries = new SourceTextEntry[0];
+    /** Number of the project segments, i.e. entries used for unique counts. */
+    private int allCount;
+    /** Entries with the same source text, i.e. the same default translation. */
+    private Map<String, int[]> bySource = new HashMap<>();
+
+    /** Counts, translated flag, unique key and file of every entry. */
+    private StatCount[] counts;
+    private boolean[] translated;
+    private int[] keyOf;
+    private int[] fileOf;
+    /** Whether entry is the first of its key in the files order. */
+    private boolean[] firstInFiles;
+
+    /** Unique keys: source, first entry, file id of first entry, translated entries. */
+    private List<String> keys;
+    private int[] keyFirst;
+    private int[] keyFile;
+    private int[] keyTranslated;
+    private int translatedKeys;
+
+    /** Untranslated unique keys per file id of their first entry. */
+    private int[] remainingUniqueByFile;
+    private int filesUnique;
+    private int filesRemainingUnique;
+
+    private FileData[] files;
+    /** Untranslated entries per project file. */
+    private int[] remainingByFile;
+    private int filesTotal;
+    private int filesRemaining;
+
+    private StatCount total;
+    private StatCount remaining;
+    private StatCount unique;
+    private StatCount remainingUnique;
+
+    public ProjectStatistics(IProject project) {
+        this.project = project;
+        clear();
+    }
+
+    /**
+     * Forget all counts, for example when the project is closed.
+     */
+    public synchronized void clear() {
+        entries = new SourceTextEntry[0];
+        allCount = 0;
+        bySource = new HashMap<>();
+        counts = new StatCount[0];
+        translated = new boolean[0];
+        keyOf = new int[0];
+        fileOf = new int[0];
+        firstInFiles = new boolean[0];
+        keys = new ArrayList<>();
+        keyFirst = new int[0];
+        keyFile = new int[0];
+        keyTranslated = new int[0];
+        translatedKeys = 0;
+        remainingUniqueByFile = new int[0];
+        filesUnique = 0;
+        filesRemainingUnique = 0;
+        files = new FileData[0];
+        remainingByFile = new int[0];
+        filesTotal = 0;
+        filesRemaining = 0;
+        total = new StatCount();
+        remaining = new StatCount();
+        unique = new StatCount();
+        remainingUnique = new StatCount();
+    }
+
+    /**
+     * Calculate all counts from the project segments and translations.
+     */
+    public synchronized void rebuild() {
+        clear();
+
+        List<SourceTextEntry> all = project.getAllEntries();
+        List<FileInfo> projectFiles = project.getProjectFiles();
+        Map<SourceTextEntry, Integer> positions = new IdentityHashMap<>();
+        List<SourceTextEntry> list = new ArrayList<>(all);
+        for (int i = 0; i < all.size(); i++) {
+            positions.put(all.get(i), i);
+        }
+        allCount = all.size();
+        for (FileInfo file : projectFiles) {
+            for (SourceTextEntry ste : file.entries) {
+                if (!positions.containsKey(ste)) {
+                    positions.put(ste, list.size());
+                    list.add(ste);
+                }
+            }
+        }
+        entries = list.toArray(new SourceTextEntry[list.size()]);
+
+        int size = entries.length;
+        counts = new StatCount[size];
+        translated = new boolean[size];
+        keyOf = new int[size];
+        fileOf = new int[size];
+        firstInFiles = new boolean[size];
+
+        // unique segments, in the project order
+        Map<String, Integer> keyIds = new HashMap<>();
+        Map<String, Integer> fileIds = new HashMap<>();
+        List<Integer> firsts = new ArrayList<>();
+        List<Integer> firstFiles = new ArrayList<>();
+        Map<String, List<Integer>> sources = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            SourceTextEntry ste = entries[i];
+            counts[i] = new StatCount(ste);
+            translated[i] = project.getTranslationInfo(ste).isTranslated();
+            fileOf[i] = -1;
+            sources.computeIfAbsent(ste.getSrcText(), s -> new ArrayList<>()).add(i);
+
+            String key = getUniqueKey(ste);
+            Integer keyId = keyIds.get(key);
+            if (keyId == null) {
+                keyId = keys.size();
+                keyIds.put(key, keyId);
+                keys.add(key);
+                firsts.add(i);
+                firstFiles.add(fileIds.computeIfAbsent(ste.getKey().file, f -> fileIds.size()));
+            }
+            keyOf[i] = keyId;
+        }
+        for (Map.Entry<String, List<Integer>> en : sources.entrySet()) {
+            bySource.put(en.getKey(), en.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        int keysCount = keys.size();
+        keyFirst = firsts.stream().mapToInt(Integer::intValue).toArray();
+        keyFile = firstFiles.stream().mapToInt(Integer::intValue).toArray();
+        keyTranslated = new int[keysCount];
+        remainingUniqueByFile = new int[fileIds.size()];
+        for (int i = 0; i < allCount; i++) {
+            if (translated[i]) {
+                keyTranslated[keyOf[i]]++;
+            }
+        }
+        Set<Integer> uniqueFiles = new HashSet<>();
+        for (int k = 0; k < keysCount; k++) {
+            StatCount count = counts[keyFirst[k]];
+            unique.add(count);
+            uniqueFiles.add(keyFile[k]);
+            if (keyTranslated[k] > 0) {
+                translatedKeys++;
+            } else {
+                remainingUnique.add(count);
+                if (remainingUniqueByFile[keyFile[k]]++ == 0) {
+                    filesRemainingUnique++;
+                }
+            }
+        }
+        filesUnique = uniqueFiles.size();
+
+        // project files
+        files = new FileData[projectFiles.size()];
+        remainingByFile = new int[files.length];
+        Set<Integer> firstSeen = new HashSet<>();
+        for (int f = 0; f < files.length; f++) {
+            FileInfo file = projectFiles.get(f);
+            FileData numbers = new FileData();
+            numbers.filename = file.filePath;
+            files[f] = numbers;
+            for (SourceTextEntry ste : file.entries) {
+                int i = positions.get(ste);
+                StatCount count = counts[i];
+                fileOf[i] = f;
+                total.add(count);
+                numbers.total.add(count);
+                firstInFiles[i] = firstSeen.add(keyOf[i]);
+                if (firstInFiles[i]) {
+                    numbers.unique.add(count);
+                }
+                if (!translated[i]) {
+                    remaining.add(count);
+                    numbers.remaining.add(count);
+                    if (firstInFiles[i]) {
+                        numbers.remainingUnique.add(count);
+                    }
+                    remainingByFile[f]++;
+                }
+            }
+            if (!file.entries.isEmpty()) {
+                filesTotal++;
+            }
+            if (remainingByFile[f] > 0) {
+                filesRemaining++;
+            }
+        }
+    }
+
+    /**
+     * Check translation of the segment and of all segments with the same
+     * source, and correct counts of those which became translated or
+     * untranslated. Segments unknown since the last {@link #rebuild()} are
+     * ignored.
+     */
+    public synchronized void update(SourceTextEntry ste) {
+        int[] sameSource = bySource.get(ste.getSrcText());
+        if (sameSource == null) {
+            return;
+        }
+        for (int i : sameSource) {
+            boolean isTranslated = project.getTranslationInfo(entries[i]).isTranslated();
+            if (isTranslated != translated[i]) {
+                setTranslated(i, isTranslated);
+            }
+        }
+    }
+
+    private void setTranslated(int i, boolean isTranslated) {
+        translated[i] = isTranslated;
+        StatCount count = counts[i];
+        int f = fileOf[i];
+        if (f >= 0) {
+            FileData numbers = files[f];
+            if (isTranslated) {
+                remaining.subtract(count);
+                numbers.remaining.subtract(count);
+                if (firstInFiles[i]) {
+                    numbers.remainingUnique.subtract(count);
+                }
+                if (--remainingByFile[f] == 0) {
+                    filesRemaining--;
+                }
+            } else {
+                remaining.add(count);
+                numbers.remaining.add(count);
+                if (firstInFiles[i]) {
+                    numbers.remainingUnique.add(count);
+                }
+                if (remainingByFile[f]++ == 0) {
+                    filesRemaining++;
+                }
+            }
+        }
+        if (i >= allCount) {
+            return;
+        }
+        int k = keyOf[i];
+        StatCount firstCount = counts[keyFirst[k]];
+        if (isTranslated) {
+            if (keyTranslated[k]++ == 0) {
+                translatedKeys++;
+                remainingUnique.subtract(firstCount);
+                if (--remainingUniqueByFile[keyFile[k]] == 0) {
+                    filesRemainingUnique--;
+                }
+            }
+        } else {
+            if (--keyTranslated[k] == 0) {
+                translatedKeys--;
+                remainingUnique.add(firstCount);
+                if (remainingUniqueByFile[keyFile[k]]++ == 0) {
+                    filesRemainingUnique++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of translated unique segments.
+     */
+    public synchronized int getTranslatedUniqueCount() {
+        return translatedKeys;
+    }
+
+    /**
+     * Returns current statistics. The result is a copy, so it doesn't change
+     * with later updates.
+     */
+    public synchronized StatsResult getResult() {
+        Set<String> translatedSet = new HashSet<>();
+        for (int k = 0; k < keys.size(); k++) {
+            if (keyTranslated[k] > 0) {
+                translatedSet.add(keys.get(k));
+            }
+        }
+        List<FileData> counts = new ArrayList<>(files.length);
+        for (FileData file : files) {
+            FileData numbers = new FileData();
+            numbers.filename = file.filename;
+            numbers.total = file.total.copy();
+            numbers.unique = file.unique.copy();
+            numbers.remaining = file.remaining.copy();
+            numbers.remainingUnique = file.remainingUnique.copy();
+            counts.add(numbers);
+        }
+        return new StatsResult(withFiles(total, filesTotal), withFiles(remaining, filesRemaining),
+                withFiles(unique, filesUnique), withFiles(remainingUnique, filesRemainingUnique),
+                translatedSet, counts);
+    }
+
+    private static StatCount withFiles(StatCount count, int files) {
+        StatCount result = count.copy();
+        result.files = files;
+        return result;
+    }
+
+    /**
+     * Returns the source with protected parts replaced the same way as for
+     * calculate uniqueness.
+     */
+    static String getUniqueKey(SourceTextEntry ste) {
+        String src = ste.getSrcText();
+        for (ProtectedPart pp : ste.getProtectedParts()) {
+            src = src.replace(pp.getTextInSourceSegment(), pp.getReplacementUniquenessCalculation());
+        }
+        return src;
+    }
+}
@@ -0,0 +1,143 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Best matches of separate sentences of paragraphs, for projects without
+ * sentence segmentation.
+ * <p>
+ * For every paragraph {@link FindMatches} splits it into sentences and searches
+ * the whole corpus for each sentence. The same sentences are searched again
+ * every time the paragraph is activated, and for statistics, so results are
+ * kept here as long as the memories don't change. The key is the sentence
+ * together with search settings which affect the result.
+ * <p>
+ * The project clears the cache when the TMs or the whole project memory
+ * change. When one translation changes, only matches with its source are
+ * dropped, unless the source becomes a new candidate which can be better than
+ * any stored match. Since a search can run while the memory changes, results
+ * are stored only if the cache wasn't changed since the search started: see
+ * {@link #getGeneration()}.
+ * <p>
+ * This class is thread safe.
+ */
+public class SentenceMatchCache {
+
+    /** Maximal number of stored sentences. */
+    static final long MAX_ENTRIES = 50_000;
+
+    private final Cache<String, Match> cache = Caffeine.newBuilder().maximumSize(MAX_ENTRIES).recordStats()
+            .build();
+
+    private long generation;
+
+    /**
+     * Returns the number of the cache state. It changes on every
+     * {@link #clear()} and {@link #invalidate(String)}; results found by a
+     * search which started before have to be thrown away.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns stored match for sentence, or null if the sentence wasn't
+     * searched yet.
+     *
+     * @param settings
+     *            search settings which affect the result
+     */
+    public Match get(String settings, String sentence) {
+        return cache.getIfPresent(key(settings, sentence));
+    }
+
+    /**
+     * Store match for sentence, if the cache wasn't cleared since the search
+     * started.
+     *
+     * @param generation
+     *            result of {@link #getGeneration()} before the search
+     */
+    public synchronized void put(String settings, String sentence, long generation, Match match) {
+        if (this.generation == generation) {
+            cache.put(key(settings, sentence), match);
+        }
+    }
+
+    /**
+     * Drop all stored matches, since memories changed.
+     */
+    public synchronized void clear() {
+        generation++;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Drop stored matches with the source, since its translation changed.
+     */
+    public synchronized void invalidate(String source) {
+        generation++;
+        cache.asMap().values().removeIf(match -> match.source.equals(source));
+    }
+
+    /**
+     * Returns the approximate number of stored sentences.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns statistics of the cache usage: hits, misses, evictions.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    private static String key(String settings, String sentence) {
+        return settings + '\n' + sentence;
+    }
+
+    /**
+     * Source and translation of the best match of sentence, or empty strings
+     * if no match is good enough.
+     */
+    public static final class Match {
+        public static final Match NONE = new Match("", "");
+
+        public final String source;
+        public final String translation;
+
+        public Match(String source, String translation) {
+            this.source = source;
+            this.translation = translation;
+        }
+    }
+}
@@ -95,6 +95,24 @@ public class StatCount {
         return this;
     }
 
+    public StatCount subtract(StatCount c) {
+        segments -= c.segments;
+        words -= c.words;
+        charsWithoutSpaces -= c.charsWithoutSpaces;
+        charsWithSpaces -= c.charsWithSpaces;
+        return this;
+    }
+
+    /**
+     * Returns new counts with the same values.
+     */
+    public StatCount copy() {
+        StatCount result = new StatCount();
+        result.add(this);
+        result.files = files;
+        return result;
+    }
+
     public void addFiles(int count) {
         files += count;
     }
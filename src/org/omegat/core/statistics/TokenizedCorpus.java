@@ -0,0 +1,202 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import java.util.Locale;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import org.omegat.core.matching.TokenInterner;
+import org.omegat.tokenizer.ITokenizer;
+import org.omegat.util.Preferences;
+
+/**
+ * Store of tokenized texts used for fuzzy matching, as token ids.
+ * <p>
+ * Every text is tokenized in the three ways {@link FindMatches} compares
+ * texts: words with stemming, lower-cased words, and all lower-cased tokens
+ * (including numbers and tags). Ids are assigned by one {@link TokenInterner}
+ * per tokenization, so ids of any two texts of the store are comparable.
+ * <p>
+ * The store lives as long as the project, and is shared between the matches
+ * pane, statistics and parallel search workers, so the corpus is tokenized
+ * only once instead of on every search. The store is limited by the estimated
+ * memory of the stored texts and ids (see {@link #weigh(String, int[][])}), so
+ * even multi-GB corpora can't exhaust the heap; the least used texts are
+ * tokenized again when needed. The limit is {@link Preferences#TOKEN_CACHE_SIZE}
+ * megabytes, or a tenth of the maximal heap by default. Hit rate and evictions
+ * are available from {@link #getStats()}, for sizing the limit.
+ * <p>
+ * This class is thread safe.
+ */
+public class TokenizedCorpus {
+
+    /** Indexes of tokenizations: stemmed words, words, all tokens. */
+    public static final int STEM = 0, NO_STEM = 1, ALL = 2;
+    static final int MODES = 3;
+
+    /** Default limit, as part of the maximal heap size. */
+    static final int DEFAULT_HEAP_PART = 10;
+
+    private final ITokenizer tokenizer;
+    private final Locale srcLocale;
+    private final TokenInterner[] interners = new TokenInterner[MODES];
+    private final long maxWeight;
+    private final Cache<String, int[][]> cache;
+
+    public TokenizedCorpus(ITokenizer tokenizer, Locale srcLocale) {
+        this(tokenizer, srcLocale, getDefaultMaxWeight());
+    }
+
+    /**
+     * @param maxWeight
+     *            limit of the estimated memory of stored texts, in bytes
+     */
+    public TokenizedCorpus(ITokenizer tokenizer, Locale srcLocale, long maxWeight) {
+        this.tokenizer = tokenizer;
+        this.srcLocale = srcLocale;
+        this.maxWeight = maxWeight;
+        for (int i = 0; i < MODES; i++) {
+            interners[i] = new TokenInterner();
+        }
+        cache = Caffeine.newBuilder().maximumWeight(maxWeight).weigher(TokenizedCorpus::weigh).recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the limit configured by the user, or a part of the maximal heap
+     * size.
+     */
+    static long getDefaultMaxWeight() {
+        int megabytes = Preferences.getPreferenceDefault(Preferences.TOKEN_CACHE_SIZE, 0);
+        if (megabytes > 0) {
+            return megabytes * 1024L * 1024L;
+        }
+        return Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_PART;
+    }
+
+    /**
+     * Estimated memory of stored text with its ids, in bytes: the string, the
+     * arrays headers and the ids. Estimate doesn't need to be exact, it's only
+     * for keep the store in the limit.
+     */
+    static int weigh(String text, int[][] ids) {
+        long weight = 40 + 2L * text.length() + 16 + 4L * ids.length;
+        for (int[] modeIds : ids) {
+            weight += 16 + 4L * modeIds.length;
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns token ids of text for all tokenizations, indexed by
+     * {@link #STEM}, {@link #NO_STEM}, {@link #ALL}. Returned arrays must not
+     * be changed.
+     */
+    public int[][] get(String text) {
+        int[][] ids = cache.getIfPresent(text);
+        if (ids == null) {
+            // tokenize outside of the cache, since it's slow; the same text
+            // tokenized twice gets the same ids anyway
+            ids = tokenize(text);
+            cache.put(text, ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns token ids of text for one tokenization.
+     */
+    public int[] get(String text, int mode) {
+        return get(text)[mode];
+    }
+
+    /**
+     * Returns the approximate number of stored texts.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Returns the estimated memory of stored texts, in bytes.
+     */
+    public long getWeight() {
+        return cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Returns the limit of the estimated memory of stored texts, in bytes.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns statistics of the store usage since the project was opened:
+     * hits, misses (texts which had to be tokenized), evictions.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Drop all stored texts and forget all tokens, so the interners don't
+     * keep the vocabulary of a closed project. Ids assigned before are not
+     * comparable with ids assigned after, so indexes built on them must be
+     * cleared too.
+     */
+    public void clear() {
+        cache.invalidateAll();
+        for (TokenInterner interner : interners) {
+            interner.clear();
+        }
+    }
+
+    /**
+     * Short description of the store usage, for the log.
+     */
+    @Override
+    public String toString() {
+        CacheStats stats = getStats();
+        return String.format("%d texts, %d of %d MB, hit rate %.1f%%, %d evictions", size(),
+                getWeight() / (1024 * 1024), maxWeight / (1024 * 1024), stats.hitRate() * 100,
+                stats.evictionCount());
+    }
+
+    private int[][] tokenize(String text) {
+        // No-stemming and verbatim token comparisons are intentionally
+        // case-insensitive for matching purposes.
+        String lower = text.toLowerCase(srcLocale);
+        int[][] result = new int[MODES][];
+        result[STEM] = interners[STEM].intern(tokenizer.tokenizeWords(text, ITokenizer.StemmingMode.MATCHING));
+        result[NO_STEM] = interners[NO_STEM].intern(tokenizer.tokenizeWords(lower, ITokenizer.StemmingMode.NONE));
+        result[ALL] = interners[ALL].intern(tokenizer.tokenizeVerbatim(lower));
+        return result;
+    }
+}
@@ -677,4 +677,16 @@ public abstract class AbstractFilter implements IFilter {
         return inEncodingLastParsedFile;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Every file is processed by a new filter instance, but a filter can still
+     * share state between instances in static fields or libraries. Subclasses
+     * return true after checking they don't.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return false;
+    }
+
 }
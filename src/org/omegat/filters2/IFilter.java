@@ -237,4 +237,20 @@ public interface IFilter {
     default boolean isEnabledInDefault() {
         return true;
     }
+
+    /**
+     * Whether different instances of the filter can process different files
+     * at the same time. The project loads and compiles files in several
+     * threads only with filters which declare it; other filters process one
+     * file at a time.
+     * <p>
+     * Filters which keep state in static fields, or use libraries which are
+     * not thread safe, must return false.
+     *
+     * @return true when the filter can be used in parallel
+     * @since 6.1.0
+     */
+    default boolean isParallelProcessingSupported() {
+        return false;
+    }
 }
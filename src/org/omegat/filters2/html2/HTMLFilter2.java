@@ -316,4 +316,11 @@ public class HTMLFilter2 extends AbstractFilter {
         return sourceEncoding;
     }
 
+    /**
+     * Every file gets its own HTML parser, and options are kept in instance fields.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
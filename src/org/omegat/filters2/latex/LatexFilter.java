@@ -544,4 +544,11 @@ public class LatexFilter extends AbstractFilter {
         return tmp;
     }
 
+    /**
+     * Commands and line break style are kept per instance.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
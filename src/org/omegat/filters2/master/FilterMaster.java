@@ -111,6 +111,12 @@ public class FilterMaster {
     /** Filters config stored in XML file. */
     private final Filters config;
 
+    /**
+     * Lock for filters which can't process files in parallel, see
+     * {@link IFilter#isParallelProcessingSupported()}.
+     */
+    static final Object SERIAL_PROCESSING_LOCK = new Object();
+
     /** Classes of all filters. */
     static List<Class<?>> filtersClasses = Collections.emptyList();
 
@@ -194,6 +200,10 @@ public class FilterMaster {
 
     /**
      * OmegaT core calls this method to load a source file.
+     * <p>
+     * The method can be called for different files in several threads at
+     * once. Filters which don't support parallel processing still parse one
+     * file at a time.
      *
      * @param filename
      *            The name of the source file to load.
@@ -215,7 +225,13 @@ public class FilterMaster {
 
             filterObject = lookup.filterObject;
 
-            filterObject.parseFile(inFile, lookup.config, fc, parseCallback);
+            if (filterObject.isParallelProcessingSupported()) {
+                filterObject.parseFile(inFile, lookup.config, fc, parseCallback);
+            } else {
+                synchronized (SERIAL_PROCESSING_LOCK) {
+                    filterObject.parseFile(inFile, lookup.config, fc, parseCallback);
+                }
+            }
         } catch (TranslationException e) {
             throw e;
         } catch (Exception ioe) {
@@ -235,6 +251,9 @@ public class FilterMaster {
      * </ul>
      * If no filter is found, that processes this file, we simply copy it to
      * target folder.
+     * <p>
+     * The method can be called for different files in several threads at
+     * once, like {@link #loadFile(String, FilterContext, IParseCallback)}.
      *
      * @param sourcedir
      *            The folder of the source inFile.
@@ -270,7 +289,13 @@ public class FilterMaster {
 
         IFilter filterObject = lookup.filterObject;
         try {
-            filterObject.translateFile(inFile, outFile, lookup.config, fc, translateCallback);
+            if (filterObject.isParallelProcessingSupported()) {
+                filterObject.translateFile(inFile, outFile, lookup.config, fc, translateCallback);
+            } else {
+                synchronized (SERIAL_PROCESSING_LOCK) {
+                    filterObject.translateFile(inFile, outFile, lookup.config, fc, translateCallback);
+                }
+            }
         } catch (UnsupportedEncodingException | CharacterCodingException ex) {
             Log.logErrorRB(ex, "FILTERMASTER_ERROR_UNKNOWN_ENCODING");
             Core.getMainWindow().displayErrorRB(ex, "FILTERMASTER_ERROR_UNKNOWN_ENCODING");
@@ -550,6 +575,10 @@ public class FilterMaster {
                     "The sourceDir and srcRelPath arguments must together point to an existing file.");
         }
         LookupInformation lookup = lookupFilter(srcFile, fc);
+        if (lookup == null) {
+            // not supported file is copied as is
+            return srcRelPath;
+        }
         return getTargetForSource(srcRelPath, lookup, fc.getTargetLang());
     }
 
@@ -221,4 +221,11 @@ public class MoodlePHPFilter extends AbstractFilter {
         return true;
     }
 
+    /**
+     * Unlike the Mozilla DTD filter, the untranslated strings option is an instance field.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -100,6 +100,15 @@ public class MozillaDTDFilter extends AbstractFilter {
         return false;
     }
 
+    /**
+     * Options are stored in a static field, so files can't be processed in
+     * parallel.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return false;
+    }
+
     @Override
     public boolean isTargetEncodingVariable() {
         return false;
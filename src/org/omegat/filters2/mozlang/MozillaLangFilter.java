@@ -247,4 +247,12 @@ public class MozillaLangFilter extends AbstractFilter {
     public boolean isBilingual() {
         return true;
     }
+
+    /**
+     * The current entry and the output writer are instance fields.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -134,4 +134,12 @@ public class PdfFilter  extends AbstractFilter {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Every file is read into its own PDF document.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -978,4 +978,12 @@ public class PoFilter extends AbstractFilter {
     public boolean isBilingual() {
         return true;
     }
+
+    /**
+     * Plural forms are shared, but read only; the rest of the state is per instance.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -251,4 +251,12 @@ public class RcFilter extends AbstractFilter {
             break;
         }
     }
+
+    /**
+     * The current block and alignment map are instance fields.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -177,4 +177,12 @@ public class SrtFilter extends AbstractFilter {
             }
         }
     }
+
+    /**
+     * Parsing state is kept in instance fields, also by SBV and WebVTT subclasses.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
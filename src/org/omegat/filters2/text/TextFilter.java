@@ -249,4 +249,12 @@ public class TextFilter extends AbstractFilter {
     public boolean hasOptions() {
         return true;
     }
+
+    /**
+     * Options are read for every file and kept in instance fields.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -588,4 +588,11 @@ public class ResourceBundleFilter extends AbstractFilter {
         return true;
     }
 
+    /**
+     * Options are read for every file and kept in instance fields.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -325,4 +325,12 @@ public class DokuWikiFilter extends AbstractFilter {
             }
         }
     }
+
+    /**
+     * Lines are processed with local state only.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
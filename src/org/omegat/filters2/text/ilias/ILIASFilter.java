@@ -219,4 +219,11 @@ public class ILIASFilter extends AbstractFilter {
         return value;
     }
 
+    /**
+     * The alignment map is the only state and it belongs to the instance.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
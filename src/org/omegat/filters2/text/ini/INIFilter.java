@@ -256,4 +256,12 @@ public class INIFilter extends AbstractFilter {
             }
         }
     }
+
+    /**
+     * The alignment map is the only state and it belongs to the instance.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -182,4 +182,11 @@ public class MagentoFilter extends AbstractFilter {
         return value;
     }
 
+    /**
+     * Lines are processed with local state and an alignment map per instance.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -306,4 +306,11 @@ public class MozillaFTLFilter extends AbstractFilter {
         return true;
     }
 
+    /**
+     * Options and the alignment map are instance fields.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -292,4 +292,11 @@ public class XtagFilter extends AbstractFilter {
         return entry;
     }
 
+    /**
+     * Tags are parsed with local state only.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
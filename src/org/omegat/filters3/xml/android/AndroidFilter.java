@@ -148,4 +148,12 @@ public class AndroidFilter extends XMLFilter {
         }
         return r.replace("'", "\\'");
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link AndroidDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -102,4 +102,12 @@ public class CamtasiaWindowsFilter extends XMLFilter {
     protected boolean requirePrevNextFields() {
         return true;
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link CamtasiaWindowsDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
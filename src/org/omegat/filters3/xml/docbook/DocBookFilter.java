@@ -155,4 +155,12 @@ public class DocBookFilter extends XMLFilter {
             return false;
         }
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link DocBookDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -123,4 +123,11 @@ public class FlashFilter extends XMLFilter {
         return false;
     }
 
+    /**
+     * Every instance gets its own SAX parser factory and {@link FlashDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
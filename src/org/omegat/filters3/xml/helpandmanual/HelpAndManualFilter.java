@@ -101,4 +101,12 @@ public class HelpAndManualFilter extends XMLFilter {
     protected boolean requirePrevNextFields() {
         return true;
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link HelpAndManualDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -94,4 +94,12 @@ public class InfixFilter extends XMLFilter {
     public boolean isTargetEncodingVariable() {
         return true;
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link InfixDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
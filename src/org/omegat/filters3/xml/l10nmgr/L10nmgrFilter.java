@@ -91,4 +91,12 @@ public class L10nmgrFilter extends XMLFilter {
     protected boolean requirePrevNextFields() {
         return true;
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link L10nmgrDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -241,4 +241,12 @@ public class OpenDocFilter extends AbstractFilter {
         // the encoding of some xml file inside.
         return "OpenDoc";
     }
+
+    /**
+     * Every file gets its own XML filter for the documents in the archive.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
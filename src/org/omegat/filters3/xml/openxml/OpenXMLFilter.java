@@ -427,4 +427,12 @@ public class OpenXMLFilter extends AbstractFilter {
         // It makes no sense to display the encoding of some xml file inside.
         return "OpenXML";
     }
+
+    /**
+     * Every file gets its own XML filter for the documents in the archive.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -104,4 +104,12 @@ public class PropertiesFilter extends XMLFilter {
     protected boolean requirePrevNextFields() {
         return true;
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link PropertiesDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -130,4 +130,12 @@ public class RelaxNGFilter extends XMLFilter {
             return false;
         }
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link RelaxNGDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
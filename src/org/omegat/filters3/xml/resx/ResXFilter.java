@@ -157,4 +157,12 @@ public class ResXFilter extends XMLFilter {
             return trans != null ? trans : entry;
         }
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link ResXDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -131,4 +131,12 @@ public class SchematronFilter extends XMLFilter {
         return true;
     }
     */
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link SchematronDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -98,4 +98,12 @@ public class ScribusFilter extends XMLFilter {
     public boolean isTargetEncodingVariable() {
         return true;
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link ScribusDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
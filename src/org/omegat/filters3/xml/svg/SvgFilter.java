@@ -86,4 +86,12 @@ public class SvgFilter extends XMLFilter {
     protected boolean requirePrevNextFields() {
         return true;
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link SvgDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
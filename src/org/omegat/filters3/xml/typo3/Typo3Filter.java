@@ -135,4 +135,11 @@ public class Typo3Filter extends XMLFilter {
         return true;
     }
 
+    /**
+     * Every instance gets its own SAX parser factory and {@link Typo3Dialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
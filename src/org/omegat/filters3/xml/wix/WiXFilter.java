@@ -103,4 +103,12 @@ public class WiXFilter extends XMLFilter {
             return trans != null ? trans : entry;
         }
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link WiXDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -126,4 +126,11 @@ public class WordpressFilter extends XMLFilter {
         return false;
     }
 
+    /**
+     * Every instance gets its own SAX parser factory and {@link WordpressDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
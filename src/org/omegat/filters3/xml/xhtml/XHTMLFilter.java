@@ -194,4 +194,12 @@ public class XHTMLFilter extends XMLFilter {
             return null;
         }
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link XHTMLDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
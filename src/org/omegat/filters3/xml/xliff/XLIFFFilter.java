@@ -353,4 +353,12 @@ public class XLIFFFilter extends XMLFilter {
     public boolean isEnabledInDefault() {
         return false;
     }
+
+    /**
+     * Every instance gets its own SAX parser factory and {@link XLIFFDialect}.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
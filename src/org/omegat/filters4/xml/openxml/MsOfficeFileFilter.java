@@ -293,4 +293,12 @@ public class MsOfficeFileFilter extends AbstractZipFilter {
         filter.setCallbacks(entryParseCallback, entryTranslateCallback);
         return filter;
     }
+
+    /**
+     * Every file gets its own StAX factories, see AbstractXmlFilter.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
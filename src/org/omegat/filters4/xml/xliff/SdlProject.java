@@ -76,4 +76,12 @@ public class SdlProject extends AbstractZipFilter {
         xmlfilter.setCallbacks(entryParseCallback, entryTranslateCallback);
         return xmlfilter;
     }
+
+    /**
+     * Every file gets its own StAX factories, see AbstractXmlFilter.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
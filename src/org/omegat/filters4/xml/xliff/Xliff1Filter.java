@@ -696,4 +696,11 @@ public class Xliff1Filter extends AbstractXliffFilter {
         return buf;
     }
 
+    /**
+     * Every file gets its own StAX factories, see AbstractXmlFilter; also used by SDLXLIFF.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
@@ -345,4 +345,11 @@ public class Xliff2Filter extends AbstractXliffFilter {
         flushedSegment = true;
     }
 
+    /**
+     * Every file gets its own StAX factories, see AbstractXmlFilter.
+     */
+    @Override
+    public boolean isParallelProcessingSupported() {
+        return true;
+    }
 }
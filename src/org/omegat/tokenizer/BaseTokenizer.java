@@ -31,9 +31,9 @@ import java.text.BreakIterator;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.standard.StandardTokenizer;
@@ -60,9 +60,16 @@ public abstract class BaseTokenizer implements ITokenizer {
     protected static final Token[] EMPTY_TOKENS_LIST = new Token[0];
     protected static final int DEFAULT_TOKENS_COUNT = 64;
 
-    private final Map<String, Token[]> tokenCacheNone = new ConcurrentHashMap<>(2500);
-    private final Map<String, Token[]> tokenCacheMatching = new ConcurrentHashMap<>(2500);
-    private final Map<String, Token[]> tokenCacheGlossary = new ConcurrentHashMap<>(2500);
+    private final Cache<String, Token[]> tokenCacheNone = TokenCache.create(true);
+    private final Cache<String, Token[]> tokenCacheMatching = TokenCache.create(true);
+    private final Cache<String, Token[]> tokenCacheGlossary = TokenCache.create(true);
+
+    /**
+     * Returns statistics of all token caches: hits, misses, evictions.
+     */
+    public CacheStats getCacheStats() {
+        return tokenCacheNone.stats().plus(tokenCacheMatching.stats()).plus(tokenCacheGlossary.stats());
+    }
 
     /**
      * Indicates that {@link #tokenizeVerbatim(String)} should use OmegaT's
@@ -79,7 +86,7 @@ public abstract class BaseTokenizer implements ITokenizer {
      */
     @Override
     public Token[] tokenizeWords(final String strOrig, final StemmingMode stemmingMode) {
-        Map<String, Token[]> cache;
+        Cache<String, Token[]> cache;
         switch (stemmingMode) {
         case NONE:
             cache = tokenCacheNone;
@@ -93,7 +100,7 @@ public abstract class BaseTokenizer implements ITokenizer {
         default:
             throw new RuntimeException("No cache for specified stemming mode");
         }
-        Token[] result = cache.get(strOrig);
+        Token[] result = cache.getIfPresent(strOrig);
         if (result != null) {
             return result;
         }
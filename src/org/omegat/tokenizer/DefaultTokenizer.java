@@ -32,11 +32,11 @@ import java.text.BreakIterator;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
+import com.github.benmanes.caffeine.cache.Cache;
+
 import org.omegat.core.CoreEvents;
 import org.omegat.core.events.IProjectEventListener;
 import org.omegat.util.PatternConsts;
@@ -60,9 +60,10 @@ public class DefaultTokenizer implements ITokenizer {
     /**
      * Contains a list of tokens for each *unique* string. By not storing a list
      * of tokens for every string, memory is saved. Token lists are not saved
-     * when all tokens are requested. Again to save memory.
+     * when all tokens are requested. Again to save memory. The cache is
+     * limited by the estimated memory of the token lists, in bytes.
      */
-    private static Map<String, Token[]> tokenCache = new HashMap<String, Token[]>(5000);
+    private static final Cache<String, Token[]> tokenCache = TokenCache.create(false);
 
     public static final Token[] EMPTY_TOKENS_LIST = new Token[0];
     public static final String[] EMPTY_STRINGS_LIST = new String[0];
@@ -71,9 +72,7 @@ public class DefaultTokenizer implements ITokenizer {
         CoreEvents.registerProjectChangeListener(eventType -> {
             if (eventType == IProjectEventListener.PROJECT_CHANGE_TYPE.CLOSE) {
                 // clear cache
-                synchronized (tokenCache) {
-                    tokenCache.clear();
-                }
+                tokenCache.invalidateAll();
             }
         });
     }
@@ -86,10 +85,7 @@ public class DefaultTokenizer implements ITokenizer {
             return EMPTY_TOKENS_LIST;
         }
 
-        Token[] result;
-        synchronized (tokenCache) {
-            result = tokenCache.get(strOrig);
-        }
+        Token[] result = tokenCache.getIfPresent(strOrig);
         if (result != null) {
             return result;
         }
@@ -97,9 +93,7 @@ public class DefaultTokenizer implements ITokenizer {
         result = tokenizeTextNoCache(strOrig, false);
 
         // put result in the cache
-        synchronized (tokenCache) {
-            tokenCache.put(strOrig, result);
-        }
+        tokenCache.put(strOrig, result);
         return result;
     }
 
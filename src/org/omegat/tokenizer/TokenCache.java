@@ -0,0 +1,77 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.tokenizer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.omegat.util.Token;
+
+/**
+ * Factory of the caches of tokenized strings used by the tokenizers. Caches
+ * live as long as the tokenizers, so they are limited by the estimated memory
+ * of cached strings and tokens instead of growing with the corpus.
+ */
+final class TokenCache {
+
+    /** Limit of the estimated memory of each cache: 1/32 of the maximal heap. */
+    static final long MAX_WEIGHT = Runtime.getRuntime().maxMemory() / 32;
+
+    /*
+     * Estimated sizes for a 64-bit JVM with compressed references: String is a
+     * 24-byte object with a 16-byte array header and up to 2 bytes per char;
+     * array is a 16-byte header and a 4-byte reference per element; Token is a
+     * 12-byte header with three ints.
+     */
+    private static final int STRING_SIZE = 24 + 16;
+    private static final int ARRAY_SIZE = 16;
+    private static final int TOKEN_SIZE = 4 + 12 + 3 * 4;
+
+    private TokenCache() {
+    }
+
+    /**
+     * Create a cache of tokens by string, limited by {@link #MAX_WEIGHT}.
+     *
+     * @param recordStats
+     *            true if cache should record hits, misses and evictions
+     */
+    static Cache<String, Token[]> create(boolean recordStats) {
+        Caffeine<String, Token[]> builder = Caffeine.newBuilder().maximumWeight(MAX_WEIGHT)
+                .weigher(TokenCache::weigh);
+        if (recordStats) {
+            builder.recordStats();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Estimated memory of cached string with its tokens, in bytes.
+     */
+    static int weigh(String str, Token[] tokens) {
+        return STRING_SIZE + 2 * str.length() + ARRAY_SIZE + TOKEN_SIZE * tokens.length;
+    }
+}
@@ -29,12 +29,20 @@ package org.omegat.util;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Utils for calculate used memory.
  *
- * Calculation of object size is not perfect. It doesn't support multiple links
- * to one object instance(object shares), memory alignments.
+ * Calculation of object size is not perfect. It doesn't support memory
+ * alignments, and {@link #calcObjectSize(Object)} doesn't support multiple
+ * links to one object instance(object shares).
  *
  * @author Alex Buloichik (alex73mail@gmail.com)
  */
@@ -170,6 +178,93 @@ public final class MemoryUtils {
         return result;
     }
 
+    /**
+     * Calculate memory usage for object and all objects it refers to. Unlike
+     * {@link #calcObjectSize(Object)}, every instance is counted once, so
+     * objects referred from many others, and cycles, are supported.
+     *
+     * @param obj
+     *            object
+     * @param countStringsByLinks
+     *            count strings for every link to them, i.e. how much memory
+     *            would be used if strings were not shared
+     * @return memory size, or -1 if size is unknown
+     */
+    public static long calcDeepSize(Object obj, boolean countStringsByLinks) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> queue = new ArrayDeque<>();
+        long result = 0;
+        try {
+            if (obj != null) {
+                queue.add(obj);
+                visited.add(obj);
+            }
+            while (!queue.isEmpty()) {
+                Object o = queue.poll();
+                Class<?> oc = o.getClass();
+                if (oc == String.class) {
+                    result += calcObjectSize(o);
+                } else if (oc.isArray()) {
+                    int length = Array.getLength(o);
+                    result += SZ_OBJFOOT + getSimpleTypeSize(oc.getComponentType()) * length;
+                    if (!oc.getComponentType().isPrimitive()) {
+                        for (int i = 0; i < length; i++) {
+                            result += calcLinked(Array.get(o, i), countStringsByLinks, visited, queue);
+                        }
+                    }
+                } else if (o instanceof Collection) {
+                    // fields of JDK classes are not accessible, so size of
+                    // collections is estimated by number of elements
+                    Collection<?> c = (Collection<?>) o;
+                    result += SZ_OBJFOOT + SZ_OBJLINK * c.size();
+                    for (Object v : c) {
+                        result += calcLinked(v, countStringsByLinks, visited, queue);
+                    }
+                } else if (o instanceof Map) {
+                    Map<?, ?> m = (Map<?, ?>) o;
+                    result += SZ_OBJFOOT + (SZ_OBJFOOT + 3 * SZ_OBJLINK) * m.size();
+                    for (Map.Entry<?, ?> en : m.entrySet()) {
+                        result += calcLinked(en.getKey(), countStringsByLinks, visited, queue);
+                        result += calcLinked(en.getValue(), countStringsByLinks, visited, queue);
+                    }
+                } else {
+                    result += SZ_OBJFOOT;
+                    for (Class<?> c = oc; c != null; c = c.getSuperclass()) {
+                        for (Field f : c.getDeclaredFields()) {
+                            if (Modifier.isStatic(f.getModifiers())) {
+                                continue;
+                            }
+                            Class<?> fc = f.getType();
+                            result += getSimpleTypeSize(fc);
+                            if (!fc.isPrimitive() && f.trySetAccessible()) {
+                                result += calcLinked(f.get(o), countStringsByLinks, visited, queue);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            result = -1;
+        }
+        return result;
+    }
+
+    /**
+     * Queue linked object if it wasn't seen yet. Returns size of the string
+     * which was already counted, if strings are counted by links.
+     */
+    private static long calcLinked(Object v, boolean countStringsByLinks, Set<Object> visited,
+            Deque<Object> queue) {
+        if (v == null) {
+            return 0;
+        }
+        if (visited.add(v)) {
+            queue.add(v);
+            return 0;
+        }
+        return countStringsByLinks && v.getClass() == String.class ? calcObjectSize(v) : 0;
+    }
+
     /**
      * Calculate memory usage for simple types.
      *
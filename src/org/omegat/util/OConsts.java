@@ -144,6 +144,21 @@ public final class OConsts {
     /** The name of the file with project match statistics. */
     public static final String STATS_MATCH_PER_FILE_FILENAME = "project_stats_match_per_file.txt";
 
+    /** The name of the file with similarities found by the last match statistics. */
+    public static final String STATS_MATCH_CACHE_FILENAME = "project_stats_match.cache";
+
+    /** The name of the file with inputs of target files created by the last compile. */
+    public static final String COMPILE_MANIFEST_FILENAME = "compile_manifest.bin";
+
+    /** The name of the file with parsed source files, for faster project reopening. */
+    public static final String SOURCE_CACHE_FILENAME = "source_cache.bin";
+
+    /** The name of the folder with memory-mapped copies of big external TMs. */
+    public static final String MAPPED_TM_DIR = "tm_cache";
+
+    /** The name of the file with translation changes not yet saved into project_save.tmx. */
+    public static final String TRANSLATION_JOURNAL_FILENAME = "project_save.journal";
+
     /** The name of the file with the last entry number for later reopening. */
     public static final String LAST_ENTRY_NUMBER = "last_entry.properties";
 
@@ -0,0 +1,453 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reads big TMX file by several threads.
+ * <p>
+ * The file is scanned for the start tags of the translation units, and the
+ * body is split into parts of about {@link #setPartSize part size} bytes by
+ * unit boundaries. Every part is parsed by a separate {@link TMXReader2} as a
+ * document of the file prolog (XML declaration, DOCTYPE and header), units of
+ * the part, and the end tags of the body.
+ * <p>
+ * Units are processed by the {@link UnitCallback} in the worker threads, so
+ * any heavy work with units, like segmentation, is done in parallel too.
+ * Results are passed to the consumer in the calling thread, in order of the
+ * units in the file, or in order of parsed parts if the caller doesn't need
+ * the order.
+ * <p>
+ * Compressed files, files in the encodings where markup is not in ASCII (like
+ * UTF-16), and small files are read by one thread.
+ */
+public class ParallelTMXReader {
+
+    /** Default size of part in bytes. */
+    public static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+
+    /** Max size of the prolog which is parsed with every part. */
+    private static final int MAX_PROLOG_SIZE = 16 * 1024 * 1024;
+
+    /** Number of parts parsed ahead of the consumer, per thread. */
+    private static final int PARTS_AHEAD_PER_THREAD = 2;
+
+    private static final byte[] BODY_END = "</body></tmx>".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Processes units in the worker threads. Called concurrently for units of
+     * different parts, so should not change shared state. Parsed TU and TUV are
+     * reused for the next units.
+     */
+    public interface UnitCallback<T> {
+        /**
+         * @param results
+         *            results of the unit should be added to this list
+         * @return false if the unit doesn't have source TUV
+         * @see TMXReader2.LoadCallback#onEntry
+         */
+        boolean onEntry(TMXReader2.ParsedTu tu, TMXReader2.ParsedTuv tuvSource,
+                TMXReader2.ParsedTuv tuvTarget, boolean isParagraphSegtype, List<T> results);
+    }
+
+    private final int threads;
+    private boolean ordered = true;
+    private long partSize = DEFAULT_PART_SIZE;
+
+    /**
+     * @param threads
+     *            number of worker threads; file is read in the calling thread
+     *            if it's less than 2
+     */
+    public ParallelTMXReader(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Pass results to the consumer in order of the units in the file (default),
+     * or as soon as part is parsed.
+     */
+    public ParallelTMXReader setOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Approximate size of the part in bytes. Files with less than 2 parts are
+     * read by one thread.
+     */
+    public ParallelTMXReader setPartSize(long partSize) {
+        this.partSize = partSize;
+        return this;
+    }
+
+    /**
+     * Read TMX file.
+     *
+     * @param callback
+     *            processes units, in the worker threads
+     * @param results
+     *            receives results of the callback, in the calling thread
+     */
+    public <T> void readTMX(File file, Language sourceLanguage, Language targetLanguage,
+            boolean isSegmentingEnabled, boolean extTmxLevel2, boolean useSlash, UnitCallback<T> callback,
+            Consumer<T> results) throws Exception {
+        Parts parts = threads > 1 ? split(file, partSize) : null;
+        if (parts == null || parts.starts.length < 2) {
+            List<T> unitResults = new ArrayList<>();
+            new TMXReader2().readTMX(file, sourceLanguage, targetLanguage, isSegmentingEnabled, false,
+                    extTmxLevel2, useSlash, (tu, tuvSource, tuvTarget, isParagraphSegtype) -> {
+                        unitResults.clear();
+                        boolean found = callback.onEntry(tu, tuvSource, tuvTarget, isParagraphSegtype,
+                                unitResults);
+                        unitResults.forEach(results);
+                        return found;
+                    });
+            return;
+        }
+
+        Log.logInfoRB("TMXR_INFO_READING_FILE", file.getAbsolutePath());
+        int partsCount = parts.starts.length;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, partsCount), r -> {
+            Thread t = new Thread(r, "TMX reader");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            CompletionService<PartResult<T>> completion = new ExecutorCompletionService<>(executor);
+            Deque<Future<PartResult<T>>> running = new ArrayDeque<>();
+            int next = 0;
+            int done = 0;
+            boolean allFound = true;
+            int errorsCount = 0;
+            int warningsCount = 0;
+            while (done < partsCount) {
+                // limit parts in memory when consumer waits for the earlier part
+                while (next < partsCount && running.size() < threads * PARTS_AHEAD_PER_THREAD) {
+                    int part = next++;
+                    Callable<PartResult<T>> task = () -> readPart(file, parts, part, sourceLanguage, targetLanguage,
+                            isSegmentingEnabled, extTmxLevel2, useSlash, callback);
+                    // completion queue is not used for ordered reading
+                    running.add(ordered ? executor.submit(task) : completion.submit(task));
+                }
+                Future<PartResult<T>> future = ordered ? running.poll() : completion.take();
+                if (!ordered) {
+                    running.remove(future);
+                }
+                PartResult<T> result = getResult(future, file);
+                result.results.forEach(results);
+                allFound &= result.allFound;
+                errorsCount += result.errorsCount;
+                warningsCount += result.warningsCount;
+                done++;
+            }
+            TMXReader2.logComplete(allFound, errorsCount, warningsCount);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads one part. Every part opens its own channel: a channel is closed
+     * when a thread reading it is interrupted, which must not break reading
+     * of other parts.
+     */
+    private static <T> PartResult<T> readPart(File file, Parts parts, int part, Language sourceLanguage,
+            Language targetLanguage, boolean isSegmentingEnabled, boolean extTmxLevel2, boolean useSlash,
+            UnitCallback<T> callback) throws Exception {
+        long start = parts.starts[part];
+        long end = part + 1 < parts.starts.length ? parts.starts[part + 1] : parts.end;
+        PartResult<T> result = new PartResult<>();
+        TMXReader2 reader = new TMXReader2();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            InputStream in = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                    new ByteArrayInputStream(parts.prolog), new RangeInputStream(channel, start, end),
+                    new ByteArrayInputStream(BODY_END))));
+            InputStream buffered = new BufferedInputStream(in, 64 * 1024);
+            result.allFound = reader.readPart(buffered, file, sourceLanguage, targetLanguage, isSegmentingEnabled,
+                    extTmxLevel2, useSlash, part == 0, (tu, tuvSource, tuvTarget, isParagraphSegtype) -> callback
+                            .onEntry(tu, tuvSource, tuvTarget, isParagraphSegtype, result.results));
+        }
+        result.errorsCount = reader.errorsCount;
+        result.warningsCount = reader.warningsCount;
+        return result;
+    }
+
+    /**
+     * Returns result of part, with exceptions thrown as they were thrown in
+     * the worker thread.
+     */
+    private static <T> PartResult<T> getResult(Future<PartResult<T>> future, File file) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(file.getPath());
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Finds parts of the file.
+     *
+     * @return parts, or null if the file can't be split
+     */
+    static Parts split(File file, long partSize) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ENGLISH);
+        if (name.endsWith(".gz") || name.endsWith(".zip") || file.length() < 2 * partSize) {
+            return null;
+        }
+        Charset charset;
+        try {
+            charset = Charset.forName(TMXReader2.detectCharset(file));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        // markup should be the same bytes as in ASCII
+        String markup = "<tu></body>";
+        if (!Arrays.equals(markup.getBytes(charset), markup.getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        Parts parts;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            parts = new Scanner(in).scan(partSize);
+        }
+        if (parts != null) {
+            parts.prolog = new byte[(int) parts.starts[0]];
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                IOUtils.readFully(in, parts.prolog);
+            }
+        }
+        return parts;
+    }
+
+    /** Parts of the file. */
+    static final class Parts {
+        /** Bytes before the first unit. */
+        byte[] prolog;
+        /** Positions of the first unit of every part. */
+        long[] starts;
+        /** Position of the body end tag. */
+        long end;
+    }
+
+    private static final class PartResult<T> {
+        final List<T> results = new ArrayList<>();
+        boolean allFound;
+        int errorsCount;
+        int warningsCount;
+    }
+
+    /**
+     * Finds start tags of units in the body, skipping comments, CDATA
+     * sections and processing instructions, which can contain anything.
+     */
+    private static final class Scanner {
+        private final InputStream in;
+        private final byte[] buf = new byte[64 * 1024];
+        private int pos;
+        private int limit;
+        /** Position of the buffer start in the file. */
+        private long offset;
+
+        Scanner(InputStream in) {
+            this.in = in;
+        }
+
+        Parts scan(long partSize) throws IOException {
+            boolean inBody = false;
+            List<Long> starts = new ArrayList<>();
+            long lastStart = 0;
+            while (ensure(1)) {
+                if (buf[pos] != '<') {
+                    pos++;
+                    continue;
+                }
+                ensure(9);
+                if (startsWith("<!--")) {
+                    skipPast("-->");
+                } else if (startsWith("<![CDATA[")) {
+                    skipPast("]]>");
+                } else if (startsWith("<?")) {
+                    skipPast("?>");
+                } else if (!inBody && isTag("<body")) {
+                    inBody = true;
+                    pos++;
+                } else if (inBody && isTag("<tu")) {
+                    long position = offset + pos;
+                    if (starts.isEmpty()) {
+                        if (position > MAX_PROLOG_SIZE) {
+                            return null;
+                        }
+                        starts.add(position);
+                        lastStart = position;
+                    } else if (position - lastStart >= partSize) {
+                        starts.add(position);
+                        lastStart = position;
+                    }
+                    pos++;
+                } else if (inBody && isTag("</body")) {
+                    if (starts.isEmpty()) {
+                        return null;
+                    }
+                    Parts parts = new Parts();
+                    parts.end = offset + pos;
+                    parts.starts = starts.stream().mapToLong(Long::longValue).toArray();
+                    return parts;
+                } else {
+                    pos++;
+                }
+            }
+            return null;
+        }
+
+        private boolean startsWith(String s) {
+            if (limit - pos < s.length()) {
+                return false;
+            }
+            for (int i = 0; i < s.length(); i++) {
+                if (buf[pos + i] != s.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Checks for the tag name followed by space, '>' or '/'. */
+        private boolean isTag(String s) {
+            if (!startsWith(s) || limit - pos <= s.length()) {
+                return false;
+            }
+            byte c = buf[pos + s.length()];
+            return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '>' || c == '/';
+        }
+
+        private void skipPast(String end) throws IOException {
+            pos += 2;
+            while (ensure(end.length())) {
+                if (startsWith(end)) {
+                    pos += end.length();
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        /**
+         * Reads more data when less than count bytes are available.
+         *
+         * @return false if there is no more data
+         */
+        private boolean ensure(int count) throws IOException {
+            if (limit - pos >= count) {
+                return true;
+            }
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            offset += pos;
+            limit -= pos;
+            pos = 0;
+            while (limit < count) {
+                int len = in.read(buf, limit, buf.length - limit);
+                if (len < 0) {
+                    return limit > 0;
+                }
+                limit += len;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads range of the file by positional reads.
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (count < 0) {
+                return -1;
+            }
+            position += count;
+            return count;
+        }
+    }
+}
@@ -360,6 +360,72 @@ public final class Preferences {
     public static final String EXT_TMX_KEEP_FOREIGN_MATCH = "keep_foreign_matches";
     /** External TMX options: Fuzzy Threshold **/
     public static final String EXT_TMX_FUZZY_MATCH_THRESHOLD = "ext_tmx_fuzzy_match_threshold";
+    /**
+     * External TMX options: minimal file size in megabytes of TMX which is kept
+     * in a memory-mapped file instead of the heap. 0 keeps all TMX on the heap.
+     */
+    public static final String EXT_TMX_MAPPED_MIN_SIZE = "ext_tmx_mapped_min_size";
+    /**
+     * Fuzzy matches: compare every entry of the project and TMs instead of
+     * only the candidates found by the fuzzy match index. Slow, kept for
+     * comparison and troubleshooting.
+     */
+    public static final String FUZZY_MATCH_EXHAUSTIVE_SCAN = "fuzzy_match_exhaustive_scan";
+
+    /**
+     * Fuzzy matches: split the search for the matches pane between all
+     * available processors. Enabled by default.
+     */
+    public static final String FUZZY_MATCH_PARALLEL_SEARCH = "fuzzy_match_parallel_search";
+
+    /**
+     * Fuzzy matches: memory for tokenized texts of the project and TMs, in
+     * megabytes. A tenth of the maximal heap size is used when not set.
+     */
+    public static final String TOKEN_CACHE_SIZE = "token_cache_size";
+
+    /**
+     * Number of threads which parse source files on project load. All
+     * available processors are used when not set; 1 loads files one by one.
+     */
+    public static final String PROJECT_LOAD_THREADS = "project_load_threads";
+
+    /**
+     * Number of threads which load translation memories on project load. Up to
+     * 4 threads are used when not set; 1 loads memories one by one.
+     */
+    public static final String PROJECT_TM_LOAD_THREADS = "project_tm_load_threads";
+
+    /**
+     * Project load keeps parsed source files in the project's internal folder
+     * and doesn't parse unchanged files again. Enabled by default.
+     */
+    public static final String PROJECT_SOURCE_CACHE = "project_source_cache";
+
+    /**
+     * Log memory used by segments after project load. Takes time for big
+     * projects, so disabled by default.
+     */
+    public static final String PROJECT_MEMORY_REPORT = "project_memory_report";
+
+    /**
+     * Maximal size in megabytes of the journal of translation changes. Autosave
+     * appends changes to the journal until this size, and rewrites
+     * project_save.tmx after that. 0 rewrites project_save.tmx on every save.
+     */
+    public static final String PROJECT_JOURNAL_MAX_SIZE = "project_journal_max_size";
+
+    /**
+     * Number of threads which create target files on project compile. All
+     * available processors are used when not set; 1 creates files one by one.
+     */
+    public static final String PROJECT_COMPILE_THREADS = "project_compile_threads";
+
+    /**
+     * Compile re-creates only target files whose source, translations or
+     * settings changed since the last compile. Enabled by default.
+     */
+    public static final String PROJECT_COMPILE_INCREMENTAL = "project_compile_incremental";
 
     /** View options: Show all sources in bold */
     public static final String VIEW_OPTION_SOURCE_ALL_BOLD = "view_option_source_all_bold";
@@ -0,0 +1,428 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Hash map which returns unchangeable snapshot of its content in constant
+ * time. Does NOT allow null keys/values.
+ * <p>
+ * Content is kept in the hash array mapped trie, which is never changed: every
+ * change creates new nodes on the path to the changed entry, and shares all
+ * other nodes with the previous content. So the snapshot is just the root of
+ * the trie, and readers never lock: {@link #get} and {@link #snapshot()} don't
+ * wait for writers, and writers don't wait for iterations over the snapshots.
+ * <p>
+ * Changes are synchronized on the map. Iteration over the map itself, i.e. by
+ * {@link #entrySet()}, {@link #keySet()} or {@link #values()}, iterates over
+ * the snapshot made at the start of the iteration, and the iterator doesn't
+ * support removal.
+ *
+ * @param <K>
+ *            type of keys
+ * @param <V>
+ *            type of values
+ */
+public class SnapshotMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    /** Max depth of the trie: levels by 5 bits of hash, and the level of collisions. */
+    private static final int MAX_DEPTH = 32 / BITS + 2;
+
+    private static final Root EMPTY = new Root(new BitmapNode(0, new Object[0]), 0);
+
+    private volatile Root root = EMPTY;
+
+    /**
+     * Returns unchangeable map with the current content.
+     */
+    public Map<K, V> snapshot() {
+        return new Snapshot<>(root);
+    }
+
+    @Override
+    public V get(Object key) {
+        return get(root, key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(root, key) != null;
+    }
+
+    @Override
+    public int size() {
+        return root.size;
+    }
+
+    @Override
+    public synchronized V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Root r = root;
+        Change change = new Change();
+        Node node = r.node.put(0, hash(key), key, value, change);
+        if (node != r.node) {
+            root = new Root(node, change.oldValue == null ? r.size + 1 : r.size);
+        }
+        return cast(change.oldValue);
+    }
+
+    @Override
+    public synchronized V remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        Root r = root;
+        Change change = new Change();
+        Node node = r.node.remove(0, hash(key), key, change);
+        if (node != r.node) {
+            root = node == null ? EMPTY : new Root(node, r.size - 1);
+        }
+        return cast(change.oldValue);
+    }
+
+    @Override
+    public synchronized void clear() {
+        root = EMPTY;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return snapshot().entrySet();
+    }
+
+    private static <V> V get(Root root, Object key) {
+        if (key == null) {
+            return null;
+        }
+        return cast(root.node.get(0, hash(key), key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object o) {
+        return (T) o;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Root {
+        final Node node;
+        final int size;
+
+        Root(Node node, int size) {
+            this.node = node;
+            this.size = size;
+        }
+    }
+
+    /** Result of the change. */
+    private static final class Change {
+        Object oldValue;
+    }
+
+    /**
+     * Node of the trie. Array contains pairs of key and value, or null and the
+     * child node.
+     */
+    private abstract static class Node {
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        abstract Object get(int shift, int hash, Object key);
+
+        /** Returns the node with the entry, or this if nothing changed. */
+        abstract Node put(int shift, int hash, Object key, Object value, Change change);
+
+        /** Returns the node without the entry, null if empty, or this if nothing changed. */
+        abstract Node remove(int shift, int hash, Object key, Change change);
+    }
+
+    private static final class BitmapNode extends Node {
+        final int bitmap;
+
+        BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        Object get(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k = array[i];
+            if (k == null) {
+                return ((Node) array[i + 1]).get(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? array[i + 1] : null;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, Change change) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] a = new Object[array.length + 2];
+                System.arraycopy(array, 0, a, 0, i);
+                a[i] = key;
+                a[i + 1] = value;
+                System.arraycopy(array, i, a, i + 2, array.length - i);
+                return new BitmapNode(bitmap | bit, a);
+            }
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).put(shift + BITS, hash, key, value, change);
+                return child == v ? this : new BitmapNode(bitmap, set(array, i, null, child));
+            }
+            if (key.equals(k)) {
+                change.oldValue = v;
+                return v == value ? this : new BitmapNode(bitmap, set(array, i, k, value));
+            }
+            Node child = createNode(shift + BITS, k, v, hash, key, value);
+            return new BitmapNode(bitmap, set(array, i, null, child));
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key, Change change) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).remove(shift + BITS, hash, key, change);
+                if (child == v) {
+                    return this;
+                }
+                if (child == null) {
+                    return without(bit, i);
+                }
+                if (child.array.length == 2 && child.array[0] != null) {
+                    // single entry is kept in this node
+                    return new BitmapNode(bitmap, set(array, i, child.array[0], child.array[1]));
+                }
+                return new BitmapNode(bitmap, set(array, i, null, child));
+            }
+            if (key.equals(k)) {
+                change.oldValue = v;
+                return without(bit, i);
+            }
+            return this;
+        }
+
+        private Node without(int bit, int i) {
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] a = new Object[array.length - 2];
+            System.arraycopy(array, 0, a, 0, i);
+            System.arraycopy(array, i + 2, a, i, a.length - i);
+            return new BitmapNode(bitmap ^ bit, a);
+        }
+
+        private static Node createNode(int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+            int h1 = hash(k1);
+            if (h1 == h2) {
+                return new CollisionNode(h1, new Object[] { k1, v1, k2, v2 });
+            }
+            Change change = new Change();
+            return new BitmapNode(0, new Object[0]).put(shift, h1, k1, v1, change).put(shift, h2, k2, v2,
+                    change);
+        }
+    }
+
+    /** Entries with the same hash. */
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        @Override
+        Object get(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, Change change) {
+            if (hash != this.hash) {
+                Object[] a = { null, this };
+                return new BitmapNode(1 << ((this.hash >>> shift) & MASK), a).put(shift, hash, key, value,
+                        change);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                change.oldValue = array[i + 1];
+                return array[i + 1] == value ? this : new CollisionNode(hash, set(array, i, key, value));
+            }
+            Object[] a = new Object[array.length + 2];
+            System.arraycopy(array, 0, a, 0, array.length);
+            a[array.length] = key;
+            a[array.length + 1] = value;
+            return new CollisionNode(hash, a);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key, Change change) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            change.oldValue = array[i + 1];
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] a = new Object[array.length - 2];
+            System.arraycopy(array, 0, a, 0, i);
+            System.arraycopy(array, i + 2, a, i, a.length - i);
+            return new CollisionNode(this.hash, a);
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static Object[] set(Object[] array, int i, Object key, Object value) {
+        Object[] a = array.clone();
+        a[i] = key;
+        a[i + 1] = value;
+        return a;
+    }
+
+    private static final class Snapshot<K, V> extends AbstractMap<K, V> {
+        private final Root root;
+
+        Snapshot(Root root) {
+            this.root = root;
+        }
+
+        @Override
+        public V get(Object key) {
+            return SnapshotMap.get(root, key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return SnapshotMap.get(root, key) != null;
+        }
+
+        @Override
+        public int size() {
+            return root.size;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root.node);
+                }
+
+                @Override
+                public int size() {
+                    return root.size;
+                }
+            };
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth;
+        private Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            arrays[0] = root.array;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                Object[] a = arrays[depth];
+                int p = positions[depth];
+                if (p >= a.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth] = p + 2;
+                if (a[p] != null) {
+                    next = new SimpleImmutableEntry<>(cast(a[p]), cast(a[p + 1]));
+                    return;
+                }
+                depth++;
+                arrays[depth] = ((Node) a[p + 1]).array;
+                positions[depth] = 0;
+            }
+            next = null;
+        }
+    }
+}
@@ -35,28 +35,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipInputStream;
 
-import javax.xml.namespace.QName;
 import javax.xml.stream.Location;
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLReporter;
 import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.Characters;
-import javax.xml.stream.events.EndElement;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.io.input.XmlStreamReader;
 import org.slf4j.Logger;
@@ -66,6 +58,10 @@ import org.xml.sax.InputSource;
 
 /**
  * Helper for read TMX files, using StAX.
+ * <p>
+ * TMX files can be huge, so the reader uses the cursor API, which doesn't
+ * create objects for every XML node, and reuses buffers and parsed TU/TUV
+ * instances between units.
  *
  * @author Alex Buloichik (alex73mail@gmail.com)
  * @see <a href="http://www.ttt.org/oscarStandards/tmx/tmx14b.html">TMX 1.4b
@@ -83,7 +79,7 @@ public class TMXReader2 {
     /** Creation Tool attribute value of OmegaT TMXs: "OmegaT" */
     public static final String CT_OMEGAT = "OmegaT";
 
-    private XMLEventReader xml;
+    private XMLStreamReader xml;
 
     private boolean isParagraphSegtype = true;
     private boolean isOmegaT = false;
@@ -91,7 +87,9 @@ public class TMXReader2 {
     private boolean useSlash;
     private boolean isSegmentingEnabled;
 
-    private int errorsCount, warningsCount;
+    private boolean logHeader = true;
+
+    int errorsCount, warningsCount;
 
     ParsedTu currentTu = new ParsedTu();
 
@@ -101,6 +99,7 @@ public class TMXReader2 {
     StringBuilder segContent = new StringBuilder();
     StringBuilder segInlineTag = new StringBuilder();
     InlineTagHandler inlineTagHandler = new InlineTagHandler();
+    private final SegTokens segTokens = new SegTokens();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TMXReader2.class);
 
@@ -154,20 +153,46 @@ public class TMXReader2 {
         boolean allFound = true;
 
         try (InputStream in = getInputStream(file)) {
-            xml = factory.createXMLEventReader(in);
+            allFound = readUnits(in, file, sourceLanguage, targetLanguage, callback);
+        } catch (IOException ignored) {
+        }
+
+        logComplete(allFound, errorsCount, warningsCount);
+    }
+
+    /**
+     * Read part of TMX file, i.e. prolog of the file with some units. Used by
+     * {@link ParallelTMXReader}, which logs reading of the whole file.
+     *
+     * @return false if source TUV was not found for some units
+     */
+    boolean readPart(InputStream in, File file, Language sourceLanguage, Language targetLanguage,
+            boolean isSegmentingEnabled, boolean extTmxLevel2, boolean useSlash, boolean logHeader,
+            LoadCallback callback) throws Exception {
+        this.extTmxLevel2 = extTmxLevel2;
+        this.useSlash = useSlash;
+        this.isSegmentingEnabled = isSegmentingEnabled;
+        this.logHeader = logHeader;
+        return readUnits(in, file, sourceLanguage, targetLanguage, callback);
+    }
+
+    private boolean readUnits(InputStream in, File file, Language sourceLanguage, Language targetLanguage,
+            LoadCallback callback) throws Exception {
+        boolean allFound = true;
+        try {
+            xml = factory.createXMLStreamReader(in);
             while (xml.hasNext()) {
-                XMLEvent e = xml.nextEvent();
-                switch (e.getEventType()) {
-                case XMLEvent.START_ELEMENT:
-                    StartElement eStart = (StartElement) e;
-                    if ("tu".equals(eStart.getName().getLocalPart())) {
-                        parseTu(eStart);
+                switch (xml.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String name = xml.getLocalName();
+                    if ("tu".equals(name)) {
+                        parseTu();
                         ParsedTuv origTuv = getTuvByLang(sourceLanguage);
                         ParsedTuv targetTuv = getTuvByLang(targetLanguage);
                         allFound = callback.onEntry(currentTu, origTuv, targetTuv, isParagraphSegtype)
                                 && allFound;
-                    } else if ("header".equals(eStart.getName().getLocalPart())) {
-                        parseHeader(eStart, sourceLanguage);
+                    } else if ("header".equals(name)) {
+                        parseHeader(sourceLanguage);
                     }
                     break;
                 }
@@ -175,13 +200,15 @@ public class TMXReader2 {
         } catch (XMLStreamException ex) {
             Log.logErrorRB(ex, "TMXR_ERROR_XML_STREAM_ERROR", file.getAbsolutePath());
             throw ex;
-        } catch (IOException ignored) {
         } finally {
             if (xml != null) {
                 xml.close();
             }
         }
+        return allFound;
+    }
 
+    static void logComplete(boolean allFound, int errorsCount, int warningsCount) {
         if (!allFound) {
             Log.logWarningRB("TMXR_WARNING_SOURCE_NOT_FOUND");
             warningsCount++;
@@ -208,19 +235,23 @@ public class TMXReader2 {
         }
     }
 
-    protected void parseHeader(StartElement element, final Language sourceLanguage) {
-        isParagraphSegtype = SEG_PARAGRAPH.equals(getAttributeValue(element, "segtype"));
-        isOmegaT = CT_OMEGAT.equals(getAttributeValue(element, "creationtool"));
+    protected void parseHeader(final Language sourceLanguage) {
+        isParagraphSegtype = SEG_PARAGRAPH.equals(getAttributeValue("segtype"));
+        isOmegaT = CT_OMEGAT.equals(getAttributeValue("creationtool"));
+
+        if (!logHeader) {
+            return;
+        }
 
         // log some details
-        Log.logInfoRB("TMXR_INFO_CREATION_TOOL", getAttributeValue(element, "creationtool"));
-        Log.logInfoRB("TMXR_INFO_CREATION_TOOL_VERSION", getAttributeValue(element, "creationtoolversion"));
-        Log.logInfoRB("TMXR_INFO_SEG_TYPE", getAttributeValue(element, "segtype"));
-        Log.logInfoRB("TMXR_INFO_SOURCE_LANG", getAttributeValue(element, "srclang"));
+        Log.logInfoRB("TMXR_INFO_CREATION_TOOL", getAttributeValue("creationtool"));
+        Log.logInfoRB("TMXR_INFO_CREATION_TOOL_VERSION", getAttributeValue("creationtoolversion"));
+        Log.logInfoRB("TMXR_INFO_SEG_TYPE", getAttributeValue("segtype"));
+        Log.logInfoRB("TMXR_INFO_SOURCE_LANG", getAttributeValue("srclang"));
 
         // give a warning if the TMX source language is
         // different from the project source language
-        String tmxSourceLanguage = getAttributeValue(element, "srclang");
+        String tmxSourceLanguage = getAttributeValue("srclang");
         if (!sourceLanguage.getLanguage().equalsIgnoreCase(tmxSourceLanguage)) {
             Log.logWarningRB("TMXR_WARNING_INCORRECT_SOURCE_LANG", tmxSourceLanguage, sourceLanguage);
         }
@@ -232,35 +263,33 @@ public class TMXReader2 {
         }
     }
 
-    protected void parseTu(StartElement element) throws Exception {
+    protected void parseTu() throws Exception {
         currentTu.clear();
 
-        currentTu.changeid = getAttributeValue(element, "changeid");
-        currentTu.changedate = parseISO8601date(getAttributeValue(element, "changedate"));
-        currentTu.creationid = getAttributeValue(element, "creationid");
-        currentTu.creationdate = parseISO8601date(getAttributeValue(element, "creationdate"));
+        currentTu.changeid = getAttributeValue("changeid");
+        currentTu.changedate = parseISO8601date(getAttributeValue("changedate"));
+        currentTu.creationid = getAttributeValue("creationid");
+        currentTu.creationdate = parseISO8601date(getAttributeValue("creationdate"));
 
-        String tuid = getAttributeValue(element, "tuid");
+        String tuid = getAttributeValue("tuid");
         if (tuid != null) {
-            currentTu.props.add(new TMXProp("tuid", getAttributeValue(element, "tuid")));
+            currentTu.props.add(new TMXProp("tuid", tuid));
         }
 
         while (true) {
-            XMLEvent e = xml.nextEvent();
-            switch (e.getEventType()) {
-            case XMLEvent.START_ELEMENT:
-                StartElement eStart = (StartElement) e;
-                if ("tuv".equals(eStart.getName().getLocalPart())) {
-                    parseTuv(eStart);
-                } else if ("prop".equals(eStart.getName().getLocalPart())) {
-                    parseProp(eStart);
-                } else if ("note".equals(eStart.getName().getLocalPart())) {
-                    parseNote(eStart);
+            switch (xml.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                String name = xml.getLocalName();
+                if ("tuv".equals(name)) {
+                    parseTuv();
+                } else if ("prop".equals(name)) {
+                    parseProp();
+                } else if ("note".equals(name)) {
+                    parseNote();
                 }
                 break;
-            case XMLEvent.END_ELEMENT:
-                EndElement eEnd = (EndElement) e;
-                if ("tu".equals(eEnd.getName().getLocalPart())) {
+            case XMLStreamConstants.END_ELEMENT:
+                if ("tu".equals(xml.getLocalName())) {
                     return;
                 }
                 break;
@@ -268,30 +297,27 @@ public class TMXReader2 {
         }
     }
 
-    protected void parseTuv(StartElement element) throws Exception {
-        ParsedTuv tuv = new ParsedTuv();
-        currentTu.tuvs.add(tuv);
+    protected void parseTuv() throws Exception {
+        ParsedTuv tuv = currentTu.nextTuv();
 
-        tuv.changeid = getAttributeValue(element, "changeid");
-        tuv.changedate = parseISO8601date(getAttributeValue(element, "changedate"));
-        tuv.creationid = getAttributeValue(element, "creationid");
-        tuv.creationdate = parseISO8601date(getAttributeValue(element, "creationdate"));
+        tuv.changeid = getAttributeValue("changeid");
+        tuv.changedate = parseISO8601date(getAttributeValue("changedate"));
+        tuv.creationid = getAttributeValue("creationid");
+        tuv.creationdate = parseISO8601date(getAttributeValue("creationdate"));
 
         // find 'lang' or 'xml:lang' attribute
-        for (Iterator<?> it = element.getAttributes(); it.hasNext();) {
-            Attribute a = (Attribute) it.next();
-            if ("lang".equals(a.getName().getLocalPart()) || "xml:lang".equals(a.getName().getLocalPart())) {
-                tuv.lang = a.getValue();
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            String name = xml.getAttributeLocalName(i);
+            if ("lang".equals(name) || "xml:lang".equals(name)) {
+                tuv.lang = xml.getAttributeValue(i);
                 break;
             }
         }
 
         while (true) {
-            XMLEvent e = xml.nextEvent();
-            switch (e.getEventType()) {
-            case XMLEvent.START_ELEMENT:
-                StartElement eStart = (StartElement) e;
-                if ("seg".equals(eStart.getName().getLocalPart())) {
+            switch (xml.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                if ("seg".equals(xml.getLocalName())) {
                     if (isOmegaT) {
                         parseSegOmegaT();
                     } else if (extTmxLevel2) {
@@ -302,9 +328,8 @@ public class TMXReader2 {
                     tuv.text = StringUtil.normalizeUnicode(segContent);
                 }
                 break;
-            case XMLEvent.END_ELEMENT:
-                EndElement eEnd = (EndElement) e;
-                if ("tuv".equals(eEnd.getName().getLocalPart())) {
+            case XMLStreamConstants.END_ELEMENT:
+                if ("tuv".equals(xml.getLocalName())) {
                     return;
                 }
                 break;
@@ -312,44 +337,38 @@ public class TMXReader2 {
         }
     }
 
-    protected void parseNote(StartElement element) throws Exception {
+    protected void parseNote() throws Exception {
         noteContent.setLength(0);
 
         while (true) {
-            XMLEvent e = xml.nextEvent();
-            switch (e.getEventType()) {
-            case XMLEvent.END_ELEMENT:
-                EndElement eEnd = (EndElement) e;
-                if ("note".equals(eEnd.getName().getLocalPart())) {
+            switch (xml.next()) {
+            case XMLStreamConstants.END_ELEMENT:
+                if ("note".equals(xml.getLocalName())) {
                     currentTu.note = noteContent.toString();
                     return;
                 }
                 break;
-            case XMLEvent.CHARACTERS:
-                Characters c = (Characters) e;
-                noteContent.append(c.getData());
+            case XMLStreamConstants.CHARACTERS:
+                appendText(noteContent);
                 break;
             }
         }
     }
 
-    protected void parseProp(StartElement element) throws Exception {
-        String propType = getAttributeValue(element, "type");
+    protected void parseProp() throws Exception {
+        String propType = getAttributeValue("type");
         propContent.setLength(0);
 
         while (true) {
-            XMLEvent e = xml.nextEvent();
-            switch (e.getEventType()) {
-            case XMLEvent.END_ELEMENT:
-                EndElement eEnd = (EndElement) e;
-                if ("prop".equals(eEnd.getName().getLocalPart())) {
+            switch (xml.next()) {
+            case XMLStreamConstants.END_ELEMENT:
+                if ("prop".equals(xml.getLocalName())) {
                     currentTu.props.add(new TMXProp(propType, propContent.toString()));
                     return;
                 }
                 break;
-            case XMLEvent.CHARACTERS:
-                Characters c = (Characters) e;
-                propContent.append(c.getData());
+            case XMLStreamConstants.CHARACTERS:
+                appendText(propContent);
                 break;
             }
         }
@@ -362,17 +381,14 @@ public class TMXReader2 {
         segContent.setLength(0);
 
         while (true) {
-            XMLEvent e = xml.nextEvent();
-            switch (e.getEventType()) {
-            case XMLEvent.END_ELEMENT:
-                EndElement eEnd = (EndElement) e;
-                if ("seg".equals(eEnd.getName().getLocalPart())) {
+            switch (xml.next()) {
+            case XMLStreamConstants.END_ELEMENT:
+                if ("seg".equals(xml.getLocalName())) {
                     return;
                 }
                 break;
-            case XMLEvent.CHARACTERS:
-                Characters c = (Characters) e;
-                segContent.append(c.getData());
+            case XMLStreamConstants.CHARACTERS:
+                appendText(segContent);
                 break;
             }
         }
@@ -387,22 +403,19 @@ public class TMXReader2 {
         int inlineLevel = 0;
 
         while (true) {
-            XMLEvent e = xml.nextEvent();
-            switch (e.getEventType()) {
-            case XMLEvent.START_ELEMENT:
+            switch (xml.next()) {
+            case XMLStreamConstants.START_ELEMENT:
                 inlineLevel++;
                 break;
-            case XMLEvent.END_ELEMENT:
+            case XMLStreamConstants.END_ELEMENT:
                 inlineLevel--;
-                EndElement eEnd = (EndElement) e;
-                if ("seg".equals(eEnd.getName().getLocalPart())) {
+                if ("seg".equals(xml.getLocalName())) {
                     return;
                 }
                 break;
-            case XMLEvent.CHARACTERS:
+            case XMLStreamConstants.CHARACTERS:
                 if (inlineLevel == 0) {
-                    Characters c = (Characters) e;
-                    segContent.append(c.getData());
+                    appendText(segContent);
                 }
                 break;
             }
@@ -423,36 +436,49 @@ public class TMXReader2 {
         // then subtracting it from all tag numbers.
 
         int minSeenTag = Integer.MAX_VALUE;
-        Deque<XMLEvent> buf = new ArrayDeque<XMLEvent>();
+        segTokens.clear();
 
         outer: while (true) {
-            XMLEvent e = xml.nextEvent();
-            buf.add(e);
-            switch (e.getEventType()) {
-            case XMLEvent.END_ELEMENT:
-                EndElement evEnd = (EndElement) e;
-                if ("seg".equals(evEnd.getName().getLocalPart())) {
+            int type = xml.next();
+            switch (type) {
+            case XMLStreamConstants.END_ELEMENT:
+                SegToken end = segTokens.add(type, xml.getLocalName());
+                Location location = xml.getLocation();
+                end.line = location.getLineNumber();
+                end.column = location.getColumnNumber();
+                if ("seg".equals(end.name)) {
                     break outer;
                 }
                 break;
-            case XMLEvent.START_ELEMENT:
-                StartElement eStart = e.asStartElement();
-                switch (eStart.getName().getLocalPart()) {
+            case XMLStreamConstants.START_ELEMENT:
+                SegToken start = segTokens.add(type, xml.getLocalName());
+                switch (start.name) {
                 case "bpt":
                 case "it":
                 case "ph":
-                    String x = getAttributeValue(eStart, "x");
-                    if (x != null) {
+                    start.x = getAttributeValue("x");
+                    start.type = getAttributeValue("type");
+                    start.i = getAttributeValue("i");
+                    start.pos = getAttributeValue("pos");
+                    if (start.x != null) {
                         try {
-                            int xVal = Integer.parseInt(x);
+                            int xVal = Integer.parseInt(start.x);
                             minSeenTag = Math.min(minSeenTag, xVal);
                         } catch (NumberFormatException ex) {
                             // Ignore
                         }
                     }
                     break;
+                case "ept":
+                    start.i = getAttributeValue("i");
+                    break;
                 }
                 break;
+            case XMLStreamConstants.CHARACTERS:
+                SegToken text = segTokens.add(type, null);
+                appendText(segTokens.text);
+                text.textEnd = segTokens.text.length();
+                break;
             }
         }
 
@@ -461,62 +487,57 @@ public class TMXReader2 {
         }
 
         int inlineLevel = 0;
-        while (true) {
-            XMLEvent e = buf.pop();
-            switch (e.getEventType()) {
-            case XMLEvent.START_ELEMENT:
-                StartElement eStart = e.asStartElement();
-                if ("hi".equals(eStart.getName().getLocalPart())) {
+        for (int t = 0; t < segTokens.size; t++) {
+            SegToken e = segTokens.tokens.get(t);
+            switch (e.eventType) {
+            case XMLStreamConstants.START_ELEMENT:
+                if ("hi".equals(e.name)) {
                     // tag should be skipped
                     break;
                 }
                 inlineLevel++;
                 segInlineTag.setLength(0);
-                if ("bpt".equals(eStart.getName().getLocalPart())) {
-                    inlineTagHandler.startBPT(getAttributeValue(eStart, "i"), getAttributeValue(eStart, "x"));
-                    inlineTagHandler.setTagShortcutLetter(
-                            StringUtil.getFirstLetterLowercase(getAttributeValue(eStart, "type")));
-                } else if ("ept".equals(eStart.getName().getLocalPart())) {
-                    inlineTagHandler.startEPT(getAttributeValue(eStart, "i"));
-                } else if ("it".equals(eStart.getName().getLocalPart())) {
-                    inlineTagHandler.startIT(getAttributeValue(eStart, "x"));
-                    inlineTagHandler.setOtherTagShortcutLetter(
-                            StringUtil.getFirstLetterLowercase(getAttributeValue(eStart, "type")));
-                    inlineTagHandler.setCurrentPos(getAttributeValue(eStart, "pos"));
-                } else if ("ph".equals(eStart.getName().getLocalPart())) {
-                    inlineTagHandler.startPH(getAttributeValue(eStart, "x"));
-                    inlineTagHandler.setOtherTagShortcutLetter(
-                            StringUtil.getFirstLetterLowercase(getAttributeValue(eStart, "type")));
+                if ("bpt".equals(e.name)) {
+                    inlineTagHandler.startBPT(e.i, e.x);
+                    inlineTagHandler.setTagShortcutLetter(StringUtil.getFirstLetterLowercase(e.type));
+                } else if ("ept".equals(e.name)) {
+                    inlineTagHandler.startEPT(e.i);
+                } else if ("it".equals(e.name)) {
+                    inlineTagHandler.startIT(e.x);
+                    inlineTagHandler.setOtherTagShortcutLetter(StringUtil.getFirstLetterLowercase(e.type));
+                    inlineTagHandler.setCurrentPos(e.pos);
+                } else if ("ph".equals(e.name)) {
+                    inlineTagHandler.startPH(e.x);
+                    inlineTagHandler.setOtherTagShortcutLetter(StringUtil.getFirstLetterLowercase(e.type));
                 } else {
                     inlineTagHandler.startOTHER();
                 }
                 break;
-            case XMLEvent.END_ELEMENT:
-                EndElement eEnd = e.asEndElement();
-                if ("hi".equals(eEnd.getName().getLocalPart())) {
+            case XMLStreamConstants.END_ELEMENT:
+                if ("hi".equals(e.name)) {
                     // tag should be skipped
                     break;
                 }
                 inlineLevel--;
-                if ("seg".equals(eEnd.getName().getLocalPart())) {
+                if ("seg".equals(e.name)) {
                     return;
                 }
                 boolean slashBefore = false;
                 boolean slashAfter = false;
                 int tagName = StringUtil.getFirstLetterLowercase(segInlineTag.toString());
                 Integer tagN;
-                if ("bpt".equals(eEnd.getName().getLocalPart())) {
+                if ("bpt".equals(e.name)) {
                     if (tagName != 0) {
                         inlineTagHandler.setTagShortcutLetter(tagName);
                     } else {
                         tagName = inlineTagHandler.getTagShortcutLetter();
                     }
                     tagN = inlineTagHandler.endBPT();
-                } else if ("ept".equals(eEnd.getName().getLocalPart())) {
+                } else if ("ept".equals(e.name)) {
                     slashBefore = true;
                     tagName = inlineTagHandler.getTagShortcutLetter();
                     tagN = inlineTagHandler.endEPT();
-                } else if ("it".equals(eEnd.getName().getLocalPart())) {
+                } else if ("it".equals(e.name)) {
                     if (tagName != 0) {
                         inlineTagHandler.setOtherTagShortcutLetter(tagName);
                     } else {
@@ -526,7 +547,7 @@ public class TMXReader2 {
                     if ("end".equals(inlineTagHandler.getCurrentPos())) {
                         slashBefore = true;
                     }
-                } else if ("ph".equals(eEnd.getName().getLocalPart())) {
+                } else if ("ph".equals(e.name)) {
                     if (tagName != 0) {
                         inlineTagHandler.setOtherTagShortcutLetter(tagName);
                     } else {
@@ -547,8 +568,7 @@ public class TMXReader2 {
                 }
                 if (tagN == null) {
                     // check error of TMX reading
-                    Log.logErrorRB("TMX_ERROR_READING_LEVEL2", e.getLocation().getLineNumber(),
-                            e.getLocation().getColumnNumber());
+                    Log.logErrorRB("TMX_ERROR_READING_LEVEL2", e.line, e.column);
                     errorsCount++;
                     segContent.setLength(0);
                     return;
@@ -563,24 +583,30 @@ public class TMXReader2 {
                     segContent.append('/');
                 }
                 segContent.appendCodePoint(tagName);
-                segContent.append(Integer.toString(tagN));
+                segContent.append(tagN.intValue());
                 if (slashAfter) {
                     segContent.append('/');
                 }
                 segContent.append('>');
                 break;
-            case XMLEvent.CHARACTERS:
-                Characters c = (Characters) e;
+            case XMLStreamConstants.CHARACTERS:
                 if (inlineLevel == 0) {
-                    segContent.append(c.getData());
+                    segContent.append(segTokens.text, e.textStart, e.textEnd);
                 } else {
-                    segInlineTag.append(c.getData());
+                    segInlineTag.append(segTokens.text, e.textStart, e.textEnd);
                 }
                 break;
             }
         }
     }
 
+    /**
+     * Appends text of the current CHARACTERS event without creating String.
+     */
+    private void appendText(StringBuilder out) {
+        out.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+    }
+
     /**
      * Get ParsedTuv from list of Tuv for specific language.
      *
@@ -629,6 +655,10 @@ public class TMXReader2 {
         if (str == null) {
             return 0;
         }
+        long date = parseDateFast(str);
+        if (date != Long.MIN_VALUE) {
+            return date;
+        }
         try {
             return dateFormat1.parse(str).getTime();
         } catch (ParseException ex) {
@@ -641,13 +671,131 @@ public class TMXReader2 {
         return 0;
     }
 
-    private static String getAttributeValue(StartElement e, String attrName) {
-        Attribute a = e.getAttributeByName(new QName(attrName));
-        return a != null ? a.getValue() : null;
+    /**
+     * Parses dates in the formats of {@link #parseISO8601date} by digits, since
+     * SimpleDateFormat is slow for millions of dates. Dates before 1600 are
+     * left for SimpleDateFormat, which uses Julian calendar for them.
+     *
+     * @return time in milliseconds, or Long.MIN_VALUE if date is not in the
+     *         expected format
+     */
+    static long parseDateFast(String str) {
+        int year, month, day, hour, minute, second;
+        if (str.length() == 16 && str.charAt(8) == 'T' && str.charAt(15) == 'Z') {
+            // yyyyMMdd'T'HHmmss'Z'
+            year = digits(str, 0, 4);
+            month = digits(str, 4, 2);
+            day = digits(str, 6, 2);
+            hour = digits(str, 9, 2);
+            minute = digits(str, 11, 2);
+            second = digits(str, 13, 2);
+        } else if (str.length() == 20 && str.charAt(4) == '-' && str.charAt(7) == '-' && str.charAt(10) == 'T'
+                && str.charAt(13) == ':' && str.charAt(16) == ':' && str.charAt(19) == 'Z') {
+            // yyyy-MM-dd'T'HH:mm:ss'Z'
+            year = digits(str, 0, 4);
+            month = digits(str, 5, 2);
+            day = digits(str, 8, 2);
+            hour = digits(str, 11, 2);
+            minute = digits(str, 14, 2);
+            second = digits(str, 17, 2);
+        } else {
+            return Long.MIN_VALUE;
+        }
+        if (year < 1600 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        // days since 1970-01-01 in Gregorian calendar, day overflow goes to
+        // the next month as in lenient SimpleDateFormat
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146097L + dayOfEra - 719468;
+        return ((days * 24 + hour) * 60 + minute) * 60000L + second * 1000L;
+    }
+
+    /**
+     * Returns number of the decimal digits, or -1 if there is other char.
+     */
+    private static int digits(String str, int from, int count) {
+        int result = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Returns value of the attribute of the current element.
+     */
+    private String getAttributeValue(String attrName) {
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            if (attrName.equals(xml.getAttributeLocalName(i))) {
+                return xml.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Events of the level 2 segment, kept for the second pass over them.
+     * Instances are reused for the next segments.
+     */
+    private static final class SegTokens {
+        final List<SegToken> tokens = new ArrayList<>();
+        /** Texts of all CHARACTERS events. */
+        final StringBuilder text = new StringBuilder();
+        int size;
+
+        void clear() {
+            size = 0;
+            text.setLength(0);
+        }
+
+        SegToken add(int eventType, String name) {
+            SegToken token;
+            if (size < tokens.size()) {
+                token = tokens.get(size);
+            } else {
+                token = new SegToken();
+                tokens.add(token);
+            }
+            size++;
+            token.eventType = eventType;
+            token.name = name;
+            token.i = null;
+            token.x = null;
+            token.type = null;
+            token.pos = null;
+            token.textStart = text.length();
+            token.textEnd = text.length();
+            return token;
+        }
+    }
+
+    private static final class SegToken {
+        int eventType;
+        String name;
+        // attributes of the inline tag
+        String i, x, type, pos;
+        // text of CHARACTERS event in the SegTokens.text
+        int textStart, textEnd;
+        // location of END_ELEMENT event
+        int line, column;
     }
 
     /**
      * Callback for receive data from TMX.
+     * <p>
+     * TU and TUV instances are reused for the next units, so callback should
+     * not keep them after return. Only the list of TU properties is created
+     * for every unit.
      */
     public interface LoadCallback {
         /**
@@ -664,6 +812,7 @@ public class TMXReader2 {
         public String note;
         public List<TMXProp> props = new ArrayList<TMXProp>();
         public List<ParsedTuv> tuvs = new ArrayList<ParsedTuv>();
+        private final List<ParsedTuv> tuvPool = new ArrayList<>();
 
         void clear() {
             changeid = null;
@@ -672,9 +821,25 @@ public class TMXReader2 {
             creationdate = 0;
             props = new ArrayList<TMXProp>(); // do not CLEAR, because it may be
                                               // shared
-            tuvs = new ArrayList<ParsedTuv>();
+            tuvs.clear();
             note = null;
         }
+
+        /**
+         * Adds TUV to the list, reusing instance created for previous units.
+         */
+        ParsedTuv nextTuv() {
+            ParsedTuv tuv;
+            if (tuvs.size() < tuvPool.size()) {
+                tuv = tuvPool.get(tuvs.size());
+                tuv.clear();
+            } else {
+                tuv = new ParsedTuv();
+                tuvPool.add(tuv);
+            }
+            tuvs.add(tuv);
+            return tuv;
+        }
     }
 
     public static class ParsedTuv {
@@ -684,6 +849,15 @@ public class TMXReader2 {
         public String creationid;
         public long creationdate;
         public String text;
+
+        void clear() {
+            lang = null;
+            changeid = null;
+            changedate = 0;
+            creationid = null;
+            creationdate = 0;
+            text = null;
+        }
     }
 
     public static final EntityResolver TMX_DTD_RESOLVER = new EntityResolver() {
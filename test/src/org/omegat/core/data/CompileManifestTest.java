@@ -0,0 +1,183 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.omegat.core.segmentation.SRX;
+
+public class CompileManifestTest {
+
+    private static final byte[] SETTINGS = { 1, 2, 3 };
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    private File manifestFile;
+    private File sourceRoot;
+    private File targetRoot;
+    private byte[] translations;
+
+    @Before
+    public void setUp() throws Exception {
+        manifestFile = folder.newFile("compile_manifest.bin");
+        sourceRoot = folder.newFolder("source");
+        targetRoot = folder.newFolder("target");
+        write(new File(sourceRoot, "a.txt"), "source");
+        write(new File(targetRoot, "a.txt"), "target");
+        translations = CompileManifest.digestTranslations(entries("source"), ste -> "target");
+
+        CompileManifest manifest = new CompileManifest(manifestFile, SETTINGS);
+        manifest.update("a.txt", sourceRoot, translations, targetRoot, "a.txt");
+        manifest.save();
+    }
+
+    @Test
+    public void testUpToDate() throws Exception {
+        CompileManifest manifest = load(SETTINGS);
+        assertEquals(1, manifest.size());
+        assertTrue(manifest.isUpToDate("a.txt", sourceRoot, translations, targetRoot));
+        assertFalse(manifest.isUpToDate("b.txt", sourceRoot, translations, targetRoot));
+    }
+
+    @Test
+    public void testSettingsChanged() throws Exception {
+        CompileManifest manifest = load(new byte[] { 1, 2, 4 });
+        assertEquals(0, manifest.size());
+        assertFalse(manifest.isUpToDate("a.txt", sourceRoot, translations, targetRoot));
+    }
+
+    @Test
+    public void testTranslationsChanged() throws Exception {
+        byte[] changed = CompileManifest.digestTranslations(entries("source"), ste -> "other");
+        assertFalse(Arrays.equals(translations, changed));
+        assertFalse(load(SETTINGS).isUpToDate("a.txt", sourceRoot, changed, targetRoot));
+
+        byte[] untranslated = CompileManifest.digestTranslations(entries("source"), ste -> null);
+        assertFalse(load(SETTINGS).isUpToDate("a.txt", sourceRoot, untranslated, targetRoot));
+    }
+
+    @Test
+    public void testSourceChanged() throws Exception {
+        File source = new File(sourceRoot, "a.txt");
+
+        // the same content with other time
+        assertTrue(source.setLastModified(source.lastModified() - 10_000));
+        assertTrue(load(SETTINGS).isUpToDate("a.txt", sourceRoot, translations, targetRoot));
+
+        // the same size with other content
+        write(source, "SOURCE");
+        assertTrue(source.setLastModified(source.lastModified() - 20_000));
+        assertFalse(load(SETTINGS).isUpToDate("a.txt", sourceRoot, translations, targetRoot));
+    }
+
+    @Test
+    public void testTargetChanged() throws Exception {
+        File target = new File(targetRoot, "a.txt");
+        write(target, "changed target");
+        assertFalse(load(SETTINGS).isUpToDate("a.txt", sourceRoot, translations, targetRoot));
+
+        assertTrue(target.delete());
+        assertFalse(load(SETTINGS).isUpToDate("a.txt", sourceRoot, translations, targetRoot));
+    }
+
+    @Test
+    public void testDigestTranslations() {
+        byte[] digest = CompileManifest.digestTranslations(entries("ab", "c"), ste -> null);
+        assertArrayEquals(digest, CompileManifest.digestTranslations(entries("ab", "c"), ste -> null));
+        assertFalse(Arrays.equals(digest, CompileManifest.digestTranslations(entries("a", "bc"), ste -> null)));
+        assertFalse(Arrays.equals(digest,
+                CompileManifest.digestTranslations(Collections.emptyList(), ste -> null)));
+    }
+
+    @Test
+    public void testDigestSRX() {
+        SRX srx = SRX.getDefault();
+        byte[] digest = CompileManifest.digestSRX(srx);
+        assertArrayEquals(digest, CompileManifest.digestSRX(srx.copy()));
+
+        SRX changed = srx.copy();
+        org.omegat.core.segmentation.Rule rule = changed.getMappingRules().get(0).getRules().get(0);
+        rule.setBeforebreak(rule.getBeforebreak() + "x");
+        assertFalse(Arrays.equals(digest, CompileManifest.digestSRX(changed)));
+
+        changed = srx.copy();
+        rule = changed.getMappingRules().get(0).getRules().get(0);
+        rule.setBreakRule(!rule.isBreakRule());
+        assertFalse(Arrays.equals(digest, CompileManifest.digestSRX(changed)));
+
+        changed = srx.copy();
+        List<org.omegat.core.segmentation.Rule> rules = changed.getMappingRules().get(0).getRules();
+        rules.add(rules.remove(0));
+        assertFalse(Arrays.equals(digest, CompileManifest.digestSRX(changed)));
+
+        changed = srx.copy();
+        changed.getMappingRules().add(changed.getMappingRules().remove(0));
+        assertFalse(Arrays.equals(digest, CompileManifest.digestSRX(changed)));
+
+        changed = srx.copy();
+        changed.setCascade(!srx.isCascade());
+        assertFalse(Arrays.equals(digest, CompileManifest.digestSRX(changed)));
+
+        changed = srx.copy();
+        changed.setSegmentSubflows(!srx.isSegmentSubflows());
+        assertFalse(Arrays.equals(digest, CompileManifest.digestSRX(changed)));
+    }
+
+    private CompileManifest load(byte[] settings) {
+        CompileManifest manifest = new CompileManifest(manifestFile, settings);
+        manifest.load();
+        return manifest;
+    }
+
+    private static List<SourceTextEntry> entries(String... sources) {
+        SourceTextEntry[] result = new SourceTextEntry[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            EntryKey key = new EntryKey("a.txt", sources[i], null, null, null, null);
+            result[i] = new SourceTextEntry(key, i + 1, null, null, Collections.emptyList());
+        }
+        return Arrays.asList(result);
+    }
+
+    private static void write(File file, String text) throws Exception {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
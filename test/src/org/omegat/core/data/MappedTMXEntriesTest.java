@@ -0,0 +1,155 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.omegat.util.TMXProp;
+
+public class MappedTMXEntriesTest {
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    @Test
+    public void testEntries() throws Exception {
+        List<PrepareTMXEntry> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            PrepareTMXEntry e = new PrepareTMXEntry();
+            e.source = "Source é " + i;
+            e.translation = i % 7 == 0 ? null : "Translation " + i;
+            e.creator = "creator";
+            e.changer = i % 2 == 0 ? "changer" : null;
+            e.creationDate = 1000L * i;
+            e.changeDate = 2000L * i;
+            e.note = i % 3 == 0 ? "Note " + i : null;
+            e.otherProperties = new ArrayList<>();
+            e.otherProperties.add(new TMXProp(ExternalTMFactory.TMXLoader.PROP_SOURCE_LANGUAGE, "EN-US"));
+            if (i % 5 == 0) {
+                e.otherProperties.add(new TMXProp(ExternalTMFactory.TMXLoader.PROP_FOREIGN_MATCH, "true"));
+            }
+            expected.add(e);
+        }
+        PrepareTMXEntry empty = new PrepareTMXEntry();
+        empty.source = "";
+        expected.add(empty);
+        PrepareTMXEntry noSource = new PrepareTMXEntry();
+        noSource.translation = "Translation without source";
+        expected.add(noSource);
+
+        File file = new File(folder.getRoot(), "tm.bin");
+        try (MappedTMXEntries.Writer writer = new MappedTMXEntries.Writer(file)) {
+            for (PrepareTMXEntry e : expected) {
+                writer.add(e);
+            }
+        }
+        MappedTMXEntries actual = MappedTMXEntries.map(file);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            PrepareTMXEntry e = expected.get(i);
+            ITMXEntry a = actual.get(i);
+            assertEquals(e.getSourceText(), a.getSourceText());
+            assertEquals(e.getTranslationText(), a.getTranslationText());
+            assertEquals(e.getCreator(), a.getCreator());
+            assertEquals(e.getChanger(), a.getChanger());
+            assertEquals(e.getCreationDate(), a.getCreationDate());
+            assertEquals(e.getChangeDate(), a.getChangeDate());
+            assertEquals(e.getNote(), a.getNote());
+            assertEquals(e.hasProperties(), a.hasProperties());
+            assertEquals(String.valueOf(e.getProperties()), String.valueOf(
+                    e.getProperties() == null ? null : a.getProperties()));
+            assertEquals(e.getPropValue(ExternalTMFactory.TMXLoader.PROP_SOURCE_LANGUAGE),
+                    a.getPropValue(ExternalTMFactory.TMXLoader.PROP_SOURCE_LANGUAGE));
+            assertEquals(e.hasPropValue(ExternalTMFactory.TMXLoader.PROP_FOREIGN_MATCH, "true"),
+                    a.hasPropValue(ExternalTMFactory.TMXLoader.PROP_FOREIGN_MATCH, "true"));
+        }
+        // texts are decoded once per entry
+        ITMXEntry entry = actual.get(1);
+        assertSame(entry.getSourceText(), entry.getSourceText());
+        assertSame(entry.getTranslationText(), entry.getTranslationText());
+        assertNull(actual.get(0).getPropValue("unknown"));
+        assertFalse(actual.get(1).hasPropValue(ExternalTMFactory.TMXLoader.PROP_FOREIGN_MATCH, null));
+        assertTrue(actual.get(0).hasPropValue(ExternalTMFactory.TMXLoader.PROP_FOREIGN_MATCH, null));
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        File dir = folder.newFolder("cache");
+        File tmx = folder.newFile("a.tmx");
+        File mapped = MappedTMXEntries.getFile(dir, tmx, "settings");
+        assertEquals(mapped, MappedTMXEntries.getFile(dir, tmx, "settings"));
+        assertNotEquals(mapped, MappedTMXEntries.getFile(dir, tmx, "other settings"));
+
+        try (MappedTMXEntries.Writer writer = new MappedTMXEntries.Writer(mapped)) {
+            writer.add(new PrepareTMXEntry());
+        }
+        Files.write(tmx.toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        File changed = MappedTMXEntries.getFile(dir, tmx, "settings");
+        assertNotEquals(mapped, changed);
+        try (MappedTMXEntries.Writer writer = new MappedTMXEntries.Writer(changed)) {
+            writer.add(new PrepareTMXEntry());
+        }
+        MappedTMXEntries.removeOutdated(dir, tmx, changed);
+        assertFalse(mapped.exists());
+        assertTrue(changed.exists());
+    }
+
+    @Test
+    public void testRemoveOrphaned() throws Exception {
+        File dir = folder.newFolder("cache");
+        File kept = folder.newFile("kept.tmx");
+        File removed = folder.newFile("removed.tmx");
+        File keptMapped = MappedTMXEntries.getFile(dir, kept, "settings");
+        File removedMapped = MappedTMXEntries.getFile(dir, removed, "settings");
+        File other = new File(dir, "other.txt");
+        for (File f : new File[] { keptMapped, removedMapped, other }) {
+            Files.write(f.toPath(), new byte[0]);
+        }
+        assertTrue(removed.delete());
+
+        MappedTMXEntries.removeOrphaned(dir, Collections.singletonList(kept));
+        assertTrue(keptMapped.exists());
+        assertFalse(removedMapped.exists());
+        assertTrue(other.exists());
+    }
+}
@@ -0,0 +1,112 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PreloadedFilesTest {
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    @Test
+    public void testLoad() throws Exception {
+        List<File> files = createFiles(5);
+        try (PreloadedFiles<String> preloaded = new PreloadedFiles<>("test", files, 3,
+                PreloadedFilesTest::read)) {
+            for (File file : files) {
+                assertEquals(file.getName(), preloaded.get(file));
+            }
+            // not submitted
+            File other = folder.newFile("other");
+            write(other, "other");
+            assertEquals("other", preloaded.get(other));
+        }
+    }
+
+    @Test
+    public void testChangedFile() throws Exception {
+        List<File> files = createFiles(2);
+        List<String> threads = new ArrayList<>();
+        try (PreloadedFiles<String> preloaded = new PreloadedFiles<>("test", files, 2, file -> {
+            synchronized (threads) {
+                threads.add(Thread.currentThread().getName());
+            }
+            return read(file);
+        })) {
+            File changed = files.get(0);
+            write(changed, "changed content");
+            assertEquals("changed content", preloaded.get(changed));
+            assertEquals(files.get(1).getName(), preloaded.get(files.get(1)));
+        }
+        // changed file was loaded again by the calling thread
+        assertNotEquals(-1, threads.indexOf(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testError() throws Exception {
+        List<File> files = createFiles(2);
+        try (PreloadedFiles<String> preloaded = new PreloadedFiles<>("test", files, 2, file -> {
+            throw new IOException(file.getName());
+        })) {
+            preloaded.get(files.get(0));
+            fail();
+        } catch (IOException ex) {
+            assertEquals(files.get(0).getName(), ex.getMessage());
+        }
+    }
+
+    private List<File> createFiles(int count) throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File file = folder.newFile("file" + i);
+            write(file, file.getName());
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void write(File file, String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,286 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.omegat.core.Core;
+import org.omegat.core.segmentation.SRX;
+import org.omegat.core.segmentation.Segmenter;
+import org.omegat.filters2.FilterContext;
+import org.omegat.filters2.Instance;
+import org.omegat.filters2.master.FilterMaster;
+import org.omegat.filters2.text.TextFilter;
+import org.omegat.tokenizer.DefaultTokenizer;
+import org.omegat.util.Preferences;
+import org.omegat.util.TestPreferencesInitializer;
+
+/**
+ * Tests that loading and compiling a project with several threads gives the
+ * same result as with one thread, and how threads are shared.
+ */
+public class RealProjectParallelTest {
+
+    private static final int FILES = 12;
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    private ProjectProperties props;
+    private final List<RealProject> projects = new ArrayList<>();
+
+    @Before
+    public final void setUp() throws Exception {
+        Core.initializeConsole(new TreeMap<>());
+        TestPreferencesInitializer.init();
+        Preferences.setPreference(Preferences.PROJECT_SOURCE_CACHE, false);
+        Preferences.setPreference(Preferences.PROJECT_COMPILE_INCREMENTAL, false);
+        FailingFilter.failingFile = null;
+        FilterMaster.setFilterClasses(
+                Arrays.asList(new Class<?>[] { FailingFilter.class, SerialFilter.class }));
+        Core.setFilterMaster(new FilterMaster(FilterMaster.createDefaultFiltersConfig()));
+        Core.setSegmenter(new Segmenter(SRX.getDefault()));
+
+        props = new ProjectProperties(folder.getRoot());
+        props.setSourceTokenizer(DefaultTokenizer.class);
+        props.setTargetTokenizer(DefaultTokenizer.class);
+        File source = new File(props.getSourceRoot());
+        assertTrue(source.mkdirs());
+        assertTrue(new File(props.getProjectInternal()).mkdirs());
+        for (int i = 0; i < FILES; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int p = 0; p < 5 + i; p++) {
+                text.append("Paragraph ").append(p).append(" of file ").append(i).append(". ");
+                // segments repeated in other files
+                text.append("Common sentence ").append(p % 4).append(".\n\n");
+            }
+            Files.write(new File(source, fileName(i)).toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @After
+    public final void tearDown() throws Exception {
+        for (RealProject project : projects) {
+            project.unlockProject();
+        }
+        FilterMaster.setFilterClasses(Collections.emptyList());
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        List<String> serial = load(1);
+        assertEquals(serial, load(4));
+        assertEquals(serial, load(FILES));
+    }
+
+    /**
+     * Loads source files with the given number of threads, and returns files
+     * and segments in the project order with their numbers.
+     */
+    private List<String> load(int threads) throws Exception {
+        Preferences.setPreference(Preferences.PROJECT_LOAD_THREADS, threads);
+        RealProject project = createProject();
+        project.loadSourceFiles();
+        assertEquals(FILES, project.getProjectFiles().size());
+
+        List<String> result = new ArrayList<>();
+        for (IProject.FileInfo fi : project.getProjectFiles()) {
+            result.add(fi.filePath + " " + fi.filterClass.getSimpleName());
+            for (SourceTextEntry ste : fi.entries) {
+                result.add(ste.entryNum() + " " + ste.getKey().file + " " + ste.getSrcText() + " "
+                        + ste.getDuplicate());
+            }
+        }
+        int num = 0;
+        for (SourceTextEntry ste : project.getAllEntries()) {
+            assertEquals(++num, ste.entryNum());
+        }
+        return result;
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        RealProject project = loadTranslatedProject();
+        Map<String, byte[]> serial = compile(project, 1);
+        assertEquals(FILES, serial.size());
+        assertSameFiles(serial, compile(project, 4));
+        assertSameFiles(serial, compile(project, FILES));
+    }
+
+    /**
+     * Exceptions of filters are logged by {@link FilterMaster}, but a file can
+     * still fail outside of the filter, like here in the file type check.
+     * Compile throws the exception of the first failed file in both modes:
+     * files before it are created, and other workers don't leave half written
+     * files.
+     */
+    @Test
+    public void testCompileFailure() throws Exception {
+        RealProject project = loadTranslatedProject();
+        Map<String, byte[]> expected = compile(project, 1);
+        int failing = 7;
+        FailingFilter.failingFile = fileName(failing);
+        for (int threads : new int[] { 1, 4 }) {
+            try {
+                compile(project, threads);
+                fail("Compile by " + threads + " threads should fail");
+            } catch (IllegalStateException e) {
+                assertEquals(fileName(failing), e.getMessage());
+            }
+            Map<String, byte[]> targets = readTargets();
+            for (int i = 0; i < failing; i++) {
+                assertTrue(targets.containsKey(fileName(i)));
+            }
+            assertFalse(targets.containsKey(fileName(failing)));
+            for (Map.Entry<String, byte[]> e : targets.entrySet()) {
+                assertArrayEquals(e.getKey(), expected.get(e.getKey()), e.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testTMReaderThreads() {
+        Preferences.setPreference(Preferences.PROJECT_LOAD_THREADS, 8);
+        assertEquals(8, RealProject.getTMReaderThreads(1));
+        assertEquals(2, RealProject.getTMReaderThreads(4));
+        assertEquals(2, RealProject.getTMReaderThreads(3));
+        assertEquals(1, RealProject.getTMReaderThreads(16));
+    }
+
+    /**
+     * Loads the project by one thread and translates every third segment.
+     */
+    private RealProject loadTranslatedProject() throws Exception {
+        Preferences.setPreference(Preferences.PROJECT_LOAD_THREADS, 1);
+        RealProject project = createProject();
+        project.loadSourceFiles();
+        for (SourceTextEntry ste : project.getAllEntries()) {
+            if (ste.entryNum() % 3 == 0) {
+                PrepareTMXEntry tr = new PrepareTMXEntry();
+                tr.source = ste.getSrcText();
+                tr.translation = "Translated " + ste.entryNum();
+                project.projectTMX.setTranslation(ste, new TMXEntry(tr, true, null), true);
+            }
+        }
+        return project;
+    }
+
+    /**
+     * Compiles the project into an empty target folder with the given number
+     * of threads, and returns the target files.
+     */
+    private Map<String, byte[]> compile(RealProject project, int threads) throws Exception {
+        Preferences.setPreference(Preferences.PROJECT_COMPILE_THREADS, threads);
+        FileUtils.deleteDirectory(new File(props.getTargetRoot()));
+        project.compileProjectAndCommit(".*", false, false);
+        return readTargets();
+    }
+
+    private Map<String, byte[]> readTargets() throws Exception {
+        Map<String, byte[]> result = new TreeMap<>();
+        File[] files = new File(props.getTargetRoot()).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                result.put(file.getName(), Files.readAllBytes(file.toPath()));
+            }
+        }
+        return result;
+    }
+
+    private static void assertSameFiles(Map<String, byte[]> expected, Map<String, byte[]> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> e : expected.entrySet()) {
+            assertArrayEquals(e.getKey(), e.getValue(), actual.get(e.getKey()));
+        }
+    }
+
+    /**
+     * Files of both filters are mixed in the project order.
+     */
+    private static String fileName(int i) {
+        return String.format("file%02d.%s", i, i % 3 == 0 ? "serial" : "txt");
+    }
+
+    private RealProject createProject() {
+        RealProject project = new RealProject(props);
+        project.projectTMX = new ProjectTMX();
+        projects.add(project);
+        return project;
+    }
+
+    /**
+     * Text filter which fails the file type check of one file.
+     */
+    public static class FailingFilter extends TextFilter {
+        static volatile String failingFile;
+
+        @Override
+        public boolean isFileSupported(File inFile, Map<String, String> config, FilterContext fc) {
+            if (inFile.getName().equals(failingFile)) {
+                throw new IllegalStateException(failingFile);
+            }
+            return super.isFileSupported(inFile, config, fc);
+        }
+    }
+
+    /**
+     * Text filter for <code>*.serial</code> files, which doesn't support
+     * parallel processing.
+     */
+    public static class SerialFilter extends TextFilter {
+        @Override
+        public Instance[] getDefaultInstances() {
+            return new Instance[] { new Instance("*.serial", StandardCharsets.UTF_8.name(),
+                    StandardCharsets.UTF_8.name()) };
+        }
+
+        @Override
+        public boolean isParallelProcessingSupported() {
+            return false;
+        }
+    }
+}
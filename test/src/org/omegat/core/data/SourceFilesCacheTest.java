@@ -0,0 +1,187 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.omegat.core.data.ParseEntry.ParseEntryQueueItem;
+
+public class SourceFilesCacheTest {
+
+    private static final byte[] SETTINGS = { 1, 2, 3 };
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    private File cacheFile;
+    private File sourceRoot;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheFile = folder.newFile("source_cache.bin");
+        sourceRoot = folder.newFolder("source");
+        write(new File(sourceRoot, "a.txt"), "source");
+
+        SourceFilesCache cache = new SourceFilesCache(cacheFile, SETTINGS);
+        cache.put("a.txt", sourceRoot, "org.omegat.filters2.text.TextFilter", "Text", "UTF-8", segments());
+        cache.save(Collections.singletonList("a.txt"));
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        SourceFilesCache cache = load(SETTINGS);
+        assertEquals(1, cache.size());
+        SourceFilesCache.ParsedFile parsed = cache.get("a.txt", sourceRoot);
+        assertNotNull(parsed);
+        assertEquals("org.omegat.filters2.text.TextFilter", parsed.filterClass);
+        assertEquals("Text", parsed.fileFormatName);
+        assertEquals("UTF-8", parsed.fileEncoding);
+        assertSame(segments(), parsed.getSegments());
+        assertNull(cache.get("b.txt", sourceRoot));
+    }
+
+    @Test
+    public void testSettingsChanged() {
+        SourceFilesCache cache = load(new byte[] { 1, 2, 4 });
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a.txt", sourceRoot));
+    }
+
+    @Test
+    public void testSourceChanged() throws Exception {
+        File source = new File(sourceRoot, "a.txt");
+
+        // the same content with other time
+        assertTrue(source.setLastModified(source.lastModified() - 10_000));
+        assertNotNull(load(SETTINGS).get("a.txt", sourceRoot));
+
+        // the same size with other content
+        write(source, "SOURCE");
+        assertTrue(source.setLastModified(source.lastModified() - 20_000));
+        assertNull(load(SETTINGS).get("a.txt", sourceRoot));
+    }
+
+    @Test
+    public void testSaveDropsRemovedFiles() {
+        load(SETTINGS).save(Arrays.asList("a.txt", "b.txt"));
+        assertEquals(1, load(SETTINGS).size());
+
+        load(SETTINGS).save(Collections.singletonList("b.txt"));
+        assertEquals(0, load(SETTINGS).size());
+    }
+
+    @Test
+    public void testSegmentsAreCopies() throws Exception {
+        SourceFilesCache.ParsedFile parsed = load(SETTINGS).get("a.txt", sourceRoot);
+        List<ParseEntryQueueItem> first = parsed.getSegments();
+        first.get(0).protectedParts.clear();
+        assertSame(segments(), parsed.getSegments());
+    }
+
+    private SourceFilesCache load(byte[] settings) {
+        SourceFilesCache cache = new SourceFilesCache(cacheFile, settings);
+        cache.load();
+        return cache;
+    }
+
+    private static List<ParseEntryQueueItem> segments() {
+        List<ParseEntryQueueItem> result = new ArrayList<>();
+        ParseEntryQueueItem item = new ParseEntryQueueItem();
+        item.id = "1";
+        item.segmentIndex = 0;
+        item.segmentSource = "Tag <b0>";
+        ProtectedPart pp = new ProtectedPart();
+        pp.setTextInSourceSegment("<b0>");
+        pp.setDetailsFromSourceFile("<b>");
+        pp.setReplacementWordsCountCalculation("");
+        pp.setReplacementUniquenessCalculation("<t>");
+        pp.setReplacementMatchCalculation("");
+        item.protectedParts = new ArrayList<>(Collections.singletonList(pp));
+        item.segmentTranslation = "Etiqueta <b0>";
+        item.segmentTranslationFuzzy = true;
+        item.props = new String[] { "comment", "A comment" };
+        item.path = "a.txt";
+        result.add(item);
+
+        item = new ParseEntryQueueItem();
+        item.segmentSource = "Plain";
+        item.prevSegment = "Tag <b0>";
+        result.add(item);
+        return result;
+    }
+
+    private static void assertSame(List<ParseEntryQueueItem> expected, List<ParseEntryQueueItem> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ParseEntryQueueItem e = expected.get(i);
+            ParseEntryQueueItem a = actual.get(i);
+            assertEquals(e.id, a.id);
+            assertEquals(e.segmentIndex, a.segmentIndex);
+            assertEquals(e.segmentSource, a.segmentSource);
+            assertEquals(e.segmentTranslation, a.segmentTranslation);
+            assertEquals(e.segmentTranslationFuzzy, a.segmentTranslationFuzzy);
+            assertArrayEquals(e.props, a.props);
+            assertEquals(e.prevSegment, a.prevSegment);
+            assertEquals(e.nextSegment, a.nextSegment);
+            assertEquals(e.path, a.path);
+            if (e.protectedParts == null) {
+                assertNull(a.protectedParts);
+                continue;
+            }
+            assertEquals(e.protectedParts.size(), a.protectedParts.size());
+            for (int j = 0; j < e.protectedParts.size(); j++) {
+                ProtectedPart ep = e.protectedParts.get(j);
+                ProtectedPart ap = a.protectedParts.get(j);
+                assertEquals(ep.getTextInSourceSegment(), ap.getTextInSourceSegment());
+                assertEquals(ep.getDetailsFromSourceFile(), ap.getDetailsFromSourceFile());
+                assertEquals(ep.getReplacementWordsCountCalculation(), ap.getReplacementWordsCountCalculation());
+                assertEquals(ep.getReplacementUniquenessCalculation(), ap.getReplacementUniquenessCalculation());
+                assertEquals(ep.getReplacementMatchCalculation(), ap.getReplacementMatchCalculation());
+            }
+        }
+    }
+
+    private static void write(File file, String text) throws Exception {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,146 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+
+package org.omegat.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.omegat.core.TestCore;
+import org.omegat.core.TestCoreInitializer;
+import org.omegat.core.threads.IAutoSave;
+import org.omegat.util.Language;
+import org.omegat.util.OConsts;
+
+import gen.core.project.RepositoryDefinition;
+import gen.core.project.RepositoryMapping;
+
+/**
+ * Tests that translations recovered from the journal after a crash survive
+ * team sync on load of a team project.
+ */
+public class TeamProjectJournalTest extends TestCore {
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    private ProjectProperties props;
+    private RealProject project;
+
+    @Before
+    public final void setUp() throws Exception {
+        File remote = folder.newFolder("remote");
+        try (Git git = Git.init().setDirectory(remote).call()) {
+            Files.write(new File(remote, "README").toPath(), "team project".getBytes(StandardCharsets.UTF_8));
+            git.add().addFilepattern("README").call();
+            git.commit().setMessage("init").setAuthor("OmegaT unit test", "test@test.nl").setSign(false)
+                    .call();
+        }
+        TestCoreInitializer.initAutoSave(new IAutoSave() {
+            @Override
+            public void disable() {
+            }
+
+            @Override
+            public void enable() {
+            }
+        });
+
+        props = new ProjectProperties(folder.newFolder("project"));
+        props.setSourceLanguage(new Language("en"));
+        props.setTargetLanguage(new Language("de"));
+        RepositoryDefinition def = new RepositoryDefinition();
+        def.setType("git");
+        def.setUrl("file://" + remote.getAbsolutePath());
+        RepositoryMapping mapping = new RepositoryMapping();
+        mapping.setLocal("");
+        mapping.setRepository("");
+        def.getMapping().add(mapping);
+        props.setRepositories(new ArrayList<>());
+        props.getRepositories().add(def);
+        props.autocreateDirectories();
+    }
+
+    @After
+    public final void tearDown() {
+        close();
+    }
+
+    @Test
+    public void testJournalSurvivesOnlineLoad() throws Exception {
+        load();
+        // project_save.tmx is in the repository
+        project.saveProject(true);
+
+        SourceTextEntry ste = new SourceTextEntry(new EntryKey("file", "Hello", null, null, null, null), 0,
+                null, null, new ArrayList<>());
+        PrepareTMXEntry tr = new PrepareTMXEntry();
+        tr.translation = "Hallo";
+        project.setTranslation(ste, tr, true, null);
+        // autosave
+        project.saveProject(false);
+        File journal = new File(props.getProjectInternalDir(), OConsts.TRANSLATION_JOURNAL_FILENAME);
+        assertTrue(journal.exists());
+
+        // crash: project is not saved on close
+        close();
+        load();
+        assertEquals("Hallo", project.projectTMX.getDefaultTranslation("Hello").translation);
+        assertFalse(journal.exists());
+
+        // translation is committed by the next sync
+        project.saveProject(true);
+        close();
+        load();
+        assertEquals("Hallo", project.projectTMX.getDefaultTranslation("Hello").translation);
+    }
+
+    private void close() {
+        if (project != null) {
+            project.closeProject();
+            project = null;
+        }
+    }
+
+    private void load() {
+        project = new RealProject(props);
+        project.loadProject(true);
+        assertTrue(project.isProjectLoaded());
+    }
+}
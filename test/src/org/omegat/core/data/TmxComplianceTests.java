@@ -25,9 +25,12 @@
 
 package org.omegat.core.data;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -388,6 +391,42 @@ public class TmxComplianceTests extends TmxComplianceBase {
         compareTMX(tmxFile, outFile, 12);
     }
 
+    /**
+     * Export of several files at once should write the same files as export
+     * of every file alone.
+     */
+    @Test
+    public void testExportSeveralFiles() throws Exception {
+        ProjectProperties props = new TestProjectProperties("EN-US", "FR-CA");
+        ProjectTMX tmx = new ProjectTMX(props.getSourceLanguage(), props.getTargetLanguage(),
+                props.isSentenceSegmentingEnabled(), outFile, orphanedCallback);
+        for (int i = 0; i < 20; i++) {
+            tmx.defaults.put("Source <b0>" + i + "</b0> & text", createTMXEntry("Source <b0>" + i
+                    + "</b0> & text", "Texte <b0>" + i + "</b0>", true));
+            EntryKey key = new EntryKey("file.txt", "Alternative <x1/> " + i, "id" + i, "prev", "next", null);
+            tmx.alternatives.put(key, createTMXEntry(key.sourceText, "Autre <x1/> " + i, false));
+        }
+
+        File dir = outFile.getParentFile();
+        List<ProjectTMX.ExportFile> files = new ArrayList<>();
+        List<byte[]> expected = new ArrayList<>();
+        for (int level = 0; level < 3; level++) {
+            File file = new File(dir, outFile.getName() + "-" + level);
+            tmx.exportTMX(props, file, level == 1, level == 2, true);
+            expected.add(Files.readAllBytes(file.toPath()));
+            files.add(new ProjectTMX.ExportFile(file, level == 1, level == 2));
+        }
+        for (int threads : new int[] { 1, 3 }) {
+            for (ProjectTMX.ExportFile file : files) {
+                Files.delete(file.file.toPath());
+            }
+            tmx.exportTMX(props, files, true, threads);
+            for (int level = 0; level < 3; level++) {
+                assertArrayEquals(expected.get(level), Files.readAllBytes(files.get(level).file.toPath()));
+            }
+        }
+    }
+
     TMXEntry createTMXEntry(String source, String translation, boolean def) {
         PrepareTMXEntry tr = new PrepareTMXEntry();
         tr.source = source;
@@ -0,0 +1,152 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.omegat.util.TMXProp;
+
+public class TranslationJournalTest {
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    private File base;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        base = folder.newFile("project_save.tmx");
+        Files.write(base.toPath(), "tmx".getBytes(StandardCharsets.UTF_8));
+        file = new File(folder.getRoot(), "project_save.journal");
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        EntryKey alternative = new EntryKey("file.txt", "two", "id", "one", "three", null);
+        TranslationJournal journal = new TranslationJournal(file, base, 1024 * 1024);
+        journal.add(defaultKey("one"), entry("one", "Eins", true), true);
+        assertTrue(journal.append());
+        journal.add(alternative, entry("two", "Zwei", false), false);
+        journal.add(defaultKey("three"), entry("three", "Drei", true), true);
+        journal.add(defaultKey("one"), null, true);
+        assertTrue(journal.append());
+        assertTrue(journal.hasChanges());
+
+        ProjectTMX tmx = new ProjectTMX();
+        assertEquals(4, tmx.attachJournal(new TranslationJournal(file, base, 1024 * 1024)));
+        assertNull(tmx.getDefaultTranslation("one"));
+        TMXEntry three = tmx.getDefaultTranslation("three");
+        assertEquals("Drei", three.translation);
+        assertEquals("changer", three.changer);
+        assertEquals(2000L, three.changeDate);
+        assertEquals("note", three.note);
+        assertEquals("origin", three.origin);
+        TMXEntry two = tmx.getMultipleTranslation(alternative);
+        assertEquals("Zwei", two.translation);
+        assertFalse(two.defaultTranslation);
+        assertEquals(TMXEntry.ExternalLinked.xICE, two.linked);
+    }
+
+    @Test
+    public void testPartialRecord() throws Exception {
+        TranslationJournal journal = new TranslationJournal(file, base, 1024 * 1024);
+        journal.add(defaultKey("one"), entry("one", "Eins", true), true);
+        assertTrue(journal.append());
+        long length = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[] { 0, 0, 0, 100, 1, 2, 3 });
+        }
+
+        journal = new TranslationJournal(file, base, 1024 * 1024);
+        assertEquals(1, journal.replay(new ProjectTMX()));
+        assertEquals(length, file.length());
+        journal.add(defaultKey("two"), entry("two", "Zwei", true), true);
+        assertTrue(journal.append());
+
+        ProjectTMX tmx = new ProjectTMX();
+        assertEquals(2, tmx.attachJournal(new TranslationJournal(file, base, 1024 * 1024)));
+        assertEquals("Zwei", tmx.getDefaultTranslation("two").translation);
+    }
+
+    @Test
+    public void testChangedBase() throws Exception {
+        TranslationJournal journal = new TranslationJournal(file, base, 1024 * 1024);
+        journal.add(defaultKey("one"), entry("one", "Eins", true), true);
+        assertTrue(journal.append());
+
+        Files.write(base.toPath(), "new tmx".getBytes(StandardCharsets.UTF_8));
+        assertFalse(journal.append());
+        assertEquals(0, new TranslationJournal(file, base, 1024 * 1024).replay(new ProjectTMX()));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        TranslationJournal journal = new TranslationJournal(file, base, 10);
+        journal.add(defaultKey("one"), entry("one", "Eins", true), true);
+        assertFalse(journal.append());
+        assertFalse(file.exists());
+        assertTrue(journal.hasChanges());
+
+        // project_save.tmx was written
+        journal.clearPending();
+        journal.delete();
+        assertFalse(journal.hasChanges());
+    }
+
+    private static EntryKey defaultKey(String source) {
+        return new EntryKey(null, source, null, null, null, null);
+    }
+
+    private static TMXEntry entry(String source, String translation, boolean isDefault) {
+        PrepareTMXEntry e = new PrepareTMXEntry();
+        e.source = source;
+        e.translation = translation;
+        e.changer = "changer";
+        e.changeDate = 2000L;
+        e.creator = "creator";
+        e.creationDate = 1000L;
+        e.note = "note";
+        e.otherProperties = new ArrayList<>();
+        e.otherProperties.add(new TMXProp(ProjectTMX.PROP_ORIGIN, "origin"));
+        return new TMXEntry(e, isDefault, isDefault ? null : TMXEntry.ExternalLinked.xICE);
+    }
+}
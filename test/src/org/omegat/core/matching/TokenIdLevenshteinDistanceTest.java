@@ -0,0 +1,144 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.matching;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.omegat.util.Token;
+
+public class TokenIdLevenshteinDistanceTest {
+
+    @Test
+    public void testInterner() {
+        TokenInterner interner = new TokenInterner();
+        Token[] tokens = { new Token("a", 0), new Token("b", 2), new Token("a", 4), new Token("&a", 6) };
+        assertArrayEquals(new int[] { 0, 1, 0, 0 }, interner.intern(tokens));
+        assertEquals(2, interner.size());
+
+        // ids stay the same when the table grows
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i + 2, interner.intern(new Token("t" + i, 0)));
+        }
+        assertArrayEquals(new int[] { 0, 1, 0, 0 }, interner.intern(tokens));
+        assertEquals(102, interner.intern(new Token("t100", 8)));
+        assertEquals(5002, interner.size());
+
+        interner.clear();
+        assertEquals(0, interner.size());
+        assertArrayEquals(new int[] { 0, 1 }, interner.intern(new Token[] { tokens[1], tokens[0] }));
+    }
+
+    @Test
+    public void testSimple() {
+        TokenIdLevenshteinDistance ld = new TokenIdLevenshteinDistance();
+        assertEquals(0, ld.compute(new int[] { 1, 2, 3 }, new int[] { 1, 2, 3 }));
+        assertEquals(1, ld.compute(new int[] { 1, 2, 3 }, new int[] { 1, 4, 3 }));
+        assertEquals(3, ld.compute(new int[0], new int[] { 1, 2, 3 }));
+        assertEquals(2, ld.compute(new int[] { 1, 2, 3, 4 }, new int[] { 2, 3 }));
+        assertEquals(50, FuzzyMatcher.calcSimilarity(ld, new int[] { 1, 2, 3, 4 }, new int[] { 2, 3 }));
+        assertEquals(0, FuzzyMatcher.calcSimilarity(ld, new int[0], new int[0]));
+    }
+
+    /**
+     * Result must be the same as for LevenshteinDistance, including the limit
+     * of compared tokens.
+     */
+    @Test
+    public void testSameAsLevenshteinDistance() {
+        Random random = new Random(1);
+        LevenshteinDistance expected = new LevenshteinDistance();
+        TokenIdLevenshteinDistance actual = new TokenIdLevenshteinDistance();
+        TokenInterner interner = new TokenInterner();
+        for (int i = 0; i < 2000; i++) {
+            int maxLength = i % 100 == 0 ? LevenshteinDistance.MAX_N + 100 : 30;
+            int vocabulary = 1 + random.nextInt(6);
+            Token[] s = randomTokens(random, random.nextInt(maxLength), vocabulary);
+            Token[] t = randomTokens(random, random.nextInt(maxLength), vocabulary);
+            int ld = expected.compute(s, t);
+            assertEquals(ld, actual.compute(s, t));
+            assertEquals(ld, actual.compute(interner.intern(s), interner.intern(t)));
+        }
+    }
+
+    /**
+     * Bounded distance must be exact up to the bound, and greater than the
+     * bound otherwise. Covers both the bit-parallel (up to 64 tokens) and the
+     * banded implementations.
+     */
+    @Test
+    public void testBounded() {
+        Random random = new Random(2);
+        TokenIdLevenshteinDistance expected = new TokenIdLevenshteinDistance();
+        TokenIdLevenshteinDistance actual = new TokenIdLevenshteinDistance();
+        for (int i = 0; i < 5000; i++) {
+            int maxLength = i % 100 == 0 ? LevenshteinDistance.MAX_N + 100 : (i % 2 == 0 ? 150 : 70);
+            int vocabulary = 1 + random.nextInt(i % 2 == 0 ? 4 : 200);
+            int[] s = randomIds(random, random.nextInt(maxLength), vocabulary);
+            int[] t = randomIds(random, Math.max(0, s.length + random.nextInt(21) - 10), vocabulary);
+            int ld = expected.compute(s, t);
+            int maxDistance = random.nextInt(Math.max(s.length, t.length) + 3) - 1;
+            int bounded = actual.compute(s, t, maxDistance);
+            if (ld <= maxDistance) {
+                assertEquals(ld, bounded);
+            } else {
+                assertTrue(bounded > maxDistance);
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedSimilarity() {
+        TokenIdLevenshteinDistance ld = new TokenIdLevenshteinDistance();
+        int[] s = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+        int[] t = { 1, 2, 3, 4, 5, 6, 7, 18, 19, 20 };
+        assertEquals(70, FuzzyMatcher.calcSimilarity(ld, s, t));
+        assertEquals(70, FuzzyMatcher.calcSimilarity(ld, s, t, 70));
+        assertTrue(FuzzyMatcher.calcSimilarity(ld, s, t, 71) < 71);
+        assertTrue(FuzzyMatcher.calcSimilarity(ld, s, t, 140) < 140);
+    }
+
+    private static int[] randomIds(Random random, int length, int vocabulary) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = random.nextInt(vocabulary);
+        }
+        return result;
+    }
+
+    private static Token[] randomTokens(Random random, int length, int vocabulary) {
+        Token[] result = new Token[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = new Token("w" + random.nextInt(vocabulary), i);
+        }
+        return result;
+    }
+}
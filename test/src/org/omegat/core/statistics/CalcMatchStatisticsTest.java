@@ -25,9 +25,12 @@
 
 package org.omegat.core.statistics;
 
+import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -176,6 +179,86 @@ public class CalcMatchStatisticsTest {
         Assert.assertEquals("5699", result[7][4]);
     }
 
+    /**
+     * Per-file statistics must split the project counts between files:
+     * repetitions of the project are repetitions within a file or from other
+     * files, and all other rows are the same as for the whole project.
+     */
+    @Test
+    public void testPerFile() throws Exception {
+        TestProject project = new TestProject(new ProjectPropertiesTest());
+        List<String[][]> tables = new ArrayList<>();
+        IStatsConsumer callback = new TestStatsConsumer() {
+            @Override
+            public void appendTable(final String title, final String[] headers, final String[][] data) {
+                tables.add(data);
+            }
+        };
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        CalcMatchStatisticsMock calcMatchStatistics = new CalcMatchStatisticsMock(project, segmenter, callback,
+                30);
+        calcMatchStatistics.entriesToProcess = project.getAllEntries().size();
+        String[][] expected = calcMatchStatistics.calcTotal(false).calcTable(new String[8], i -> i != 1);
+        calcMatchStatistics.calcPerFile();
+
+        // two files, then total
+        Assert.assertEquals(3, tables.size());
+        for (int column = 1; column < expected[0].length; column++) {
+            for (int row = 0; row < expected.length; row++) {
+                Assert.assertEquals(expected[row][column], tables.get(2)[row][column]);
+            }
+            // rows of files: within this file, other files, exact, 95, 85,
+            // 75, 50, no match, total
+            Assert.assertEquals(Integer.parseInt(expected[0][column]),
+                    sum(tables, 0, column) + sum(tables, 1, column));
+            for (int row = 1; row < expected.length; row++) {
+                Assert.assertEquals(Integer.parseInt(expected[row][column]), sum(tables, row + 1, column));
+            }
+        }
+    }
+
+    private static int sum(List<String[][]> tables, int row, int column) {
+        return Integer.parseInt(tables.get(0)[row][column]) + Integer.parseInt(tables.get(1)[row][column]);
+    }
+
+    /**
+     * Second run must reuse similarities stored by the first one, and give the
+     * same result.
+     */
+    @Test
+    public void testStatsCache() throws Exception {
+        TestProject project = new TestProject(new ProjectPropertiesTest());
+        IStatsConsumer callback = new TestStatsConsumer();
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        Path tmpDir = Files.createTempDirectory("omegat");
+        File cacheFile = tmpDir.resolve("stats.cache").toFile();
+        try {
+            String[][] expected = null;
+            for (int run = 0; run < 2; run++) {
+                CalcMatchStatisticsMock calcMatchStatistics = new CalcMatchStatisticsMock(project, segmenter,
+                        callback, 30);
+                MatchStatisticsCache cache = calcMatchStatistics.createStatsCache(cacheFile);
+                calcMatchStatistics.setStatsCache(cache);
+                calcMatchStatistics.start();
+                calcMatchStatistics.join();
+                cache.save();
+                String[][] result = calcMatchStatistics.getTable();
+                Assert.assertNotNull(result);
+                if (run == 0) {
+                    Assert.assertEquals(0, cache.getReused());
+                    expected = result;
+                } else {
+                    // all untranslated segments, without repetitions
+                    Assert.assertEquals(97, cache.getReused());
+                    Assert.assertArrayEquals(expected, result);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(cacheFile.toPath());
+            Files.deleteIfExists(tmpDir);
+        }
+    }
+
     /*
      * Setup test project.
      */
@@ -248,6 +331,18 @@ public class CalcMatchStatisticsTest {
             return ste;
         }
 
+        @Override
+        public List<FileInfo> getProjectFiles() {
+            List<SourceTextEntry> entries = getAllEntries();
+            FileInfo first = new FileInfo();
+            first.filePath = "first.po";
+            first.entries.addAll(entries.subList(0, entries.size() / 2));
+            FileInfo second = new FileInfo();
+            second.filePath = "second.po";
+            second.entries.addAll(entries.subList(entries.size() / 2, entries.size()));
+            return Arrays.asList(first, second);
+        }
+
         @Override
         public ITokenizer getSourceTokenizer() {
             return new LuceneEnglishTokenizer();
@@ -0,0 +1,147 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.omegat.core.Core;
+import org.omegat.core.data.EntryKey;
+import org.omegat.core.data.IProject;
+import org.omegat.core.data.ProjectProperties;
+import org.omegat.core.data.SourceTextEntry;
+import org.omegat.core.matching.NearString;
+import org.omegat.core.segmentation.Segmenter;
+import org.omegat.tokenizer.DefaultTokenizer;
+import org.omegat.tokenizer.ITokenizer;
+import org.omegat.tokenizer.LuceneEnglishTokenizer;
+import org.omegat.util.Preferences;
+import org.omegat.util.TestPreferencesInitializer;
+
+public class ExactMatchIndexTest {
+
+    private static final File TMX_MATCH_EN_CA = new File("test/data/tmx/test-match-stat-en-ca.tmx");
+    private static final String[] QUERIES = { "Grant Admin Access", "grant admin access", "Confirm Admin Account",
+            "Continue to", "Continue to the site", "Welcome to %{site_name}!" };
+
+    private static Path tmpDir;
+
+    @Test
+    public void testFindEntries() {
+        ExactMatchIndex index = new ExactMatchIndex(Locale.ENGLISH);
+        index.checkRemovePattern(null);
+        List<SourceTextEntry> entries = new ArrayList<>();
+        for (String source : new String[] { "Hello world", "hello WORLD", "Other", "Hello world[x]",
+                "Hello world" }) {
+            entries.add(new SourceTextEntry(new EntryKey("file", source, null, "", "", null), entries.size() + 1,
+                    null, null, Collections.emptyList()));
+        }
+        assertArrayEquals(new int[] { 0, 1, 4 }, index.findEntries(entries, index.normalize("HELLO world")));
+        assertArrayEquals(new int[0], index.findEntries(entries, index.normalize("Hello")));
+
+        index.checkRemovePattern(Pattern.compile("\\[x\\]"));
+        assertEquals("hello world", index.normalize("Hello world[x]"));
+        assertArrayEquals(new int[] { 0, 1, 3, 4 }, index.findEntries(entries, "hello world"));
+    }
+
+    @Test
+    public void testSameResultAsFullSearch() throws Exception {
+        ProjectProperties prop = new ProjectProperties(tmpDir.toFile());
+        prop.setSourceLanguage("en");
+        prop.setTargetLanguage("ca");
+        prop.setSupportDefaultTranslations(true);
+        prop.setSentenceSegmentingEnabled(true);
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        ITokenizer tokenizer = new LuceneEnglishTokenizer();
+        ExactMatchIndex index = new ExactMatchIndex(prop.getSourceLanguage().getLocale());
+
+        IProject project = new FindMatchesTest.TestProject(prop, null, TMX_MATCH_EN_CA, tokenizer,
+                new DefaultTokenizer(), segmenter) {
+            @Override
+            public ExactMatchIndex getExactMatchIndex() {
+                return index;
+            }
+        };
+        for (int maxCount : new int[] { 1, 5 }) {
+            for (String query : QUERIES) {
+                Preferences.setPreference(Preferences.FUZZY_MATCH_EXHAUSTIVE_SCAN, true);
+                List<NearString> expected = new FindMatches(project, segmenter, maxCount, false, false, true, 30)
+                        .search(query, true, false, () -> false);
+                Preferences.setPreference(Preferences.FUZZY_MATCH_EXHAUSTIVE_SCAN, false);
+                FindMatches finder = new FindMatches(project, segmenter, maxCount, false, false, true, 30);
+                List<NearString> actual = finder.search(query, true, false, () -> false);
+                String message = query + " #" + maxCount;
+                assertEquals(message, expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(message, expected.get(i).source, actual.get(i).source);
+                    assertEquals(message, expected.get(i).translation, actual.get(i).translation);
+                    assertEquals(message, expected.get(i).scores[0].toString(), actual.get(i).scores[0].toString());
+                }
+                if (maxCount == 1 && query.equalsIgnoreCase("Grant Admin Access")) {
+                    // found without comparing the whole TM
+                    assertEquals(message, 1, finder.getPruningStats().compared);
+                }
+            }
+        }
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        tmpDir = Files.createTempDirectory("omegat");
+        assertTrue(tmpDir.toFile().isDirectory());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Core.initializeConsole(new TreeMap<>());
+        Core.registerTokenizerClass(DefaultTokenizer.class);
+        Core.registerTokenizerClass(LuceneEnglishTokenizer.class);
+        TestPreferencesInitializer.init();
+        Preferences.setPreference(Preferences.EXT_TMX_SHOW_LEVEL2, false);
+        Preferences.setPreference(Preferences.EXT_TMX_KEEP_FOREIGN_MATCH, true);
+    }
+
+    @After
+    public void tearDown() {
+        Preferences.setPreference(Preferences.FUZZY_MATCH_EXHAUSTIVE_SCAN, false);
+    }
+}
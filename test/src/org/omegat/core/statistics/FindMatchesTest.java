@@ -26,14 +26,19 @@
 package org.omegat.core.statistics;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -172,6 +177,216 @@ public class FindMatchesTest {
         assertEquals("YYY", result.get(0).translation);
     }
 
+    /**
+     * Matches of separate sentences must be reused from the project's cache,
+     * and be the same when sentences are searched in parallel.
+     */
+    @Test
+    public void testSentenceMatchCache() throws Exception {
+        ProjectProperties prop = new ProjectProperties(tmpDir.toFile());
+        prop.setSourceLanguage("en");
+        prop.setTargetLanguage("ca");
+        prop.setSupportDefaultTranslations(true);
+        prop.setSentenceSegmentingEnabled(false);
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        TestProject project = new TestProject(prop, TMX_MATCH_EN_CA, null, new LuceneEnglishTokenizer(),
+                new DefaultTokenizer(), segmenter);
+        project.sentenceMatchCache = new SentenceMatchCache();
+        IStopped iStopped = () -> false;
+        String srcText = "This badge is granted when you’ve invited 5 people who subsequently spent enough "
+                + "time on the site to become full members. "
+                + "Wow! "
+                + "Thanks for expanding the diversity of our community with new members!";
+        List<NearString> expected = new FindMatches(new TestProject(prop, TMX_MATCH_EN_CA, null,
+                new LuceneEnglishTokenizer(), new DefaultTokenizer(), segmenter), segmenter,
+                OConsts.MAX_NEAR_STRINGS, true, false, true, 30).search(srcText, true, true, iStopped);
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            project.sentenceMatchCache.clear();
+            FindMatches finder = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, true, false, true,
+                    30, parallel);
+            List<NearString> first = finder.search(srcText, true, true, iStopped);
+            assertEquals(3, project.sentenceMatchCache.size());
+            List<NearString> second = finder.search(srcText, true, true, iStopped);
+            for (List<NearString> result : Arrays.asList(first, second)) {
+                assertEquals(expected.size(), result.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).source, result.get(i).source);
+                    assertEquals(expected.get(i).translation, result.get(i).translation);
+                    assertEquals(expected.get(i).scores[0].score, result.get(i).scores[0].score);
+                }
+            }
+        }
+        assertEquals(6, project.sentenceMatchCache.getStats().hitCount());
+
+        // results of searches started before clear must not be stored
+        long generation = project.sentenceMatchCache.getGeneration();
+        project.sentenceMatchCache.clear();
+        project.sentenceMatchCache.put("", "Wow!", generation, SentenceMatchCache.Match.NONE);
+        assertEquals(0, project.sentenceMatchCache.size());
+
+        // change of one translation drops only matches with its source
+        generation = project.sentenceMatchCache.getGeneration();
+        project.sentenceMatchCache.put("", "Wow!", generation, new SentenceMatchCache.Match("Wow!", "Bé!"));
+        project.sentenceMatchCache.put("", "Hi!", generation, SentenceMatchCache.Match.NONE);
+        project.sentenceMatchCache.invalidate("Wow!");
+        assertNull(project.sentenceMatchCache.get("", "Wow!"));
+        assertSame(SentenceMatchCache.Match.NONE, project.sentenceMatchCache.get("", "Hi!"));
+        project.sentenceMatchCache.put("", "Wow!", generation, SentenceMatchCache.Match.NONE);
+        assertNull(project.sentenceMatchCache.get("", "Wow!"));
+    }
+
+    @Test
+    public void testParallelSearch() throws Exception {
+        ProjectProperties prop = new ProjectProperties(tmpDir.toFile());
+        prop.setSourceLanguage("en");
+        prop.setTargetLanguage("ca");
+        prop.setSupportDefaultTranslations(true);
+        prop.setSentenceSegmentingEnabled(true);
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        IProject project = new TestProject(prop, TMX_MATCH_EN_CA, TMX_MATCH_EN_CA, new LuceneEnglishTokenizer(),
+                new DefaultTokenizer(), segmenter);
+        String[] queries = { "Grant Admin Access", "Sorry, this account confirmation link is no longer valid.",
+                "Thanks for expanding the diversity of our community with new members!" };
+        for (String query : queries) {
+            List<NearString> expected = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, false,
+                    false, true, 30, false).search(query, true, false, () -> false);
+            List<NearString> actual = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, false,
+                    false, true, 30, true).search(query, true, false, () -> false);
+            assertEquals(query, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(query, expected.get(i).source, actual.get(i).source);
+                assertEquals(query, expected.get(i).translation, actual.get(i).translation);
+                assertEquals(query, expected.get(i).scores[0].toString(), actual.get(i).scores[0].toString());
+            }
+        }
+    }
+
+    /**
+     * Parallel workers must keep all attributions of a match when its source
+     * is in several TMs, even if other matches have the same scores.
+     */
+    @Test
+    public void testParallelSearchDuplicates() throws Exception {
+        ProjectProperties prop = new ProjectProperties(tmpDir.toFile());
+        prop.setSourceLanguage("en");
+        prop.setTargetLanguage("ca");
+        prop.setSupportDefaultTranslations(true);
+        prop.setSentenceSegmentingEnabled(true);
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        String duplicate = "alpha beta gamma zeta";
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        first.add(duplicate);
+        for (int i = 0; i < 100; i++) {
+            first.add("lorem ipsum dolor sit amet " + word(i));
+            if (i < 2 * OConsts.MAX_NEAR_STRINGS) {
+                // the same scores as the duplicate
+                second.add("alpha beta gamma " + word(i));
+            }
+        }
+        second.add(duplicate);
+        Map<String, ExternalTMX> transMemories = new TreeMap<>();
+        for (File tmx : new File[] { writeTMX("first.tmx", first), writeTMX("second.tmx", second) }) {
+            transMemories.put(tmx.getPath(), ExternalTMFactory.load(tmx, prop, segmenter, null));
+        }
+        IProject project = new TestProject(prop, null, null, new LuceneEnglishTokenizer(), new DefaultTokenizer(),
+                segmenter) {
+            @Override
+            public Map<String, ExternalTMX> getTransMemories() {
+                return transMemories;
+            }
+        };
+
+        String query = "alpha beta gamma delta";
+        List<NearString> expected = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, false, false,
+                true, 30, false).search(query, true, false, () -> false);
+        assertEquals(OConsts.MAX_NEAR_STRINGS, expected.size());
+        assertEquals(duplicate, expected.get(0).source);
+        assertEquals(2, expected.get(0).projs.length);
+        List<NearString> actual = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, false, false,
+                true, 30, true).search(query, true, false, () -> false);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).source, actual.get(i).source);
+            assertEquals(expected.get(i).translation, actual.get(i).translation);
+            assertEquals(Arrays.asList(expected.get(i).projs), Arrays.asList(actual.get(i).projs));
+            assertEquals(Arrays.toString(expected.get(i).scores), Arrays.toString(actual.get(i).scores));
+        }
+    }
+
+    private static String word(int i) {
+        return "item" + (char) ('a' + i / 26) + (char) ('a' + i % 26);
+    }
+
+    private static File writeTMX(String name, List<String> sources) throws Exception {
+        StringBuilder tmx = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<tmx version=\"1.4\"><header creationtool=\"test\" creationtoolversion=\"1\""
+                + " segtype=\"sentence\" o-tmf=\"none\" adminlang=\"en\" srclang=\"en\""
+                + " datatype=\"plaintext\"/><body>\n");
+        for (String source : sources) {
+            tmx.append("<tu><tuv xml:lang=\"en\"><seg>").append(source).append("</seg></tuv>")
+                    .append("<tuv xml:lang=\"ca\"><seg>").append(source.toUpperCase(Locale.ENGLISH))
+                    .append("</seg></tuv></tu>\n");
+        }
+        tmx.append("</body></tmx>\n");
+        Path file = tmpDir.resolve(name);
+        Files.write(file, tmx.toString().getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    @Test
+    public void testBatchSearch() throws Exception {
+        ProjectProperties prop = new ProjectProperties(tmpDir.toFile());
+        prop.setSourceLanguage("en");
+        prop.setTargetLanguage("ca");
+        prop.setSupportDefaultTranslations(true);
+        prop.setSentenceSegmentingEnabled(true);
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        IProject project = new TestProject(prop, TMX_MATCH_EN_CA, TMX_MATCH_EN_CA, new LuceneEnglishTokenizer(),
+                new DefaultTokenizer(), segmenter);
+        List<String> queries = Arrays.asList("Grant Admin Access", "Continue to the site",
+                "Sorry, this account confirmation link is no longer valid.", "Grant Admin Access",
+                "Thanks for expanding the diversity of our community with new members!", "Nothing similar");
+        for (boolean parallel : new boolean[] { false, true }) {
+            List<List<NearString>> actual = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, false,
+                    false, true, 30, parallel).search(queries, true, false, () -> false);
+            assertEquals(queries.size(), actual.size());
+            for (int q = 0; q < queries.size(); q++) {
+                String query = queries.get(q);
+                List<NearString> expected = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, false,
+                        false, true, 30, false).search(query, true, false, () -> false);
+                assertEquals(query, expected.size(), actual.get(q).size());
+                for (int i = 0; i < expected.size(); i++) {
+                    NearString near = actual.get(q).get(i);
+                    assertEquals(query, expected.get(i).source, near.source);
+                    assertEquals(query, expected.get(i).translation, near.translation);
+                    assertEquals(query, expected.get(i).scores[0].toString(), near.scores[0].toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPruningStats() throws Exception {
+        ProjectProperties prop = new ProjectProperties(tmpDir.toFile());
+        prop.setSourceLanguage("en");
+        prop.setTargetLanguage("ca");
+        prop.setSupportDefaultTranslations(true);
+        prop.setSentenceSegmentingEnabled(true);
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        IProject project = new TestProject(prop, null, TMX_MATCH_EN_CA, new LuceneEnglishTokenizer(),
+                new DefaultTokenizer(), segmenter);
+        FindMatches finder = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS, false, false,
+                true, 70);
+        List<NearString> result = finder.search("Grant Admin Access", true, false, () -> false);
+        FindMatches.PruningStats stats = finder.getPruningStats();
+        assertTrue(stats.compared > 0);
+        // most of TM entries are much longer than query
+        assertTrue(stats.byLength > stats.compared / 2);
+        assertTrue(stats.compared >= stats.byLength + stats.byTokens + stats.byDistance + result.size());
+    }
+
     /**
      * Test with tmx file with en-US, en-GB, fr and sr.
      * <p>
@@ -238,6 +453,7 @@ public class FindMatchesTest {
         private final ITokenizer sourceTokenizer;
         private final ITokenizer targetTokenizer;
         private final Segmenter segmenter;
+        SentenceMatchCache sentenceMatchCache;
 
         final ProjectTMX.CheckOrphanedCallback checkOrphanedCallback = new ProjectTMX.CheckOrphanedCallback() {
             public boolean existSourceInProject(String src) {
@@ -342,6 +558,11 @@ public class FindMatchesTest {
             return Collections.emptyMap();
         }
 
+        @Override
+        public SentenceMatchCache getSentenceMatchCache() {
+            return sentenceMatchCache;
+        }
+
         @Override
         public Map<String, ExternalTMX> getTransMemories() {
             if (externalTmx == null) {
@@ -0,0 +1,166 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.omegat.core.Core;
+import org.omegat.core.data.IProject;
+import org.omegat.core.data.ProjectProperties;
+import org.omegat.core.matching.NearString;
+import org.omegat.core.segmentation.Segmenter;
+import org.omegat.tokenizer.DefaultTokenizer;
+import org.omegat.tokenizer.ITokenizer;
+import org.omegat.tokenizer.LuceneEnglishTokenizer;
+import org.omegat.util.OConsts;
+import org.omegat.util.Preferences;
+import org.omegat.util.TestPreferencesInitializer;
+
+public class FuzzyMatchIndexTest {
+
+    private static final File TMX_MATCH_EN_CA = new File("test/data/tmx/test-match-stat-en-ca.tmx");
+    private static final String[] QUERIES = { "Grant Admin Access", "Confirm Admin Account",
+            "Sorry, this account confirmation link is no longer valid.",
+            "Are you sure you want to be an administrator?", "Continue to the site",
+            "Thanks for expanding the diversity of our community with new members!" };
+
+    private static Path tmpDir;
+
+    @Test
+    public void testCandidates() {
+        ITokenizer tok = new DefaultTokenizer();
+        FuzzyMatchIndex index = new FuzzyMatchIndex(new TokenizedCorpus(tok, Locale.ENGLISH));
+        index.checkRemovePattern(null);
+        int near = index.getDocId("the quick brown fox jumps");
+        int far = index.getDocId("something completely different");
+        int longer = index.getDocId("the quick brown fox jumps over the lazy dog again and again");
+        assertEquals(near, index.getDocId("the quick brown fox jumps"));
+        assertEquals(3, index.size());
+
+        FuzzyMatchIndex.Candidates candidates = index.findCandidates("the quick brown fox jumped", 70);
+        assertTrue(candidates.contains(near));
+        assertFalse(candidates.contains(far));
+        assertFalse("Too long to reach threshold", candidates.contains(longer));
+        // not indexed yet, so must be checked
+        assertTrue(candidates.contains(index.getDocId("the lazy dog")));
+
+        candidates = index.findCandidates("", 70);
+        assertFalse(candidates.contains(near));
+
+        // ids are assigned again after clear, so all are candidates for
+        // searches started before
+        index.clear();
+        assertEquals(0, index.size());
+        assertEquals(0, index.getDocId("something completely different"));
+        assertTrue(candidates.contains(far));
+    }
+
+    @Test
+    public void testSameResultAsExhaustiveScan() throws Exception {
+        ProjectProperties prop = new ProjectProperties(tmpDir.toFile());
+        prop.setSourceLanguage("en");
+        prop.setTargetLanguage("ca");
+        prop.setSupportDefaultTranslations(true);
+        prop.setSentenceSegmentingEnabled(true);
+        Segmenter segmenter = new Segmenter(Preferences.getSRX());
+        ITokenizer tokenizer = new LuceneEnglishTokenizer();
+        FuzzyMatchIndex index = new FuzzyMatchIndex(
+                new TokenizedCorpus(tokenizer, prop.getSourceLanguage().getLocale()));
+
+        IProject memoryProject = new FindMatchesTest.TestProject(prop, TMX_MATCH_EN_CA, null, tokenizer,
+                new DefaultTokenizer(), segmenter) {
+            @Override
+            public FuzzyMatchIndex getFuzzyMatchIndex() {
+                return index;
+            }
+        };
+        IProject tmProject = new FindMatchesTest.TestProject(prop, null, TMX_MATCH_EN_CA, tokenizer,
+                new DefaultTokenizer(), segmenter) {
+            @Override
+            public FuzzyMatchIndex getFuzzyMatchIndex() {
+                return index;
+            }
+        };
+        for (IProject project : new IProject[] { memoryProject, tmProject }) {
+            for (int threshold : new int[] { 10, 30, 50, 70, 90 }) {
+                for (String query : QUERIES) {
+                    Preferences.setPreference(Preferences.FUZZY_MATCH_EXHAUSTIVE_SCAN, true);
+                    List<NearString> expected = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS,
+                            false, false, true, threshold).search(query, true, false, () -> false);
+                    Preferences.setPreference(Preferences.FUZZY_MATCH_EXHAUSTIVE_SCAN, false);
+                    List<NearString> actual = new FindMatches(project, segmenter, OConsts.MAX_NEAR_STRINGS,
+                            false, false, true, threshold).search(query, true, false, () -> false);
+                    assertSameMatches(query + " @" + threshold, expected, actual);
+                }
+            }
+        }
+        assertTrue(index.size() > 0);
+    }
+
+    private static void assertSameMatches(String message, List<NearString> expected, List<NearString> actual) {
+        assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(message, expected.get(i).source, actual.get(i).source);
+            assertEquals(message, expected.get(i).translation, actual.get(i).translation);
+            assertEquals(message, expected.get(i).scores[0].toString(), actual.get(i).scores[0].toString());
+        }
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        tmpDir = Files.createTempDirectory("omegat");
+        assertTrue(tmpDir.toFile().isDirectory());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Core.initializeConsole(new TreeMap<>());
+        Core.registerTokenizerClass(DefaultTokenizer.class);
+        Core.registerTokenizerClass(LuceneEnglishTokenizer.class);
+        TestPreferencesInitializer.init();
+        Preferences.setPreference(Preferences.EXT_TMX_SHOW_LEVEL2, false);
+        Preferences.setPreference(Preferences.EXT_TMX_KEEP_FOREIGN_MATCH, true);
+    }
+
+    @After
+    public void tearDown() {
+        Preferences.setPreference(Preferences.FUZZY_MATCH_EXHAUSTIVE_SCAN, false);
+    }
+}
@@ -0,0 +1,202 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.omegat.core.data.EntryKey;
+import org.omegat.core.data.IProject;
+import org.omegat.core.data.ITMXEntry;
+import org.omegat.core.data.NotLoadedProject;
+import org.omegat.core.data.PrepareTMXEntry;
+import org.omegat.core.data.ProtectedPart;
+import org.omegat.core.data.SourceTextEntry;
+import org.omegat.core.data.TMXEntry;
+
+public class ProjectStatisticsTest {
+
+    private TestProject project;
+
+    @Before
+    public void setUp() {
+        project = new TestProject();
+        project.addFile("a.txt", "One two", "Three four five", "One two", "Tag <b0>");
+        project.addFile("b.txt", "Three four five", "Six", "Tag <i0>");
+        project.addFile("c.txt", "Seven eight", "One two");
+        project.addFile("empty.txt");
+    }
+
+    @Test
+    public void testRebuild() {
+        project.translate(1, "Tres cuatro cinco", true);
+        ProjectStatistics stats = new ProjectStatistics(project);
+        stats.rebuild();
+        assertSameStats(CalcStandardStatistics.buildProjectStats(project), stats.getResult());
+    }
+
+    @Test
+    public void testUpdate() {
+        ProjectStatistics stats = new ProjectStatistics(project);
+        stats.rebuild();
+        assertSameStats(CalcStandardStatistics.buildProjectStats(project), stats.getResult());
+
+        // default translation of a source used in all files
+        translate(stats, 0, "Uno dos", true);
+        // alternative translation of one of duplicates
+        translate(stats, 1, "Tres cuatro cinco", false);
+        // the same unique key by protected parts
+        translate(stats, 6, "Etiqueta <i0>", true);
+        translate(stats, 3, "Etiqueta <b0>", false);
+        // removed translation
+        translate(stats, 0, null, true);
+        translate(stats, 6, null, true);
+        translate(stats, 5, "Seis", true);
+    }
+
+    @Test
+    public void testResultIsCopy() {
+        ProjectStatistics stats = new ProjectStatistics(project);
+        stats.rebuild();
+        StatsResult before = stats.getResult();
+        String[][] header = before.getHeaderTable();
+        translate(stats, 5, "Seis", true);
+        assertArrayEquals(header, before.getHeaderTable());
+    }
+
+    private void translate(ProjectStatistics stats, int entry, String translation, boolean defaultTranslation) {
+        project.translate(entry, translation, defaultTranslation);
+        stats.update(project.getAllEntries().get(entry));
+        StatsResult expected = CalcStandardStatistics.buildProjectStats(project);
+        assertSameStats(expected, stats.getResult());
+
+        StatisticsInfo info = new StatisticsInfo();
+        expected.updateStatisticsInfo(info);
+        assertEquals(info.numberOfTranslatedSegments, stats.getTranslatedUniqueCount());
+    }
+
+    private static void assertSameStats(StatsResult expected, StatsResult actual) {
+        assertArrayEquals(expected.getHeaderTable(), actual.getHeaderTable());
+        assertArrayEquals(expected.getFilesTable(), actual.getFilesTable());
+        StatisticsInfo expectedInfo = new StatisticsInfo();
+        expected.updateStatisticsInfo(expectedInfo);
+        StatisticsInfo actualInfo = new StatisticsInfo();
+        actual.updateStatisticsInfo(actualInfo);
+        assertEquals(expectedInfo.numberOfTranslatedSegments, actualInfo.numberOfTranslatedSegments);
+        assertEquals(expectedInfo.numberOfUniqueSegments, actualInfo.numberOfUniqueSegments);
+        assertEquals(expectedInfo.numberOfSegmentsTotal, actualInfo.numberOfSegmentsTotal);
+        assertEquals(expectedInfo.uniqueCountsByFile, actualInfo.uniqueCountsByFile);
+    }
+
+    /**
+     * Create project memory entry, as the project does. The constructor is
+     * visible only for the project classes.
+     */
+    private static TMXEntry createTMXEntry(PrepareTMXEntry entry, boolean defaultTranslation) {
+        try {
+            Constructor<TMXEntry> constructor = TMXEntry.class.getDeclaredConstructor(ITMXEntry.class,
+                    boolean.class, TMXEntry.ExternalLinked.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(entry, defaultTranslation, null);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    static class TestProject extends NotLoadedProject implements IProject {
+        private final List<SourceTextEntry> entries = new ArrayList<>();
+        private final List<FileInfo> files = new ArrayList<>();
+        private final Map<String, TMXEntry> defaults = new HashMap<>();
+        private final Map<EntryKey, TMXEntry> alternatives = new HashMap<>();
+
+        void addFile(String path, String... sources) {
+            FileInfo file = new FileInfo();
+            file.filePath = path;
+            for (String source : sources) {
+                List<ProtectedPart> protectedParts = new ArrayList<>();
+                int tag = source.indexOf('<');
+                if (tag >= 0) {
+                    ProtectedPart pp = new ProtectedPart();
+                    pp.setTextInSourceSegment(source.substring(tag));
+                    pp.setReplacementUniquenessCalculation("<t>");
+                    pp.setReplacementWordsCountCalculation("");
+                    pp.setReplacementMatchCalculation("");
+                    protectedParts.add(pp);
+                }
+                EntryKey key = new EntryKey(path, source, Integer.toString(entries.size()), null, null, null);
+                SourceTextEntry ste = new SourceTextEntry(key, entries.size() + 1, null, null, protectedParts);
+                entries.add(ste);
+                file.entries.add(ste);
+            }
+            files.add(file);
+        }
+
+        void translate(int entry, String translation, boolean defaultTranslation) {
+            SourceTextEntry ste = entries.get(entry);
+            TMXEntry te = null;
+            if (translation != null) {
+                PrepareTMXEntry prepare = new PrepareTMXEntry();
+                prepare.source = ste.getSrcText();
+                prepare.translation = translation;
+                te = createTMXEntry(prepare, defaultTranslation);
+            }
+            if (defaultTranslation) {
+                defaults.put(ste.getSrcText(), te);
+            } else {
+                alternatives.put(ste.getKey(), te);
+            }
+        }
+
+        @Override
+        public List<SourceTextEntry> getAllEntries() {
+            return Collections.unmodifiableList(entries);
+        }
+
+        @Override
+        public List<FileInfo> getProjectFiles() {
+            return Collections.unmodifiableList(files);
+        }
+
+        @Override
+        public TMXEntry getTranslationInfo(SourceTextEntry ste) {
+            TMXEntry r = alternatives.get(ste.getKey());
+            if (r == null) {
+                r = defaults.get(ste.getSrcText());
+            }
+            return r == null ? EMPTY_TRANSLATION : r;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.core.statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+import org.omegat.tokenizer.DefaultTokenizer;
+
+public class TokenizedCorpusTest {
+
+    @Test
+    public void testIds() {
+        TokenizedCorpus corpus = new TokenizedCorpus(new DefaultTokenizer(), Locale.ENGLISH);
+        int[][] first = corpus.get("The quick brown fox");
+        assertSame(first, corpus.get("The quick brown fox"));
+        assertEquals(1, corpus.size());
+
+        int[][] second = corpus.get("the quick red fox");
+        // ids are the same for the same words in all texts
+        assertEquals(first[TokenizedCorpus.NO_STEM][0], second[TokenizedCorpus.NO_STEM][0]);
+        assertEquals(first[TokenizedCorpus.NO_STEM][1], second[TokenizedCorpus.NO_STEM][1]);
+        assertNotEquals(first[TokenizedCorpus.NO_STEM][2], second[TokenizedCorpus.NO_STEM][2]);
+        assertEquals(first[TokenizedCorpus.NO_STEM][3], second[TokenizedCorpus.NO_STEM][3]);
+        assertArrayEquals(second[TokenizedCorpus.ALL], corpus.get("The quick red fox", TokenizedCorpus.ALL));
+    }
+
+    @Test
+    public void testClear() {
+        TokenizedCorpus corpus = new TokenizedCorpus(new DefaultTokenizer(), Locale.ENGLISH);
+        int[] before = corpus.get("one two three", TokenizedCorpus.NO_STEM);
+        corpus.clear();
+        assertEquals(0, corpus.size());
+        // ids are assigned from the start again
+        assertArrayEquals(new int[] { 0, 1 }, corpus.get("three two", TokenizedCorpus.NO_STEM));
+        assertArrayEquals(new int[] { 2, 1, 0 }, corpus.get("one two three", TokenizedCorpus.NO_STEM));
+        assertArrayEquals(new int[] { 0, 1, 2 }, before);
+    }
+
+    @Test
+    public void testStats() {
+        TokenizedCorpus corpus = new TokenizedCorpus(new DefaultTokenizer(), Locale.ENGLISH, 1024 * 1024);
+        corpus.get("one two three");
+        corpus.get("one two three", TokenizedCorpus.STEM);
+        corpus.get("four five");
+        assertEquals(1, corpus.getStats().hitCount());
+        assertEquals(2, corpus.getStats().missCount());
+        assertEquals(1024 * 1024, corpus.getMaxWeight());
+        assertTrue(corpus.getWeight() > 0);
+    }
+
+    @Test
+    public void testWeigh() {
+        TokenizedCorpus corpus = new TokenizedCorpus(new DefaultTokenizer(), Locale.ENGLISH);
+        String shortText = "one two";
+        String longText = "one two three four five six seven eight nine ten";
+        assertTrue(TokenizedCorpus.weigh(shortText, corpus.get(shortText)) < TokenizedCorpus.weigh(longText,
+                corpus.get(longText)));
+    }
+}
@@ -31,11 +31,16 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import javax.xml.bind.JAXBContext;
@@ -54,7 +59,9 @@ import org.omegat.core.data.ProtectedPart;
 import org.omegat.filters2.FilterContext;
 import org.omegat.filters2.IFilter;
 import org.omegat.filters2.IParseCallback;
+import org.omegat.filters2.ITranslateCallback;
 import org.omegat.filters2.TranslationException;
+import org.omegat.filters2.text.TextFilter;
 
 import gen.core.filters.Filter.Option;
 import gen.core.filters.Filters;
@@ -145,8 +152,65 @@ public class FilterMasterTest {
         assertTrue("Filter option is not empty", option.isEmpty());
     }
 
+    @Test
+    public void testSerialProcessingLock() throws Exception {
+        FilterMaster.setFilterClasses(Arrays.asList(new Class<?>[] { LockCheckingFilter.class }));
+        checkSerialProcessingLock(false);
+        FilterMaster.setFilterClasses(Arrays.asList(new Class<?>[] { SerialFilter.class }));
+        checkSerialProcessingLock(true);
+    }
+
+    /**
+     * Loads and translates a file, and checks whether the filter held the
+     * lock for filters which don't support parallel processing.
+     */
+    private static void checkSerialProcessingLock(boolean expected) throws Exception {
+        File dir = Files.createTempDirectory("omegat-filtermaster").toFile();
+        try {
+            File source = new File(dir, "source");
+            File target = new File(dir, "target");
+            assertTrue(source.mkdir());
+            assertTrue(target.mkdir());
+            Files.write(new File(source, "file.txt").toPath(), "text".getBytes(StandardCharsets.UTF_8));
+
+            FilterMaster fm = new FilterMaster(FilterMaster.createDefaultFiltersConfig());
+            FilterContext fc = new FilterContext(new ProjectProperties(dir));
+            LockCheckingFilter.HOLDS_LOCK.clear();
+            assertNotNull(loadFile(fm, new File(source, "file.txt").getPath(), fc));
+            fm.translateFile(source.getPath(), "file.txt", target.getPath(), fc, new ITranslateCallback() {
+                @Override
+                public void setPass(int pass) {
+                    /* empty */
+                }
+
+                @Override
+                public void linkPrevNextSegments() {
+                    /* empty */
+                }
+
+                @Override
+                public String getTranslation(String id, String source, String path) {
+                    return null;
+                }
+
+                @Override
+                public String getTranslation(String id, String source) {
+                    return null;
+                }
+            });
+            assertEquals(Arrays.asList(expected, expected), LockCheckingFilter.HOLDS_LOCK);
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
     private static void loadFile(FilterMaster fm) throws IOException, TranslationException, Exception {
-        fm.loadFile("foo.html", new FilterContext(new ProjectProperties(new File("test-filemaster"))),
+        loadFile(fm, "foo.html", new FilterContext(new ProjectProperties(new File("test-filemaster"))));
+    }
+
+    private static IFilter loadFile(FilterMaster fm, String filename, FilterContext fc)
+            throws IOException, TranslationException {
+        return fm.loadFile(filename, fc,
                 new IParseCallback() {
 
                     @Override
@@ -168,4 +232,25 @@ public class FilterMasterTest {
                     }
                 });
     }
+
+    /**
+     * Text filter which records whether it processes files under
+     * {@link FilterMaster#SERIAL_PROCESSING_LOCK}.
+     */
+    public static class LockCheckingFilter extends TextFilter {
+        static final List<Boolean> HOLDS_LOCK = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void processFile(BufferedReader in, BufferedWriter out, FilterContext fc) throws IOException {
+            HOLDS_LOCK.add(Thread.holdsLock(FilterMaster.SERIAL_PROCESSING_LOCK));
+            super.processFile(in, out, fc);
+        }
+    }
+
+    public static class SerialFilter extends LockCheckingFilter {
+        @Override
+        public boolean isParallelProcessingSupported() {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+
+package org.omegat.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import org.omegat.filters2.TranslationException;
+
+public class FutureUtilsTest {
+
+    @Test
+    public void testGetResult() throws Exception {
+        assertEquals("result", FutureUtils.getResult(CompletableFuture.completedFuture("result"), "file"));
+
+        TranslationException translation = new TranslationException("translation");
+        assertSame(translation, getException(translation));
+        IOException io = new IOException("io");
+        assertSame(io, getException(io));
+        IllegalStateException runtime = new IllegalStateException("runtime");
+        assertSame(runtime, getException(runtime));
+
+        // other checked exceptions are wrapped with the file name
+        Exception other = new Exception("other");
+        Exception wrapped = getException(other);
+        assertEquals(IOException.class, wrapped.getClass());
+        assertEquals("file", wrapped.getMessage());
+        assertSame(other, wrapped.getCause());
+    }
+
+    private static Exception getException(Exception thrown) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(thrown);
+        try {
+            FutureUtils.getResult(future, "file");
+            fail("Exception should be thrown");
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.omegat.core.data.EntryKey;
+
+public class MemoryUtilsTest {
+
+    @Test
+    public void testDeepSizeOfSharedStrings() {
+        String file = "file.txt";
+        List<EntryKey> shared = new ArrayList<>();
+        List<EntryKey> copies = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String source = "Source " + i;
+            shared.add(new EntryKey(file, source, null, null, null, null));
+            copies.add(new EntryKey(new String(file), source, null, null, null, null));
+        }
+
+        long sharedSize = MemoryUtils.calcDeepSize(shared, false);
+        long copiesSize = MemoryUtils.calcDeepSize(copies, false);
+        assertTrue(sharedSize > 0);
+        assertEquals(copiesSize - 9 * MemoryUtils.calcObjectSize(file), sharedSize);
+        // counted by links, shared strings are the same as copies
+        assertEquals(copiesSize, MemoryUtils.calcDeepSize(shared, true));
+    }
+
+    @Test
+    public void testDeepSizeOfCycles() {
+        List<Object> list = new ArrayList<>();
+        list.add(list);
+        list.add("text");
+        assertTrue(MemoryUtils.calcDeepSize(Collections.unmodifiableList(list), false) > 0);
+    }
+}
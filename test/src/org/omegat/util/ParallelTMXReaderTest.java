@@ -0,0 +1,171 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelTMXReaderTest {
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    @Test
+    public void testSameAsOneThread() throws Exception {
+        for (String name : new String[] { "test-level2.tmx", "test-multiple-tuv.tmx",
+                "test-match-stat-en-ca.tmx" }) {
+            File file = new File("test/data/tmx", name);
+            List<String> expected = read(file, 1, 1000, true);
+            for (long partSize : new long[] { 1, 200, 5000 }) {
+                assertEquals(name, expected, read(file, 4, partSize, true));
+                List<String> unordered = read(file, 4, partSize, false);
+                Collections.sort(unordered);
+                List<String> sorted = new ArrayList<>(expected);
+                Collections.sort(sorted);
+                assertEquals(name, sorted, unordered);
+            }
+        }
+    }
+
+    @Test
+    public void testSplit() throws Exception {
+        File file = folder.newFile("test.tmx");
+        String prolog = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<!DOCTYPE tmx [ <!ENTITY e \"entity\"> ]>\n"
+                + "<tmx version=\"1.4\"><header srclang=\"en\" segtype=\"sentence\"/><body>\n";
+        String text = prolog + tu("one &e;") + "<!-- <tu> in comment -->\n" + tu("two <![CDATA[<tu>]]>")
+                + "<?pi <tu> ?>\n" + tu("три") + "</body></tmx>\n";
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+        ParallelTMXReader.Parts parts = ParallelTMXReader.split(file, 1);
+        assertNotNull(parts);
+        assertEquals(3, parts.starts.length);
+        assertEquals(prolog, new String(parts.prolog, StandardCharsets.UTF_8));
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length - "</body></tmx>\n".length(), parts.end);
+
+        List<String> units = read(file, 3, 1, true);
+        assertEquals(3, units.size());
+        assertEquals("one entity", units.get(0));
+        assertEquals("two <tu>", units.get(1));
+        assertEquals("три", units.get(2));
+
+        // compressed and not splittable files are read by one thread
+        assertNull(ParallelTMXReader.split(new File("test/data/tmx/test-level2.tmx.gz"), 1));
+        Files.write(file.toPath(), text.replace("UTF-8", "UTF-16").getBytes(StandardCharsets.UTF_16));
+        assertNull(ParallelTMXReader.split(file, 1));
+        assertEquals(units, read(file, 3, 1, true));
+    }
+
+    /**
+     * A worker interrupted while reading its part must not close the file for
+     * other workers: parts before the failed one are still delivered.
+     */
+    @Test
+    public void testInterruptedPart() throws Exception {
+        File file = folder.newFile("big.tmx");
+        StringBuilder text = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<tmx version=\"1.4\"><header srclang=\"en\" segtype=\"sentence\"/><body>\n");
+        for (int i = 0; i < 5000; i++) {
+            text.append(tu("unit " + i));
+        }
+        text.append("</body></tmx>\n");
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+
+        // the interrupted part is big enough to be read by several reads
+        long partSize = 100_000;
+        ParallelTMXReader.Parts parts = ParallelTMXReader.split(file, partSize);
+        assertNotNull(parts);
+        assertTrue(parts.starts.length > 2);
+        String interrupted = unitAt(text.toString(), parts.starts[parts.starts.length - 2]);
+
+        ParallelTMXReader.UnitCallback<String> callback = (tu, tuvSource, tuvTarget, isParagraphSegtype,
+                results) -> {
+            if (tuvSource.text.equals(interrupted)) {
+                Thread.currentThread().interrupt();
+            }
+            results.add(tuvSource.text);
+            return true;
+        };
+        List<String> result = new ArrayList<>();
+        try {
+            new ParallelTMXReader(4).setPartSize(partSize).setOrdered(true).readTMX(file, new Language("en"),
+                    new Language("be"), false, true, false, callback, result::add);
+            fail("Interrupted part should fail");
+        } catch (Exception ex) {
+            // the XML parser may wrap the exception of the closed channel
+        }
+        int count = Integer.parseInt(interrupted.substring("unit ".length()));
+        assertEquals(count, result.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("unit " + i, result.get(i));
+        }
+    }
+
+    /**
+     * Returns text of the unit which starts at the position. Generated file
+     * is ASCII, so positions are the same in characters and bytes.
+     */
+    private static String unitAt(String text, long position) {
+        int start = text.indexOf("<seg>", (int) position) + "<seg>".length();
+        return text.substring(start, text.indexOf("</seg>", start));
+    }
+
+    private static String tu(String text) {
+        return "<tu><tuv xml:lang=\"en\"><seg>" + text + "</seg></tuv></tu>\n";
+    }
+
+    private static List<String> read(File file, int threads, long partSize, boolean ordered) throws Exception {
+        ParallelTMXReader.UnitCallback<String> callback = (tu, tuvSource, tuvTarget, isParagraphSegtype,
+                results) -> {
+            StringBuilder unit = new StringBuilder(tuvSource == null ? "null" : tuvSource.text);
+            for (TMXReader2.ParsedTuv tuv : tu.tuvs) {
+                if (tuv != tuvSource) {
+                    unit.append('|').append(tuv.lang).append('=').append(tuv.text);
+                }
+            }
+            results.add(unit.toString());
+            return true;
+        };
+        List<String> result = new ArrayList<>();
+        new ParallelTMXReader(threads).setPartSize(partSize).setOrdered(ordered).readTMX(file,
+                new Language("en"), new Language("be"), false, true, false, callback, result::add);
+        return result;
+    }
+}
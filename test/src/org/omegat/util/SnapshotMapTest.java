@@ -0,0 +1,127 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SnapshotMapTest {
+
+    @Test
+    public void testSnapshot() {
+        SnapshotMap<String, String> map = new SnapshotMap<>();
+        map.put("one", "1");
+        map.put("two", "2");
+        Map<String, String> snapshot = map.snapshot();
+        map.put("one", "first");
+        map.remove("two");
+        map.put("three", "3");
+
+        assertEquals(2, snapshot.size());
+        assertEquals("1", snapshot.get("one"));
+        assertEquals("2", snapshot.get("two"));
+        assertNull(snapshot.get("three"));
+        assertEquals(2, map.size());
+        assertEquals("first", map.get("one"));
+        assertNull(map.get("two"));
+
+        // iteration doesn't see changes made after its start
+        int count = 0;
+        for (String key : map.keySet()) {
+            map.remove(key);
+            count++;
+        }
+        assertEquals(2, count);
+        assertEquals(0, map.size());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void testSameAsHashMap() {
+        Random random = new Random(1);
+        // small range of keys with few hashes produce collisions
+        for (int keys : new int[] { 50, 5000 }) {
+            for (int hashes : new int[] { 7, Integer.MAX_VALUE }) {
+                SnapshotMap<Key, Integer> map = new SnapshotMap<>();
+                Map<Key, Integer> expected = new HashMap<>();
+                List<Map<Key, Integer>> snapshots = new ArrayList<>();
+                List<Map<Key, Integer>> expectedSnapshots = new ArrayList<>();
+                for (int i = 0; i < 20000; i++) {
+                    int id = random.nextInt(keys);
+                    Key key = new Key(id % hashes * 0x9E3779B9, id);
+                    if (random.nextInt(3) == 0) {
+                        assertEquals(expected.remove(key), map.remove(key));
+                    } else {
+                        int value = random.nextInt();
+                        assertEquals(expected.put(key, value), map.put(key, value));
+                    }
+                    assertEquals(expected.size(), map.size());
+                    if (i % 5000 == 0) {
+                        snapshots.add(map.snapshot());
+                        expectedSnapshots.add(new HashMap<>(expected));
+                    }
+                }
+                assertEquals(expected, map);
+                assertEquals(expected, new HashMap<>(map));
+                assertEquals(expectedSnapshots, snapshots);
+                for (Key key : expected.keySet()) {
+                    map.remove(key);
+                }
+                assertEquals(0, map.size());
+                assertFalse(map.entrySet().iterator().hasNext());
+            }
+        }
+    }
+
+    private static final class Key {
+        final int hash;
+        final int id;
+
+        Key(int hash, int id) {
+            this.hash = hash;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).id == id;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**************************************************************************
+ OmegaT - Computer Assisted Translation (CAT) tool
+          with fuzzy matching, translation memory, keyword search,
+          glossaries, and translation leveraging into updated projects.
+
+ Copyright (C) 2026 OmegaT contributors
+               Home page: https://www.omegat.org/
+               Support center: https://omegat.org/support
+
+ This file is part of OmegaT.
+
+ OmegaT is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ OmegaT is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ **************************************************************************/
+
+package org.omegat.util;
+
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compares speed and allocations of {@link TMXReader2} with the event based
+ * reader it replaced. Not run by the build; run it manually, e.g.
+ * <code>gradlew test --tests TMXReaderBenchmark</code> after removing
+ * {@link Ignore}.
+ * <p>
+ * Reads the TMX from the <code>tmx.benchmark.file</code> system property, or
+ * a generated file with <code>tmx.benchmark.units</code> (default 50000)
+ * translation units.
+ */
+@Ignore
+public class TMXReaderBenchmark {
+
+    private static final int RUNS = 5;
+
+    @Rule
+    public final TemporaryFolder folder = TemporaryFolder.builder().assureDeletion().build();
+
+    @Test
+    public void benchmark() throws Exception {
+        File file;
+        String path = System.getProperty("tmx.benchmark.file");
+        if (path != null) {
+            file = new File(path);
+        } else {
+            file = folder.newFile("benchmark.tmx");
+            generate(file, Integer.getInteger("tmx.benchmark.units", 50000));
+        }
+        for (boolean level2 : new boolean[] { false, true }) {
+            for (int i = 0; i < RUNS; i++) {
+                run("event ", file, level2, (f, l2, callback) -> new TMXEventReader().readTMX(f,
+                        new Language("en"), new Language("fr"), false, false, l2, false, callback));
+                run("cursor", file, level2, (f, l2, callback) -> new TMXReader2().readTMX(f,
+                        new Language("en"), new Language("fr"), false, false, l2, false, callback));
+            }
+        }
+    }
+
+    private void run(String name, File file, boolean level2, Reader reader) throws Exception {
+        int[] count = new int[1];
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        reader.read(file, level2, (tu, tuvSource, tuvTarget, isParagraphSegtype) -> {
+            count[0]++;
+            return true;
+        });
+        long time = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+        double seconds = time / 1e9;
+        System.out.println(String.format(Locale.ENGLISH,
+                "%s level%d: %6d ms, %7.1f MB/s, %9.0f TU/s, %7.1f MB allocated, %5d bytes/TU", name,
+                level2 ? 2 : 1, time / 1000000, file.length() / seconds / 1e6, count[0] / seconds,
+                allocated / 1e6, allocated / Math.max(count[0], 1)));
+    }
+
+    /**
+     * Writes external (not OmegaT) TMX, so that level 2 reading parses
+     * inline tags.
+     */
+    private static void generate(File file, int units) throws Exception {
+        try (PrintWriter out = new PrintWriter(
+                new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            out.println("<!DOCTYPE tmx SYSTEM \"tmx14.dtd\">");
+            out.println("<tmx version=\"1.4\">");
+            out.println("  <header creationtool=\"Benchmark\" creationtoolversion=\"1\" segtype=\"sentence\""
+                    + " o-tmf=\"none\" adminlang=\"EN-US\" srclang=\"en\" datatype=\"plaintext\"/>");
+            out.println("  <body>");
+            for (int i = 0; i < units; i++) {
+                out.println("    <tu tuid=\"" + i + "\" changeid=\"user\" changedate=\"20260101T120000Z\""
+                        + " creationid=\"user\" creationdate=\"2026-01-01T12:00:00Z\">");
+                out.println("      <prop type=\"file\">file" + (i % 100) + ".html</prop>");
+                out.println("      <tuv xml:lang=\"en\">");
+                out.println("        <seg>Segment number " + i + " with <bpt i=\"1\" x=\"1\">&lt;b&gt;</bpt>bold"
+                        + "<ept i=\"1\">&lt;/b&gt;</ept> text and a <ph x=\"2\">&lt;br/&gt;</ph> break.</seg>");
+                out.println("      </tuv>");
+                out.println("      <tuv xml:lang=\"fr\" changedate=\"20260102T080000Z\">");
+                out.println("        <seg>Segment numéro " + i + " avec du texte <bpt i=\"1\" x=\"1\">&lt;b&gt;"
+                        + "</bpt>gras<ept i=\"1\">&lt;/b&gt;</ept> et un <ph x=\"2\">&lt;br/&gt;</ph> saut.</seg>");
+                out.println("      </tuv>");
+                out.println("    </tu>");
+            }
+            out.println("  </body>");
+            out.println("</tmx>");
+        }
+    }
+
+    private interface Reader {
+        void read(File file, boolean level2, TMXReader2.LoadCallback callback) throws Exception;
+    }
+}
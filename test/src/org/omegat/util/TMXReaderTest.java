@@ -31,8 +31,19 @@ import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.ByteOrderMark;
 import org.junit.Test;
@@ -222,4 +233,84 @@ public class TMXReaderTest extends TestCore {
         assertEquals("tr2", tr.get("lang2"));
         assertEquals("tr3", tr.get("lang3"));
     }
+
+    /**
+     * Cursor based reader should produce the same data as event based reader
+     * it replaced.
+     */
+    @Test
+    public void testSameAsEventReader() throws Exception {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get("test/data/tmx"))) {
+            files = paths.filter(p -> p.toString().endsWith(".tmx")).sorted().collect(Collectors.toList());
+        }
+        assertFalse(files.isEmpty());
+        for (Path file : files) {
+            for (boolean extTmxLevel2 : new boolean[] { false, true }) {
+                List<String> expected = new ArrayList<>();
+                new TMXEventReader().readTMX(file.toFile(), new Language("en-US"), new Language("fr"), false,
+                        false, extTmxLevel2, true, (tu, tuvSource, tuvTarget, isParagraphSegtype) -> {
+                            expected.add(dump(tu, tuvSource, tuvTarget, isParagraphSegtype));
+                            return true;
+                        });
+                List<String> actual = new ArrayList<>();
+                new TMXReader2().readTMX(file.toFile(), new Language("en-US"), new Language("fr"), false,
+                        false, extTmxLevel2, true, (tu, tuvSource, tuvTarget, isParagraphSegtype) -> {
+                            actual.add(dump(tu, tuvSource, tuvTarget, isParagraphSegtype));
+                            return true;
+                        });
+                assertEquals(file + (extTmxLevel2 ? " level 2" : " level 1"), expected, actual);
+            }
+        }
+    }
+
+    private static String dump(TMXReader2.ParsedTu tu, TMXReader2.ParsedTuv tuvSource,
+            TMXReader2.ParsedTuv tuvTarget, boolean isParagraphSegtype) {
+        StringBuilder out = new StringBuilder();
+        out.append(tu.changeid).append('|').append(tu.changedate).append('|').append(tu.creationid).append('|')
+                .append(tu.creationdate).append('|').append(tu.note).append('|').append(isParagraphSegtype);
+        for (TMXProp prop : tu.props) {
+            out.append("|prop:").append(prop.getType()).append('=').append(prop.getValue());
+        }
+        for (TMXReader2.ParsedTuv tuv : tu.tuvs) {
+            out.append("|tuv:").append(dump(tuv));
+        }
+        out.append("|source:").append(dump(tuvSource)).append("|target:").append(dump(tuvTarget));
+        return out.toString();
+    }
+
+    private static String dump(TMXReader2.ParsedTuv tuv) {
+        if (tuv == null) {
+            return "null";
+        }
+        return tuv.lang + "," + tuv.changeid + "," + tuv.changedate + "," + tuv.creationid + ","
+                + tuv.creationdate + "," + tuv.text;
+    }
+
+    @Test
+    public void testParseDate() throws Exception {
+        SimpleDateFormat basic = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'", Locale.ENGLISH);
+        basic.setTimeZone(TimeZone.getTimeZone("UTC"));
+        SimpleDateFormat extended = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.ENGLISH);
+        extended.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            // day 31 of short months overflows into the next month, as in
+            // SimpleDateFormat
+            long date = basic.parse(String.format(Locale.ENGLISH, "%04d%02d%02dT%02d%02d%02dZ",
+                    1600 + random.nextInt(600), 1 + random.nextInt(12), 1 + random.nextInt(31),
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60))).getTime();
+            String str = basic.format(date);
+            assertEquals(str, date, TMXReader2.parseDateFast(str));
+            str = extended.format(date);
+            assertEquals(str, date, TMXReader2.parseDateFast(str));
+        }
+        assertEquals(basic.parse("20000231T000000Z").getTime(), TMXReader2.parseDateFast("20000231T000000Z"));
+
+        // left to SimpleDateFormat
+        assertEquals(Long.MIN_VALUE, TMXReader2.parseDateFast("20261301T000000Z"));
+        assertEquals(Long.MIN_VALUE, TMXReader2.parseDateFast("2026-01-01T00:00:00+01:00"));
+        assertEquals(Long.MIN_VALUE, TMXReader2.parseDateFast("2026010xT000000Z"));
+        assertEquals(Long.MIN_VALUE, TMXReader2.parseDateFast("15821010T000000Z"));
+    }
 }